@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package org.openrefine.benchmark.recon;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectMetadata;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.commands.recon.GuessTypesOfColumnCommand;
+import com.google.refine.io.FileProjectManager;
+import com.google.refine.model.AbstractOperation;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.ModelException;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.ReconCandidate;
+import com.google.refine.model.Row;
+import com.google.refine.model.recon.ReconciledDataExtensionJob;
+import com.google.refine.model.recon.ReconciledDataExtensionJob.DataExtensionConfig;
+import com.google.refine.model.recon.StandardReconConfig;
+import com.google.refine.operations.recon.ExtendDataOperation;
+import com.google.refine.operations.recon.ReconOperation;
+import com.google.refine.process.Process;
+
+/**
+ * Measures the reconciliation pipeline against a {@link StubReconService}: reconciling a column, extending it with data
+ * from the service and guessing its types. Besides the operations per second, JMH reports the number of distinct values
+ * (queries or entities) sent to the service per second as the {@code values} counter, and the 99th percentile of the
+ * batch latency is printed at the end of each iteration.
+ * <p>
+ * Run with {@code java -jar openrefine-benchmarks.jar ReconPipelineBenchmark -p latency=50}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ReconPipelineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServicePlan {
+
+        /**
+         * Time taken by the service to answer a batch, in milliseconds
+         */
+        @Param({ "0", "50" })
+        public long latency;
+
+        /**
+         * Probability for a batch to fail
+         */
+        @Param({ "0.0" })
+        public double errorRate;
+
+        @Param({ "3" })
+        public int candidates;
+
+        @Param({ "2000" })
+        public int rows;
+
+        /**
+         * Number of distinct values in the reconciled column: the others are repetitions
+         */
+        @Param({ "1000" })
+        public int distinctValues;
+
+        StubReconService service;
+        File workspace;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            workspace = Files.createTempDirectory("refine-benchmark").toFile();
+            FileProjectManager.initialize(workspace);
+
+            service = new StubReconService();
+            service.setLatency(latency);
+            service.setErrorRate(errorRate);
+            service.setCandidateCount(candidates);
+            service.start();
+        }
+
+        @TearDown(Level.Iteration)
+        public void reportIteration() {
+            System.out.printf("%n%d values in %d batches, p99 batch latency %.1f ms%n",
+                    service.getValueCount(), service.getBatchCount(), service.getBatchLatencyPercentile(99));
+            service.resetStats();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            service.stop();
+            ProjectManager.singleton.dispose();
+            ProjectManager.singleton = null;
+            FileUtils.deleteQuietly(workspace);
+        }
+    }
+
+    /**
+     * A fresh project for each invocation, with a column of names to reconcile and a column of entities which are
+     * already matched, to extend.
+     */
+    @State(Scope.Thread)
+    public static class ProjectPlan {
+
+        Project project;
+
+        @Setup(Level.Invocation)
+        public void setUp(ServicePlan plan) throws ModelException {
+            project = new Project();
+            ProjectMetadata metadata = new ProjectMetadata();
+            metadata.setName("recon benchmark");
+            ProjectManager.singleton.registerProject(project, metadata);
+
+            project.columnModel.addColumn(0, new Column(project.columnModel.allocateNewCellIndex(), "name"), true);
+            project.columnModel.addColumn(1, new Column(project.columnModel.allocateNewCellIndex(), "entity"), true);
+            for (int i = 0; i < plan.rows; i++) {
+                int v = i % plan.distinctValues;
+                Recon recon = new Recon(0L, plan.service.getIdentifierSpace(), plan.service.getSchemaSpace());
+                recon.service = plan.service.getUrl();
+                recon.match = new ReconCandidate("Q" + v, "entity " + v, new String[] { "Q5" }, 100);
+                recon.judgment = Recon.Judgment.Matched;
+
+                Row row = new Row(2);
+                row.setCell(0, new Cell("entity " + v, null));
+                row.setCell(1, new Cell("entity " + v, recon));
+                project.rows.add(row);
+            }
+            project.update();
+
+            ReconciledDataExtensionJob.clearCache();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            ProjectManager.singleton.deleteProject(project.id);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long values;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            values = 0;
+        }
+    }
+
+    /**
+     * Exposes the type guessing of the command, which is otherwise only reachable through an HTTP request.
+     */
+    static class TypeGuesser extends GuessTypesOfColumnCommand {
+
+        TypeGuesser(int sampleSize) {
+            setSampleSize(sampleSize);
+        }
+
+        int guess(Project project, Column column, String serviceUrl) throws IOException {
+            return guessTypes(project, column, serviceUrl).size();
+        }
+    }
+
+    @Benchmark
+    public void reconcile(ServicePlan plan, ProjectPlan projectPlan, Counters counters) throws Exception {
+        StandardReconConfig config = new StandardReconConfig(plan.service.getUrl(),
+                plan.service.getIdentifierSpace(), plan.service.getSchemaSpace(),
+                null, true, 10, Collections.emptyList(), plan.candidates);
+        config.setBypassCache(true);
+        run(new ReconOperation(EngineConfig.defaultRowBased(), "name", config), projectPlan.project);
+        counters.values += plan.distinctValues;
+    }
+
+    @Benchmark
+    public void extendData(ServicePlan plan, ProjectPlan projectPlan, Counters counters) throws Exception {
+        DataExtensionConfig extension = DataExtensionConfig.reconstruct(
+                "{\"properties\":[{\"id\":\"P17\",\"name\":\"country\"},{\"id\":\"P31\",\"name\":\"instance of\"}]}");
+        run(new ExtendDataOperation(EngineConfig.defaultRowBased(), "entity", plan.service.getUrl(),
+                plan.service.getIdentifierSpace(), plan.service.getSchemaSpace(), extension, 2, null), projectPlan.project);
+        counters.values += plan.distinctValues;
+    }
+
+    @Benchmark
+    public int guessTypes(ServicePlan plan, ProjectPlan projectPlan, Counters counters) throws Exception {
+        Project project = projectPlan.project;
+        int typeCount = new TypeGuesser(plan.distinctValues)
+                .guess(project, project.columnModel.getColumnByName("name"), plan.service.getUrl());
+        counters.values += plan.distinctValues;
+        return typeCount;
+    }
+
+    static protected void run(AbstractOperation operation, Project project) throws Exception {
+        Process process = operation.createProcess(project, new Properties());
+        if (process.isImmediate()) {
+            process.performImmediate();
+            return;
+        }
+        process.startPerforming(project.getProcessManager());
+        while (process.isRunning()) {
+            Thread.sleep(5);
+        }
+    }
+}
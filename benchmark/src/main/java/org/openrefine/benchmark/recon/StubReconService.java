@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package org.openrefine.benchmark.recon;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+/**
+ * An in-process reconciliation service, to measure the throughput of the reconciliation pipeline without depending on a
+ * live service. It listens on an ephemeral port of the loopback interface, answers after a configurable latency, fails
+ * a configurable share of the requests and returns a configurable number of candidates per query.
+ * <p>
+ * The time spent on each batch (as observed by the service, latency included) is recorded, so that percentiles can be
+ * reported along with the throughput.
+ */
+public class StubReconService {
+
+    protected final Server _server;
+    protected final ServerConnector _connector;
+
+    protected volatile long _latency = 0;
+    protected volatile double _errorRate = 0.0;
+    protected volatile int _candidateCount = 3;
+
+    protected final AtomicLong _values = new AtomicLong();
+    protected long[] _batchNanos = new long[1024];
+    protected int _batchCount = 0;
+
+    public StubReconService() {
+        _server = new Server();
+        _connector = new ServerConnector(_server);
+        _connector.setHost("127.0.0.1");
+        _connector.setPort(0);
+        _server.addConnector(_connector);
+
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(new StubReconServlet(this)), "/*");
+        _server.setHandler(context);
+    }
+
+    public void start() throws Exception {
+        _server.start();
+    }
+
+    public void stop() throws Exception {
+        _server.stop();
+    }
+
+    /**
+     * @return the URL of the service endpoint, once started
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + _connector.getLocalPort() + "/api";
+    }
+
+    public String getIdentifierSpace() {
+        return StubReconServlet.IDENTIFIER_SPACE;
+    }
+
+    public String getSchemaSpace() {
+        return StubReconServlet.SCHEMA_SPACE;
+    }
+
+    /**
+     * @param latency
+     *            the time to wait before answering each batch, in milliseconds
+     */
+    public void setLatency(long latency) {
+        _latency = latency;
+    }
+
+    public long getLatency() {
+        return _latency;
+    }
+
+    /**
+     * @param errorRate
+     *            the probability for a batch to fail with an HTTP 500 error, between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        _errorRate = errorRate;
+    }
+
+    public double getErrorRate() {
+        return _errorRate;
+    }
+
+    public void setCandidateCount(int candidateCount) {
+        _candidateCount = candidateCount;
+    }
+
+    public int getCandidateCount() {
+        return _candidateCount;
+    }
+
+    protected synchronized void recordBatch(int values, long nanos) {
+        _values.addAndGet(values);
+        if (_batchCount == _batchNanos.length) {
+            _batchNanos = Arrays.copyOf(_batchNanos, _batchCount * 2);
+        }
+        _batchNanos[_batchCount++] = nanos;
+    }
+
+    /**
+     * @return the number of values (queries or entities) served since the last reset
+     */
+    public long getValueCount() {
+        return _values.get();
+    }
+
+    public synchronized int getBatchCount() {
+        return _batchCount;
+    }
+
+    /**
+     * @param percentile
+     *            between 0 and 100
+     * @return the given percentile of the batch latencies recorded since the last reset, in milliseconds
+     */
+    public synchronized double getBatchLatencyPercentile(double percentile) {
+        if (_batchCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(_batchNanos, _batchCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    public synchronized void resetStats() {
+        _values.set(0);
+        _batchCount = 0;
+    }
+}
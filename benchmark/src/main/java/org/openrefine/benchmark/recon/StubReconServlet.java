@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package org.openrefine.benchmark.recon;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * A minimal implementation of the reconciliation API: manifest, reconciliation queries and data extension. Candidates
+ * and property values are derived from the query text and entity ids, so that results are stable across runs. Responses
+ * are streamed as they are generated, so that the cost of the stand-in stays small compared to the client's.
+ */
+public class StubReconServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 6165438325873716563L;
+
+    static final String IDENTIFIER_SPACE = "http://stub.recon/entity/";
+    static final String SCHEMA_SPACE = "http://stub.recon/prop/";
+    static final String[] TYPES = { "Q5", "Q515", "Q43229" };
+
+    final protected StubReconService _service;
+
+    public StubReconServlet(StubReconService service) {
+        _service = service;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        doPost(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String queries = request.getParameter("queries");
+        String extend = request.getParameter("extend");
+        if (queries == null && extend == null) {
+            respondManifest(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (_service.getLatency() > 0) {
+                Thread.sleep(_service.getLatency());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < _service.getErrorRate()) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Simulated failure");
+            _service.recordBatch(0, System.nanoTime() - start);
+            return;
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        int values;
+        try (JsonGenerator writer = ParsingUtilities.mapper.getFactory().createGenerator(response.getOutputStream())) {
+            if (queries != null) {
+                values = writeReconResults(writer, ParsingUtilities.evaluateJsonStringToObjectNode(queries));
+            } else {
+                values = writeExtendResults(writer, ParsingUtilities.evaluateJsonStringToObjectNode(extend));
+            }
+        }
+        _service.recordBatch(values, System.nanoTime() - start);
+    }
+
+    protected void respondManifest(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator writer = ParsingUtilities.mapper.getFactory().createGenerator(response.getOutputStream())) {
+            writer.writeStartObject();
+            writer.writeStringField("name", "Stub reconciliation service");
+            writer.writeStringField("identifierSpace", IDENTIFIER_SPACE);
+            writer.writeStringField("schemaSpace", SCHEMA_SPACE);
+            writer.writeArrayFieldStart("versions");
+            writer.writeString("0.2");
+            writer.writeEndArray();
+            writer.writeObjectFieldStart("extend");
+            writer.writeObjectFieldStart("propose_properties");
+            writer.writeStringField("service_url", "");
+            writer.writeStringField("service_path", "");
+            writer.writeEndObject();
+            writer.writeEndObject();
+            writer.writeEndObject();
+        }
+    }
+
+    /**
+     * Returns {@link StubReconService#getCandidateCount()} candidates for each query, with decreasing scores. The first
+     * one is flagged as a match.
+     */
+    protected int writeReconResults(JsonGenerator writer, ObjectNode queries) throws IOException {
+        int candidateCount = _service.getCandidateCount();
+        writer.writeStartObject();
+        Iterator<Map.Entry<String, JsonNode>> fields = queries.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String query = entry.getValue().path("query").asText("");
+            int limit = entry.getValue().path("limit").asInt(candidateCount);
+            int hash = query.hashCode() & 0x7fffffff;
+
+            writer.writeObjectFieldStart(entry.getKey());
+            writer.writeArrayFieldStart("result");
+            for (int i = 0; i < Math.min(candidateCount, limit); i++) {
+                writer.writeStartObject();
+                writer.writeStringField("id", "Q" + (hash + i));
+                writer.writeStringField("name", i == 0 ? query : query + " (" + i + ")");
+                writer.writeArrayFieldStart("type");
+                String type = TYPES[(hash + i) % TYPES.length];
+                writer.writeStartObject();
+                writer.writeStringField("id", type);
+                writer.writeStringField("name", type);
+                writer.writeEndObject();
+                writer.writeEndArray();
+                writer.writeNumberField("score", 100.0 / (i + 1));
+                writer.writeBooleanField("match", i == 0);
+                writer.writeEndObject();
+            }
+            writer.writeEndArray();
+            writer.writeEndObject();
+        }
+        writer.writeEndObject();
+        return queries.size();
+    }
+
+    /**
+     * Returns one string value per requested property and entity.
+     */
+    protected int writeExtendResults(JsonGenerator writer, ObjectNode extend) throws IOException {
+        JsonNode ids = extend.path("ids");
+        JsonNode properties = extend.path("properties");
+
+        writer.writeStartObject();
+        writer.writeArrayFieldStart("meta");
+        for (JsonNode property : properties) {
+            String pid = property.path("id").asText();
+            writer.writeStartObject();
+            writer.writeStringField("id", pid);
+            writer.writeStringField("name", pid);
+            writer.writeEndObject();
+        }
+        writer.writeEndArray();
+
+        writer.writeObjectFieldStart("rows");
+        for (JsonNode id : ids) {
+            writer.writeObjectFieldStart(id.asText());
+            for (JsonNode property : properties) {
+                String pid = property.path("id").asText();
+                writer.writeArrayFieldStart(pid);
+                writer.writeStartObject();
+                writer.writeStringField("str", pid + " of " + id.asText());
+                writer.writeEndObject();
+                writer.writeEndArray();
+            }
+            writer.writeEndObject();
+        }
+        writer.writeEndObject();
+        writer.writeEndObject();
+        return ids.size();
+    }
+}
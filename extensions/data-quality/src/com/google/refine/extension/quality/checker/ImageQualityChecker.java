@@ -24,7 +24,9 @@ package com.google.refine.extension.quality.checker;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.math.BigInteger;
@@ -34,13 +36,20 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -58,6 +67,7 @@ import com.google.refine.extension.quality.model.ImageCheckItem;
 import com.google.refine.extension.quality.model.ImageQualityRule;
 import com.google.refine.extension.quality.model.QualityRulesConfig;
 import com.google.refine.extension.quality.model.ResourceCheckConfig;
+import com.google.refine.extension.quality.task.QualityCheckTask.TaskStatus;
 import com.google.refine.extension.quality.util.ResourcePathBuilder;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
@@ -74,6 +84,15 @@ public class ImageQualityChecker {
     private static final long RETRY_DELAY_MS = 2000;
     private static final String INTERFACE_MODE_7998 = "7998";
     private static final String INTERFACE_MODE_7999 = "7999";
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final int MAX_CONCURRENCY = 32;
+    private static final FilenameFilter IMAGE_FILTER = (dir, name) -> {
+        String lowerName = name.toLowerCase();
+        return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") ||
+               lowerName.endsWith(".png") || lowerName.endsWith(".tif") ||
+               lowerName.endsWith(".tiff") || lowerName.endsWith(".bmp") ||
+               lowerName.endsWith(".gif") || lowerName.endsWith(".webp");
+    };
 
     private final Project project;
     private final QualityRulesConfig rules;
@@ -81,7 +100,8 @@ public class ImageQualityChecker {
     private final String interfaceMode;
     private final int connectTimeout;
     private final int readTimeout;
-    private boolean taskCreated = false;
+    private volatile boolean taskCreated = false;
+    private int concurrency = DEFAULT_CONCURRENCY;
     private com.google.refine.extension.quality.task.QualityCheckTask task;
 
     public ImageQualityChecker(Project project, QualityRulesConfig rules, String aimpEndpoint) {
@@ -123,6 +143,13 @@ public class ImageQualityChecker {
         this.task = task;
     }
 
+    /**
+     * 设置同时发送给AIMP的检测请求数
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, Math.min(MAX_CONCURRENCY, concurrency));
+    }
+
     public CheckResult runCheck() {
         CheckResult result = new CheckResult("image_quality");
         
@@ -188,188 +215,151 @@ public class ImageQualityChecker {
 
         this.resetTaskCreated();
 
-        if (task != null) {
-            for (int rowIndex = 0; rowIndex < totalRows; rowIndex++) {
-                Row row = project.rows.get(rowIndex);
-                String resourcePath = ResourcePathBuilder.buildResourcePath(row, columnIndexMap, resourceConfig, separator);
-
-                if (resourcePath == null || resourcePath.isEmpty()) {
-                    continue;
-                }
-
-                File folder = new File(resourcePath);
-                if (!folder.exists() || !folder.isDirectory()) {
-                    continue;
-                }
-
-                File[] imageFiles = folder.listFiles((dir, name) -> {
-                    String lowerName = name.toLowerCase();
-                    return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") ||
-                           lowerName.endsWith(".png") || lowerName.endsWith(".tif") ||
-                           lowerName.endsWith(".tiff") || lowerName.endsWith(".bmp") ||
-                           lowerName.endsWith(".gif") || lowerName.endsWith(".webp");
-                });
-
-                if (imageFiles != null) {
-                    totalImageCount += imageFiles.length;
-                }
+        // 只扫描一次文件夹，计数和检测共用同一份文件列表
+        RowImages[] rowImages = scanImageFolders(columnIndexMap, resourceConfig, separator);
+        for (RowImages entry : rowImages) {
+            if (entry.images != null) {
+                totalImageCount += entry.images.length;
             }
+        }
+        if (task != null) {
             task.setImageQualityCheckTotal(totalImageCount);
             task.setImageQualityCheckProcessed(0);
         }
 
-        logger.info("开始遍历所有行，共 " + totalRows + " 行，总图像数: " + totalImageCount);
-
-        for (int rowIndex = 0; rowIndex < totalRows; rowIndex++) {
-            logger.info("========================================");
-            logger.info("[外层循环] 开始处理第 " + (rowIndex + 1) + "/" + totalRows + " 行");
-            logger.info("========================================");
-
-            if (task != null && task.shouldStop()) {
-                logger.warn("[外层循环] 任务被终止，停止处理，停在第 " + rowIndex + " 行");
-                result.setCheckedRows(rowIndex);
-                result.setPassedRows(passedRows);
-                result.setFailedRows(failedRows);
-                return result;
-            }
-
-            while (task != null && task.isPaused() && !task.shouldStop()) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("[外层循环] 暂停等待被中断");
-                    break;
-                }
-            }
-
-            Row row = project.rows.get(rowIndex);
-            String resourcePath = ResourcePathBuilder.buildResourcePath(row, columnIndexMap, resourceConfig, separator);
+        logger.info("开始遍历所有行，共 " + totalRows + " 行，总图像数: " + totalImageCount + "，并发检测数: " + concurrency);
 
-            logger.info("[外层循环] 第 " + rowIndex + " 行 resourcePath=" + resourcePath);
-
-            if (resourcePath == null || resourcePath.isEmpty()) {
-                logger.warn("[外层循环] 第 " + rowIndex + " 行 resourcePath 为空，跳过");
-                checkedRows++;
-                if (task != null) {
-                    task.setCheckedRows(checkedRows);
-                }
-                continue;
-            }
-
-            File folder = new File(resourcePath);
-            logger.info("[外层循环] 第 " + rowIndex + " 行 folder.exists=" + folder.exists() + ", isDirectory=" + folder.isDirectory());
-            if (!folder.exists() || !folder.isDirectory()) {
-                logger.warn("[外层循环] 第 " + rowIndex + " 行文件夹不存在或不是目录，跳过");
-                checkedRows++;
-                if (task != null) {
-                    task.setCheckedRows(checkedRows);
+        AiCheckParams params = buildCheckParams(imageRule);
+        InspectionPipeline pipeline = new InspectionPipeline(rowImages, params);
+        int rowIndex = 0;
+        try {
+            for (; rowIndex < totalRows; rowIndex++) {
+                logger.info("========================================");
+                logger.info("[外层循环] 开始处理第 " + (rowIndex + 1) + "/" + totalRows + " 行");
+                logger.info("========================================");
+
+                if (task != null && task.shouldStop()) {
+                    logger.warn("[外层循环] 任务被终止，停止处理，停在第 " + rowIndex + " 行");
+                    return stopped(result, rowIndex, passedRows, failedRows);
                 }
-                continue;
-            }
 
-            File[] imageFiles = folder.listFiles((dir, name) -> {
-                String lowerName = name.toLowerCase();
-                return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") ||
-                       lowerName.endsWith(".png") || lowerName.endsWith(".tif") ||
-                       lowerName.endsWith(".tiff") || lowerName.endsWith(".bmp") ||
-                       lowerName.endsWith(".gif") || lowerName.endsWith(".webp");
-            });
+                waitWhilePaused(true);
 
-            logger.info("[外层循环] 第 " + rowIndex + " 行找到 " + (imageFiles != null ? imageFiles.length : 0) + " 个图片文件");
-            if (imageFiles == null || imageFiles.length == 0) {
-                logger.warn("[外层循环] 第 " + rowIndex + " 行没有图片文件，跳过");
-                checkedRows++;
-                if (task != null) {
-                    task.setCheckedRows(checkedRows);
+                RowImages entry = rowImages[rowIndex];
+                if (entry.images == null || entry.images.length == 0) {
+                    checkedRows++;
+                    if (task != null) {
+                        task.setCheckedRows(checkedRows);
+                    }
+                    continue;
                 }
-                continue;
-            }
-
-            Arrays.sort(imageFiles);
 
-            AiCheckParams params = buildCheckParams(imageRule);
-
-            boolean rowPassed = true;
-            int filesProcessed = 0;
-            for (File imageFile : imageFiles) {
-                try {
-                    logger.info("[循环开始] 处理图片 " + (filesProcessed + 1) + "/" + imageFiles.length + ": " + imageFile.getAbsolutePath());
-                    AiCheckResult aiResult = this.checkImage(imageFile, params);
-                    filesProcessed++;
-                    logger.info("[循环进度] 已处理 " + filesProcessed + "/" + imageFiles.length + " 张图片");
-                    
-                    logger.info("AIMP返回结果 - blank: " + aiResult.isBlank() + 
-                               ", rectify: " + aiResult.getRectify() + 
-                               ", dpi: " + aiResult.getDpi() + 
-                               ", kb: " + aiResult.getKb() + 
-                               ", stain: " + aiResult.hasStain() + 
-                               ", hole: " + aiResult.hasHole() + 
-                               ", edge: " + aiResult.hasEdgeRemove());
-
-                    if (aiResult.isServiceUnavailable()) {
-                        result.setServiceUnavailable(true);
-                        result.setServiceUnavailableMessage(aiResult.getServiceUnavailableMessage());
-                        logger.warn("AI服务不可用: " + aiResult.getServiceUnavailableMessage());
-                        return result;
+                Row row = project.rows.get(rowIndex);
+                String resourcePath = entry.resourcePath;
+                File[] imageFiles = entry.images;
+
+                boolean rowPassed = true;
+                int filesProcessed = 0;
+                for (File imageFile : imageFiles) {
+                    if (task != null && task.shouldStop()) {
+                        logger.warn("[外层循环] 任务被终止，停止处理，停在第 " + rowIndex + " 行");
+                        return stopped(result, rowIndex, passedRows, failedRows);
                     }
+                    waitWhilePaused(true);
 
-                    logger.info("[图像检查] 调用convertToCheckErrors，aiResult.isBlank=" + aiResult.isBlank() + 
-                               ", rectify=" + aiResult.getRectify() + ", imageFile=" + imageFile.getName());
-                    List<CheckError> errors = convertToCheckErrors(aiResult, imageFile, row, resourcePath, imageRule);
-                    logger.info("转换后的错误数量: " + errors.size());
-                    
-                    for (CheckError error : errors) {
-                        error.setRowIndex(rowIndex);
-                        result.addError(error);
-                        logger.info("添加错误 - type: " + error.getErrorType() + ", category: " + error.getCategory() + ", message: " + error.getMessage());
-                        rowPassed = false;
-                    }
-                    
-                    if (errors.isEmpty()) {
-                        logger.info("图像检查通过: " + imageFile.getName());
+                    // 按提交顺序取回结果，结果按行、按文件顺序合并
+                    ImageInspection inspection = pipeline.next();
+                    if (inspection.cancelled) {
+                        logger.warn("[外层循环] 任务被终止，停止处理，停在第 " + rowIndex + " 行");
+                        return stopped(result, rowIndex, passedRows, failedRows);
                     }
+                    filesProcessed++;
+                    logger.info("[循环进度] 已处理 " + filesProcessed + "/" + imageFiles.length + " 张图片: " + imageFile.getAbsolutePath());
 
-                    String hash = calculateFileHash(imageFile);
-                    if (hash != null) {
-                        FileInfo fileInfo = new FileInfo(resourcePath, imageFile.getName());
-                        logger.info("添加FileInfo到hashToFiles - resourcePath: {}, fileName: {}, hash: {}", 
-                            fileInfo.getResourcePath(), fileInfo.getFileName(), hash);
-                        hashToFiles.computeIfAbsent(hash, k -> new ObjectArrayList<>())
-                                   .add(fileInfo);
+                    if (inspection.error != null) {
+                        logger.warn("图像质量检查失败 for " + imageFile.getName() + ": " + inspection.error.getMessage(), inspection.error);
+                        rowPassed = false;
+                    } else {
+                        try {
+                            AiCheckResult aiResult = inspection.aiResult;
+                            logger.info("AIMP返回结果 - blank: " + aiResult.isBlank() + 
+                                       ", rectify: " + aiResult.getRectify() + 
+                                       ", dpi: " + aiResult.getDpi() + 
+                                       ", kb: " + aiResult.getKb() + 
+                                       ", stain: " + aiResult.hasStain() + 
+                                       ", hole: " + aiResult.hasHole() + 
+                                       ", edge: " + aiResult.hasEdgeRemove());
+
+                            if (aiResult.isServiceUnavailable()) {
+                                result.setServiceUnavailable(true);
+                                result.setServiceUnavailableMessage(aiResult.getServiceUnavailableMessage());
+                                logger.warn("AI服务不可用: " + aiResult.getServiceUnavailableMessage());
+                                return result;
+                            }
+
+                            logger.info("[图像检查] 调用convertToCheckErrors，aiResult.isBlank=" + aiResult.isBlank() + 
+                                       ", rectify=" + aiResult.getRectify() + ", imageFile=" + imageFile.getName());
+                            List<CheckError> errors = convertToCheckErrors(aiResult, imageFile, row, resourcePath, imageRule);
+                            logger.info("转换后的错误数量: " + errors.size());
+
+                            for (CheckError error : errors) {
+                                error.setRowIndex(rowIndex);
+                                result.addError(error);
+                                logger.info("添加错误 - type: " + error.getErrorType() + ", category: " + error.getCategory() + ", message: " + error.getMessage());
+                                rowPassed = false;
+                            }
+
+                            if (errors.isEmpty()) {
+                                logger.info("图像检查通过: " + imageFile.getName());
+                            }
+
+                            String hash = inspection.hash;
+                            if (hash != null) {
+                                FileInfo fileInfo = new FileInfo(resourcePath, imageFile.getName());
+                                logger.info("添加FileInfo到hashToFiles - resourcePath: {}, fileName: {}, hash: {}", 
+                                    fileInfo.getResourcePath(), fileInfo.getFileName(), hash);
+                                hashToFiles.computeIfAbsent(hash, k -> new ObjectArrayList<>())
+                                           .add(fileInfo);
+                            }
+
+                            if (aiResult.isBlank()) {
+                                statistics.incrementBlankPages(1);
+                            }
+
+                            String pageSize = determinePageSize(aiResult);
+                            statistics.addPageSize(pageSize);
+                        } catch (Exception e) {
+                            logger.warn("图像质量检查失败 for " + imageFile.getName() + ": " + e.getMessage(), e);
+                            rowPassed = false;
+                        }
                     }
 
-                    if (aiResult.isBlank()) {
-                        statistics.incrementBlankPages(1);
+                    if (task != null) {
+                        task.incrementImageQualityCheckProcessed();
                     }
+                }
+                logger.info("[循环完成] 文件夹 " + resourcePath + " 处理完成，共 " + imageFiles.length + " 张图片，成功处理 " + filesProcessed + " 张");
 
-                    String pageSize = determinePageSize(aiResult);
-                    statistics.addPageSize(pageSize);
-                } catch (Exception e) {
-                    logger.warn("图像质量检查失败 for " + imageFile.getName() + ": " + e.getMessage(), e);
-                    filesProcessed++;
-                    rowPassed = false;
+                if (rowPassed) {
+                    passedRows++;
+                } else {
+                    failedRows++;
                 }
-                
+                checkedRows++;
+                logger.info("更新统计 - checkedRows: {}, passedRows: {}, failedRows: {}", checkedRows, passedRows, failedRows);
+
                 if (task != null) {
-                    task.incrementImageQualityCheckProcessed();
+                    task.setCheckedRows(checkedRows);
+                    task.setPassedRows(passedRows);
+                    task.setFailedRows(failedRows);
                 }
             }
-            logger.info("[循环完成] 文件夹 " + folder.getName() + " 处理完成，共 " + imageFiles.length + " 张图片，成功处理 " + filesProcessed + " 张");
-
-            if (rowPassed) {
-                passedRows++;
-            } else {
-                failedRows++;
-            }
-            checkedRows++;
-            logger.info("更新统计 - checkedRows: {}, passedRows: {}, failedRows: {}", checkedRows, passedRows, failedRows);
-
-            if (task != null) {
-                task.setCheckedRows(checkedRows);
-                task.setPassedRows(passedRows);
-                task.setFailedRows(failedRows);
-            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("[外层循环] 等待检测结果被中断，停在第 " + rowIndex + " 行");
+            return stopped(result, rowIndex, passedRows, failedRows);
+        } finally {
+            pipeline.close();
         }
         
         logger.info("所有行处理完成，准备开始数量统计");
@@ -483,7 +473,87 @@ public class ImageQualityChecker {
         return result;
     }
 
+    /**
+     * 扫描每一行的资源文件夹，返回按文件名排序的图片文件，没有图片的行对应的文件列表为空
+     */
+    private RowImages[] scanImageFolders(Map<String, Integer> columnIndexMap, ResourceCheckConfig resourceConfig, String separator) {
+        int totalRows = project.rows.size();
+        RowImages[] rowImages = new RowImages[totalRows];
+        for (int rowIndex = 0; rowIndex < totalRows; rowIndex++) {
+            Row row = project.rows.get(rowIndex);
+            String resourcePath = ResourcePathBuilder.buildResourcePath(row, columnIndexMap, resourceConfig, separator);
+            File[] imageFiles = null;
+
+            if (resourcePath == null || resourcePath.isEmpty()) {
+                logger.warn("[扫描] 第 " + rowIndex + " 行 resourcePath 为空，跳过");
+            } else {
+                File folder = new File(resourcePath);
+                // 不存在或不是目录时listFiles返回null
+                imageFiles = folder.listFiles(IMAGE_FILTER);
+                if (imageFiles == null) {
+                    logger.warn("[扫描] 第 " + rowIndex + " 行文件夹不存在或不是目录，跳过: " + resourcePath);
+                } else if (imageFiles.length == 0) {
+                    logger.warn("[扫描] 第 " + rowIndex + " 行没有图片文件，跳过: " + resourcePath);
+                } else {
+                    Arrays.sort(imageFiles);
+                }
+            }
+            rowImages[rowIndex] = new RowImages(resourcePath, imageFiles);
+        }
+        return rowImages;
+    }
+
+    /**
+     * 任务暂停时等待恢复。由检查线程确认暂停请求，使任务进入PAUSED状态后可以通过resume()恢复
+     */
+    private void waitWhilePaused(boolean acknowledge) {
+        if (acknowledge && task != null && task.shouldPause() && task.getStatus() == TaskStatus.RUNNING) {
+            task.markPaused();
+            task.setImageQualityCheckpoint(task.getImageQualityCheckProcessed());
+            logger.info("任务已暂停，已处理 " + task.getImageQualityCheckProcessed() + " 张图片");
+        }
+        while (task != null && task.isPaused() && !task.shouldStop()) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("暂停等待被中断");
+                break;
+            }
+        }
+    }
+
+    private CheckResult stopped(CheckResult result, int checkedRows, int passedRows, int failedRows) {
+        result.setCheckedRows(checkedRows);
+        result.setPassedRows(passedRows);
+        result.setFailedRows(failedRows);
+        return result;
+    }
+
+    /**
+     * 在检测线程中检测一张图片，上传时同时计算文件哈希
+     */
+    private ImageInspection inspect(File imageFile, AiCheckParams params) {
+        ImageInspection inspection = new ImageInspection();
+        // 暂停时不再发出新的检测请求
+        waitWhilePaused(false);
+        if (task != null && task.shouldStop()) {
+            inspection.cancelled = true;
+            return inspection;
+        }
+        inspection.aiResult = checkImage(imageFile, params, inspection);
+        if (inspection.hash == null && inspection.error == null) {
+            // 上传未完成时单独读取文件计算哈希
+            inspection.hash = calculateFileHash(imageFile);
+        }
+        return inspection;
+    }
+
     public AiCheckResult checkImage(File imageFile, AiCheckParams params) {
+        return checkImage(imageFile, params, null);
+    }
+
+    private AiCheckResult checkImage(File imageFile, AiCheckParams params, ImageInspection inspection) {
         if (imageFile == null || !imageFile.exists()) {
             logger.warn("图像文件不存在: {}", imageFile);
             return createEmptyResult();
@@ -493,7 +563,14 @@ public class ImageQualityChecker {
 
         for (int attempt = 0; attempt < RETRY_COUNT; attempt++) {
             try {
-                return doCheckImage(imageFile, params);
+                return doCheckImage(imageFile, params, inspection);
+            } catch (FileModifiedException e) {
+                // 上传的内容与文件不一致，检测结果和哈希都不可用，重试也无法得到一致的结果
+                logger.warn("AI检查失败: {}", e.getMessage());
+                if (inspection != null) {
+                    inspection.error = e;
+                }
+                return createEmptyResult();
             } catch (Exception e) {
                 lastException = e;
                 logger.warn("AI检查失败 (尝试 {}/{}): {}", attempt + 1, RETRY_COUNT, e.getMessage());
@@ -517,8 +594,8 @@ public class ImageQualityChecker {
         return emptyResult;
     }
 
-    private AiCheckResult doCheckImage(File imageFile, AiCheckParams params) throws Exception {
-        return doCheckImage7998(imageFile, params);
+    private AiCheckResult doCheckImage(File imageFile, AiCheckParams params, ImageInspection inspection) throws Exception {
+        return doCheckImage7998(imageFile, params, inspection);
         // if (INTERFACE_MODE_7999.equals(interfaceMode)) {
         //     return doCheckImage7999(imageFile, params);
         // } else {
@@ -529,7 +606,7 @@ public class ImageQualityChecker {
         // }
     }
 
-    private AiCheckResult doCheckImage7998(File imageFile, AiCheckParams params) throws Exception {
+    private AiCheckResult doCheckImage7998(File imageFile, AiCheckParams params, ImageInspection inspection) throws Exception {
         logger.info("=== AIMP 7998 模式图像检测流程 ===");
         logger.info("图像文件: " + imageFile.getAbsolutePath());
         logger.info("AIMP端点: " + aimpEndpoint);
@@ -543,28 +620,16 @@ public class ImageQualityChecker {
 
             logger.info("检查任务是否已创建: " + taskCreated);
 
-            if (!taskCreated) {
-                logger.info("步骤1: 创建审核任务 - " + taskUrl);
-                logger.info("检查参数 - blank: " + params.isCheckBlank() + ", skew: " + params.isCheckSkew() + 
-                           ", stain: " + params.isCheckStain() + ", hole: " + params.isCheckHole() + 
-                           ", dpi: " + params.isCheckDpi() + ", kb: " + params.isCheckKb() + ", 篇幅统计：" + params.isCheckPageSize());
-
-                boolean createSuccess = createInspectTask(taskUrl, params);
-                if (!createSuccess) {
-                    logger.warn("创建审核任务失败，返回空结果");
-                    return result;
-                }
-                taskCreated = true;
-                logger.info("任务创建成功，已设置taskCreated标志");
-            } else {
-                logger.info("任务已存在，跳过创建步骤，直接进行检测");
+            if (!ensureInspectTask(taskUrl, params)) {
+                logger.warn("创建审核任务失败，返回空结果");
+                return result;
             }
 
             logger.info("步骤2: 发送图像检测");
             String inspectUrl = baseUrl + "/alot/chek/inspect";
             logger.info("检测URL: " + inspectUrl);
 
-            String response = sendImageToInspect(inspectUrl, imageFile, params);
+            String response = sendImageToInspect(inspectUrl, imageFile, params, inspection);
             logger.info("检测响应长度: " + response.length() + " 字符");
             logger.info("检测响应: " + response);
 
@@ -575,6 +640,8 @@ public class ImageQualityChecker {
                        ", stain: " + result.hasStain() + ", hole: " + result.hasHole() + 
                        ", edge: " + result.hasEdgeRemove() + ", house_angle: " + result.getHouseAngle());
 
+        } catch (FileModifiedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("7999 模式检测失败: " + e.getMessage(), e);
             if (isConnectionRefused(e)) {
@@ -609,6 +676,27 @@ public class ImageQualityChecker {
                lowerMessage.contains("拒绝连接");
     }
 
+    /**
+     * 创建审核任务，并发检测时只由第一个请求创建
+     */
+    private synchronized boolean ensureInspectTask(String taskUrl, AiCheckParams params) throws IOException {
+        if (taskCreated) {
+            logger.info("任务已存在，跳过创建步骤，直接进行检测");
+            return true;
+        }
+        logger.info("步骤1: 创建审核任务 - " + taskUrl);
+        logger.info("检查参数 - blank: " + params.isCheckBlank() + ", skew: " + params.isCheckSkew() + 
+                   ", stain: " + params.isCheckStain() + ", hole: " + params.isCheckHole() + 
+                   ", dpi: " + params.isCheckDpi() + ", kb: " + params.isCheckKb() + ", 篇幅统计：" + params.isCheckPageSize());
+
+        if (!createInspectTask(taskUrl, params)) {
+            return false;
+        }
+        taskCreated = true;
+        logger.info("任务创建成功，已设置taskCreated标志");
+        return true;
+    }
+
     private boolean createInspectTask(String taskUrl, AiCheckParams params) throws IOException {
         StringBuilder queryParams = new StringBuilder();
         queryParams.append("flag_blank=").append(params.isCheckBlank());
@@ -651,7 +739,11 @@ public class ImageQualityChecker {
         return false;
     }
 
-    private String sendImageToInspect(String inspectUrl, File imageFile, AiCheckParams params) throws IOException {
+    /**
+     * 以multipart方式上传图片并返回检测响应。文件按块读取并直接写入请求体，不整体载入内存；
+     * inspection不为空时，在同一次读取中计算文件的MD5哈希
+     */
+    private String sendImageToInspect(String inspectUrl, File imageFile, AiCheckParams params, ImageInspection inspection) throws IOException {
         StringBuilder queryParams = new StringBuilder();
         queryParams.append("set_sensitivity=").append(params.getSensitivity());
         queryParams.append("&set_angle=").append(params.getSkewTolerance());
@@ -669,7 +761,7 @@ public class ImageQualityChecker {
         String urlString = inspectUrl + "?" + queryParams.toString();
         logger.info("检测URL: " + urlString);
 
-        byte[] fileBytes = Files.readAllBytes(imageFile.toPath());
+        long fileLength = imageFile.length();
         String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
 
         StringBuilder bodyBuilder = new StringBuilder();
@@ -686,12 +778,30 @@ public class ImageQualityChecker {
         conn.setConnectTimeout(connectTimeout * 1000);
         conn.setReadTimeout(readTimeout * 1000);
         conn.setDoOutput(true);
+        // 指定长度后请求体直接写入连接，不在内存中缓冲
+        conn.setFixedLengthStreamingMode(bodyStart.length + fileLength + bodyEnd.length);
 
-        try (OutputStream os = conn.getOutputStream()) {
+        MessageDigest md = inspection != null ? newMd5() : null;
+        try (OutputStream os = conn.getOutputStream(); InputStream in = new FileInputStream(imageFile)) {
             os.write(bodyStart);
-            os.write(fileBytes);
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = fileLength;
+            int bytesRead;
+            while (remaining > 0 && (bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                os.write(buffer, 0, bytesRead);
+                if (md != null) {
+                    md.update(buffer, 0, bytesRead);
+                }
+                remaining -= bytesRead;
+            }
+            if (remaining > 0 || in.read() != -1) {
+                throw new FileModifiedException(imageFile);
+            }
             os.write(bodyEnd);
         }
+        if (md != null) {
+            inspection.hash = toHashString(md.digest());
+        }
 
         int responseCode = conn.getResponseCode();
         logger.info("检测响应码: " + responseCode);
@@ -1314,9 +1424,7 @@ public class ImageQualityChecker {
             while ((bytesRead = fis.read(buffer)) != -1) {
                 md.update(buffer, 0, bytesRead);
             }
-            byte[] digest = md.digest();
-            BigInteger bigInt = new BigInteger(1, digest);
-            return bigInt.toString(16);
+            return toHashString(md.digest());
         } catch (IOException e) {
             logger.warn("计算文件哈希失败: {} - {}", file.getAbsolutePath(), e.getMessage());
             return null;
@@ -1325,4 +1433,117 @@ public class ImageQualityChecker {
             return null;
         }
     }
+
+    private static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            logger.error("MD5算法不存在", e);
+            return null;
+        }
+    }
+
+    private static String toHashString(byte[] digest) {
+        BigInteger bigInt = new BigInteger(1, digest);
+        return bigInt.toString(16);
+    }
+
+    /**
+     * 一行的资源文件夹及其中排序后的图片文件
+     */
+    private static class RowImages {
+        final String resourcePath;
+        final File[] images;
+
+        RowImages(String resourcePath, File[] images) {
+            this.resourcePath = resourcePath;
+            this.images = images;
+        }
+    }
+
+    /**
+     * 文件长度在上传过程中发生变化，已上传的内容不是完整的文件
+     */
+    private static class FileModifiedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        FileModifiedException(File file) {
+            super("文件在上传过程中被修改: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 一张图片的检测结果和文件哈希
+     */
+    private static class ImageInspection {
+        AiCheckResult aiResult;
+        String hash;
+        Exception error;
+        boolean cancelled;
+    }
+
+    /**
+     * 并发检测流水线：按行、按文件顺序提交检测，最多concurrency个请求同时进行，
+     * 并在前方保留两倍于线程数的检测，调用方按提交顺序取回结果
+     */
+    private class InspectionPipeline {
+        private final RowImages[] rowImages;
+        private final AiCheckParams params;
+        private final int window;
+        private final ExecutorService executor;
+        private final Deque<Future<ImageInspection>> pending = new ArrayDeque<>();
+        private int submitRow = 0;
+        private int submitImage = 0;
+
+        InspectionPipeline(RowImages[] rowImages, AiCheckParams params) {
+            this.rowImages = rowImages;
+            this.params = params;
+            this.window = 2 * concurrency;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "image-quality-check-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * 等待下一张图片的检测结果，并补充提交后续图片
+         */
+        ImageInspection next() throws InterruptedException {
+            fill();
+            Future<ImageInspection> future = pending.poll();
+            if (future == null) {
+                throw new IllegalStateException("没有待取回的检测结果");
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                ImageInspection inspection = new ImageInspection();
+                inspection.error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                return inspection;
+            }
+        }
+
+        private void fill() {
+            while (pending.size() < window && submitRow < rowImages.length) {
+                File[] images = rowImages[submitRow].images;
+                if (images == null || submitImage >= images.length) {
+                    submitRow++;
+                    submitImage = 0;
+                    continue;
+                }
+                File imageFile = images[submitImage++];
+                pending.add(executor.submit(() -> inspect(imageFile, params)));
+            }
+        }
+
+        void close() {
+            for (Future<ImageInspection> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            executor.shutdownNow();
+        }
+    }
 }
@@ -68,6 +68,24 @@ public class GetConfigCommand extends Command {
         return getDefaultConfig();
     }
 
+    /**
+     * Get the configured thread pool size, used for concurrent AIMP requests
+     */
+    public static int getThreadPoolSize() {
+        Object value = loadConfig().get("task.threadPoolSize");
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid task.threadPoolSize: " + value);
+            }
+        }
+        return 4;
+    }
+
     /**
      * Get default configuration
      */
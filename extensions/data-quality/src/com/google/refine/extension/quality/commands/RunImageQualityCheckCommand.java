@@ -69,6 +69,7 @@ public class RunImageQualityCheckCommand extends Command {
             }
 
             ImageQualityChecker checker = new ImageQualityChecker(project, config, aimpServiceUrl);
+            checker.setConcurrency(GetConfigCommand.getThreadPoolSize());
             CheckResult result = checker.runCheck();
 
             ObjectNode jsonResult = mapper.createObjectNode();
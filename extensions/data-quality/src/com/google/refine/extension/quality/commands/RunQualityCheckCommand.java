@@ -255,6 +255,7 @@ public class RunQualityCheckCommand extends Command {
                 logger.info("Running async image quality check with AIMP service: " + aimpServiceUrl);
                 ImageQualityChecker imageChecker = new ImageQualityChecker(project, rules, aimpServiceUrl);
                 imageChecker.setTask(task); // Set task for progress updates
+                imageChecker.setConcurrency(GetConfigCommand.getThreadPoolSize());
                 imageQualityResult = imageChecker.runCheck();
                 task.setImageQualityErrors(imageQualityResult.getErrors().size());
                 totalErrors += imageQualityResult.getErrors().size();
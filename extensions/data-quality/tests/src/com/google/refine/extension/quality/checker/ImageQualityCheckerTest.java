@@ -0,0 +1,205 @@
+package com.google.refine.extension.quality.checker;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.quality.model.CheckResult;
+import com.google.refine.extension.quality.model.CheckResult.CheckError;
+import com.google.refine.extension.quality.model.ImageCheckCategory;
+import com.google.refine.extension.quality.model.ImageCheckItem;
+import com.google.refine.extension.quality.model.ImageQualityRule;
+import com.google.refine.extension.quality.model.QualityRulesConfig;
+import com.google.refine.extension.quality.model.ResourceCheckConfig;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class ImageQualityCheckerTest {
+
+    private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]+)\"");
+    // larger than the socket buffers, so the upload is still being read when the stub receives it
+    private static final int LARGE_FILE_SIZE = 32 * 1024 * 1024;
+
+    private Path dir;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private Map<String, File> uploads;
+    private AtomicInteger inspectRequests;
+    private volatile File truncateOnUpload;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("data-quality-images");
+        uploads = new ConcurrentHashMap<>();
+        inspectRequests = new AtomicInteger();
+        truncateOnUpload = null;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/alot/chek", exchange -> respond(exchange, "{}"));
+        server.createContext("/alot/chek/inspect", this::inspect);
+        server.start();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testResultsAreMergedInOrderFromASingleRead() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            File image = image("r" + i, "p" + i + ".jpg", "same content".getBytes(StandardCharsets.UTF_8));
+            expected.add(image.getParent() + image.getName());
+        }
+
+        CheckResult result = check(project("r0", "r1", "r2", "r3", "r4", "r5"));
+
+        assertEquals(inspectRequests.get(), 6);
+        assertEquals(result.getCheckedRows(), 6);
+        assertEquals(result.getPassedRows(), 6);
+        assertEquals(result.getFailedRows(), 0);
+        // the stub deletes each image once it is uploaded: the duplicates are only found if the
+        // hashes were computed while uploading, and they are listed in row order although the
+        // responses arrive in reverse order
+        assertEquals(result.getErrors().size(), 1);
+        CheckError error = result.getErrors().get(0);
+        assertEquals(error.getErrorType(), "repeat_image");
+        assertEquals(error.getDuplicateImagePaths(), expected);
+    }
+
+    @Test
+    public void testFileModifiedDuringUploadFailsTheRow() throws Exception {
+        image("r0", "a.jpg", "first".getBytes(StandardCharsets.UTF_8));
+        truncateOnUpload = image("r1", "large.jpg", new byte[LARGE_FILE_SIZE]);
+        image("r2", "b.jpg", "second".getBytes(StandardCharsets.UTF_8));
+
+        CheckResult result = check(project("r0", "r1", "r2"));
+
+        // the upload is not retried with the modified file
+        assertEquals(inspectRequests.get(), 3);
+        assertEquals(result.getCheckedRows(), 3);
+        assertEquals(result.getPassedRows(), 2);
+        assertEquals(result.getFailedRows(), 1);
+        assertFalse(result.isServiceUnavailable());
+    }
+
+    private CheckResult check(Project project) {
+        ResourceCheckConfig resourceConfig = new ResourceCheckConfig();
+        resourceConfig.setBasePath(dir.toString());
+        resourceConfig.setPathFields(Arrays.asList("folder"));
+        resourceConfig.setSeparator("/");
+
+        ImageCheckItem repeat = new ImageCheckItem();
+        repeat.setItemCode("repeat_image");
+        ImageCheckCategory category = new ImageCheckCategory();
+        category.getItems().add(repeat);
+        ImageQualityRule rule = new ImageQualityRule();
+        rule.setCategories(new ArrayList<>(Arrays.asList(category)));
+
+        QualityRulesConfig rules = new QualityRulesConfig();
+        rules.setResourceConfig(resourceConfig);
+        rules.setImageQualityRule(rule);
+
+        ImageQualityChecker checker = new ImageQualityChecker(project, rules,
+                "http://127.0.0.1:" + server.getAddress().getPort());
+        checker.setConcurrency(3);
+        return checker.runCheck();
+    }
+
+    private void inspect(HttpExchange exchange) throws IOException {
+        int arrival = inspectRequests.incrementAndGet();
+        File truncated = truncateOnUpload;
+        if (truncated != null && Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Length")) > LARGE_FILE_SIZE) {
+            try (RandomAccessFile file = new RandomAccessFile(truncated, "rw")) {
+                file.setLength(0);
+            }
+        }
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            // the client gave up on the modified file
+            exchange.close();
+            return;
+        }
+        Matcher matcher = FILE_NAME.matcher(body);
+        if (matcher.find()) {
+            File uploaded = uploads.get(matcher.group(1));
+            if (uploaded != null) {
+                uploaded.delete();
+            }
+        }
+        try {
+            // answer the first requests of each batch last
+            Thread.sleep(Math.max(0, 4 - arrival) * 100L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        respond(exchange, "{}");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private File image(String folder, String name, byte[] content) throws IOException {
+        Path file = Files.createDirectories(dir.resolve(folder)).resolve(name);
+        Files.write(file, content);
+        uploads.put(name, file.toFile());
+        return file.toFile();
+    }
+
+    private static Project project(String... folders) throws Exception {
+        Project project = new Project();
+        project.columnModel.addColumn(0, new Column(0, "folder"), false);
+        for (String folder : folders) {
+            Row row = new Row(1);
+            row.setCell(0, new Cell(folder, null));
+            project.rows.add(row);
+        }
+        return project;
+    }
+}
@@ -19,6 +19,8 @@ function registerCommands() {
       new Packages.com.google.refine.extension.records.assets.PreviewCommand());
   RS.registerCommand(module, "file",
       new Packages.com.google.refine.extension.records.assets.FileCommand());
+  RS.registerCommand(module, "thumbnail",
+      new Packages.com.google.refine.extension.records.assets.ThumbnailCommand());
 
   logger.trace("Records-Assets Extension Command Registration done!!");
 }
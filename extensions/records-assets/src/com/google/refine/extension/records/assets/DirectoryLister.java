@@ -10,9 +10,7 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -74,46 +72,44 @@ public class DirectoryLister {
             return result;
         }
 
-        File dir = new File(fullPath);
-        if (!dir.exists()) {
+        Path dir = Paths.get(fullPath);
+        BasicFileAttributes dirAttrs;
+        try {
+            dirAttrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        } catch (IOException e) {
             JSONUtilities.safePut(result, "status", "error");
             JSONUtilities.safePut(result, "message", "目录不存在: " + fullPath);
             JSONUtilities.safePut(result, "errorPath", fullPath);
             return result;
         }
 
-        if (!dir.isDirectory()) {
+        if (!dirAttrs.isDirectory()) {
             JSONUtilities.safePut(result, "status", "error");
             JSONUtilities.safePut(result, "message", "路径不是目录: " + fullPath);
             JSONUtilities.safePut(result, "errorPath", fullPath);
             return result;
         }
 
-        // List files
-        File[] files = dir.listFiles();
-        if (files == null) {
+        // List files, sorted with directories first
+        DirectoryListingCache.Listing listing;
+        try {
+            listing = DirectoryListingCache.getInstance().getListing(dir, dirAttrs);
+        } catch (IOException e) {
+            logger.warn("Cannot read directory {}: {}", fullPath, e.getMessage());
             JSONUtilities.safePut(result, "status", "error");
             JSONUtilities.safePut(result, "message", "Cannot read directory");
             return result;
         }
 
-        // Sort files
-        Arrays.sort(files, (a, b) -> {
-            if (a.isDirectory() != b.isDirectory()) {
-                return a.isDirectory() ? -1 : 1;
-            }
-            return a.getName().compareTo(b.getName());
-        });
-
         // Apply pagination
-        int totalCount = files.length;
+        int totalCount = listing.items.length;
         int start = Math.min(offset, totalCount);
         int end = Math.min(start + limit, totalCount);
         
         ArrayNode items = ParsingUtilities.mapper.createArrayNode();
         for (int i = start; i < end; i++) {
-            File file = files[i];
-            ObjectNode item = createFileItem(file, root, path, depth);
+            DirectoryListingCache.Item file = listing.items[i];
+            ObjectNode item = createFileItem(dir, file, root, path, depth);
             items.add(item);
         }
 
@@ -135,31 +131,31 @@ public class DirectoryLister {
     /**
      * Create file item object
      */
-    private static ObjectNode createFileItem(File file, String root, String parentPath, int depth) {
+    private static ObjectNode createFileItem(Path dir, DirectoryListingCache.Item file, String root,
+            String parentPath, int depth) {
         ObjectNode item = ParsingUtilities.mapper.createObjectNode();
 
-        JSONUtilities.safePut(item, "name", file.getName());
-        JSONUtilities.safePut(item, "type", file.isDirectory() ? "directory" : "file");
-        JSONUtilities.safePut(item, "isDirectory", file.isDirectory());
-        JSONUtilities.safePut(item, "size", file.length());
-        JSONUtilities.safePut(item, "modified", file.lastModified());
+        JSONUtilities.safePut(item, "name", file.name);
+        JSONUtilities.safePut(item, "type", file.directory ? "directory" : "file");
+        JSONUtilities.safePut(item, "isDirectory", file.directory);
+        JSONUtilities.safePut(item, "size", file.size);
+        JSONUtilities.safePut(item, "modified", file.modified);
         
         // Build relative path
         String relativePath = parentPath != null && !parentPath.isEmpty() 
-            ? parentPath + "/" + file.getName()
-            : file.getName();
+            ? parentPath + "/" + file.name
+            : file.name;
         JSONUtilities.safePut(item, "path", relativePath);
         
         // Add MIME type for files
-        if (file.isFile()) {
-            String mimeType = getMimeType(file.getName());
+        if (file.file) {
+            String mimeType = getMimeType(file.name);
             JSONUtilities.safePut(item, "mimeType", mimeType);
         }
         
-        // Add hasChildren flag for directories
-        if (file.isDirectory()) {
-            File[] children = file.listFiles();
-            JSONUtilities.safePut(item, "hasChildren", children != null && children.length > 0);
+        // Add hasChildren flag for directories, reading only their first entry
+        if (file.directory) {
+            JSONUtilities.safePut(item, "hasChildren", DirectoryListingCache.hasChildren(dir.resolve(file.name)));
         }
         
         return item;
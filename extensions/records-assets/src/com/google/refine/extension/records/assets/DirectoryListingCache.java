@@ -0,0 +1,315 @@
+/*
+ * Directory Listing Cache
+ */
+
+package com.google.refine.extension.records.assets;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches sorted directory listings, keyed by canonical path.
+ *
+ * A listing is read in a single pass over a directory stream, reading the attributes of each
+ * entry once. A cached listing is reused as long as the modification time of the directory is
+ * unchanged and, where the file system supports it, no change was reported for the directory by
+ * a WatchService. Listings of directories which cannot be watched, such as most network shares,
+ * are also reloaded after a short time, since their modification time does not reflect changes
+ * to the files they contain. The total number of cached entries, the number of listings and the
+ * number of watched directories are bounded, evicting the least recently used listings first and
+ * cancelling their watch.
+ */
+class DirectoryListingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger("DirectoryListingCache");
+
+    private static final int MAX_CACHED_ITEMS = 200000;
+    private static final int MAX_LISTINGS = 1000;
+    // each watch uses an inotify watch on Linux, which are limited per user
+    private static final int MAX_WATCHED_LISTINGS = 256;
+    private static final long UNWATCHED_MAX_AGE = 30 * 1000L; // 30 seconds
+
+    private static final DirectoryListingCache instance = new DirectoryListingCache(
+            MAX_CACHED_ITEMS, MAX_LISTINGS, MAX_WATCHED_LISTINGS, UNWATCHED_MAX_AGE);
+
+    private final int maxCachedItems;
+    private final int maxListings;
+    private final int maxWatchedListings;
+    private final long unwatchedMaxAge;
+
+    private final Map<String, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedItems = 0;
+    private int watchedListings = 0;
+    private WatchService watchService;
+    private boolean watchServiceUnavailable = false;
+
+    DirectoryListingCache(int maxCachedItems, int maxListings, int maxWatchedListings, long unwatchedMaxAge) {
+        this.maxCachedItems = maxCachedItems;
+        this.maxListings = maxListings;
+        this.maxWatchedListings = maxWatchedListings;
+        this.unwatchedMaxAge = unwatchedMaxAge;
+    }
+
+    static DirectoryListingCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * An entry of a directory, with the attributes read when the directory was listed
+     */
+    static class Item {
+
+        final String name;
+        final boolean directory;
+        final boolean file;
+        final long size;
+        final long modified;
+
+        Item(String name, boolean directory, boolean file, long size, long modified) {
+            this.name = name;
+            this.directory = directory;
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * The entries of a directory, directories first, then by name
+     */
+    static class Listing {
+
+        final Item[] items;
+        final long modified;
+        final long loadedAt;
+        final WatchKey watchKey;
+
+        Listing(Item[] items, long modified, WatchKey watchKey) {
+            this.items = items;
+            this.modified = modified;
+            this.loadedAt = System.currentTimeMillis();
+            this.watchKey = watchKey;
+        }
+
+        boolean isValid(long currentModified, long unwatchedMaxAge) {
+            if (currentModified != modified) {
+                return false;
+            }
+            if (watchKey == null) {
+                return System.currentTimeMillis() - loadedAt < unwatchedMaxAge;
+            }
+            // events accumulate in the key until they are polled
+            return watchKey.isValid() && watchKey.pollEvents().isEmpty();
+        }
+    }
+
+    /**
+     * Get the listing of a directory, reading it if it is not cached or has changed.
+     *
+     * @param dir
+     *            canonical path of the directory
+     * @param attrs
+     *            current attributes of the directory
+     */
+    Listing getListing(Path dir, BasicFileAttributes attrs) throws IOException {
+        String key = dir.toString();
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        synchronized (this) {
+            Listing listing = listings.get(key);
+            if (listing != null) {
+                if (listing.isValid(modified, unwatchedMaxAge)) {
+                    return listing;
+                }
+                remove(key, listing);
+            }
+        }
+
+        // watch before reading, so that changes made while reading invalidate the listing
+        WatchKey watchKey = watch(dir);
+        Listing listing;
+        try {
+            listing = new Listing(readListing(dir), modified, watchKey);
+        } catch (IOException | RuntimeException e) {
+            if (watchKey != null) {
+                synchronized (this) {
+                    // the key is shared with any listing of the same directory cached meanwhile
+                    Listing cached = listings.get(key);
+                    if (cached == null || cached.watchKey != watchKey) {
+                        watchKey.cancel();
+                    }
+                }
+            }
+            throw e;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Listed {} entries of {} (watched: {})", listing.items.length, key, watchKey != null);
+        }
+
+        synchronized (this) {
+            Listing previous = listings.get(key);
+            if (previous != null) {
+                forget(previous, listing.watchKey);
+            }
+            listings.put(key, listing);
+            cachedItems += listing.items.length;
+            if (listing.watchKey != null) {
+                watchedListings++;
+            }
+            evictIfNeeded(key);
+        }
+        return listing;
+    }
+
+    /**
+     * Whether a directory has at least one entry. Only the first entry is read.
+     */
+    static boolean hasChildren(Path dir) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            return stream.iterator().hasNext();
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static Item[] readListing(Path dir) throws IOException {
+        List<Item> items = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                items.add(readItem(entry));
+            }
+        }
+        Item[] sorted = items.toArray(new Item[0]);
+        Arrays.sort(sorted, (a, b) -> {
+            if (a.directory != b.directory) {
+                return a.directory ? -1 : 1;
+            }
+            return a.name.compareTo(b.name);
+        });
+        return sorted;
+    }
+
+    private static Item readItem(Path entry) {
+        String name = entry.getFileName().toString();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // broken symbolic link, or an entry removed while listing
+            try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e2) {
+                return new Item(name, false, false, 0L, 0L);
+            }
+            return new Item(name, false, false, 0L, attrs.lastModifiedTime().toMillis());
+        }
+        return new Item(name, attrs.isDirectory(), attrs.isRegularFile(),
+                attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    private WatchKey watch(Path dir) {
+        if (maxWatchedListings <= 0) {
+            return null;
+        }
+        WatchService service = getWatchService();
+        if (service == null) {
+            return null;
+        }
+        try {
+            WatchKey watchKey = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            // the key is shared with a previous listing of the same directory
+            watchKey.pollEvents();
+            return watchKey;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cannot watch {}: {}", dir, e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private synchronized WatchService getWatchService() {
+        if (watchService == null && !watchServiceUnavailable) {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.warn("Directory change notifications unavailable: {}", e.getMessage());
+                watchServiceUnavailable = true;
+            }
+        }
+        if (watchService != null) {
+            // keys are polled directly, drop them from the queue of signalled keys
+            while (watchService.poll() != null) {
+                // nothing to do
+            }
+        }
+        return watchService;
+    }
+
+    private void remove(String key, Listing listing) {
+        listings.remove(key);
+        forget(listing, null);
+    }
+
+    /**
+     * Update the counters for a listing leaving the cache, and cancel its watch unless it is
+     * still used by the listing replacing it.
+     */
+    private void forget(Listing listing, WatchKey keptKey) {
+        cachedItems -= listing.items.length;
+        if (listing.watchKey != null) {
+            watchedListings--;
+            if (listing.watchKey != keptKey) {
+                listing.watchKey.cancel();
+            }
+        }
+    }
+
+    private void evictIfNeeded(String keptKey) {
+        Iterator<Map.Entry<String, Listing>> it = listings.entrySet().iterator();
+        // always keep the most recent listing, even when it is larger than the limit
+        while (it.hasNext()
+                && (cachedItems > maxCachedItems || listings.size() > maxListings || watchedListings > maxWatchedListings)) {
+            Map.Entry<String, Listing> entry = it.next();
+            if (entry.getKey().equals(keptKey)) {
+                continue;
+            }
+            Listing listing = entry.getValue();
+            boolean overLimit = cachedItems > maxCachedItems || listings.size() > maxListings;
+            // when only watches are over the limit, unwatched listings can stay
+            if (overLimit || listing.watchKey != null) {
+                it.remove();
+                forget(listing, null);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        for (Listing listing : listings.values()) {
+            if (listing.watchKey != null) {
+                listing.watchKey.cancel();
+            }
+        }
+        listings.clear();
+        cachedItems = 0;
+        watchedListings = 0;
+    }
+}
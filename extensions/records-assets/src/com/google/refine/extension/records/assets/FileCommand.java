@@ -5,9 +5,12 @@
 package com.google.refine.extension.records.assets;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -21,11 +24,14 @@ import com.google.refine.commands.Command;
 /**
  * Command to serve raw file content
  * GET /command/records-assets/file?path=...
+ *
+ * Supports conditional requests (ETag, Last-Modified) and single byte ranges, so that viewers
+ * such as the browser's PDF viewer can fetch the pages they display without downloading the
+ * whole file.
  */
 public class FileCommand extends Command {
 
     private static final Logger logger = LoggerFactory.getLogger("FileCommand");
-    private static final int BUFFER_SIZE = 8192;
 
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -76,10 +82,25 @@ public class FileCommand extends Command {
                 return;
             }
 
+            long length = file.length();
+            long lastModified = file.lastModified();
+            String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+            response.setHeader("ETag", etag);
+            response.setDateHeader("Last-Modified", lastModified);
+            response.setHeader("Accept-Ranges", "bytes");
+            response.setHeader("Cache-Control", "private, no-cache");
+            // Allow cross-origin for PDF viewer, including for revalidations
+            response.setHeader("Access-Control-Allow-Origin", "*");
+
+            if (isNotModified(request, etag, lastModified)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
             // Determine content type
             String contentType = getMimeType(file.getName());
             response.setContentType(contentType);
-            response.setContentLengthLong(file.length());
 
             // Set headers for inline display or download
             if (asDownload) {
@@ -88,23 +109,44 @@ public class FileCommand extends Command {
                 response.setHeader("Content-Disposition", "inline; filename=\"" + file.getName() + "\"");
             }
 
-            // Allow cross-origin for PDF viewer
-            response.setHeader("Access-Control-Allow-Origin", "*");
+            long start = 0;
+            long count = length;
+            String range = request.getHeader("Range");
+            if (range != null && isRangeCurrent(request, etag, lastModified)) {
+                long[] bounds = parseRange(range, length);
+                if (bounds == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    start = bounds[0];
+                    count = bounds[1] - bounds[0] + 1;
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+                }
+            }
+            response.setContentLengthLong(count);
 
-            // Stream file content
-            try (FileInputStream fis = new FileInputStream(file);
-                 OutputStream os = response.getOutputStream()) {
-                
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int bytesRead;
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
+            // Stream file content, letting the channel pick the most direct transfer
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                    OutputStream os = response.getOutputStream()) {
+                WritableByteChannel target = Channels.newChannel(os);
+                long position = start;
+                long end = start + count;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        // the file was truncated while serving it
+                        break;
+                    }
+                    position += transferred;
                 }
                 os.flush();
             }
 
             if (logger.isDebugEnabled()) {
-                logger.debug("Served file: {} ({})", fullPath, contentType);
+                logger.debug("Served file: {} ({}, {} bytes from {})", fullPath, contentType, count, start);
             }
 
         } catch (Exception e) {
@@ -113,6 +155,122 @@ public class FileCommand extends Command {
         }
     }
 
+    /**
+     * Whether the client's cached copy is current, from If-None-Match or, without it,
+     * If-Modified-Since.
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return "*".equals(ifNoneMatch.trim()) || matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        // HTTP dates have a resolution of one second
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Whether a Range request applies to the current content, according to its If-Range
+     * header: either an entity tag or a date.
+     */
+    private static boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // weak tags never match for ranges
+            return ifRange.equals(etag);
+        }
+        long date = getDateHeader(request, "If-Range");
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parse a Range header against the length of the file.
+     *
+     * @return the first and last byte positions of the range, an empty array if the header
+     *         should be ignored and the whole file served, or null if the range cannot be
+     *         satisfied
+     */
+    static long[] parseRange(String header, long length) {
+        header = header.trim();
+        if (!header.startsWith("bytes=")) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            // multiple ranges are not supported, serve the whole file
+            return new long[0];
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        if (!isDigits(first) || !isDigits(last) || (first.isEmpty() && last.isEmpty())) {
+            // malformed, such as "--5"
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // suffix range: the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (end < start) {
+                    return last.isEmpty() || Long.parseLong(last) >= start ? null : new long[0];
+                }
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get MIME type from filename
      */
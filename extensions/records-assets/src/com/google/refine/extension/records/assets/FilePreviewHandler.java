@@ -7,6 +7,8 @@ package com.google.refine.extension.records.assets;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Base64;
@@ -26,6 +28,8 @@ public class FilePreviewHandler {
     private static final Logger logger = LoggerFactory.getLogger("FilePreviewHandler");
     private static final int MAX_TEXT_PREVIEW_SIZE = 100 * 1024; // 100KB
     private static final int MAX_IMAGE_PREVIEW_SIZE = 5 * 1024 * 1024; // 5MB
+    // size of the rendition shown instead of images too large, or not displayable by browsers
+    private static final int IMAGE_RENDITION_SIZE = 1600;
 
     /**
      * Generate file preview
@@ -72,7 +76,7 @@ public class FilePreviewHandler {
 
         // Generate preview based on file type
         if (isImageFile(mimeType)) {
-            generateImagePreview(result, file, mimeType);
+            generateImagePreview(result, root, path, file, mimeType);
         } else if (isTextFile(mimeType)) {
             generateTextPreview(result, file);
         } else if (isPdfFile(mimeType)) {
@@ -88,10 +92,16 @@ public class FilePreviewHandler {
     /**
      * Generate image preview
      */
-    private static void generateImagePreview(ObjectNode result, File file, String mimeType) 
-            throws IOException {
-        
-        if (file.length() > MAX_IMAGE_PREVIEW_SIZE) {
+    private static void generateImagePreview(ObjectNode result, String root, String path, File file,
+            String mimeType) throws IOException {
+
+        boolean displayable = !"image/tiff".equals(mimeType);
+        if (file.length() > MAX_IMAGE_PREVIEW_SIZE || !displayable) {
+            if (ThumbnailService.isSupported(file.getName())) {
+                JSONUtilities.safePut(result, "preview", getThumbnailUrl(root, path, IMAGE_RENDITION_SIZE, file));
+                JSONUtilities.safePut(result, "previewType", "image");
+                return;
+            }
             JSONUtilities.safePut(result, "preview", "");
             JSONUtilities.safePut(result, "previewType", "image-too-large");
             JSONUtilities.safePut(result, "message", "Image file is too large for preview");
@@ -108,6 +118,25 @@ public class FilePreviewHandler {
         }
     }
 
+    /**
+     * URL of the thumbnail of an image, served by {@link ThumbnailCommand}. It includes the version
+     * of the image, so that the URL changes when the image is modified. The URL is relative, so
+     * that it resolves against the page when OpenRefine is served under a context path.
+     */
+    static String getThumbnailUrl(String root, String path, int size, File file) throws UnsupportedEncodingException {
+        return "command/records-assets/thumbnail?root=" + URLEncoder.encode(root, "UTF-8")
+                + "&path=" + URLEncoder.encode(path != null ? path : "", "UTF-8")
+                + "&size=" + size
+                + "&v=" + getVersion(file);
+    }
+
+    /**
+     * Version of a file, from its modification time and size
+     */
+    static String getVersion(File file) {
+        return file.lastModified() + "-" + file.length();
+    }
+
     /**
      * Generate text preview
      */
@@ -169,6 +198,14 @@ public class FilePreviewHandler {
      * Generate thumbnail for image files
      */
     public static ObjectNode generateThumbnail(String root, String path) throws Exception {
+        return generateThumbnail(root, path, ThumbnailService.DEFAULT_SIZE);
+    }
+
+    /**
+     * Generate thumbnail for image files. The thumbnail itself is served as binary by
+     * {@link ThumbnailCommand}, at the URL returned as preview.
+     */
+    public static ObjectNode generateThumbnail(String root, String path, int size) throws Exception {
 
         if (logger.isDebugEnabled()) {
             logger.debug("Generating thumbnail for: root={}, path={}", root, path);
@@ -193,17 +230,16 @@ public class FilePreviewHandler {
 
         String mimeType = getMimeType(file.getName());
 
-        if (!isImageFile(mimeType)) {
+        if (!isImageFile(mimeType) || !ThumbnailService.isSupported(file.getName())) {
             JSONUtilities.safePut(result, "status", "ok");
             JSONUtilities.safePut(result, "preview", "");
             JSONUtilities.safePut(result, "previewType", "not-image");
             return result;
         }
 
-        // For simplicity, just return full image (frontend can resize)
-        // In production, could use ImageIO to create actual thumbnails
         JSONUtilities.safePut(result, "status", "ok");
-        generateImagePreview(result, file, mimeType);
+        JSONUtilities.safePut(result, "preview", getThumbnailUrl(root, path, size, file));
+        JSONUtilities.safePut(result, "previewType", "image");
 
         return result;
     }
@@ -224,6 +260,8 @@ public class FilePreviewHandler {
             return "image/bmp";
         } else if (lower.endsWith(".webp")) {
             return "image/webp";
+        } else if (lower.endsWith(".tif") || lower.endsWith(".tiff")) {
+            return "image/tiff";
         } else if (lower.endsWith(".svg")) {
             return "image/svg+xml";
         } else if (lower.endsWith(".pdf")) {
@@ -80,7 +80,17 @@ public class PreviewCommand extends Command {
             // Generate preview
             ObjectNode result;
             if (thumbnail) {
-                result = FilePreviewHandler.generateThumbnail(root, path);
+                String sizeStr = request.getParameter("size");
+                int size = ThumbnailService.DEFAULT_SIZE;
+                if (sizeStr != null && !sizeStr.isEmpty()) {
+                    try {
+                        size = Integer.parseInt(sizeStr);
+                    } catch (NumberFormatException e) {
+                        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid size parameter");
+                        return;
+                    }
+                }
+                result = FilePreviewHandler.generateThumbnail(root, path, size);
             } else {
                 result = FilePreviewHandler.generatePreview(root, path);
             }
@@ -0,0 +1,136 @@
+/*
+ * Thumbnail Command - Serves image thumbnails
+ */
+
+package com.google.refine.extension.records.assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.commands.Command;
+
+/**
+ * Command to serve the JPEG thumbnail of an image
+ * GET /command/records-assets/thumbnail?path=... (with root, size in pixels, and the version of the image)
+ */
+public class ThumbnailCommand extends Command {
+
+    private static final Logger logger = LoggerFactory.getLogger("ThumbnailCommand");
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("ThumbnailCommand::doGet");
+        }
+
+        try {
+            String root = request.getParameter("root");
+            String path = request.getParameter("path");
+            String sizeParam = request.getParameter("size");
+            int size = ThumbnailService.DEFAULT_SIZE;
+            if (sizeParam != null && !sizeParam.isEmpty()) {
+                try {
+                    size = Integer.parseInt(sizeParam);
+                } catch (NumberFormatException e) {
+                    size = -1;
+                }
+                if (size <= 0) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid size parameter");
+                    return;
+                }
+            }
+
+            // Handle empty root - use path as full path
+            if (root == null || root.isEmpty()) {
+                if (path != null && !path.isEmpty()) {
+                    root = path;
+                    path = "";
+                } else {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "path parameter is required");
+                    return;
+                }
+            }
+
+            // Validate security
+            if (!SecurityValidator.isPathSafe(root, path)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid or unsafe path");
+                return;
+            }
+
+            // Get canonical path
+            String fullPath = PathValidator.getCanonicalPath(root, path);
+            if (fullPath == null) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid path");
+                return;
+            }
+
+            File file = new File(fullPath);
+            if (!file.isFile()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
+                return;
+            }
+
+            ThumbnailService service = ThumbnailService.getInstance();
+            Path thumbnail = service.getThumbnail(Paths.get(fullPath), size);
+            if (thumbnail == null) {
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported image format");
+                return;
+            }
+
+            // thumbnails are named after the version of their image, and the URLs returned by
+            // FilePreviewHandler include it: other URLs must be revalidated
+            String etag = "\"" + thumbnail.getFileName().toString() + "\"";
+            response.setHeader("ETag", etag);
+            if (FilePreviewHandler.getVersion(file).equals(request.getParameter("v"))) {
+                response.setHeader("Cache-Control", "private, max-age=86400");
+            } else {
+                response.setHeader("Cache-Control", "private, no-cache");
+            }
+            if (etag.equals(request.getHeader("If-None-Match"))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            SeekableByteChannel channel;
+            try {
+                channel = Files.newByteChannel(thumbnail);
+            } catch (NoSuchFileException e) {
+                // evicted from the cache since it was looked up
+                thumbnail = service.getThumbnail(Paths.get(fullPath), size);
+                if (thumbnail == null) {
+                    response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported image format");
+                    return;
+                }
+                channel = Files.newByteChannel(thumbnail);
+            }
+            // an open file can still be read after an eviction removes it
+            try (InputStream in = Channels.newInputStream(channel);
+                    OutputStream os = response.getOutputStream()) {
+                response.setContentType("image/jpeg");
+                response.setContentLengthLong(channel.size());
+                in.transferTo(os);
+            }
+
+        } catch (Exception e) {
+            logger.error("Error in ThumbnailCommand", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+}
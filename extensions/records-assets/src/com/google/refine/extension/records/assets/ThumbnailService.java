@@ -0,0 +1,216 @@
+/*
+ * Thumbnail Service
+ */
+
+package com.google.refine.extension.records.assets;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.io.FileProjectManager;
+import com.google.refine.util.DiskCache;
+
+/**
+ * Generates image thumbnails and keeps them in a disk cache.
+ *
+ * Images are decoded with source subsampling, so that only about as many pixels as the
+ * thumbnail needs are kept from large scans, and multi-page images such as TIFF are represented
+ * by their first page. Thumbnails are stored as JPEG in a {@link DiskCache} in the workspace,
+ * keyed by the canonical path, modification time and size of the source and by the thumbnail
+ * size, so that a modified file gets a new thumbnail. The cache evicts the least recently used
+ * thumbnails when it grows past its limit.
+ */
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger("ThumbnailService");
+
+    public static final int DEFAULT_SIZE = 256;
+    public static final int MAX_SIZE = 2048;
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final long MAX_CACHE_BYTES = 512L * 1024 * 1024; // 512MB
+
+    private static ThumbnailService instance;
+
+    private final DiskCache cache;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    ThumbnailService(Path cacheDir) {
+        this(cacheDir, MAX_CACHE_BYTES);
+    }
+
+    ThumbnailService(Path cacheDir, long maxBytes) {
+        this.cache = new DiskCache(cacheDir.toFile(), maxBytes);
+    }
+
+    public static synchronized ThumbnailService getInstance() {
+        if (instance == null) {
+            File baseDir;
+            if (ProjectManager.singleton instanceof FileProjectManager) {
+                baseDir = ((FileProjectManager) ProjectManager.singleton).getWorkspaceDir();
+            } else {
+                baseDir = new File(System.getProperty("java.io.tmpdir"));
+            }
+            instance = new ThumbnailService(Paths.get(baseDir.getAbsolutePath(), "records-assets", "thumbnails"));
+        }
+        return instance;
+    }
+
+    /**
+     * Whether thumbnails can be generated for a file, judging from its extension.
+     */
+    public static boolean isSupported(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && ImageIO.getImageReadersBySuffix(filename.substring(dot + 1).toLowerCase()).hasNext();
+    }
+
+    /**
+     * Get the thumbnail of an image, generating it if it is not cached.
+     *
+     * @param source
+     *            canonical path of the image
+     * @param size
+     *            maximum width and height of the thumbnail
+     * @return the thumbnail file, or null if the image cannot be decoded
+     */
+    public Path getThumbnail(Path source, int size) throws IOException {
+        size = Math.max(16, Math.min(MAX_SIZE, size));
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        String key = getCacheKey(source, attrs, size);
+
+        File cached = cache.getEntryFile(key);
+        if (cached != null) {
+            return cached.toPath();
+        }
+
+        // concurrent requests for the same thumbnail generate it once
+        Object lock = locks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                cached = cache.getEntryFile(key);
+                if (cached != null) {
+                    return cached.toPath();
+                }
+                long start = System.currentTimeMillis();
+                BufferedImage image = decode(source.toFile(), size);
+                if (image == null) {
+                    return null;
+                }
+                cache.write(key, encode(image));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Generated {}px thumbnail of {} in {}ms", size, source,
+                            System.currentTimeMillis() - start);
+                }
+                cached = cache.getEntryFile(key);
+            }
+        } finally {
+            locks.remove(key, lock);
+        }
+        if (cached == null) {
+            // evicted right away, the cache is too small
+            throw new NoSuchFileException(source.toString(), null, "thumbnail evicted from the cache");
+        }
+        return cached.toPath();
+    }
+
+    /**
+     * The key of a thumbnail in the cache, which changes whenever its source is modified.
+     */
+    static String getCacheKey(Path source, BasicFileAttributes attrs, int size) {
+        return source.toString() + "\n" + attrs.lastModifiedTime().toMillis() + "\n" + attrs.size() + "\n" + size;
+    }
+
+    /**
+     * Decode the first image of a file, subsampled to about the given size.
+     *
+     * @return the scaled image, or null if no reader supports the file
+     */
+    static BufferedImage decode(File file, int size) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // read every n-th pixel, leaving an image between one and two times the
+                // thumbnail size, which is then scaled down smoothly
+                int subsampling = Math.max(1, Math.max(width, height) / size);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return scale(reader.read(0, param), size);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        // JPEG has no alpha channel, transparent areas are drawn on white
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, targetWidth, targetHeight);
+            g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
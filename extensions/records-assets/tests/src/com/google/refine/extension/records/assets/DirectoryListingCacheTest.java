@@ -0,0 +1,193 @@
+package com.google.refine.extension.records.assets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DirectoryListingCacheTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private Path dir;
+    private DirectoryListingCache cache;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("records-assets-listing").toRealPath();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (cache != null) {
+            cache.clear();
+            cache = null;
+        }
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Test
+    public void testListingIsSorted() throws IOException {
+        cache = new DirectoryListingCache(1000, 10, 10, HOUR);
+        Path a = directory("a", "b.txt", "a.txt", "c");
+        Files.write(a.resolve("b.txt"), "abc".getBytes(StandardCharsets.UTF_8));
+
+        DirectoryListingCache.Listing listing = listing(cache, a);
+
+        assertEquals(listing.items.length, 3);
+        assertEquals(listing.items[0].name, "c");
+        assertTrue(listing.items[0].directory);
+        assertEquals(listing.items[1].name, "a.txt");
+        assertEquals(listing.items[2].name, "b.txt");
+        assertTrue(listing.items[2].file);
+        assertEquals(listing.items[2].size, 3);
+    }
+
+    @Test
+    public void testModifiedDirectoryIsReloaded() throws IOException {
+        cache = new DirectoryListingCache(1000, 10, 0, HOUR);
+        Path a = directory("a", "a.txt");
+
+        DirectoryListingCache.Listing listing = listing(cache, a);
+        assertNull(listing.watchKey);
+        assertSame(listing(cache, a), listing);
+
+        Files.setLastModifiedTime(a, FileTime.fromMillis(listing.modified - 10000));
+        DirectoryListingCache.Listing reloaded = listing(cache, a);
+        assertNotSame(reloaded, listing);
+        assertSame(listing(cache, a), reloaded);
+    }
+
+    @Test
+    public void testUnwatchedListingExpires() throws Exception {
+        cache = new DirectoryListingCache(1000, 10, 0, 50);
+        Path a = directory("a", "a.txt");
+
+        DirectoryListingCache.Listing listing = listing(cache, a);
+        Thread.sleep(100);
+
+        assertNotSame(listing(cache, a), listing);
+    }
+
+    @Test
+    public void testWatchEventInvalidatesListing() throws Exception {
+        cache = new DirectoryListingCache(1000, 10, 10, HOUR);
+        Path a = directory("a", "a.txt");
+
+        DirectoryListingCache.Listing listing = listing(cache, a);
+        assertNotNull(listing.watchKey);
+        assertSame(listing(cache, a), listing);
+
+        // modifying a file leaves the modification time of the directory unchanged
+        long modified = Files.getLastModifiedTime(a).toMillis();
+        Files.write(a.resolve("a.txt"), "changed".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(a, FileTime.fromMillis(modified));
+
+        // events are delivered asynchronously
+        DirectoryListingCache.Listing reloaded = listing;
+        for (int i = 0; i < 100 && reloaded == listing; i++) {
+            Thread.sleep(50);
+            reloaded = listing(cache, a);
+        }
+        assertNotSame(reloaded, listing);
+        assertEquals(reloaded.items[0].size, 7);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedListingsAreEvicted() throws IOException {
+        cache = new DirectoryListingCache(1000, 2, 10, HOUR);
+        Path a = directory("a");
+        Path b = directory("b");
+        Path c = directory("c");
+
+        DirectoryListingCache.Listing listingA = listing(cache, a);
+        DirectoryListingCache.Listing listingB = listing(cache, b);
+        assertSame(listing(cache, a), listingA);
+        listing(cache, c);
+
+        assertSame(listing(cache, a), listingA);
+        assertFalse(listingB.watchKey.isValid());
+        assertNotSame(listing(cache, b), listingB);
+    }
+
+    @Test
+    public void testCachedItemsAreBounded() throws IOException {
+        cache = new DirectoryListingCache(3, 10, 10, HOUR);
+        Path a = directory("a", "1", "2");
+        Path b = directory("b", "1", "2");
+
+        DirectoryListingCache.Listing listingA = listing(cache, a);
+        DirectoryListingCache.Listing listingB = listing(cache, b);
+
+        assertSame(listing(cache, b), listingB);
+        assertFalse(listingA.watchKey.isValid());
+        assertNotSame(listing(cache, a), listingA);
+    }
+
+    @Test
+    public void testLargeListingIsKept() throws IOException {
+        cache = new DirectoryListingCache(1, 10, 10, HOUR);
+        Path a = directory("a", "1", "2");
+
+        DirectoryListingCache.Listing listing = listing(cache, a);
+
+        assertSame(listing(cache, a), listing);
+    }
+
+    @Test
+    public void testWatchesAreBounded() throws IOException {
+        cache = new DirectoryListingCache(1000, 10, 1, HOUR);
+        Path a = directory("a");
+        Path b = directory("b");
+
+        DirectoryListingCache.Listing listingA = listing(cache, a);
+        DirectoryListingCache.Listing listingB = listing(cache, b);
+
+        assertFalse(listingA.watchKey.isValid());
+        assertTrue(listingB.watchKey.isValid());
+        assertSame(listing(cache, b), listingB);
+    }
+
+    @Test
+    public void testClearCancelsWatches() throws IOException {
+        cache = new DirectoryListingCache(1000, 10, 10, HOUR);
+        DirectoryListingCache.Listing listing = listing(cache, directory("a"));
+
+        cache.clear();
+
+        assertFalse(listing.watchKey.isValid());
+    }
+
+    private Path directory(String name, String... children) throws IOException {
+        Path path = Files.createDirectory(dir.resolve(name));
+        for (String child : children) {
+            File file = path.resolve(child).toFile();
+            if (child.contains(".")) {
+                assertTrue(file.createNewFile());
+            } else {
+                assertTrue(file.mkdir());
+            }
+        }
+        return path;
+    }
+
+    private static DirectoryListingCache.Listing listing(DirectoryListingCache cache, Path dir) throws IOException {
+        return cache.getListing(dir, Files.readAttributes(dir, BasicFileAttributes.class));
+    }
+}
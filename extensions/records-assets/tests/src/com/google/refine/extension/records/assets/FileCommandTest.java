@@ -0,0 +1,167 @@
+package com.google.refine.extension.records.assets;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class FileCommandTest {
+
+    private static final long[] WHOLE_FILE = new long[0];
+
+    private File dir;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("records-assets-file").toFile();
+        file = new File(dir, "a.txt");
+        Files.write(file.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        file.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testClosedRange() {
+        assertEquals(FileCommand.parseRange("bytes=2-5", 10), new long[] { 2, 5 });
+        assertEquals(FileCommand.parseRange("bytes=0-0", 10), new long[] { 0, 0 });
+        assertEquals(FileCommand.parseRange(" bytes= 3 - 4 ", 10), new long[] { 3, 4 });
+    }
+
+    @Test
+    public void testOpenRange() {
+        assertEquals(FileCommand.parseRange("bytes=2-", 10), new long[] { 2, 9 });
+        assertEquals(FileCommand.parseRange("bytes=9-", 10), new long[] { 9, 9 });
+    }
+
+    @Test
+    public void testSuffixRange() {
+        assertEquals(FileCommand.parseRange("bytes=-3", 10), new long[] { 7, 9 });
+        // longer than the file: the whole file
+        assertEquals(FileCommand.parseRange("bytes=-20", 10), new long[] { 0, 9 });
+        assertNull(FileCommand.parseRange("bytes=-0", 10));
+    }
+
+    @Test
+    public void testRangePastTheEnd() {
+        assertEquals(FileCommand.parseRange("bytes=5-20", 10), new long[] { 5, 9 });
+        assertNull(FileCommand.parseRange("bytes=10-", 10));
+        assertNull(FileCommand.parseRange("bytes=12-15", 10));
+    }
+
+    @Test
+    public void testIgnoredRanges() {
+        assertEquals(FileCommand.parseRange("bytes=0-1,4-5", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=5-2", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=--5", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=-", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=a-b", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=+1-2", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=5", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("items=0-1", 10), WHOLE_FILE);
+        assertEquals(FileCommand.parseRange("bytes=0-99999999999999999999", 10), WHOLE_FILE);
+    }
+
+    @Test
+    public void testRangesOfAnEmptyFile() {
+        assertNull(FileCommand.parseRange("bytes=0-", 0));
+        assertNull(FileCommand.parseRange("bytes=0-0", 0));
+        assertNull(FileCommand.parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    public void testNotModifiedAllowsCrossOrigin() throws Exception {
+        HttpServletRequest request = request();
+        when(request.getHeader("If-None-Match")).thenReturn(etag());
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        new FileCommand().doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response).setHeader("Access-Control-Allow-Origin", "*");
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    public void testPartialContent() throws Exception {
+        HttpServletRequest request = request();
+        when(request.getHeader("Range")).thenReturn("bytes=-4");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(outputStream(body));
+
+        new FileCommand().doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range", "bytes 6-9/10");
+        verify(response).setContentLengthLong(4);
+        assertEquals(new String(body.toByteArray(), StandardCharsets.UTF_8), "6789");
+    }
+
+    @Test
+    public void testMalformedRangeServesTheWholeFile() throws Exception {
+        HttpServletRequest request = request();
+        when(request.getHeader("Range")).thenReturn("bytes=--5");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(outputStream(body));
+
+        new FileCommand().doGet(request, response);
+
+        verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response, never()).sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertEquals(new String(body.toByteArray(), StandardCharsets.UTF_8), "0123456789");
+    }
+
+    private HttpServletRequest request() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("root")).thenReturn(dir.getAbsolutePath());
+        when(request.getParameter("path")).thenReturn("a.txt");
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+        return request;
+    }
+
+    private String etag() {
+        return "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(file.length()) + "\"";
+    }
+
+    private static ServletOutputStream outputStream(ByteArrayOutputStream body) {
+        return new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+    }
+}
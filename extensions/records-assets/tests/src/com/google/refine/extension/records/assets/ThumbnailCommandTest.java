@@ -0,0 +1,156 @@
+package com.google.refine.extension.records.assets;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ThumbnailCommandTest {
+
+    private File dir;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("records-assets-thumbnail").toFile();
+        file = new File(dir, "a.png");
+        ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", file);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testThumbnailUrlIsRelative() throws IOException {
+        String url = FilePreviewHandler.getThumbnailUrl(dir.getAbsolutePath(), "a.png", 64, file);
+
+        assertTrue(url.startsWith("command/records-assets/thumbnail?root="));
+        assertTrue(url.endsWith("&path=a.png&size=64&v=" + FilePreviewHandler.getVersion(file)));
+    }
+
+    @Test
+    public void testVersionedThumbnailIsCached() throws Exception {
+        HttpServletRequest request = request("64");
+        when(request.getParameter("v")).thenReturn(FilePreviewHandler.getVersion(file));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(outputStream(body));
+
+        new ThumbnailCommand().doGet(request, response);
+
+        verify(response).setHeader("ETag", etag(64));
+        verify(response).setHeader("Cache-Control", "private, max-age=86400");
+        verify(response).setContentType("image/jpeg");
+        verify(response).setContentLengthLong(body.size());
+        assertEquals(ImageIO.read(new ByteArrayInputStream(body.toByteArray())).getWidth(), 64);
+    }
+
+    @Test
+    public void testOutdatedVersionIsRevalidated() throws Exception {
+        HttpServletRequest request = request("64");
+        when(request.getParameter("v")).thenReturn("0-0");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(outputStream(new ByteArrayOutputStream()));
+
+        new ThumbnailCommand().doGet(request, response);
+
+        verify(response).setHeader("Cache-Control", "private, no-cache");
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        HttpServletRequest request = request("64");
+        when(request.getHeader("If-None-Match")).thenReturn(etag(64));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        new ThumbnailCommand().doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    public void testEvictedThumbnailIsRegenerated() throws Exception {
+        Path thumbnail = ThumbnailService.getInstance().getThumbnail(file.toPath().toRealPath(), 48);
+        Files.delete(thumbnail);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(outputStream(body));
+
+        new ThumbnailCommand().doGet(request("48"), response);
+
+        verify(response, never()).sendError(anyInt(), anyString());
+        assertFalse(body.size() == 0);
+        assertEquals(body.size(), Files.size(thumbnail));
+    }
+
+    @Test
+    public void testInvalidSizesAreRejected() throws Exception {
+        for (String size : new String[] { "abc", "0", "-10", "1.5" }) {
+            HttpServletResponse response = mock(HttpServletResponse.class);
+
+            new ThumbnailCommand().doGet(request(size), response);
+
+            verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid size parameter");
+            verify(response, never()).getOutputStream();
+        }
+    }
+
+    private HttpServletRequest request(String size) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter("root")).thenReturn(dir.getAbsolutePath());
+        when(request.getParameter("path")).thenReturn("a.png");
+        when(request.getParameter("size")).thenReturn(size);
+        return request;
+    }
+
+    private String etag(int size) throws IOException {
+        Path thumbnail = ThumbnailService.getInstance().getThumbnail(file.toPath().toRealPath(), size);
+        return "\"" + thumbnail.getFileName() + "\"";
+    }
+
+    private static ServletOutputStream outputStream(ByteArrayOutputStream body) {
+        return new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+    }
+}
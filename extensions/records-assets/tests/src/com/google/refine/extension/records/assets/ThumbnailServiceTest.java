@@ -0,0 +1,141 @@
+package com.google.refine.extension.records.assets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ThumbnailServiceTest {
+
+    private File dir;
+    private Path cacheDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("records-assets-thumbnail").toFile();
+        cacheDir = dir.toPath().resolve("cache");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testCacheKeyChangesWithTheImage() throws IOException {
+        Path image = image("a.png", 300, 200);
+        BasicFileAttributes attrs = Files.readAttributes(image, BasicFileAttributes.class);
+        String key = ThumbnailService.getCacheKey(image, attrs, 64);
+
+        assertEquals(ThumbnailService.getCacheKey(image, attrs, 64), key);
+        assertNotEquals(ThumbnailService.getCacheKey(image, attrs, 128), key);
+        assertNotEquals(ThumbnailService.getCacheKey(image("b.png", 300, 200), attrs, 64), key);
+
+        Files.setLastModifiedTime(image, FileTime.fromMillis(attrs.lastModifiedTime().toMillis() - 10000));
+        assertNotEquals(ThumbnailService.getCacheKey(image, Files.readAttributes(image, BasicFileAttributes.class), 64), key);
+
+        image("a.png", 300, 100);
+        assertNotEquals(ThumbnailService.getCacheKey(image, Files.readAttributes(image, BasicFileAttributes.class), 64), key);
+    }
+
+    @Test
+    public void testThumbnailIsGeneratedOnce() throws IOException {
+        ThumbnailService service = new ThumbnailService(cacheDir);
+        Path image = image("a.png", 300, 200);
+
+        Path thumbnail = service.getThumbnail(image, 64);
+        assertNotNull(thumbnail);
+        BufferedImage decoded = ImageIO.read(thumbnail.toFile());
+        assertEquals(decoded.getWidth(), 64);
+        assertEquals(decoded.getHeight(), 43);
+
+        Files.setLastModifiedTime(thumbnail, FileTime.fromMillis(1000));
+        assertEquals(service.getThumbnail(image, 64), thumbnail);
+        // reused, and marked as recently used
+        assertTrue(Files.getLastModifiedTime(thumbnail).toMillis() > 1000);
+        assertNotEquals(service.getThumbnail(image, 32), thumbnail);
+    }
+
+    @Test
+    public void testSizeIsClamped() throws IOException {
+        ThumbnailService service = new ThumbnailService(cacheDir);
+        Path image = image("a.png", 300, 200);
+
+        assertEquals(ImageIO.read(service.getThumbnail(image, -5).toFile()).getWidth(), 16);
+        assertEquals(service.getThumbnail(image, 0), service.getThumbnail(image, 16));
+        assertEquals(service.getThumbnail(image, 100000), service.getThumbnail(image, ThumbnailService.MAX_SIZE));
+    }
+
+    @Test
+    public void testDeletedThumbnailIsRegenerated() throws IOException {
+        ThumbnailService service = new ThumbnailService(cacheDir);
+        Path image = image("a.png", 300, 200);
+
+        Path thumbnail = service.getThumbnail(image, 64);
+        Files.delete(thumbnail);
+        assertEquals(service.getThumbnail(image, 64), thumbnail);
+        assertTrue(Files.isRegularFile(thumbnail));
+    }
+
+    @Test
+    public void testUnsupportedFile() throws IOException {
+        ThumbnailService service = new ThumbnailService(cacheDir);
+        Path text = dir.toPath().resolve("a.png");
+        Files.write(text, "not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(service.getThumbnail(text, 64));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedThumbnailsArePruned() throws IOException {
+        Path a = image("a.png", 300, 200);
+        Path b = image("b.png", 300, 200);
+        Path c = image("c.png", 300, 200);
+        // the images are identical, so are their thumbnails
+        long size = Files.size(new ThumbnailService(dir.toPath().resolve("sizes")).getThumbnail(a, 64));
+        ThumbnailService service = new ThumbnailService(cacheDir, size * 5 / 2);
+
+        Path thumbnailA = service.getThumbnail(a, 64);
+        Files.setLastModifiedTime(thumbnailA, FileTime.fromMillis(1000));
+        Path thumbnailB = service.getThumbnail(b, 64);
+        Files.setLastModifiedTime(thumbnailB, FileTime.fromMillis(2000));
+        // a is used again, b is now the least recently used
+        assertEquals(service.getThumbnail(a, 64), thumbnailA);
+
+        Path thumbnailC = service.getThumbnail(c, 64);
+
+        assertTrue(Files.isRegularFile(thumbnailA));
+        assertFalse(Files.exists(thumbnailB));
+        assertTrue(Files.isRegularFile(thumbnailC));
+    }
+
+    private Path image(String name, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        File file = new File(dir, name);
+        ImageIO.write(image, "png", file);
+        return file.toPath();
+    }
+}
@@ -376,37 +376,80 @@ ExportBoundAssetsDialog.prototype._executeExport = function() {
 
   Refine.postCSRF(
     "command/records-db/export-bound-assets?" + $.param({ project: theProject.id }),
-    { options: JSON.stringify(options) },
+    { options: JSON.stringify($.extend({}, options, { async: true })) },
     function(data) {
-      self._elmts.exportButton.prop("disabled", false);
-      if (data.status === "ok" || data.status === "partial") {
-        var msg = $.i18n("records-db-export/export-complete",
-          data.success, data.failed, data.skipped);
-        if (!msg || msg === "records-db-export/export-complete") {
-          msg = "导出完成: " + data.success + " 成功, " + data.failed + " 失败, " + data.skipped + " 跳过";
-        }
-        self._elmts.statusMessage.text(msg);
-
-        if (data.status === "ok") {
-          alert(msg);
-          self._dismiss();
-        } else {
-          alert(msg + "\n" + ($.i18n("records-db-export/check-errors") || "请查看控制台了解错误详情"));
-        }
+      if (data.status === "started") {
+        self._pollExportProgress();
       } else {
-        self._elmts.statusMessage.text($.i18n("records-db-export/export-error") || "导出失败");
-        alert(($.i18n("records-db-export/export-error") || "导出失败") + ": " + (data.message || "未知错误"));
+        self._onExportDone(data);
       }
     },
     "json",
     function(xhr, status, error) {
-      self._elmts.exportButton.prop("disabled", false);
-      self._elmts.statusMessage.text($.i18n("records-db-export/export-error") || "导出失败");
-      alert(($.i18n("records-db-export/export-error") || "导出失败") + ": " + error);
+      self._onExportError(error);
     }
   );
 };
 
+ExportBoundAssetsDialog.prototype._pollExportProgress = function() {
+  var self = this;
+
+  $.ajax({
+    url: "command/records-db/export-bound-assets",
+    type: "GET",
+    data: { project: theProject.id, progress: true },
+    dataType: "json",
+    success: function(data) {
+      if (data.status === "running" || data.status === "pending") {
+        var msg = $.i18n("records-db-export/export-progress",
+          data.processed, data.total, data.files);
+        if (!msg || msg === "records-db-export/export-progress") {
+          msg = "正在导出: " + data.processed + " / " + data.total + " 行, " + data.files + " 个文件";
+        }
+        self._elmts.statusMessage.text(msg);
+        self._progressTimer = window.setTimeout(function() {
+          self._pollExportProgress();
+        }, 1000);
+      } else {
+        self._onExportDone(data);
+      }
+    },
+    error: function(xhr, status, error) {
+      self._onExportError(error);
+    }
+  });
+};
+
+ExportBoundAssetsDialog.prototype._onExportDone = function(data) {
+  this._elmts.exportButton.prop("disabled", false);
+  if (data.status === "ok" || data.status === "partial") {
+    var msg = $.i18n("records-db-export/export-complete",
+      data.success, data.failed, data.skipped);
+    if (!msg || msg === "records-db-export/export-complete") {
+      msg = "导出完成: " + data.success + " 成功, " + data.failed + " 失败, " + data.skipped + " 跳过";
+    }
+    this._elmts.statusMessage.text(msg);
+
+    if (data.status === "ok") {
+      alert(msg);
+      this._dismiss();
+    } else {
+      console.error("Export errors:", data.errors);
+      alert(msg + "\n" + ($.i18n("records-db-export/check-errors") || "请查看控制台了解错误详情"));
+    }
+  } else {
+    var message = data.message || (data.errors && data.errors.length > 0 ? data.errors[0].error : null);
+    this._elmts.statusMessage.text($.i18n("records-db-export/export-error") || "导出失败");
+    alert(($.i18n("records-db-export/export-error") || "导出失败") + ": " + (message || "未知错误"));
+  }
+};
+
+ExportBoundAssetsDialog.prototype._onExportError = function(error) {
+  this._elmts.exportButton.prop("disabled", false);
+  this._elmts.statusMessage.text($.i18n("records-db-export/export-error") || "导出失败");
+  alert(($.i18n("records-db-export/export-error") || "导出失败") + ": " + error);
+};
+
 ExportBoundAssetsDialog.prototype._updateOptionCode = function() {
   var options = this._getOptions();
   var formattedJson = JSON.stringify(options, null, 2);
@@ -464,6 +507,10 @@ ExportBoundAssetsDialog.prototype._applyOptionCode = function() {
 };
 
 ExportBoundAssetsDialog.prototype._dismiss = function() {
+  // the export keeps running on the server
+  if (this._progressTimer) {
+    window.clearTimeout(this._progressTimer);
+  }
   DialogSystem.dismissUntil(this._level - 1);
 };
 
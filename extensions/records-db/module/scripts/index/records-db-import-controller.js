@@ -356,8 +356,12 @@
       return;
     }
     statusDiv.innerHTML = '<p>' + i18n.t('records.db.wizard.createProject.creating') + '...</p>';
+    var canceled = false;
 
     function handleSuccess(data) {
+      if (canceled) {
+        return;
+      }
       if (data && data.status === 'ok') {
         statusDiv.innerHTML = '<p style="color: green;">' + i18n.t('records.db.wizard.createProject.success') + '</p>';
         // 项目创建成功，清除保存的状态
@@ -378,24 +382,56 @@
 
     if (typeof Refine !== 'undefined' && typeof Refine.wrapCSRF === 'function' && typeof $ !== 'undefined') {
       Refine.wrapCSRF(function(token) {
-        $.post(
-          "command/core/importing-controller?" + $.param({
-            "controller": "records-db/records-db-import-controller",
-            "subCommand": "create-project",
-            "csrf_token": token
-          }),
-          {
-            "projectName": projectName,
-            "schemaProfile": JSON.stringify(self._schemaProfile),
-            "maxRows": maxRows
-          },
-          function(data) {
-            handleSuccess(data);
-          },
-          "json"
-        ).fail(function(xhr) {
-          statusDiv.innerHTML = '<p style="color: red;">Error: HTTP ' + xhr.status + '</p>';
-        });
+        // The project is created within an importing job, so that its progress can be polled
+        $.post("command/core/create-importing-job", { csrf_token: token }, function(jobData) {
+          var jobID = jobData.jobID;
+          statusDiv.innerHTML = '<p id="records-db-create-progress">' +
+            i18n.t('records.db.wizard.createProject.creating') + '...</p>' +
+            '<button type="button" class="button" id="records-db-cancel-create">' +
+            i18n.t('records.db.wizard.createProject.cancel') + '</button>';
+          var timerID = window.setInterval(function() {
+            $.post("command/core/get-importing-job-status?" + $.param({ "jobID": jobID }), null, function(status) {
+              var progress = status && status.job && status.job.config.progress;
+              var progressElmt = document.getElementById('records-db-create-progress');
+              if (!canceled && progressElmt && progress && progress.percent > 0) {
+                progressElmt.textContent = i18n.t('records.db.wizard.createProject.creating') +
+                  '... ' + progress.percent + '%';
+              }
+            }, "json");
+          }, 1000);
+          // the import stops at the next row once the job is canceled, and no project is created
+          $('#records-db-cancel-create').on('click', function() {
+            canceled = true;
+            window.clearInterval(timerID);
+            Refine.CreateProjectUI.cancelImportingJob(jobID);
+            statusDiv.innerHTML = '<p>' + i18n.t('records.db.wizard.createProject.canceled') + '</p>';
+          });
+
+          $.post(
+            "command/core/importing-controller?" + $.param({
+              "controller": "records-db/records-db-import-controller",
+              "subCommand": "create-project",
+              "jobID": jobID,
+              "csrf_token": token
+            }),
+            {
+              "projectName": projectName,
+              "schemaProfile": JSON.stringify(self._schemaProfile),
+              "maxRows": maxRows
+            },
+            function(data) {
+              window.clearInterval(timerID);
+              handleSuccess(data);
+            },
+            "json"
+          ).fail(function(xhr) {
+            window.clearInterval(timerID);
+            if (canceled) {
+              return;
+            }
+            statusDiv.innerHTML = '<p style="color: red;">Error: HTTP ' + xhr.status + '</p>';
+          });
+        }, "json");
       });
     } else {
       var params = new URLSearchParams();
@@ -1260,10 +1296,10 @@
   };
 
   CreateProjectStep.prototype.render = function(div) {
-    // Use total rows from preview, or default to 10000
+    // Use total rows from preview, or leave empty to import all rows
     var defaultMaxRows = (typeof this._wizard._totalRows === 'number' && this._wizard._totalRows > 0)
       ? this._wizard._totalRows
-      : 10000;
+      : '';
     var html = '<div class="records-db-step">';
     html += '<h3>' + i18n.t('records.db.wizard.createProject.title') + '</h3>';
     html += '<p>' + i18n.t('records.db.wizard.createProject.description') + '</p>';
@@ -1275,6 +1311,7 @@
     html += '<div class="form-group">';
     html += '<label>' + i18n.t('records.db.wizard.createProject.maxRows') + ':</label>';
     html += '<input type="number" id="max-rows" value="' + defaultMaxRows + '" min="1">';
+    html += '<p>' + i18n.t('records.db.wizard.createProject.maxRowsHint') + '</p>';
     html += '</div>';
     html += '<div class="form-group">';
     html += '<label><input type="checkbox" id="records-db-no-redirect"> ';
@@ -1318,7 +1355,8 @@
   };
 
   CreateProjectStep.prototype.getMaxRows = function() {
-    return parseInt(document.getElementById('max-rows').value) || 10000;
+    // 0 imports all rows
+    return parseInt(document.getElementById('max-rows').value) || 0;
   };
 
   CreateProjectStep.prototype.shouldSaveConfig = function() {
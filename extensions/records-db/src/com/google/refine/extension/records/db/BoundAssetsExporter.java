@@ -5,13 +5,30 @@
 
 package com.google.refine.extension.records.db;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -32,6 +49,22 @@ public class BoundAssetsExporter {
 
     private static final Logger logger = LoggerFactory.getLogger("BoundAssetsExporter");
 
+    /**
+     * Name of the manifest of exported rows, in the target directory
+     */
+    static final String MANIFEST_FILE = ".records-db-export-manifest";
+    static final String PARTIAL_SUFFIX = ".part";
+
+    static final int DEFAULT_THREADS = 8;
+    static final int DEFAULT_VOLUME_CONCURRENCY = 4;
+    static final int MAX_THREADS = 64;
+    // files waiting for a worker, per thread
+    private static final int QUEUED_PER_THREAD = 16;
+    private static final int MANIFEST_FLUSH_INTERVAL = 100;
+
+    private static final int TRANSFERRED = 0;
+    private static final int SKIPPED = 1;
+
     private final Project project;
 
     public BoundAssetsExporter(Project project) {
@@ -50,13 +83,26 @@ public class BoundAssetsExporter {
      */
     public ObjectNode exportAssets(ArrayNode pathFieldsNode, String sourceRootPath,
             String targetPath, String mode, JsonNode options) {
-        
-        ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-        int total = 0;
-        int success = 0;
-        int failed = 0;
-        int skipped = 0;
-        ArrayNode errors = result.putArray("errors");
+        return exportAssets(pathFieldsNode, sourceRootPath, targetPath, mode, options, new ExportProgress());
+    }
+
+    /**
+     * Exports assets based on project data, reporting progress as rows complete.
+     *
+     * Files are transferred by a bounded pool of worker threads, with separate limits on the
+     * number of concurrent transfers reading from the source volume and writing to the target
+     * volume. Moves within a file system are renames, of whole directories when possible. Copies
+     * are written to a temporary file which is renamed once complete, so that an existing target
+     * file is always a complete one. Completed rows are recorded in a manifest in the target
+     * directory, which lets an interrupted export resume where it stopped; the manifest is
+     * removed once an export completes without failures. As the manifest is written in batches,
+     * a move resumes a row whose source is gone but whose target exists as already moved.
+     *
+     * @param progress Receives the counts and errors of the export as it runs
+     * @return Result object with statistics
+     */
+    public ObjectNode exportAssets(ArrayNode pathFieldsNode, String sourceRootPath,
+            String targetPath, String mode, JsonNode options, ExportProgress progress) {
 
         // Parse path fields
         List<Integer> pathColumnIndices = new ArrayList<>();
@@ -77,91 +123,105 @@ public class BoundAssetsExporter {
                 options.get("skipExisting").asBoolean(true) : true;
         String separator = options.has("separator") ? 
                 options.get("separator").asText("/") : "/";
+        boolean resume = options.has("resume") ?
+                options.get("resume").asBoolean(true) : true;
+        int threads = getLimit(options, "threads", DEFAULT_THREADS);
+        int sourceConcurrency = getLimit(options, "sourceConcurrency", DEFAULT_VOLUME_CONCURRENCY);
+        int targetConcurrency = getLimit(options, "targetConcurrency", DEFAULT_VOLUME_CONCURRENCY);
+        boolean move = "move".equals(mode);
+
+        progress.start(project.rows.size());
+
+        Manifest manifest;
+        try {
+            Path targetRoot = Paths.get(targetPath);
+            Files.createDirectories(targetRoot);
+            manifest = new Manifest(targetRoot.resolve(MANIFEST_FILE), resume);
+        } catch (Exception e) {
+            logger.error("Error preparing export target {}", targetPath, e);
+            progress.fail("Failed to prepare target directory: " + e.getMessage());
+            return progress.toJSON(true);
+        }
+        if (manifest.size() > 0 && logger.isInfoEnabled()) {
+            logger.info("Resuming export to {}, {} rows already exported", targetPath, manifest.size());
+        }
 
-        // Process each row
-        for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
-            total++;
-            Row row = project.rows.get(rowIndex);
-
-            try {
-                // Build source path from columns
-                String sourcePath = buildPath(row, pathColumnIndices, 
-                        sourceRootPath, separator);
-                
-                if (sourcePath == null || sourcePath.isEmpty()) {
-                    skipped++;
-                    continue;
-                }
+        Transfers transfers = new Transfers(threads, sourceConcurrency, targetConcurrency, move, skipExisting, progress);
+        try {
+            // Process each row
+            for (int rowIndex = 0; rowIndex < project.rows.size(); rowIndex++) {
+                Row row = project.rows.get(rowIndex);
 
-                File sourceFile = new File(sourcePath);
-                if (!sourceFile.exists()) {
-                    failed++;
-                    addError(errors, rowIndex, "Source file not found: " + sourcePath);
-                    continue;
-                }
+                try {
+                    // Build source path from columns
+                    String sourcePath = buildPath(row, pathColumnIndices,
+                            sourceRootPath, separator);
 
-                // Build target path
-                String targetFilePath = buildTargetPath(targetPath, sourceFile,
-                        preserveStructure, sourceRootPath);
-                File targetFile = new File(targetFilePath);
-
-                // Handle directory vs file
-                if (sourceFile.isDirectory()) {
-                    // Recursively copy/move directory
-                    int[] counts = copyOrMoveDirectory(sourceFile, targetFile, mode, skipExisting);
-                    if (counts[0] > 0) {
-                        success++;
-                    } else if (counts[1] > 0) {
-                        failed++;
-                        addError(errors, rowIndex, "Failed to copy some files in: " + sourcePath);
-                    } else {
-                        skipped++;
+                    if (sourcePath == null || sourcePath.isEmpty()) {
+                        progress.rowSkipped();
+                        continue;
                     }
-                } else {
-                    // Single file
-                    // Check if target exists
-                    if (targetFile.exists() && skipExisting) {
-                        skipped++;
+                    if (manifest.contains(sourcePath)) {
+                        progress.rowResumed();
                         continue;
                     }
 
-                    // Create parent directories
-                    File parentDir = targetFile.getParentFile();
-                    if (!parentDir.exists()) {
-                        if (!parentDir.mkdirs()) {
-                            failed++;
-                            addError(errors, rowIndex, "Failed to create directory: " + parentDir.getAbsolutePath());
-                            continue;
+                    File sourceFile = new File(sourcePath);
+
+                    // Build target path
+                    String targetFilePath = buildTargetPath(targetPath, sourceFile,
+                            preserveStructure, sourceRootPath);
+                    File targetFile = new File(targetFilePath);
+
+                    if (!sourceFile.exists()) {
+                        if (move && targetFile.exists()) {
+                            // moved by an interrupted run before the manifest recorded it
+                            manifest.add(sourcePath);
+                            progress.rowResumed();
+                        } else {
+                            progress.rowFailed(rowIndex, "Source file not found: " + sourcePath);
                         }
+                        continue;
                     }
 
-                    // Copy or move
-                    Path source = sourceFile.toPath();
-                    Path target = targetFile.toPath();
-
-                    if ("move".equals(mode)) {
-                        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    RowTransfer rowTransfer = new RowTransfer(rowIndex, sourcePath, sourceFile.isDirectory(),
+                            manifest, move, progress);
+                    if (rowTransfer.directory) {
+                        transfers.submitDirectory(rowTransfer, sourceFile.toPath(), targetFile.toPath());
                     } else {
-                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                        transfers.submitFile(rowTransfer, sourceFile.toPath(), targetFile.toPath());
                     }
-
-                    success++;
+                    rowTransfer.release();
+
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    progress.addError(rowIndex, "Export interrupted");
+                    break;
+                } catch (Exception e) {
+                    progress.rowFailed(rowIndex, e.getMessage());
+                    logger.warn("Error processing row {}: {}", rowIndex, e.getMessage());
                 }
-
-            } catch (Exception e) {
-                failed++;
-                addError(errors, rowIndex, e.getMessage());
-                logger.warn("Error processing row {}: {}", rowIndex, e.getMessage());
             }
+            transfers.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.addError(-1, "Export interrupted");
+        } finally {
+            transfers.shutdown();
+            manifest.close();
         }
 
-        result.put("status", failed == 0 ? "ok" : "partial");
-        result.put("total", total);
-        result.put("success", success);
-        result.put("failed", failed);
-        result.put("skipped", skipped);
+        boolean complete = !Thread.currentThread().isInterrupted()
+                && progress.getFailed() == 0 && progress.getFilesFailed() == 0;
+        if (complete) {
+            manifest.delete();
+        }
+        return progress.finish(!complete);
+    }
 
-        return result;
+    private static int getLimit(JsonNode options, String name, int defaultValue) {
+        int value = options.has(name) ? options.get(name).asInt(defaultValue) : defaultValue;
+        return Math.max(1, Math.min(MAX_THREADS, value));
     }
 
     private String buildPath(Row row, List<Integer> columnIndices,
@@ -219,85 +279,10 @@ public class BoundAssetsExporter {
         return Paths.get(targetRoot, sourceFile.getName()).toString();
     }
 
-    private void addError(ArrayNode errors, int rowIndex, String message) {
-        ObjectNode error = ParsingUtilities.mapper.createObjectNode();
-        error.put("row", rowIndex);
-        error.put("error", message);
-        errors.add(error);
-    }
-
-    /**
-     * Recursively copy or move a directory and its contents.
-     *
-     * @param sourceDir Source directory
-     * @param targetDir Target directory
-     * @param mode "copy" or "move"
-     * @param skipExisting Whether to skip existing files
-     * @return int array: [success count, failed count, skipped count]
-     */
-    private int[] copyOrMoveDirectory(File sourceDir, File targetDir, String mode, boolean skipExisting) {
-        int success = 0;
-        int failed = 0;
-        int skipped = 0;
-
-        // Create target directory if it doesn't exist
-        if (!targetDir.exists()) {
-            if (!targetDir.mkdirs()) {
-                logger.warn("Failed to create directory: {}", targetDir.getAbsolutePath());
-                return new int[]{0, 1, 0};
-            }
-        }
-
-        File[] files = sourceDir.listFiles();
-        if (files == null) {
-            return new int[]{0, 1, 0};
-        }
-
-        for (File file : files) {
-            File targetFile = new File(targetDir, file.getName());
-
-            try {
-                if (file.isDirectory()) {
-                    // Recursively process subdirectory
-                    int[] subCounts = copyOrMoveDirectory(file, targetFile, mode, skipExisting);
-                    success += subCounts[0];
-                    failed += subCounts[1];
-                    skipped += subCounts[2];
-                } else {
-                    // Process file
-                    if (targetFile.exists() && skipExisting) {
-                        skipped++;
-                        continue;
-                    }
-
-                    Path source = file.toPath();
-                    Path target = targetFile.toPath();
-
-                    if ("move".equals(mode)) {
-                        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
-                    } else {
-                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-                    }
-                    success++;
-                }
-            } catch (Exception e) {
-                failed++;
-                logger.warn("Error copying file {}: {}", file.getAbsolutePath(), e.getMessage());
-            }
-        }
-
-        // If moving, delete source directory if empty
-        if ("move".equals(mode) && success > 0 && failed == 0) {
-            deleteEmptyDirectories(sourceDir);
-        }
-
-        return new int[]{success, failed, skipped};
-    }
-
     /**
      * Delete empty directories recursively (used after move operation).
      */
-    private void deleteEmptyDirectories(File dir) {
+    private static void deleteEmptyDirectories(File dir) {
         if (dir.isDirectory()) {
             File[] files = dir.listFiles();
             if (files != null) {
@@ -387,5 +372,427 @@ public class BoundAssetsExporter {
 
         return result;
     }
-}
 
+    /**
+     * Pool of workers transferring files. The number of files waiting for a worker is bounded,
+     * as are the numbers of concurrent transfers reading from the source volume and writing to
+     * the target volume.
+     */
+    private static class Transfers {
+
+        private final ExecutorService executor;
+        private final Semaphore queued;
+        private final Semaphore sourceVolume;
+        private final Semaphore targetVolume;
+        private final boolean move;
+        private final boolean skipExisting;
+        private final ExportProgress progress;
+
+        Transfers(int threads, int sourceConcurrency, int targetConcurrency, boolean move,
+                boolean skipExisting, ExportProgress progress) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "records-db-export-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.queued = new Semaphore(threads * QUEUED_PER_THREAD);
+            this.sourceVolume = new Semaphore(sourceConcurrency);
+            this.targetVolume = new Semaphore(targetConcurrency);
+            this.move = move;
+            this.skipExisting = skipExisting;
+            this.progress = progress;
+        }
+
+        void submitDirectory(RowTransfer row, Path source, Path target) throws IOException, InterruptedException {
+            if (move && !Files.exists(target)) {
+                // within a file system, the directory is renamed at once
+                Path parent = target.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                long[] contents = countFiles(source);
+                try {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                    progress.filesTransferred(contents[0], contents[1]);
+                    row.renamed();
+                    return;
+                } catch (AtomicMoveNotSupportedException e) {
+                    // different file systems, the files are moved one by one
+                }
+            }
+
+            // links within the directory are transferred as links rather than followed
+            Path root = source.toRealPath();
+            Files.createDirectories(target);
+            try (Stream<Path> paths = Files.walk(root)) {
+                Iterator<Path> it = paths.iterator();
+                while (it.hasNext()) {
+                    Path file = it.next();
+                    Path targetFile = target.resolve(root.relativize(file));
+                    if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                        Files.createDirectories(targetFile);
+                    } else {
+                        submitFile(row, file, targetFile);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Count the files in a directory, without following links, and their total size.
+         */
+        private static long[] countFiles(Path dir) throws IOException {
+            long[] contents = new long[2];
+            try (Stream<Path> paths = Files.walk(dir)) {
+                Iterator<Path> it = paths.iterator();
+                while (it.hasNext()) {
+                    BasicFileAttributes attributes = Files.readAttributes(it.next(), BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (!attributes.isDirectory()) {
+                        contents[0]++;
+                        contents[1] += attributes.size();
+                    }
+                }
+            }
+            return contents;
+        }
+
+        void submitFile(RowTransfer row, Path source, Path target) throws InterruptedException {
+            queued.acquire();
+            row.acquire();
+            executor.execute(() -> {
+                try {
+                    row.fileDone(transfer(source, target));
+                } catch (Exception e) {
+                    progress.fileFailed();
+                    row.fileFailed(source, e);
+                } finally {
+                    queued.release();
+                }
+            });
+        }
+
+        private int transfer(Path source, Path target) throws IOException, InterruptedException {
+            if (skipExisting && Files.exists(target)) {
+                return SKIPPED;
+            }
+            sourceVolume.acquire();
+            try {
+                targetVolume.acquire();
+                try {
+                    Path parent = target.getParent();
+                    if (parent != null) {
+                        Files.createDirectories(parent);
+                    }
+                    long size = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+                            .size();
+                    if (move) {
+                        try {
+                            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                            progress.fileTransferred(size);
+                            return TRANSFERRED;
+                        } catch (AtomicMoveNotSupportedException e) {
+                            // different file systems, copy then delete the source
+                        }
+                    }
+                    // copy under a temporary name, so that an existing target is always complete
+                    Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+                    try {
+                        Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+                        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        Files.deleteIfExists(partial);
+                        throw e;
+                    }
+                    if (move) {
+                        Files.delete(source);
+                    }
+                    progress.fileTransferred(size);
+                    return TRANSFERRED;
+                } finally {
+                    targetVolume.release();
+                }
+            } finally {
+                sourceVolume.release();
+            }
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting for the queued transfers
+            }
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Transfer of the files of one row. The row is reported once all its files are done.
+     */
+    private static class RowTransfer {
+
+        final int rowIndex;
+        final String sourcePath;
+        final boolean directory;
+        final Manifest manifest;
+        final boolean move;
+        final ExportProgress progress;
+
+        // held by the exporting thread until all files of the row are submitted
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicInteger transferred = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile String error;
+
+        RowTransfer(int rowIndex, String sourcePath, boolean directory, Manifest manifest, boolean move,
+                ExportProgress progress) {
+            this.rowIndex = rowIndex;
+            this.sourcePath = sourcePath;
+            this.directory = directory;
+            this.manifest = manifest;
+            this.move = move;
+            this.progress = progress;
+        }
+
+        void acquire() {
+            pending.incrementAndGet();
+        }
+
+        void renamed() {
+            transferred.incrementAndGet();
+        }
+
+        void fileDone(int outcome) {
+            if (outcome == TRANSFERRED) {
+                transferred.incrementAndGet();
+            } else {
+                skipped.incrementAndGet();
+            }
+            release();
+        }
+
+        void fileFailed(Path file, Exception e) {
+            failed.incrementAndGet();
+            error = e.getMessage();
+            logger.warn("Error copying file {}: {}", file, e.getMessage());
+            release();
+        }
+
+        void release() {
+            if (pending.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            String message = directory ? "Failed to copy some files in: " + sourcePath : error;
+            if (transferred.get() > 0) {
+                progress.rowSucceeded();
+                if (failed.get() > 0) {
+                    progress.addError(rowIndex, message);
+                }
+            } else if (failed.get() > 0) {
+                progress.rowFailed(rowIndex, message);
+            } else {
+                progress.rowSkipped();
+            }
+
+            if (failed.get() == 0) {
+                manifest.add(sourcePath);
+                // If moving, delete source directory if empty
+                if (move && directory) {
+                    deleteEmptyDirectories(new File(sourcePath));
+                }
+            }
+        }
+    }
+
+    /**
+     * Manifest of the rows exported to a target directory, by source path, one per line.
+     */
+    private static class Manifest {
+
+        private final Path path;
+        private final Set<String> exported = new HashSet<>();
+        private final BufferedWriter writer;
+        private int unflushed = 0;
+
+        Manifest(Path path, boolean resume) throws IOException {
+            this.path = path;
+            if (resume && Files.exists(path)) {
+                exported.addAll(Files.readAllLines(path, StandardCharsets.UTF_8));
+            }
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        int size() {
+            return exported.size();
+        }
+
+        /**
+         * Whether a row was exported by a previous run. Rows exported by the current run are
+         * only written to the manifest.
+         */
+        boolean contains(String sourcePath) {
+            return exported.contains(sourcePath);
+        }
+
+        synchronized void add(String sourcePath) {
+            try {
+                writer.write(sourcePath);
+                writer.newLine();
+                if (++unflushed >= MANIFEST_FLUSH_INTERVAL) {
+                    writer.flush();
+                    unflushed = 0;
+                }
+            } catch (IOException e) {
+                logger.warn("Error writing export manifest {}: {}", path, e.getMessage());
+            }
+        }
+
+        synchronized void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Error closing export manifest {}: {}", path, e.getMessage());
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Error deleting export manifest {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Progress of an export, updated by the workers as rows complete.
+     */
+    public static class ExportProgress {
+
+        private static final int MAX_ERRORS = 1000;
+
+        private volatile String status = "pending";
+        private volatile int totalRows;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private final AtomicInteger success = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger resumed = new AtomicInteger();
+        private final AtomicLong files = new AtomicLong();
+        private final AtomicLong filesFailed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final ArrayNode errors = ParsingUtilities.mapper.createArrayNode();
+
+        void start(int totalRows) {
+            this.totalRows = totalRows;
+            this.startedAt = System.currentTimeMillis();
+            this.status = "running";
+        }
+
+        void rowSucceeded() {
+            success.incrementAndGet();
+        }
+
+        void rowSkipped() {
+            skipped.incrementAndGet();
+        }
+
+        void rowResumed() {
+            resumed.incrementAndGet();
+            skipped.incrementAndGet();
+        }
+
+        void rowFailed(int rowIndex, String message) {
+            failed.incrementAndGet();
+            addError(rowIndex, message);
+        }
+
+        void fileTransferred(long size) {
+            files.incrementAndGet();
+            bytes.addAndGet(size);
+        }
+
+        void filesTransferred(long count, long size) {
+            files.addAndGet(count);
+            bytes.addAndGet(size);
+        }
+
+        void fileFailed() {
+            filesFailed.incrementAndGet();
+        }
+
+        void addError(int rowIndex, String message) {
+            errorCount.incrementAndGet();
+            synchronized (errors) {
+                // keep the response bounded when many rows fail
+                if (errors.size() < MAX_ERRORS) {
+                    ObjectNode error = errors.addObject();
+                    error.put("row", rowIndex);
+                    error.put("error", message);
+                }
+            }
+        }
+
+        ObjectNode finish(boolean partial) {
+            finishedAt = System.currentTimeMillis();
+            status = partial ? "partial" : "ok";
+            return toJSON(true);
+        }
+
+        /**
+         * Mark the export as failed before it could process the rows.
+         */
+        public void fail(String message) {
+            addError(-1, message);
+            finishedAt = System.currentTimeMillis();
+            status = "error";
+        }
+
+        public boolean isRunning() {
+            return "pending".equals(status) || "running".equals(status);
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public long getFilesFailed() {
+            return filesFailed.get();
+        }
+
+        public ObjectNode toJSON(boolean withErrors) {
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            result.put("status", status);
+            result.put("total", totalRows);
+            result.put("processed", success.get() + failed.get() + skipped.get());
+            result.put("success", success.get());
+            result.put("failed", failed.get());
+            result.put("skipped", skipped.get());
+            result.put("resumed", resumed.get());
+            result.put("files", files.get());
+            result.put("filesFailed", filesFailed.get());
+            result.put("bytes", bytes.get());
+            result.put("errorCount", errorCount.get());
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            result.put("elapsed", startedAt > 0 ? end - startedAt : 0);
+            if (withErrors) {
+                synchronized (errors) {
+                    result.set("errors", errors.deepCopy());
+                }
+            }
+            return result;
+        }
+    }
+}
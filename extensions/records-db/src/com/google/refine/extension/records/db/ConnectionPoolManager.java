@@ -1,7 +1,11 @@
 package com.google.refine.extension.records.db;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -17,18 +21,24 @@ import com.google.refine.extension.records.db.model.SchemaProfile;
  * 
  * 使用 HikariCP 管理数据库连接池
  * 支持多个数据库的连接池管理
+ * 
+ * 连接池按数据库和凭据区分（见 {@link #generateKey}），不同用户不会共用连接。
+ * 空闲的连接在 idleTimeout 后关闭，整个连接池空闲超过 idleTimeout 后也会被关闭。
  */
 public class ConnectionPoolManager {
     private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolManager.class);
     
-    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_MIN_IDLE = 0;
     private static final int DEFAULT_MAX_POOL_SIZE = 20;
     private static final long DEFAULT_CONNECTION_TIMEOUT = 30000; // 30 秒
     private static final long DEFAULT_IDLE_TIMEOUT = 600000; // 10 分钟
     private static final long DEFAULT_MAX_LIFETIME = 1800000; // 30 分钟
     
+    private static final ConnectionPoolManager instance = new ConnectionPoolManager();
+    
     private final Map<String, HikariDataSource> dataSources = new ConcurrentHashMap<>();
-    private final int poolSize;
+    private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+    private final int minIdle;
     private final int maxPoolSize;
     private final long connectionTimeout;
     private final long idleTimeout;
@@ -38,16 +48,18 @@ public class ConnectionPoolManager {
      * 构造函数 (使用默认配置)
      */
     public ConnectionPoolManager() {
-        this(DEFAULT_POOL_SIZE, DEFAULT_MAX_POOL_SIZE, DEFAULT_CONNECTION_TIMEOUT, 
+        this(DEFAULT_MIN_IDLE, DEFAULT_MAX_POOL_SIZE, DEFAULT_CONNECTION_TIMEOUT, 
              DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_LIFETIME);
     }
     
     /**
      * 构造函数
+     * 
+     * @param minIdle 每个连接池保持的最少空闲连接数
      */
-    public ConnectionPoolManager(int poolSize, int maxPoolSize, long connectionTimeout,
+    public ConnectionPoolManager(int minIdle, int maxPoolSize, long connectionTimeout,
                                  long idleTimeout, long maxLifetime) {
-        this.poolSize = poolSize;
+        this.minIdle = minIdle;
         this.maxPoolSize = maxPoolSize;
         this.connectionTimeout = connectionTimeout;
         this.idleTimeout = idleTimeout;
@@ -55,14 +67,34 @@ public class ConnectionPoolManager {
     }
     
     /**
-     * 生成数据源键
+     * 获取共享的连接池管理器实例
+     */
+    public static ConnectionPoolManager getInstance() {
+        return instance;
+    }
+    
+    /**
+     * 生成数据源键，包含用户名和密码的 SHA-256 哈希，不包含密码本身
      */
-    private String generateKey(SchemaProfile profile) {
-        return String.format("%s://%s:%d/%s", 
+    static String generateKey(SchemaProfile profile) {
+        String password = profile.getPassword() == null ? "" : profile.getPassword();
+        String passwordHash;
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            passwordHash = hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return String.format("%s://%s:%d/%s|%s|%s", 
             profile.getDialect(), 
             profile.getHost(), 
             profile.getPort(), 
-            profile.getDatabase());
+            profile.getDatabase(),
+            profile.getUsername(),
+            passwordHash);
     }
     
     /**
@@ -74,6 +106,9 @@ public class ConnectionPoolManager {
      */
     public Connection getConnection(SchemaProfile profile) throws SQLException {
         String key = generateKey(profile);
+        long now = System.currentTimeMillis();
+        closeIdlePools(now);
+        lastUsed.put(key, now);
         
         HikariDataSource dataSource = dataSources.computeIfAbsent(key, k -> {
             logger.info("Creating connection pool for {}", k);
@@ -90,6 +125,30 @@ public class ConnectionPoolManager {
         }
     }
     
+    /**
+     * 关闭超过 idleTimeout 未被使用且没有活动连接的连接池
+     */
+    void closeIdlePools(long now) {
+        Iterator<Map.Entry<String, Long>> it = lastUsed.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() < idleTimeout) {
+                continue;
+            }
+            String key = entry.getKey();
+            HikariDataSource dataSource = dataSources.get(key);
+            if (dataSource != null && dataSource.getHikariPoolMXBean() != null
+                    && dataSource.getHikariPoolMXBean().getActiveConnections() > 0) {
+                continue;
+            }
+            it.remove();
+            if (dataSource != null && dataSources.remove(key, dataSource)) {
+                dataSource.close();
+                logger.info("Closed idle connection pool for {}", dataSource.getPoolName());
+            }
+        }
+    }
+    
     /**
      * 创建数据源
      */
@@ -105,7 +164,8 @@ public class ConnectionPoolManager {
         config.setPassword(profile.getPassword());
         
         // 设置连接池参数
-        config.setMinimumIdle(poolSize);
+        // 空闲连接在 idleTimeout 后释放，不在 JVM 生命周期内一直占用数据库连接
+        config.setMinimumIdle(Math.min(minIdle, maxPoolSize));
         config.setMaximumPoolSize(maxPoolSize);
         config.setConnectionTimeout(connectionTimeout);
         config.setIdleTimeout(idleTimeout);
@@ -126,8 +186,8 @@ public class ConnectionPoolManager {
             config.setDriverClassName(driverClass);
         }
         
-        logger.info("Creating HikariCP data source with config: poolSize={}, maxPoolSize={}", 
-            poolSize, maxPoolSize);
+        logger.info("Creating HikariCP data source with config: minIdle={}, maxPoolSize={}", 
+            minIdle, maxPoolSize);
         
         return new HikariDataSource(config);
     }
@@ -182,6 +242,7 @@ public class ConnectionPoolManager {
     public void closePool(SchemaProfile profile) {
         String key = generateKey(profile);
         HikariDataSource dataSource = dataSources.remove(key);
+        lastUsed.remove(key);
         
         if (dataSource != null) {
             dataSource.close();
@@ -202,6 +263,7 @@ public class ConnectionPoolManager {
             }
         });
         dataSources.clear();
+        lastUsed.clear();
     }
     
     /**
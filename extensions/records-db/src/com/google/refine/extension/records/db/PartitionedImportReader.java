@@ -0,0 +1,350 @@
+package com.google.refine.extension.records.db;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
+import com.google.refine.importing.ImportingJob;
+
+/**
+ * TableDataReader which extracts the source table concurrently, over pooled connections.
+ *
+ * The range between the minimum and maximum of the profile's key column is split into
+ * chunks, each read by a single range query. Up to {@link SchemaProfile#getParallelism()}
+ * chunks are read at once, and a bounded window of chunks is kept ahead of the consumer,
+ * which returns their rows in key order. This requires an integral key column which is
+ * unique and not null; otherwise the table is read serially by {@link RecordsDBImportReader}.
+ *
+ * Since keys can be unevenly distributed, a range query returns at most {@link #MAX_CHUNK_ROWS}
+ * rows. The rest of a range which reaches this limit is read as a further chunk, starting from
+ * its last key, before the chunks of the following ranges are returned.
+ */
+public class PartitionedImportReader implements TableDataReader {
+
+    private static final Logger logger = LoggerFactory.getLogger("PartitionedImportReader");
+
+    /**
+     * Expected number of rows per chunk
+     */
+    static final int CHUNK_ROWS = 20000;
+    /**
+     * Maximum number of rows read at once, bounding the memory used by a densely populated range
+     */
+    static final int MAX_CHUNK_ROWS = 2 * CHUNK_ROWS;
+    static final int MAX_PARALLELISM = 16;
+
+    private final ConnectionPoolManager pools;
+    private final SchemaProfile profile;
+    private final ImportingJob job;
+    private final int parallelism;
+    private final int maxRows;
+    private final long estimatedRows;
+    private final int maxChunkRows;
+
+    private boolean started = false;
+    private int rowsRead = 0;
+
+    // serial fallback
+    private RecordsDBImportReader delegate = null;
+    private Connection delegateConn = null;
+
+    // key ranges still to read, from nextLow to maxKey
+    private long nextLow;
+    private long maxKey;
+    private long step;
+    private boolean rangesExhausted = true;
+
+    private ExecutorService executor = null;
+    private final Deque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+    private List<List<Object>> rows = Collections.emptyList();
+    private int rowIndex = 0;
+
+    public PartitionedImportReader(ConnectionPoolManager pools, SchemaProfile profile,
+                                   ImportingJob job, int maxRows, long estimatedRows) {
+        this(pools, profile, job, maxRows, estimatedRows, MAX_CHUNK_ROWS);
+    }
+
+    PartitionedImportReader(ConnectionPoolManager pools, SchemaProfile profile,
+                            ImportingJob job, int maxRows, long estimatedRows, int maxChunkRows) {
+        this.pools = pools;
+        this.profile = profile;
+        this.job = job;
+        this.parallelism = Math.max(1, Math.min(MAX_PARALLELISM, profile.getParallelism()));
+        this.maxRows = maxRows > 0 ? maxRows : -1;
+        this.estimatedRows = estimatedRows;
+        this.maxChunkRows = maxChunkRows;
+    }
+
+    @Override
+    public List<Object> getNextRowOfCells() throws IOException {
+        if (job != null && job.canceled) {
+            close();
+            return null;
+        }
+
+        if (!started) {
+            started = true;
+            return start();
+        }
+        if (delegate != null) {
+            return delegate.getNextRowOfCells();
+        }
+
+        if (maxRows > 0 && rowsRead >= maxRows) {
+            close();
+            return null;
+        }
+        while (rowIndex >= rows.size()) {
+            if (pending.isEmpty()) {
+                close();
+                return null;
+            }
+            rows = nextChunk().rows;
+            rowIndex = 0;
+        }
+        rowsRead++;
+        return rows.get(rowIndex++);
+    }
+
+    /**
+     * Stop all extraction tasks and release their connections.
+     */
+    public void close() {
+        if (executor != null) {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (delegate != null) {
+            delegate.close();
+        }
+        DatabaseConnectionManager.closeConnection(delegateConn);
+        delegateConn = null;
+    }
+
+    /**
+     * Determine the key ranges, start extracting them and return the header row.
+     */
+    private List<Object> start() throws IOException {
+        Object[] bounds;
+        try {
+            delegateConn = pools.getConnection(profile);
+            // rows with a null key would not fall in any range
+            RecordsDBImportReader.checkKeyColumn(delegateConn, profile);
+            bounds = readKeyBounds(delegateConn);
+        } catch (IOException e) {
+            close();
+            throw e;
+        } catch (SQLException e) {
+            close();
+            logger.error("Error reading key bounds for records-db import", e);
+            throw new IOException(e);
+        }
+
+        Long min = toLong(bounds[0]);
+        Long max = toLong(bounds[1]);
+        if (min == null || max == null) {
+            if (logger.isInfoEnabled()) {
+                logger.info("Key column {} has no integral bounds, importing serially", profile.getKeyColumn());
+            }
+            delegate = new RecordsDBImportReader(delegateConn, profile, job, 1000, maxRows);
+            return delegate.getNextRowOfCells();
+        }
+        DatabaseConnectionManager.closeConnection(delegateConn);
+        delegateConn = null;
+
+        long expected = maxRows > 0 && estimatedRows > 0 ? Math.min(estimatedRows, maxRows) : estimatedRows;
+        long chunks = Math.max(parallelism, (expected + CHUNK_ROWS - 1) / CHUNK_ROWS);
+        double span = (double) max - (double) min + 1;
+        nextLow = min;
+        maxKey = max;
+        step = Math.max(1L, (long) Math.ceil(span / chunks));
+        rangesExhausted = false;
+        if (logger.isInfoEnabled()) {
+            logger.info("Importing keys {} to {} in chunks of {} keys with {} threads", min, max, step, parallelism);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "records-db-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // keep twice as many chunks in flight as there are threads, so that threads do not idle
+        // while the consumer drains the chunk in front
+        for (int i = 0; i < 2 * parallelism; i++) {
+            submitNextRange();
+        }
+
+        Chunk first = nextChunk();
+        rows = first.rows;
+        rowIndex = 0;
+        return new ArrayList<Object>(first.labels);
+    }
+
+    private Object[] readKeyBounds(Connection conn) throws SQLException {
+        String query = QueryBuilder.buildKeyBoundsQuery(profile);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Key bounds query: {}", query);
+        }
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+            if (rs.next()) {
+                return new Object[] { rs.getObject(1), rs.getObject(2) };
+            }
+            return new Object[2];
+        }
+    }
+
+    private void submitNextRange() {
+        if (rangesExhausted) {
+            return;
+        }
+        final long low = nextLow;
+        final long high = maxKey - low < step - 1 ? maxKey : low + step - 1;
+        if (high == maxKey) {
+            rangesExhausted = true;
+        } else {
+            nextLow = high + 1;
+        }
+        pending.add(executor.submit(() -> readRange(low, high, maxChunkRows)));
+    }
+
+    /**
+     * Wait for the chunk in front of the window, and start extracting the rest of its range if it
+     * was truncated, or else the next range.
+     */
+    private Chunk nextChunk() throws IOException {
+        Future<Chunk> future = pending.poll();
+        try {
+            Chunk chunk = future.get();
+            if (chunk.resumeFrom != null) {
+                final long low = chunk.resumeFrom;
+                final long high = chunk.high;
+                // the rest of the range comes before the ranges already pending
+                if (chunk.rows.isEmpty()) {
+                    // a single key has more rows than the limit: read it whole
+                    pending.addFirst(executor.submit(() -> readKey(low, high)));
+                } else {
+                    pending.addFirst(executor.submit(() -> readRange(low, high, maxChunkRows)));
+                }
+            } else {
+                submitNextRange();
+            }
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            close();
+            logger.error("Error extracting key range for records-db import", e.getCause());
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Read the rows whose key lies in a range.
+     *
+     * @param limit the maximum number of rows to read, or 0 for no limit
+     */
+    private Chunk readRange(long low, long high, int limit) throws Exception {
+        String query = QueryBuilder.buildKeyRangeQuery(profile, limit);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Import query (keys {} to {}): {}", low, high, query);
+        }
+        try (Connection conn = pools.getConnection(profile);
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setLong(1, low);
+            stmt.setLong(2, high);
+            try (ResultSet rs = stmt.executeQuery()) {
+                // the key is selected last, and is not imported
+                int colCount = rs.getMetaData().getColumnCount() - 1;
+                Chunk chunk = new Chunk(RecordsDBImportReader.readColumnLabels(rs.getMetaData(), colCount), high);
+                RowDecoder decoder = new RowDecoder(rs.getMetaData(), colCount,
+                        RecordsDBImportReader.getJavaJsonPaths(profile, chunk.labels), profile.getDialect());
+                // first row of each key, to drop the last key if the limit cut its rows
+                int keyStart = 0;
+                long lastKey = low;
+                while (rs.next()) {
+                    long key = rs.getLong(colCount + 1);
+                    if (chunk.rows.isEmpty() || key != lastKey) {
+                        keyStart = chunk.rows.size();
+                        lastKey = key;
+                    }
+                    chunk.rows.add(Arrays.asList(decoder.decode(rs, new Object[colCount])));
+                }
+                if (limit > 0 && chunk.rows.size() >= limit) {
+                    chunk.rows.subList(keyStart, chunk.rows.size()).clear();
+                    chunk.resumeFrom = lastKey;
+                }
+                return chunk;
+            }
+        }
+    }
+
+    /**
+     * Read all rows of a key, continuing with the rest of its range.
+     */
+    private Chunk readKey(long key, long high) throws Exception {
+        Chunk chunk = readRange(key, key, 0);
+        if (key != high) {
+            chunk.resumeFrom = key + 1;
+            chunk.high = high;
+        }
+        return chunk;
+    }
+
+    /**
+     * Convert a key bound to a long, or return null if it is not an integer.
+     */
+    static Long toLong(Object value) {
+        if (!(value instanceof Number) || value instanceof Double || value instanceof Float) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.toString()).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rows of one key range, in key order
+     */
+    private static class Chunk {
+        final List<String> labels;
+        final List<List<Object>> rows = new ArrayList<List<Object>>();
+        // upper bound of the range
+        long high;
+        // first key still to read if the range was truncated, or null
+        Long resumeFrom = null;
+
+        Chunk(List<String> labels, long high) {
+            this.labels = labels;
+            this.high = high;
+        }
+    }
+}
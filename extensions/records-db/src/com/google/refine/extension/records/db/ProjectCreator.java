@@ -1,21 +1,28 @@
 package com.google.refine.extension.records.db;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.CharMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
+import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.extension.records.db.model.RecordsDBOverlayModel;
 import com.google.refine.extension.records.db.model.SchemaProfile;
-import com.google.refine.importers.TabularImportingParserBase;
+import com.google.refine.importers.ImporterUtilities;
+import com.google.refine.importers.TabularImportingParserBase.TableDataReader;
 import com.google.refine.importing.ImportingJob;
 import com.google.refine.importing.ImportingManager;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
+import com.google.refine.model.Row;
 import com.google.refine.util.JSONUtilities;
 import com.google.refine.util.ParsingUtilities;
 
@@ -26,6 +33,7 @@ public class ProjectCreator {
 
     private static final Logger logger = LoggerFactory.getLogger("ProjectCreator");
     private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int PROGRESS_INTERVAL = 10000;
 
     /**
      * Prepare project creation from database data.
@@ -35,6 +43,18 @@ public class ProjectCreator {
      */
     public static ObjectNode prepareProjectCreation(final String projectName,
             final SchemaProfile profile, final int maxRows) throws Exception {
+        return prepareProjectCreation(projectName, profile, maxRows, null);
+    }
+
+    /**
+     * Prepare project creation from database data, reporting progress to the given
+     * importing job. Clients can poll the job's status and cancel it while the project
+     * is being created. If the job is null, a new one is created.
+     *
+     * @param maxRows maximum number of rows to import, or 0 to import all rows
+     */
+    public static ObjectNode prepareProjectCreation(final String projectName,
+            final SchemaProfile profile, final int maxRows, ImportingJob importingJob) throws Exception {
 
         if (logger.isDebugEnabled()) {
             logger.debug("Preparing project creation: {}", projectName);
@@ -52,9 +72,15 @@ public class ProjectCreator {
         }
 
         final long totalRows = rowCount;
-        final int effectiveMaxRows = maxRows > 0 ? maxRows : profile.getMaxRows();
+        final int effectiveMaxRows = maxRows > 0 ? maxRows : -1;
+        // field filters which cannot be expressed in SQL drop rows after they are read, so the
+        // readers must not stop at maxRows themselves
+        final Map<String, Object> javaFilters = QueryBuilder.getJavaFilters(profile, QueryBuilder.getFieldFilters(profile));
+        final int readerMaxRows = javaFilters.isEmpty() ? effectiveMaxRows : -1;
 
         Connection conn = null;
+        RecordsDBImportReader reader = null;
+        PartitionedImportReader partitionedReader = null;
         ImportingJob job = null;
         Project project = new Project();
         ProjectMetadata metadata = new ProjectMetadata();
@@ -65,29 +91,21 @@ public class ProjectCreator {
         long projectId = -1L;
 
         try {
-            conn = DatabaseConnectionManager.getConnection(profile);
-            job = ImportingManager.createJob();
+            job = importingJob != null ? importingJob : ImportingManager.createJob();
             job.setState("creating-project");
             job.updating = true;
 
-            ObjectNode options = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(options, "ignoreLines", -1);
-            JSONUtilities.safePut(options, "headerLines", 1);
-            JSONUtilities.safePut(options, "storeBlankRows", true);
-            JSONUtilities.safePut(options, "storeBlankCellsAsNulls", true);
-
-            RecordsDBImportReader reader = new RecordsDBImportReader(
-                    conn, profile, job, DEFAULT_BATCH_SIZE, effectiveMaxRows);
-
-            TabularImportingParserBase.readTable(
-                    project,
-                    metadata,
-                    job,
-                    reader,
-                    profile.getMainTable(),
-                    effectiveMaxRows,
-                    options,
-                    exceptions);
+            long expectedRows = effectiveMaxRows > 0 ? Math.min(totalRows, effectiveMaxRows) : totalRows;
+            if (profile.getParallelism() > 1 && profile.getKeyColumn() != null && !profile.getKeyColumn().isEmpty()) {
+                partitionedReader = new PartitionedImportReader(
+                        ConnectionPoolManager.getInstance(), profile, job, readerMaxRows, totalRows);
+                readRows(project, job, partitionedReader, expectedRows, javaFilters, effectiveMaxRows, exceptions);
+            } else {
+                conn = DatabaseConnectionManager.getConnection(profile);
+                reader = new RecordsDBImportReader(
+                        conn, profile, job, DEFAULT_BATCH_SIZE, readerMaxRows);
+                readRows(project, job, reader, expectedRows, javaFilters, effectiveMaxRows, exceptions);
+            }
 
             if (!job.canceled && exceptions.isEmpty()) {
                 project.update();
@@ -122,6 +140,12 @@ public class ProjectCreator {
                 job.touch();
                 job.updating = false;
             }
+            if (reader != null) {
+                reader.close();
+            }
+            if (partitionedReader != null) {
+                partitionedReader.close();
+            }
             DatabaseConnectionManager.closeConnection(conn);
         }
 
@@ -138,5 +162,78 @@ public class ProjectCreator {
         }
         return result;
     }
-}
 
+    /**
+     * Read all rows of the reader into the project. Unlike the generic tabular importer, this
+     * does not go through import options: columns are set up once from the header and every
+     * value is stored in its cell as returned by the database, so rows flow from the database
+     * cursor to the project without intermediate buffering.
+     *
+     * @param javaFilters field filters which the import query could not apply, checked on each row
+     * @param maxRows maximum number of rows to keep, or a non-positive value to keep all rows
+     */
+    static void readRows(Project project, ImportingJob job, TableDataReader reader,
+            long expectedRows, Map<String, Object> javaFilters, int maxRows, List<Exception> exceptions) {
+        try {
+            List<Object> header = reader.getNextRowOfCells();
+            if (header == null) {
+                return;
+            }
+            List<String> columnNames = new ArrayList<String>(header.size());
+            for (int c = 0; c < header.size(); c++) {
+                Object name = header.get(c);
+                ImporterUtilities.appendColumnName(columnNames, c,
+                        name == null ? "" : CharMatcher.whitespace().trimFrom(name.toString()));
+            }
+            ImporterUtilities.setupColumns(project, columnNames);
+
+            int columnCount = columnNames.size();
+            int[] cellIndexes = new int[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                cellIndexes[c] = project.columnModel.columns.get(c).getCellIndex();
+            }
+
+            if (expectedRows > 0 && project.rows instanceof ArrayList) {
+                ((ArrayList<Row>) project.rows).ensureCapacity((int) Math.min(expectedRows, Integer.MAX_VALUE));
+            }
+
+            List<Object> cells;
+            int lastPercent = -1;
+            while (!job.canceled && (maxRows <= 0 || project.rows.size() < maxRows)
+                    && (cells = reader.getNextRowOfCells()) != null) {
+                int n = Math.min(cells.size(), columnCount);
+                if (!javaFilters.isEmpty() && !FilterApplier.matchesFilters(toObjectNode(columnNames, cells, n), javaFilters)) {
+                    continue;
+                }
+                Row row = new Row(n);
+                for (int c = 0; c < n; c++) {
+                    Object value = cells.get(c);
+                    if (ExpressionUtils.isNonBlankData(value)) {
+                        row.setCell(cellIndexes[c], new Cell(ExpressionUtils.wrapStorable(value), null));
+                    }
+                }
+                project.rows.add(row);
+
+                int count = project.rows.size();
+                if (count % PROGRESS_INTERVAL == 0) {
+                    int percent = expectedRows > 0 ? (int) Math.min(99, 100L * count / expectedRows) : 0;
+                    if (percent != lastPercent) {
+                        lastPercent = percent;
+                        job.setProgress(percent, "Reading rows (" + count + ")");
+                    }
+                    job.touch();
+                }
+            }
+        } catch (IOException e) {
+            exceptions.add(e);
+        }
+    }
+
+    private static ObjectNode toObjectNode(List<String> columnNames, List<Object> cells, int n) {
+        ObjectNode row = ParsingUtilities.mapper.createObjectNode();
+        for (int c = 0; c < n; c++) {
+            QueryExecutor.putValue(row, columnNames.get(c), cells.get(c));
+        }
+        return row;
+    }
+}
@@ -17,16 +17,106 @@ import com.google.refine.extension.records.db.model.SchemaProfile.FieldMapping;
 /**
  * Builds SQL queries for P0 strategy (server-side JSON parsing)
  * P0 strategy: Fetch all data and parse JSON on server side
+ *
+ * JSON field mappings and field filters are rendered as SQL for each dialect, so that the database
+ * only returns the extracted values. Paths that cannot be expressed in SQL are extracted in Java.
  */
 public class QueryBuilder {
 
     private static final Logger logger = LoggerFactory.getLogger("QueryBuilder");
 
+    /**
+     * Alias of the key column appended to keyset pagination queries
+     */
+    public static final String KEY_ALIAS = "__rdb_key";
+
+    /**
+     * Key of the FilterApplier-style field filters (field label or column name to value) in the filters of a profile
+     */
+    public static final String FIELD_FILTERS_KEY = "fieldFilters";
+
     /**
      * Build a basic SELECT query for the schema profile
      * P0 strategy: Select all columns from main table
      */
     public static String buildSelectQuery(SchemaProfile profile) {
+        return buildSelectQuery(profile, null, null, getFieldFilters(profile));
+    }
+
+    /**
+     * Build a SELECT query for the schema profile, restricted to the rows matching the given field filters
+     * where they can be expressed in SQL. Remaining filters are returned by {@link #getJavaFilters}.
+     */
+    public static String buildSelectQuery(SchemaProfile profile, Map<String, Object> fieldFilters) {
+        return buildSelectQuery(profile, null, null, fieldFilters);
+    }
+
+    /**
+     * Build a query for the keys of one page of keyset (seek) pagination on the key column of the profile.
+     * It returns the distinct, non-null keys of the selected rows of the main table in ascending order,
+     * under {@link #KEY_ALIAS}, so that the page is counted in rows of the main table rather than in rows
+     * of its joins. The rows of the page are then read with {@link #buildKeyRangeQuery}. When afterKey is
+     * set, the query has a single parameter: the last key of the previous page. Unlike OFFSET, this lets
+     * the database seek directly to the start of each page using the key's index.
+     */
+    public static String buildKeysetQuery(SchemaProfile profile, boolean afterKey, int limit) {
+        if (profile == null || profile.getKeyColumn() == null || profile.getKeyColumn().isEmpty()) {
+            throw new IllegalArgumentException("A key column is required for keyset pagination");
+        }
+        String dialect = profile.getDialect();
+        String keyExpr = "m." + escapeColumnName(profile.getKeyColumn(), dialect);
+        String keyCondition = keyExpr + " IS NOT NULL" + (afterKey ? " AND " + keyExpr + " > ?" : "");
+        StringBuilder query = new StringBuilder(buildAggregateQuery(profile,
+                "DISTINCT " + keyExpr + " AS " + escapeColumnName(KEY_ALIAS, dialect), keyCondition));
+        query.append(" ORDER BY ").append(keyExpr);
+        if (limit > 0) {
+            query.append(" LIMIT ").append(limit);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Built keyset query: {}", query.toString());
+        }
+        return query.toString();
+    }
+
+    /**
+     * Build a SELECT query for the rows whose key lies in a range, ordered by the key, which is
+     * selected last under {@link #KEY_ALIAS}. The query has two parameters: the inclusive lower
+     * and upper bounds of the range.
+     */
+    public static String buildKeyRangeQuery(SchemaProfile profile) {
+        return buildKeyRangeQuery(profile, 0);
+    }
+
+    /**
+     * Build a range query as {@link #buildKeyRangeQuery(SchemaProfile)}, returning at most limit rows
+     * when limit is positive.
+     */
+    public static String buildKeyRangeQuery(SchemaProfile profile, int limit) {
+        if (profile == null || profile.getKeyColumn() == null || profile.getKeyColumn().isEmpty()) {
+            throw new IllegalArgumentException("A key column is required for range partitioning");
+        }
+        String query = buildSelectQuery(profile, profile.getKeyColumn(), " BETWEEN ? AND ?", getFieldFilters(profile));
+        return limit > 0 ? query + " LIMIT " + limit : query;
+    }
+
+    /**
+     * Build a query returning the minimum and maximum of the key column over the selected rows
+     */
+    public static String buildKeyBoundsQuery(SchemaProfile profile) {
+        if (profile == null || profile.getKeyColumn() == null || profile.getKeyColumn().isEmpty()) {
+            throw new IllegalArgumentException("A key column is required for range partitioning");
+        }
+        String keyExpr = "m." + escapeColumnName(profile.getKeyColumn(), profile.getDialect());
+        return buildAggregateQuery(profile, "MIN(" + keyExpr + "), MAX(" + keyExpr + ")", null);
+    }
+
+    /**
+     * @param keyCondition condition on the key column appended to the WHERE clause, such as " > ?", or null
+     * @param fieldFilters FilterApplier-style filters on field mappings, or null
+     */
+    private static String buildSelectQuery(SchemaProfile profile, String keyColumn, String keyCondition,
+            Map<String, Object> fieldFilters) {
         if (profile == null || profile.getMainTable() == null) {
             throw new IllegalArgumentException("Schema profile and main table are required");
         }
@@ -85,6 +175,12 @@ public class QueryBuilder {
             selectClause.append(", ").append(filePathExpr);
         }
 
+        String keyExpr = null;
+        if (keyColumn != null) {
+            keyExpr = mainAlias + "." + escapeColumnName(keyColumn, dialect);
+            selectClause.append(", ").append(keyExpr).append(" AS ").append(escapeColumnName(KEY_ALIAS, dialect));
+        }
+
         // Combine SELECT and FROM clauses
         StringBuilder query = new StringBuilder();
         query.append(selectClause);
@@ -99,9 +195,23 @@ public class QueryBuilder {
         } else if (condWhere != null && !condWhere.isEmpty()) {
             combinedWhere = condWhere;
         }
+        String filterWhere = buildFieldFiltersClause(profile, fieldFilters, mainAlias, dialect);
+        if (filterWhere != null) {
+            combinedWhere = combinedWhere != null && !combinedWhere.isEmpty()
+                    ? "(" + combinedWhere + ") AND " + filterWhere
+                    : filterWhere;
+        }
+        if (keyExpr != null && keyCondition != null) {
+            combinedWhere = combinedWhere != null && !combinedWhere.isEmpty()
+                    ? "(" + combinedWhere + ") AND " + keyExpr + keyCondition
+                    : keyExpr + keyCondition;
+        }
         if (combinedWhere != null && !combinedWhere.isEmpty()) {
             query.append(" WHERE ").append(combinedWhere);
         }
+        if (keyExpr != null) {
+            query.append(" ORDER BY ").append(keyExpr);
+        }
 
         if (logger.isDebugEnabled()) {
             logger.debug("Built SELECT query: {}", query.toString());
@@ -113,7 +223,15 @@ public class QueryBuilder {
      * Build a SELECT query with LIMIT and OFFSET for pagination
      */
     public static String buildSelectQueryWithPagination(SchemaProfile profile, int offset, int limit) {
-        String baseQuery = buildSelectQuery(profile);
+        return buildSelectQueryWithPagination(profile, null, offset, limit);
+    }
+
+    /**
+     * Build a SELECT query with field filters, LIMIT and OFFSET for pagination
+     */
+    public static String buildSelectQueryWithPagination(SchemaProfile profile, Map<String, Object> fieldFilters,
+            int offset, int limit) {
+        String baseQuery = buildSelectQuery(profile, fieldFilters);
 
         StringBuilder query = new StringBuilder(baseQuery);
         query.append(" LIMIT ").append(limit);
@@ -130,6 +248,13 @@ public class QueryBuilder {
      * Build a COUNT query to get total row count
      */
     public static String buildCountQuery(SchemaProfile profile) {
+        return buildAggregateQuery(profile, "COUNT(*) as total", null);
+    }
+
+    /**
+     * @param extraCondition condition appended to the WHERE clause, or null
+     */
+    private static String buildAggregateQuery(SchemaProfile profile, String aggregates, String extraCondition) {
         if (profile == null || profile.getMainTable() == null) {
             throw new IllegalArgumentException("Schema profile and main table are required");
         }
@@ -138,7 +263,7 @@ public class QueryBuilder {
         final String exportedJoinAlias = "je";
 
         StringBuilder query = new StringBuilder();
-        query.append("SELECT COUNT(*) as total FROM ")
+        query.append("SELECT ").append(aggregates).append(" FROM ")
              .append(escapeTableName(profile.getMainTable(), dialect)).append(" ").append(mainAlias);
 
         // Optional JOIN + WHERE for exclude-exported and custom conditions
@@ -152,12 +277,23 @@ public class QueryBuilder {
         } else if (condWhere != null && !condWhere.isEmpty()) {
             combinedWhere = condWhere;
         }
+        String filterWhere = buildFieldFiltersClause(profile, getFieldFilters(profile), mainAlias, dialect);
+        if (filterWhere != null) {
+            combinedWhere = combinedWhere != null && !combinedWhere.isEmpty()
+                    ? "(" + combinedWhere + ") AND " + filterWhere
+                    : filterWhere;
+        }
+        if (extraCondition != null) {
+            combinedWhere = combinedWhere != null && !combinedWhere.isEmpty()
+                    ? "(" + combinedWhere + ") AND " + extraCondition
+                    : extraCondition;
+        }
         if (combinedWhere != null && !combinedWhere.isEmpty()) {
             query.append(" WHERE ").append(combinedWhere);
         }
 
         if (logger.isDebugEnabled()) {
-            logger.debug("Built COUNT query: {}", query.toString());
+            logger.debug("Built aggregate query: {}", query.toString());
         }
         return query.toString();
     }
@@ -252,19 +388,11 @@ public class QueryBuilder {
                 : mapping.getColumnName();
         String aliasEsc = escapeColumnName(alias, dialect);
 
-        // Plan B: JSON extraction pushed down to DB
+        // Plan B: JSON extraction pushed down to DB, unless the dialect or path is not supported,
+        // in which case the raw column is selected and the path is extracted in Java
         if (mapping.isJsonField() && mapping.getJsonPath() != null && !mapping.getJsonPath().isEmpty()) {
-            String key = mapping.getJsonPath();
-            if ("mysql".equals(dialect) || "mariadb".equals(dialect)) {
-                String keyEsc = key.replace("\"", "\\\"");
-                return "JSON_UNQUOTE(JSON_EXTRACT(" + baseCol + ", '$.\"" + keyEsc + "\"')) AS " + aliasEsc;
-            } else if ("postgresql".equals(dialect)) {
-                String keyEsc = key.replace("'", "''");
-                return "(" + baseCol + "::json->>'" + keyEsc + "') AS " + aliasEsc;
-            } else if ("sqlite".equals(dialect)) {
-                String keyEsc = key.replace("\"", "\\\"");
-                return "json_extract(" + baseCol + ", '$.\"" + keyEsc + "\"') AS " + aliasEsc;
-            }
+            String expr = renderJsonExtraction(baseCol, mapping.getJsonPath(), dialect);
+            return (expr != null ? expr : baseCol) + " AS " + aliasEsc;
         }
 
         // Default: direct column, alias if label differs
@@ -274,6 +402,240 @@ public class QueryBuilder {
         return baseCol;
     }
 
+    /**
+     * Render the SQL expression extracting the value at a JSON path from a column, as a scalar
+     * (strings are unquoted, objects and arrays are returned as JSON text). Returns null if the
+     * dialect has no JSON support or the path cannot be expressed in SQL.
+     */
+    public static String renderJsonExtraction(String columnExpr, String jsonPath, String dialect) {
+        List<Object> path = parseJsonPath(jsonPath);
+        if (path == null) {
+            return null;
+        }
+        if ("mysql".equals(dialect) || "mariadb".equals(dialect) || "sqlite".equals(dialect)) {
+            StringBuilder sqlPath = new StringBuilder("$");
+            for (Object step : path) {
+                if (step instanceof Integer) {
+                    sqlPath.append("[").append(step).append("]");
+                } else {
+                    sqlPath.append(".\"").append(((String) step).replace("\\", "\\\\").replace("\"", "\\\""))
+                           .append("\"");
+                }
+            }
+            String literal = sqlPath.toString().replace("'", "''");
+            if ("sqlite".equals(dialect)) {
+                return "json_extract(" + columnExpr + ", '" + literal + "')";
+            }
+            // backslashes are escape characters in MySQL string literals
+            return "JSON_UNQUOTE(JSON_EXTRACT(" + columnExpr + ", '" + literal.replace("\\", "\\\\") + "'))";
+        } else if ("postgresql".equals(dialect)) {
+            StringBuilder sqlPath = new StringBuilder("{");
+            for (int i = 0; i < path.size(); i++) {
+                if (i > 0) sqlPath.append(",");
+                String step = path.get(i).toString();
+                sqlPath.append("\"").append(step.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"");
+            }
+            sqlPath.append("}");
+            return "(" + columnExpr + "::json#>>'" + sqlPath.toString().replace("'", "''") + "')";
+        }
+        return null;
+    }
+
+    /**
+     * Parse a JSON path in the dot notation of {@link JsonFieldExtractor}, such as "a.b[0].c" with an
+     * optional "$." prefix, into its object keys (strings) and array indices (integers). Returns null
+     * for paths using other syntax, such as wildcards.
+     */
+    static List<Object> parseJsonPath(String jsonPath) {
+        if (jsonPath == null) {
+            return null;
+        }
+        String path = jsonPath;
+        if (path.startsWith("$")) {
+            path = path.substring(1);
+            if (path.startsWith(".")) path = path.substring(1);
+        }
+        if (path.isEmpty()) {
+            return null;
+        }
+        List<Object> steps = new ArrayList<Object>();
+        for (String part : path.split("\\.", -1)) {
+            int bracket = part.indexOf('[');
+            String key = bracket < 0 ? part : part.substring(0, bracket);
+            if (key.isEmpty() && bracket != 0) {
+                return null;
+            }
+            if (key.contains("]") || key.contains("*")) {
+                return null;
+            }
+            if (!key.isEmpty()) {
+                steps.add(key);
+            }
+            while (bracket >= 0 && bracket < part.length()) {
+                int close = part.indexOf(']', bracket);
+                if (part.charAt(bracket) != '[' || close < 0) {
+                    return null;
+                }
+                try {
+                    int index = Integer.parseInt(part.substring(bracket + 1, close));
+                    if (index < 0) return null;
+                    steps.add(index);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                bracket = close + 1;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Get the JSON fields which cannot be extracted in SQL for the profile's dialect, from their
+     * column label to their JSON path. For these, the query selects the raw JSON column under the
+     * label, and the path must be extracted with {@link JsonFieldExtractor}.
+     */
+    public static Map<String, String> getJavaExtractedFields(SchemaProfile profile) {
+        Map<String, String> fields = new java.util.LinkedHashMap<String, String>();
+        if (profile == null || profile.getFieldMappings() == null) {
+            return fields;
+        }
+        for (FieldMapping mapping : profile.getFieldMappings()) {
+            if (mapping.isJsonField() && mapping.getJsonPath() != null && !mapping.getJsonPath().isEmpty()
+                    && renderJsonExtraction("c", mapping.getJsonPath(), profile.getDialect()) == null) {
+                fields.put(labelOf(mapping), mapping.getJsonPath());
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Get the field filters of the profile, stored under {@link #FIELD_FILTERS_KEY} in its filters, or null.
+     * The queries built for the profile apply those which can be expressed in SQL; the others, returned
+     * by {@link #getJavaFilters}, must be applied by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> getFieldFilters(SchemaProfile profile) {
+        Map<String, Object> filters = profile != null ? profile.getFilters() : null;
+        Object fieldFilters = filters != null ? filters.get(FIELD_FILTERS_KEY) : null;
+        return fieldFilters instanceof Map ? (Map<String, Object>) fieldFilters : null;
+    }
+
+    /**
+     * Get the field filters which {@link #buildSelectQuery(SchemaProfile, Map)} cannot express in SQL,
+     * and which must be applied to the resulting rows with {@link FilterApplier}.
+     */
+    public static Map<String, Object> getJavaFilters(SchemaProfile profile, Map<String, Object> fieldFilters) {
+        Map<String, Object> javaFilters = new java.util.LinkedHashMap<String, Object>();
+        if (fieldFilters == null) {
+            return javaFilters;
+        }
+        for (Map.Entry<String, Object> filter : fieldFilters.entrySet()) {
+            if (renderFieldFilter(profile, filter.getKey(), filter.getValue(), "m", profile.getDialect()) == null) {
+                javaFilters.put(filter.getKey(), filter.getValue());
+            }
+        }
+        return javaFilters;
+    }
+
+    private static String buildFieldFiltersClause(SchemaProfile profile, Map<String, Object> fieldFilters,
+            String mainAlias, String dialect) {
+        if (fieldFilters == null || fieldFilters.isEmpty()) {
+            return null;
+        }
+        List<String> conditions = new ArrayList<String>();
+        for (Map.Entry<String, Object> filter : fieldFilters.entrySet()) {
+            String condition = renderFieldFilter(profile, filter.getKey(), filter.getValue(), mainAlias, dialect);
+            if (condition != null) {
+                conditions.add("(" + condition + ")");
+            }
+        }
+        return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+    }
+
+    /**
+     * Render a filter with the semantics of {@link FilterApplier#matchesFilter} on a field mapping
+     * (by label or column name) or on a column of the main table, or return null if it cannot be
+     * expressed in SQL.
+     */
+    private static String renderFieldFilter(SchemaProfile profile, String field, Object value,
+            String mainAlias, String dialect) {
+        if (field == null || field.isEmpty()) {
+            return null;
+        }
+        FieldMapping mapping = findFieldMapping(profile, field);
+        String column = mainAlias + "." + escapeColumnName(mapping != null ? mapping.getColumnName() : field, dialect);
+        boolean json = mapping != null && mapping.isJsonField()
+                && mapping.getJsonPath() != null && !mapping.getJsonPath().isEmpty();
+        String expr = json ? renderJsonExtraction(column, mapping.getJsonPath(), dialect) : column;
+        if (expr == null) {
+            return null;
+        }
+
+        if (value == null) {
+            return expr + " IS NULL";
+        } else if (value instanceof String) {
+            String string = (String) value;
+            if (string.contains("%")) {
+                // only '%' is a wildcard for FilterApplier, '_' is matched literally
+                String pattern = string.replace("!", "!!").replace("_", "!_");
+                return expr + " LIKE " + quoteString(pattern, dialect) + " ESCAPE '!'";
+            }
+            return expr + " = " + quoteString(string, dialect);
+        } else if (value instanceof Number) {
+            if (json && "postgresql".equals(dialect)) {
+                // extracted values are text in PostgreSQL, which cannot be compared numerically without failing on other values
+                return null;
+            }
+            return expr + " = " + value;
+        } else if (value instanceof Boolean) {
+            boolean b = (Boolean) value;
+            if ("postgresql".equals(dialect)) {
+                return expr + " = " + (json ? (b ? "'true'" : "'false'") : (b ? "TRUE" : "FALSE"));
+            } else if (json && !"sqlite".equals(dialect)) {
+                return expr + " = " + (b ? "'true'" : "'false'");
+            }
+            return expr + " = " + (b ? 1 : 0);
+        }
+        return null;
+    }
+
+    /**
+     * Quote a string literal for the dialect
+     */
+    private static String quoteString(String value, String dialect) {
+        if ("mysql".equals(dialect) || "mariadb".equals(dialect)) {
+            // backslashes are escape characters in MySQL string literals
+            value = value.replace("\\", "\\\\");
+        }
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    /**
+     * Find the field mapping with the given label, or else with the given column name
+     */
+    private static FieldMapping findFieldMapping(SchemaProfile profile, String field) {
+        if (profile.getFieldMappings() == null) {
+            return null;
+        }
+        for (FieldMapping mapping : profile.getFieldMappings()) {
+            if (field.equals(labelOf(mapping))) {
+                return mapping;
+            }
+        }
+        for (FieldMapping mapping : profile.getFieldMappings()) {
+            if (field.equals(mapping.getColumnName())) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    private static String labelOf(FieldMapping mapping) {
+        return mapping.getColumnLabel() != null && !mapping.getColumnLabel().isEmpty()
+                ? mapping.getColumnLabel()
+                : mapping.getColumnName();
+    }
+
     /**
      * Build JOIN and WHERE clause for exclude-exported (P0)
      * Potentially appends LEFT JOIN to the query builder and returns WHERE expression string
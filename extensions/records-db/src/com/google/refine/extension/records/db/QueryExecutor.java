@@ -7,6 +7,7 @@ package com.google.refine.extension.records.db;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Map;
 
@@ -26,8 +27,12 @@ public class QueryExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger("QueryExecutor");
 
+    private static final int PREVIEW_FETCH_SIZE = 1000;
+
     /**
      * Execute a SELECT query and return results as JSON
+     *
+     * @param filters FilterApplier-style field filters, such as {@link QueryBuilder#getFieldFilters}, or null
      */
     public static ObjectNode executeQuery(Connection conn, SchemaProfile profile, 
             Map<String, Object> filters, int offset, int limit) throws Exception {
@@ -36,18 +41,39 @@ public class QueryExecutor {
             logger.debug("Executing query with offset={}, limit={}", offset, limit);
         }
 
-        // Build the query
-        String query = QueryBuilder.buildSelectQueryWithPagination(profile, offset, limit);
+        // Build the query: JSON extraction and filters are pushed down to the database where possible.
+        // Filters left to Java drop rows after the query, so the page is then cut in Java rather than
+        // with LIMIT and OFFSET, which would count the dropped rows.
+        Map<String, String> javaFields = QueryBuilder.getJavaExtractedFields(profile);
+        Map<String, Object> javaFilters = QueryBuilder.getJavaFilters(profile, filters);
+        String query = javaFilters.isEmpty()
+                ? QueryBuilder.buildSelectQueryWithPagination(profile, filters, offset, limit)
+                : QueryBuilder.buildSelectQuery(profile, filters);
+        int toSkip = javaFilters.isEmpty() ? 0 : offset;
         
         if (logger.isDebugEnabled()) {
             logger.debug("Query: {}", query);
+            if (!javaFields.isEmpty() || !javaFilters.isEmpty()) {
+                logger.debug("Extracted in Java: fields {}, filters {}", javaFields.keySet(), javaFilters.keySet());
+            }
         }
 
         Statement stmt = null;
         ResultSet rs = null;
+        Boolean savedAutoCommit = null;
         
         try {
-            stmt = conn.createStatement();
+            if (javaFilters.isEmpty()) {
+                stmt = conn.createStatement();
+            } else {
+                // the query is not paged: stream it rather than let the driver load the whole table
+                String dialect = profile.getDialect() != null ? profile.getDialect().toLowerCase() : "";
+                if ("postgresql".equals(dialect) && conn.getAutoCommit()) {
+                    savedAutoCommit = Boolean.TRUE;
+                    conn.setAutoCommit(false);
+                }
+                stmt = createStreamingStatement(conn, dialect, PREVIEW_FETCH_SIZE);
+            }
             rs = stmt.executeQuery(query);
             
             // Get column metadata
@@ -56,6 +82,9 @@ public class QueryExecutor {
             
             // Build column list (prefer column label/alias)
             ArrayNode columns = ParsingUtilities.mapper.createArrayNode();
+            String[] labels = new String[columnCount];
+            boolean[] rawJson = new boolean[columnCount];
+            String[] jsonPaths = new String[columnCount];
             for (int i = 1; i <= columnCount; i++) {
                 ObjectNode col = ParsingUtilities.mapper.createObjectNode();
                 String label = null;
@@ -63,6 +92,9 @@ public class QueryExecutor {
                 if (label == null || label.isEmpty()) {
                     try { label = metadata.getColumnName(i); } catch (Exception ignore) {}
                 }
+                labels[i - 1] = label;
+                rawJson[i - 1] = isJsonField(profile, label);
+                jsonPaths[i - 1] = javaFields.get(label);
                 JSONUtilities.safePut(col, "name", label);
                 try { JSONUtilities.safePut(col, "type", metadata.getColumnTypeName(i)); } catch (Exception ignore) {}
                 columns.add(col);
@@ -70,19 +102,15 @@ public class QueryExecutor {
             
             // Build rows
             ArrayNode rows = ParsingUtilities.mapper.createArrayNode();
-            while (rs.next()) {
+            while (rows.size() < limit && rs.next()) {
                 ObjectNode row = ParsingUtilities.mapper.createObjectNode();
 
                 for (int i = 1; i <= columnCount; i++) {
-                    String columnLabel = null;
-                    try { columnLabel = metadata.getColumnLabel(i); } catch (Exception ignore) {}
-                    if (columnLabel == null || columnLabel.isEmpty()) {
-                        try { columnLabel = metadata.getColumnName(i); } catch (Exception ignore) {}
-                    }
+                    String columnLabel = labels[i - 1];
                     Object value = rs.getObject(i);
 
                     // Handle JSON fields (only when columns represent raw JSON columns)
-                    if (isJsonField(profile, columnLabel)) {
+                    if (rawJson[i - 1]) {
                         if (value != null) {
                             String jsonStr = value.toString();
                             try {
@@ -94,29 +122,25 @@ public class QueryExecutor {
                         } else {
                             JSONUtilities.safePut(row, columnLabel, (String) null);
                         }
+                    } else if (jsonPaths[i - 1] != null) {
+                        // JSON path not supported by the database
+                        Object extracted = value == null ? null
+                                : JsonFieldExtractor.extractValue(value.toString(), jsonPaths[i - 1]);
+                        putValue(row, columnLabel, extracted);
                     } else {
-                        // Convert value to appropriate type
-                        if (value == null) {
-                            JSONUtilities.safePut(row, columnLabel, (String) null);
-                        } else if (value instanceof String) {
-                            JSONUtilities.safePut(row, columnLabel, (String) value);
-                        } else if (value instanceof Integer) {
-                            JSONUtilities.safePut(row, columnLabel, ((Integer) value).longValue());
-                        } else if (value instanceof Long) {
-                            JSONUtilities.safePut(row, columnLabel, (Long) value);
-                        } else if (value instanceof Double) {
-                            JSONUtilities.safePut(row, columnLabel, (Double) value);
-                        } else if (value instanceof Float) {
-                            JSONUtilities.safePut(row, columnLabel, ((Float) value).doubleValue());
-                        } else if (value instanceof Boolean) {
-                            JSONUtilities.safePut(row, columnLabel, (Boolean) value);
-                        } else {
-                            JSONUtilities.safePut(row, columnLabel, value.toString());
-                        }
+                        putValue(row, columnLabel, value);
                     }
                 }
 
-                rows.add(row);
+                if (javaFilters.isEmpty()) {
+                    rows.add(row);
+                } else if (FilterApplier.matchesFilters(row, javaFilters)) {
+                    if (toSkip > 0) {
+                        toSkip--;
+                    } else {
+                        rows.add(row);
+                    }
+                }
             }
             
             // Build result
@@ -143,9 +167,32 @@ public class QueryExecutor {
                     logger.warn("Error closing Statement: {}", e.getMessage());
                 }
             }
+            if (savedAutoCommit != null) {
+                try {
+                    conn.commit();
+                    conn.setAutoCommit(savedAutoCommit);
+                } catch (Exception e) {
+                    logger.warn("Error restoring auto-commit: {}", e.getMessage());
+                }
+            }
         }
     }
 
+    /**
+     * Create a forward-only statement whose results are fetched in batches instead of all at once.
+     * PostgreSQL only uses a server-side cursor when auto-commit is off, which the caller must ensure.
+     */
+    static Statement createStreamingStatement(Connection conn, String dialect, int fetchSize) throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if ("mysql".equals(dialect)) {
+            // MySQL Connector/J streams rows one at a time only with this special fetch size
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            stmt.setFetchSize(fetchSize);
+        }
+        return stmt;
+    }
+
     /**
      * Get total row count
      */
@@ -187,15 +234,39 @@ public class QueryExecutor {
     }
 
     /**
-     * Check if a column is a JSON field
+     * Convert value to appropriate type
+     */
+    static void putValue(ObjectNode row, String columnLabel, Object value) {
+        if (value == null) {
+            JSONUtilities.safePut(row, columnLabel, (String) null);
+        } else if (value instanceof String) {
+            JSONUtilities.safePut(row, columnLabel, (String) value);
+        } else if (value instanceof Integer) {
+            JSONUtilities.safePut(row, columnLabel, ((Integer) value).longValue());
+        } else if (value instanceof Long) {
+            JSONUtilities.safePut(row, columnLabel, (Long) value);
+        } else if (value instanceof Double) {
+            JSONUtilities.safePut(row, columnLabel, (Double) value);
+        } else if (value instanceof Float) {
+            JSONUtilities.safePut(row, columnLabel, ((Float) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            JSONUtilities.safePut(row, columnLabel, (Boolean) value);
+        } else {
+            JSONUtilities.safePut(row, columnLabel, value.toString());
+        }
+    }
+
+    /**
+     * Check if a column is a raw JSON column, selected without extracting a path
      */
     private static boolean isJsonField(SchemaProfile profile, String columnName) {
-        if (profile == null || profile.getFieldMappings() == null) {
+        if (profile == null || profile.getFieldMappings() == null || columnName == null) {
             return false;
         }
         
         for (SchemaProfile.FieldMapping mapping : profile.getFieldMappings()) {
-            if (columnName.equals(mapping.getColumnName()) && mapping.isJsonField()) {
+            if (columnName.equals(mapping.getColumnName()) && mapping.isJsonField()
+                    && (mapping.getJsonPath() == null || mapping.getJsonPath().isEmpty())) {
                 return true;
             }
         }
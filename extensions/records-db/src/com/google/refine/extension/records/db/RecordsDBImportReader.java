@@ -2,11 +2,17 @@ package com.google.refine.extension.records.db;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +23,18 @@ import com.google.refine.importing.ImportingJob;
 
 /**
  * TableDataReader implementation for records-db extension.
+ *
+ * When the schema profile has a key column, the source table is read in pages using keyset
+ * pagination: each page starts after the last key of the previous one, so that the database
+ * seeks to it through the key's index instead of scanning and skipping all prior rows as
+ * with OFFSET. A page is made of the next keys of the main table, whose rows are then read
+ * with their joins by a range query, so rows sharing a key are never split across pages.
+ * The key column must be unique and not null, which is checked before the first page.
+ * Otherwise the table is read with a single forward-only query, fetching rows from the
+ * server as they are consumed. Either way, the import runs in linear time.
+ *
+ * Values are decoded with {@link RowDecoder}. Rows read from a cursor are decoded into a
+ * reused buffer, so a returned row is only valid until the next call.
  */
 public class RecordsDBImportReader implements TableDataReader {
 
@@ -27,13 +45,26 @@ public class RecordsDBImportReader implements TableDataReader {
     private final ImportingJob job;
     private final int batchSize;
     private final int maxRows;
+    private final boolean keyset;
 
     private boolean usedHeader = false;
-    private int offset = 0;
+    private int rowsRead = 0;
     private boolean lastBatch = false;
+    private List<String> columnLabels = null;
+    private int columnCount = 0;
+    private RowDecoder decoder = null;
+
+    // keyset pagination: current page
     private List<List<Object>> rows = null;
     private int rowIndex = 0;
-    private List<String> columnLabels = null;
+    private Object lastKey = null;
+
+    // single query: open cursor, and the buffer its rows are decoded into
+    private Object[] buffer = null;
+    private List<Object> bufferView = null;
+    private Statement cursorStatement = null;
+    private ResultSet cursor = null;
+    private Boolean savedAutoCommit = null;
 
     public RecordsDBImportReader(Connection conn, SchemaProfile profile,
                                  ImportingJob job, int batchSize, int maxRows) {
@@ -42,16 +73,22 @@ public class RecordsDBImportReader implements TableDataReader {
         this.job = job;
         this.batchSize = batchSize > 0 ? batchSize : 1000;
         this.maxRows = maxRows > 0 ? maxRows : -1;
+        this.keyset = profile.getKeyColumn() != null && !profile.getKeyColumn().isEmpty();
     }
 
     @Override
     public List<Object> getNextRowOfCells() throws IOException {
         if (job != null && job.canceled) {
+            close();
             return null;
         }
 
         if (!usedHeader) {
-            loadNextBatchIfNeeded();
+            if (keyset) {
+                loadNextBatchIfNeeded();
+            } else {
+                openCursor();
+            }
             usedHeader = true;
             if (columnLabels == null || columnLabels.isEmpty()) {
                 return null;
@@ -59,30 +96,101 @@ public class RecordsDBImportReader implements TableDataReader {
             return new ArrayList<Object>(columnLabels);
         }
 
+        return keyset ? nextRowFromPage() : nextRowFromCursor();
+    }
+
+    /**
+     * Release the cursor held by the reader, if any. The connection itself is owned by the caller.
+     */
+    public void close() {
+        if (cursor != null) {
+            try { cursor.close(); } catch (Exception ignore) {}
+            cursor = null;
+        }
+        if (cursorStatement != null) {
+            try { cursorStatement.close(); } catch (Exception ignore) {}
+            cursorStatement = null;
+        }
+        if (savedAutoCommit != null) {
+            try {
+                conn.commit();
+                conn.setAutoCommit(savedAutoCommit);
+            } catch (Exception ignore) {}
+            savedAutoCommit = null;
+        }
+    }
+
+    private List<Object> nextRowFromPage() throws IOException {
         if (rows == null || rowIndex >= rows.size()) {
             loadNextBatchIfNeeded();
             if (rows == null || rows.isEmpty()) {
                 return null;
             }
         }
-
         return rows.get(rowIndex++);
     }
 
+    private List<Object> nextRowFromCursor() throws IOException {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            if ((maxRows > 0 && rowsRead >= maxRows) || !cursor.next()) {
+                close();
+                return null;
+            }
+            rowsRead++;
+            // the row is consumed before the next one is read, so the buffer can be reused
+            decoder.decode(cursor, buffer);
+            return bufferView;
+        } catch (Exception e) {
+            close();
+            logger.error("Error reading row for records-db import", e);
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Run the import query once, streaming its results. Drivers buffer whole result sets by default,
+     * so the statement is configured per dialect to fetch rows in chunks instead.
+     */
+    private void openCursor() throws IOException {
+        String query = QueryBuilder.buildSelectQuery(profile);
+        if (maxRows > 0) {
+            query += " LIMIT " + maxRows;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Import query (streaming, fetchSize={}): {}", batchSize, query);
+        }
+
+        try {
+            String dialect = profile.getDialect() != null ? profile.getDialect().toLowerCase() : "";
+            if ("postgresql".equals(dialect) && conn.getAutoCommit()) {
+                // the PostgreSQL driver only uses a server-side cursor within a transaction
+                savedAutoCommit = Boolean.TRUE;
+                conn.setAutoCommit(false);
+            }
+            cursorStatement = QueryExecutor.createStreamingStatement(conn, dialect, batchSize);
+            cursor = cursorStatement.executeQuery(query);
+            readColumnLabels(cursor.getMetaData(), false);
+            buffer = new Object[columnCount];
+            bufferView = Arrays.asList(buffer);
+        } catch (Exception e) {
+            close();
+            logger.error("Error opening cursor for records-db import", e);
+            throw new IOException(e);
+        }
+    }
+
     private void loadNextBatchIfNeeded() throws IOException {
         if (lastBatch) {
             rows = null;
             return;
         }
-        if (maxRows > 0 && offset >= maxRows) {
-            lastBatch = true;
-            rows = null;
-            return;
-        }
 
         int limit = batchSize;
         if (maxRows > 0) {
-            int remaining = maxRows - offset;
+            int remaining = maxRows - rowsRead;
             if (remaining <= 0) {
                 lastBatch = true;
                 rows = null;
@@ -93,57 +201,189 @@ public class RecordsDBImportReader implements TableDataReader {
             }
         }
 
-        String query = QueryBuilder.buildSelectQueryWithPagination(profile, offset, limit);
+        try {
+            if (columnLabels == null) {
+                checkKeyColumn(conn, profile);
+            }
+            List<Object> keys = readPageKeys(limit);
+            rows = new ArrayList<List<Object>>();
+            rowIndex = 0;
+            if (keys.isEmpty()) {
+                lastBatch = true;
+                if (columnLabels == null) {
+                    // read the column labels of the empty result
+                    readRange(null, null, 0);
+                }
+                return;
+            }
+            readRange(keys.get(0), keys.get(keys.size() - 1), maxRows > 0 ? maxRows - rowsRead : -1);
+            lastKey = keys.get(keys.size() - 1);
+            rowsRead += rows.size();
+            if (keys.size() < limit) {
+                lastBatch = true;
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error loading batch for records-db import", e);
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Read the keys of the next page, after the last key of the previous one.
+     */
+    private List<Object> readPageKeys(int limit) throws SQLException, IOException {
+        String query = QueryBuilder.buildKeysetQuery(profile, lastKey != null, limit);
         if (logger.isDebugEnabled()) {
-            logger.debug("Import query (offset={}, limit={}): {}", offset, limit, query);
+            logger.debug("Import keys query (after key {}, limit={}): {}", lastKey, limit, query);
+        }
+        List<Object> keys = new ArrayList<Object>(limit);
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            if (lastKey != null) {
+                stmt.setObject(1, lastKey);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Object key = rs.getObject(1);
+                    if (key == null) {
+                        // restarting from the first page would never end
+                        throw new IOException("Key column " + profile.getKeyColumn() + " returned a null key");
+                    }
+                    keys.add(key);
+                }
+            }
         }
+        return keys;
+    }
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+    /**
+     * Read the rows whose key lies between the given bounds into the current page.
+     *
+     * @param maxCount the maximum number of rows to read, or -1 for no limit
+     */
+    private void readRange(Object low, Object high, int maxCount) throws Exception {
+        String query = QueryBuilder.buildKeyRangeQuery(profile);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Import query (keys {} to {}): {}", low, high, query);
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setObject(1, low);
+            stmt.setObject(2, high);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (columnLabels == null) {
+                    readColumnLabels(rs.getMetaData(), true);
+                }
+                while ((maxCount < 0 || rows.size() < maxCount) && rs.next()) {
+                    rows.add(Arrays.asList(decoder.decode(rs, new Object[columnCount])));
+                }
+            }
+        }
+    }
 
-            ResultSetMetaData md = rs.getMetaData();
-            int colCount = md.getColumnCount();
+    /**
+     * Check that the key column of the profile can be used for keyset pagination: it must be the
+     * primary key of the main table, or be not null with a unique index. Otherwise rows with a null
+     * key would be skipped.
+     */
+    static void checkKeyColumn(Connection conn, SchemaProfile profile) throws SQLException, IOException {
+        String keyColumn = profile.getKeyColumn();
+        String mainTable = profile.getMainTable();
+        String schema = null;
+        String table = mainTable;
+        int dot = mainTable.lastIndexOf('.');
+        if (dot >= 0) {
+            schema = mainTable.substring(0, dot);
+            table = mainTable.substring(dot + 1);
+        }
 
-            if (columnLabels == null) {
-                columnLabels = new ArrayList<String>(colCount);
-                for (int i = 1; i <= colCount; i++) {
-                    String label = null;
-                    try { label = md.getColumnLabel(i); } catch (Exception ignore) {}
-                    if (label == null || label.isEmpty()) {
-                        try { label = md.getColumnName(i); } catch (Exception ignore) {}
+        DatabaseMetaData md = conn.getMetaData();
+        // identifiers may be stored in upper or lower case, depending on the database
+        for (String name : new String[] { table, table.toUpperCase(), table.toLowerCase() }) {
+            String nullable = null;
+            try (ResultSet rs = md.getColumns(conn.getCatalog(), schema, name, null)) {
+                while (rs.next()) {
+                    if (keyColumn.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        nullable = rs.getString("IS_NULLABLE");
                     }
-                    columnLabels.add(label);
                 }
             }
+            if (nullable == null) {
+                continue;
+            }
+            if (isSingleColumnKey(md.getPrimaryKeys(conn.getCatalog(), schema, name), keyColumn, "PK_NAME")) {
+                return;
+            }
+            if (!"YES".equals(nullable)
+                    && isSingleColumnKey(md.getIndexInfo(conn.getCatalog(), schema, name, true, false), keyColumn, "INDEX_NAME")) {
+                return;
+            }
+            throw new IOException("Key column " + keyColumn + " of table " + mainTable
+                    + " must be unique and not null to page on it");
+        }
+        throw new IOException("Key column " + keyColumn + " not found in table " + mainTable);
+    }
 
-            rows = new ArrayList<List<Object>>();
-            rowIndex = 0;
+    /**
+     * Whether one of the keys or indexes listed in the result set is made of the given column only.
+     */
+    private static boolean isSingleColumnKey(ResultSet rs, String column, String nameColumn) throws SQLException {
+        Map<String, List<String>> columnsByKey = new HashMap<String, List<String>>();
+        try {
             while (rs.next()) {
-                List<Object> row = new ArrayList<Object>(colCount);
-                for (int i = 1; i <= colCount; i++) {
-                    Object value = rs.getObject(i);
-                    row.add(convertValue(value));
+                String columnName = rs.getString("COLUMN_NAME");
+                if (columnName == null) {
+                    // table statistics
+                    continue;
                 }
-                rows.add(row);
+                String name = rs.getString(nameColumn);
+                columnsByKey.computeIfAbsent(name == null ? "" : name, k -> new ArrayList<String>()).add(columnName);
             }
-            offset += rows.size();
-            if (rows.isEmpty() || rows.size() < limit) {
-                lastBatch = true;
+        } finally {
+            rs.close();
+        }
+        for (List<String> columns : columnsByKey.values()) {
+            if (columns.size() == 1 && column.equalsIgnoreCase(columns.get(0))) {
+                return true;
             }
-        } catch (Exception e) {
-            logger.error("Error loading batch for records-db import", e);
-            throw new IOException(e);
         }
+        return false;
+    }
+
+    /**
+     * @param hasKeyColumn whether the last column is the pagination key, which is not imported
+     */
+    private void readColumnLabels(ResultSetMetaData md, boolean hasKeyColumn) throws Exception {
+        columnCount = md.getColumnCount() - (hasKeyColumn ? 1 : 0);
+        columnLabels = readColumnLabels(md, columnCount);
+        decoder = new RowDecoder(md, columnCount, getJavaJsonPaths(profile, columnLabels), profile.getDialect());
     }
 
-    private Object convertValue(Object value) {
-        if (value == null) {
+    /**
+     * Get the JSON paths which the query could not extract, by column, or null if there are none.
+     */
+    static String[] getJavaJsonPaths(SchemaProfile profile, List<String> labels) {
+        Map<String, String> fields = QueryBuilder.getJavaExtractedFields(profile);
+        if (fields.isEmpty()) {
             return null;
         }
-        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
-            return value;
+        String[] paths = new String[labels.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = fields.get(labels.get(i));
         }
-        return value.toString();
+        return paths;
     }
-}
 
+    static List<String> readColumnLabels(ResultSetMetaData md, int colCount) {
+        List<String> labels = new ArrayList<String>(colCount);
+        for (int i = 1; i <= colCount; i++) {
+            String label = null;
+            try { label = md.getColumnLabel(i); } catch (Exception ignore) {}
+            if (label == null || label.isEmpty()) {
+                try { label = md.getColumnName(i); } catch (Exception ignore) {}
+            }
+            labels.add(label);
+        }
+        return labels;
+    }
+}
@@ -9,6 +9,7 @@ package com.google.refine.extension.records.db;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -23,6 +24,8 @@ import com.google.refine.RefineServlet;
 import com.google.refine.commands.HttpUtilities;
 import com.google.refine.extension.records.db.model.SchemaProfile;
 import com.google.refine.importing.ImportingController;
+import com.google.refine.importing.ImportingJob;
+import com.google.refine.importing.ImportingManager;
 import com.google.refine.util.JSONUtilities;
 import com.google.refine.util.ParsingUtilities;
 
@@ -161,7 +164,8 @@ public class RecordsDatabaseImportController implements ImportingController {
             conn = DatabaseConnectionManager.getConnection(profile);
 
             // Execute query
-            ObjectNode result = QueryExecutor.executeQuery(conn, profile, null, 0, DEFAULT_PREVIEW_LIMIT);
+            ObjectNode result = QueryExecutor.executeQuery(conn, profile,
+                    QueryBuilder.getFieldFilters(profile), 0, DEFAULT_PREVIEW_LIMIT);
 
             // Get total row count
             try {
@@ -232,9 +236,6 @@ public class RecordsDatabaseImportController implements ImportingController {
             logger.debug("::doListTables::");
         }
 
-        java.sql.Connection conn = null;
-        java.sql.Statement stmt = null;
-        java.sql.ResultSet rs = null;
         try {
             String schemaProfileJson = parameters.get("schemaProfile");
             if (schemaProfileJson == null || schemaProfileJson.isEmpty()) {
@@ -268,6 +269,46 @@ public class RecordsDatabaseImportController implements ImportingController {
                 }
             }
 
+            ArrayNode tables = getMetadata(parameters, profile, "tables", null,
+                    () -> loadTables(profile, dialect));
+
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "ok");
+            result.set("tables", tables);
+            HttpUtilities.respond(response, result.toString());
+        } catch (Exception e) {
+            logger.error("Error in doListTables", e);
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "error");
+            JSONUtilities.safePut(result, "message", e.getMessage());
+            HttpUtilities.respond(response, result.toString());
+        }
+    }
+
+    /**
+     * Get database metadata through the {@link SchemaMetadataCache}. With the "refresh" parameter set to
+     * "true", the cached metadata of the database is dropped first, such as after its schema changed.
+     */
+    private static ArrayNode getMetadata(Map<String, String> parameters, SchemaProfile profile, String kind,
+            String params, Callable<ArrayNode> loader) throws Exception {
+        SchemaMetadataCache cache = SchemaMetadataCache.getInstance();
+        if ("true".equals(parameters.get("refresh"))) {
+            cache.invalidate(profile);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Refreshing {} metadata: {}", kind, cache.getStats());
+            }
+        }
+        return cache.get(profile, kind, params, loader);
+    }
+
+    /**
+     * Load the tables of the database from its metadata
+     */
+    private static ArrayNode loadTables(SchemaProfile profile, String dialect) throws Exception {
+        java.sql.Connection conn = null;
+        java.sql.Statement stmt = null;
+        java.sql.ResultSet rs = null;
+        try {
             conn = DatabaseConnectionManager.getConnection(profile);
 
             ArrayNode tables = ParsingUtilities.mapper.createArrayNode();
@@ -336,16 +377,7 @@ public class RecordsDatabaseImportController implements ImportingController {
                 }
             }
 
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "ok");
-            result.set("tables", tables);
-            HttpUtilities.respond(response, result.toString());
-        } catch (Exception e) {
-            logger.error("Error in doListTables", e);
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "error");
-            JSONUtilities.safePut(result, "message", e.getMessage());
-            HttpUtilities.respond(response, result.toString());
+            return tables;
         } finally {
             try { if (rs != null) rs.close(); } catch (Exception ignore) {}
             try { if (stmt != null) stmt.close(); } catch (Exception ignore) {}
@@ -363,9 +395,6 @@ public class RecordsDatabaseImportController implements ImportingController {
             logger.debug("::doListDictionary::");
         }
 
-        java.sql.Connection conn = null;
-        java.sql.Statement stmt = null;
-        java.sql.ResultSet rs = null;
         try {
             String schemaProfileJson = parameters.get("schemaProfile");
             if (schemaProfileJson == null || schemaProfileJson.isEmpty()) {
@@ -390,6 +419,32 @@ public class RecordsDatabaseImportController implements ImportingController {
                 return;
             }
 
+            ArrayNode items = getMetadata(parameters, profile, "dictionary",
+                    dictTable + "|" + codeColumn + "|" + nameColumn + "|" + bindColumn + "|" + bindValue,
+                    () -> loadDictionary(profile, dialect, dictTable, codeColumn, nameColumn, bindColumn, bindValue));
+
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "ok");
+            result.set("items", items);
+            HttpUtilities.respond(response, result.toString());
+        } catch (Exception e) {
+            logger.error("Error in doListDictionary", e);
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "error");
+            JSONUtilities.safePut(result, "message", e.getMessage());
+            HttpUtilities.respond(response, result.toString());
+        }
+    }
+
+    /**
+     * Load the code/name items of a dictionary table
+     */
+    private static ArrayNode loadDictionary(SchemaProfile profile, String dialect, String dictTable,
+            String codeColumn, String nameColumn, String bindColumn, String bindValue) throws Exception {
+        java.sql.Connection conn = null;
+        java.sql.Statement stmt = null;
+        java.sql.ResultSet rs = null;
+        try {
             conn = DatabaseConnectionManager.getConnection(profile);
 
             StringBuilder sql = new StringBuilder();
@@ -416,16 +471,7 @@ public class RecordsDatabaseImportController implements ImportingController {
                 items.add(item);
             }
 
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "ok");
-            result.set("items", items);
-            HttpUtilities.respond(response, result.toString());
-        } catch (Exception e) {
-            logger.error("Error in doListDictionary", e);
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "error");
-            JSONUtilities.safePut(result, "message", e.getMessage());
-            HttpUtilities.respond(response, result.toString());
+            return items;
         } finally {
             try { if (rs != null) rs.close(); } catch (Exception ignore) {}
             try { if (stmt != null) stmt.close(); } catch (Exception ignore) {}
@@ -433,7 +479,6 @@ public class RecordsDatabaseImportController implements ImportingController {
         }
     }
 
-
     /**
      * List distinct values for a given table and field
      * Params: schemaProfile, source (main|join), field, joinTable (if source=join), limit (optional)
@@ -444,9 +489,6 @@ public class RecordsDatabaseImportController implements ImportingController {
             logger.debug("::doListDistinctValues::");
         }
 
-        java.sql.Connection conn = null;
-        java.sql.Statement stmt = null;
-        java.sql.ResultSet rs = null;
         try {
             String schemaProfileJson = parameters.get("schemaProfile");
             if (schemaProfileJson == null || schemaProfileJson.isEmpty()) {
@@ -501,6 +543,34 @@ public class RecordsDatabaseImportController implements ImportingController {
                 return;
             }
 
+            final String table = tableName;
+            final int maxValues = limit;
+            ArrayNode values = getMetadata(parameters, profile, "distinct",
+                    table + "|" + field + "|" + maxValues,
+                    () -> loadDistinctValues(profile, dialect, table, field, maxValues));
+
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "ok");
+            result.set("values", values);
+            HttpUtilities.respond(response, result.toString());
+        } catch (Exception e) {
+            logger.error("Error in doListDistinctValues", e);
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "error");
+            JSONUtilities.safePut(result, "message", e.getMessage());
+            HttpUtilities.respond(response, result.toString());
+        }
+    }
+
+    /**
+     * Load the distinct non-null values of a field
+     */
+    private static ArrayNode loadDistinctValues(SchemaProfile profile, String dialect, String tableName,
+            String field, int limit) throws Exception {
+        java.sql.Connection conn = null;
+        java.sql.Statement stmt = null;
+        java.sql.ResultSet rs = null;
+        try {
             conn = DatabaseConnectionManager.getConnection(profile);
 
             // For distinct values, query directly from the table without applying profile filters
@@ -521,16 +591,7 @@ public class RecordsDatabaseImportController implements ImportingController {
                 }
             }
 
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "ok");
-            result.set("values", values);
-            HttpUtilities.respond(response, result.toString());
-        } catch (Exception e) {
-            logger.error("Error in doListDistinctValues", e);
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "error");
-            JSONUtilities.safePut(result, "message", e.getMessage());
-            HttpUtilities.respond(response, result.toString());
+            return values;
         } finally {
             try { if (rs != null) rs.close(); } catch (Exception ignore) {}
             try { if (stmt != null) stmt.close(); } catch (Exception ignore) {}
@@ -547,9 +608,6 @@ public class RecordsDatabaseImportController implements ImportingController {
             logger.debug("::doListColumns::");
         }
 
-        java.sql.Connection conn = null;
-        java.sql.Statement stmt = null;
-        java.sql.ResultSet rs = null;
         try {
             String schemaProfileJson = parameters.get("schemaProfile");
             if (schemaProfileJson == null || schemaProfileJson.isEmpty()) {
@@ -586,9 +644,33 @@ public class RecordsDatabaseImportController implements ImportingController {
                 return;
             }
 
+            ArrayNode columns = getMetadata(parameters, profile, "columns", mainTable,
+                    () -> loadColumns(profile, mainTable));
+
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "ok");
+            result.set("columns", columns);
+            HttpUtilities.respond(response, result.toString());
+        } catch (Exception e) {
+            logger.error("Error in doListColumns", e);
+            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+            JSONUtilities.safePut(result, "status", "error");
+            JSONUtilities.safePut(result, "message", e.getMessage());
+            HttpUtilities.respond(response, result.toString());
+        }
+    }
+
+    /**
+     * Load the columns of a table from the metadata of an empty query
+     */
+    private static ArrayNode loadColumns(SchemaProfile profile, String mainTable) throws Exception {
+        java.sql.Connection conn = null;
+        java.sql.Statement stmt = null;
+        java.sql.ResultSet rs = null;
+        try {
             conn = DatabaseConnectionManager.getConnection(profile);
 
-            String sql = "SELECT * FROM " + QueryBuilder.escapeTableName(mainTable, profile.getDialect()) + " LIMIT 1";
+            String sql = "SELECT * FROM " + QueryBuilder.escapeTableName(mainTable, profile.getDialect()) + " WHERE 1 = 0";
             stmt = conn.createStatement();
             rs = stmt.executeQuery(sql);
             java.sql.ResultSetMetaData meta = rs.getMetaData();
@@ -614,16 +696,7 @@ public class RecordsDatabaseImportController implements ImportingController {
                 columns.add(c);
             }
 
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "ok");
-            result.set("columns", columns);
-            HttpUtilities.respond(response, result.toString());
-        } catch (Exception e) {
-            logger.error("Error in doListColumns", e);
-            ObjectNode result = ParsingUtilities.mapper.createObjectNode();
-            JSONUtilities.safePut(result, "status", "error");
-            JSONUtilities.safePut(result, "message", e.getMessage());
-            HttpUtilities.respond(response, result.toString());
+            return columns;
         } finally {
             try { if (rs != null) rs.close(); } catch (Exception ignore) {}
             try { if (stmt != null) stmt.close(); } catch (Exception ignore) {}
@@ -631,7 +704,6 @@ public class RecordsDatabaseImportController implements ImportingController {
         }
     }
 
-
     /**
      * Create project - creates an OpenRefine project from the imported data
      */
@@ -657,7 +729,7 @@ public class RecordsDatabaseImportController implements ImportingController {
                 return;
             }
 
-            int maxRows = DEFAULT_PREVIEW_LIMIT * 100; // Default to 10000 rows
+            int maxRows = 0; // Default to all rows
             if (maxRowsStr != null && !maxRowsStr.isEmpty()) {
                 try {
                     maxRows = Integer.parseInt(maxRowsStr);
@@ -682,8 +754,19 @@ public class RecordsDatabaseImportController implements ImportingController {
                 return;
             }
 
+            // Optional importing job through which progress is reported
+            ImportingJob job = null;
+            String jobID = parameters.get("jobID");
+            if (jobID != null && !jobID.isEmpty()) {
+                job = ImportingManager.getJob(Long.parseLong(jobID));
+                if (job == null) {
+                    HttpUtilities.respond(response, "error", "No such import job");
+                    return;
+                }
+            }
+
             // Prepare and start project creation
-            ObjectNode result = ProjectCreator.prepareProjectCreation(projectName, profile, maxRows);
+            ObjectNode result = ProjectCreator.prepareProjectCreation(projectName, profile, maxRows, job);
 
             if (logger.isDebugEnabled()) {
                 logger.debug("doCreateProject:::{}", result.toString());
@@ -0,0 +1,182 @@
+package com.google.refine.extension.records.db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Decodes the rows of a result set into cell values for import.
+ *
+ * The JDBC type of each column is resolved once from the result set metadata, so that values
+ * are read by column index with the matching typed getter instead of being fetched with
+ * getObject and converted by their class for every cell. Columns of other types are read as
+ * objects and imported as strings, except for exact numbers which are kept as numbers.
+ *
+ * Columns of SQLite are always read as objects: their declared type does not constrain their
+ * values, and the typed getters would silently convert a text value to 0.
+ */
+final class RowDecoder {
+
+    private static final int OBJECT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int FLOAT = 3;
+    private static final int BOOLEAN = 4;
+    private static final int STRING = 5;
+    private static final int JSON_PATH = 6;
+
+    private final int columnCount;
+    private final int[] columns;
+    private final int[] kinds;
+    private final String[] jsonPaths;
+    private final boolean convertObjects;
+
+    /**
+     * @param columnCount
+     *            number of leading columns to decode
+     * @param jsonPaths
+     *            JSON paths to extract in Java, by column, or null
+     * @param dialect
+     *            dialect of the database, or null if unknown
+     */
+    RowDecoder(ResultSetMetaData md, int columnCount, String[] jsonPaths, String dialect) throws SQLException {
+        this(md, leadingColumns(columnCount), jsonPaths, true, dialect);
+    }
+
+    /**
+     * @param columns
+     *            indices of the columns to decode in the result set, starting from 1
+     * @param jsonPaths
+     *            JSON paths to extract in Java, by decoded column, or null
+     * @param convertObjects
+     *            whether values of other types are converted to strings, or returned as read
+     * @param dialect
+     *            dialect of the database, or null if unknown
+     */
+    RowDecoder(ResultSetMetaData md, int[] columns, String[] jsonPaths, boolean convertObjects, String dialect)
+            throws SQLException {
+        this.columnCount = columns.length;
+        this.columns = columns;
+        this.kinds = new int[columnCount];
+        this.jsonPaths = jsonPaths;
+        this.convertObjects = convertObjects;
+        boolean typed = !"sqlite".equals(dialect);
+        for (int i = 0; i < columnCount; i++) {
+            if (jsonPaths != null && jsonPaths[i] != null) {
+                kinds[i] = JSON_PATH;
+            } else if (!typed) {
+                kinds[i] = OBJECT;
+            } else {
+                kinds[i] = kindOf(md, columns[i]);
+            }
+        }
+    }
+
+    private static int[] leadingColumns(int columnCount) {
+        int[] columns = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = i + 1;
+        }
+        return columns;
+    }
+
+    private static int kindOf(ResultSetMetaData md, int column) {
+        try {
+            switch (md.getColumnType(column)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return LONG;
+                case Types.BIGINT:
+                    // unsigned 64-bit values may not fit in a long
+                    return md.isSigned(column) ? LONG : OBJECT;
+                case Types.REAL:
+                    // single precision, read as a double it would show digits it does not have
+                    return FLOAT;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return DOUBLE;
+                case Types.BIT:
+                    // wider BIT columns are bit strings
+                    return md.getPrecision(column) == 1 ? BOOLEAN : OBJECT;
+                case Types.BOOLEAN:
+                    return BOOLEAN;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:
+                case Types.NCLOB:
+                    return STRING;
+                default:
+                    return OBJECT;
+            }
+        } catch (SQLException e) {
+            // some drivers cannot type expression columns before the first row
+            return OBJECT;
+        }
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Decode the current row of the result set into the given buffer.
+     */
+    Object[] decode(ResultSet rs, Object[] values) throws SQLException {
+        for (int i = 0; i < columnCount; i++) {
+            values[i] = decode(rs, i);
+        }
+        return values;
+    }
+
+    /**
+     * Decode a column of the current row of the result set.
+     *
+     * @param i
+     *            index of the column among the decoded columns, starting from 0
+     */
+    Object decode(ResultSet rs, int i) throws SQLException {
+        int column = columns[i];
+        switch (kinds[i]) {
+            case LONG: {
+                long v = rs.getLong(column);
+                return rs.wasNull() ? null : Long.valueOf(v);
+            }
+            case DOUBLE: {
+                double v = rs.getDouble(column);
+                return rs.wasNull() ? null : Double.valueOf(v);
+            }
+            case FLOAT: {
+                float v = rs.getFloat(column);
+                return rs.wasNull() ? null : Double.valueOf(Float.toString(v));
+            }
+            case BOOLEAN: {
+                boolean v = rs.getBoolean(column);
+                return rs.wasNull() ? null : Boolean.valueOf(v);
+            }
+            case STRING:
+                return rs.getString(column);
+            case JSON_PATH: {
+                String json = rs.getString(column);
+                return json == null ? null : convertValue(JsonFieldExtractor.extractValue(json, jsonPaths[i]));
+            }
+            default:
+                return convertObjects ? convertValue(rs.getObject(column)) : rs.getObject(column);
+        }
+    }
+
+    static Object convertValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        return value.toString();
+    }
+}
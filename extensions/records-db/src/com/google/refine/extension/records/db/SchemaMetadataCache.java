@@ -0,0 +1,233 @@
+package com.google.refine.extension.records.db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+
+/**
+ * Cache for the database metadata listed by the import wizard: tables, columns, dictionaries
+ * and distinct values.
+ *
+ * Entries are keyed by the database and credentials of the profile (see {@link #profileKey}), the
+ * kind of metadata and its parameters, so that users with different privileges on a database do
+ * not share listings. A stale entry is still served while it is reloaded in the background, until it
+ * expires. Concurrent requests for a missing entry share a single load. The total size of the
+ * cached listings is bounded, evicting the least recently used entries first.
+ */
+public class SchemaMetadataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger("SchemaMetadataCache");
+
+    private static final long DEFAULT_REFRESH_AFTER = 5 * 60 * 1000L; // 5 minutes
+    private static final long DEFAULT_EXPIRE_AFTER = 60 * 60 * 1000L; // 1 hour
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final SchemaMetadataCache instance = new SchemaMetadataCache(
+            DEFAULT_REFRESH_AFTER, DEFAULT_EXPIRE_AFTER, DEFAULT_MAX_BYTES);
+
+    private final long refreshAfter;
+    private final long expireAfter;
+    private final long maxBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final ExecutorService refresher;
+
+    private static class Entry {
+
+        final ArrayNode value;
+        final long bytes;
+        final long loadedAt;
+        volatile long lastAccessedAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(ArrayNode value) {
+            this.value = value;
+            // rough memory footprint: the serialized listing, as UTF-16 characters
+            this.bytes = 2L * value.toString().length();
+            this.loadedAt = System.currentTimeMillis();
+            this.lastAccessedAt = loadedAt;
+        }
+    }
+
+    public SchemaMetadataCache(long refreshAfter, long expireAfter, long maxBytes) {
+        this.refreshAfter = refreshAfter;
+        this.expireAfter = expireAfter;
+        this.maxBytes = maxBytes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "records-db-metadata-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static SchemaMetadataCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get a metadata listing, loading it if it is not cached. The returned listing is shared and
+     * must not be modified.
+     *
+     * @param kind
+     *            the kind of metadata, such as "tables"
+     * @param params
+     *            the parameters of the listing, such as the table name
+     * @param loader
+     *            loads the listing from the database
+     */
+    public ArrayNode get(SchemaProfile profile, String kind, String params, Callable<ArrayNode> loader)
+            throws Exception {
+        String key = profileKey(profile) + "|" + kind + "|" + (params == null ? "" : params);
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < expireAfter) {
+            hits.incrementAndGet();
+            entry.lastAccessedAt = now;
+            if (now - entry.loadedAt >= refreshAfter && entry.refreshing.compareAndSet(false, true)) {
+                refreshes.incrementAndGet();
+                refresher.execute(() -> {
+                    try {
+                        load(key, loader);
+                    } catch (Exception e) {
+                        entry.refreshing.set(false);
+                        logger.warn("Error refreshing {}: {}", key, e.getMessage());
+                    }
+                });
+            }
+            return entry.value;
+        }
+
+        misses.incrementAndGet();
+        return load(key, loader).value;
+    }
+
+    /**
+     * Load an entry, or wait for the load already in progress for the same key.
+     */
+    private Entry load(String key, Callable<ArrayNode> loader) throws Exception {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> inProgress = loading.putIfAbsent(key, future);
+        if (inProgress != null) {
+            try {
+                return inProgress.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            Entry entry = new Entry(loader.call());
+            Entry previous = entries.put(key, entry);
+            totalBytes.addAndGet(entry.bytes - (previous != null ? previous.bytes : 0));
+            evictIfNeeded();
+            future.complete(entry);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Loaded {} ({} bytes)", key, entry.bytes);
+            }
+            return entry;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccessedAt));
+            for (Map.Entry<String, Entry> candidate : candidates) {
+                if (totalBytes.get() <= maxBytes) {
+                    break;
+                }
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    totalBytes.addAndGet(-candidate.getValue().bytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all cached metadata of the database of a profile, as seen with its credentials.
+     */
+    public void invalidate(SchemaProfile profile) {
+        String prefix = profileKey(profile) + "|";
+        entries.entrySet().removeIf(e -> {
+            if (e.getKey().startsWith(prefix)) {
+                totalBytes.addAndGet(-e.getValue().bytes);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Get the part of the cache keys identifying the database and credentials of a profile. The
+     * password is only kept as a hash.
+     */
+    static String profileKey(SchemaProfile profile) {
+        return ConnectionPoolManager.generateKey(profile);
+    }
+
+    public void clear() {
+        entries.clear();
+        totalBytes.set(0);
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(entries.size(), totalBytes.get(), hits.get(), misses.get(), refreshes.get());
+    }
+
+    /**
+     * Cache statistics
+     */
+    public static class CacheStats {
+
+        public final int entries;
+        public final long bytes;
+        public final long hits;
+        public final long misses;
+        public final long refreshes;
+
+        public CacheStats(int entries, long bytes, long hits, long misses, long refreshes) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.refreshes = refreshes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{entries=%d, bytes=%d, hits=%d, misses=%d, refreshes=%d}",
+                    entries, bytes, hits, misses, refreshes);
+        }
+    }
+}
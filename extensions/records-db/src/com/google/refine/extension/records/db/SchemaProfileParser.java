@@ -141,6 +141,12 @@ public class SchemaProfileParser {
         if (jsonNode.has("maxRows")) {
             profile.setMaxRows(jsonNode.get("maxRows").asInt());
         }
+        if (jsonNode.has("keyColumn") && !jsonNode.get("keyColumn").isNull()) {
+            profile.setKeyColumn(jsonNode.get("keyColumn").asText());
+        }
+        if (jsonNode.has("parallelism")) {
+            profile.setParallelism(jsonNode.get("parallelism").asInt());
+        }
 
         if (logger.isDebugEnabled()) {
             logger.debug("Parsed Schema Profile: {}", profile.getName());
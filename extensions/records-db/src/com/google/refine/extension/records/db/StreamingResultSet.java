@@ -23,6 +23,7 @@ public class StreamingResultSet implements Iterator<ObjectNode> {
     private final ResultSet resultSet;
     private final List<String> columnNames;
     private final int batchSize;
+    private RowDecoder decoder;
     private ObjectNode nextRow;
     private boolean hasNextRow;
     private long rowCount;
@@ -43,6 +44,19 @@ public class StreamingResultSet implements Iterator<ObjectNode> {
         this.closed = false;
         this.hasNextRow = false;
         
+        // 列索引和类型只解析一次
+        try {
+            int[] columns = new int[columnNames.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = resultSet.findColumn(columnNames.get(i));
+            }
+            this.decoder = new RowDecoder(resultSet.getMetaData(), columns, null, false, null);
+        } catch (SQLException e) {
+            logger.error("Error resolving columns", e);
+            close();
+            return;
+        }
+        
         // 预加载第一行
         loadNextRow();
     }
@@ -108,8 +122,9 @@ public class StreamingResultSet implements Iterator<ObjectNode> {
     private ObjectNode convertRowToObject() throws SQLException {
         ObjectNode row = com.google.refine.util.ParsingUtilities.mapper.createObjectNode();
         
-        for (String columnName : columnNames) {
-            Object value = resultSet.getObject(columnName);
+        for (int i = 0; i < columnNames.size(); i++) {
+            String columnName = columnNames.get(i);
+            Object value = decoder.decode(resultSet, i);
             
             if (value == null) {
                 row.putNull(columnName);
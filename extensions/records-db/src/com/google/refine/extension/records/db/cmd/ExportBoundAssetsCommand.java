@@ -7,6 +7,7 @@ package com.google.refine.extension.records.db.cmd;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -27,13 +28,19 @@ import com.google.refine.util.ParsingUtilities;
 /**
  * Command to export bound assets (files) from a project.
  * 
- * GET: Returns export configuration (columns, file mapping info)
- * POST: Executes the export operation
+ * GET: Returns export configuration (columns, file mapping info), or with the
+ * "progress" parameter, the progress of the last export of the project
+ * POST: Executes the export operation, in the background if the "async" option is set
  */
 public class ExportBoundAssetsCommand extends Command {
 
     private static final Logger logger = LoggerFactory.getLogger("ExportBoundAssetsCommand");
 
+    /**
+     * Progress of the last export of each project
+     */
+    private static final Map<Long, BoundAssetsExporter.ExportProgress> exports = new ConcurrentHashMap<>();
+
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -45,6 +52,18 @@ public class ExportBoundAssetsCommand extends Command {
                 return;
             }
 
+            if (request.getParameter("progress") != null) {
+                BoundAssetsExporter.ExportProgress progress = exports.get(project.id);
+                if (progress == null) {
+                    ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+                    result.put("status", "none");
+                    respondJSON(response, result);
+                } else {
+                    respondJSON(response, progress.toJSON(!progress.isRunning()));
+                }
+                return;
+            }
+
             ObjectNode result = ParsingUtilities.mapper.createObjectNode();
             result.put("status", "ok");
 
@@ -141,8 +160,13 @@ public class ExportBoundAssetsCommand extends Command {
                     return;
                 }
 
-                result = exporter.exportAssets(
-                        pathFieldsNode, sourceRootPath, targetPath, mode, options);
+                boolean async = options.has("async") && options.get("async").asBoolean(false);
+                if (async) {
+                    result = startExport(project, exporter, pathFieldsNode, sourceRootPath, targetPath, mode, options);
+                } else {
+                    result = exporter.exportAssets(
+                            pathFieldsNode, sourceRootPath, targetPath, mode, options);
+                }
             }
 
             respondJSON(response, result);
@@ -153,5 +177,37 @@ public class ExportBoundAssetsCommand extends Command {
                     HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
-}
 
+    /**
+     * Start an export in the background. Its progress is returned by GET requests with the
+     * "progress" parameter.
+     */
+    private ObjectNode startExport(Project project, BoundAssetsExporter exporter, ArrayNode pathFieldsNode,
+            String sourceRootPath, String targetPath, String mode, JsonNode options) {
+        ObjectNode result = ParsingUtilities.mapper.createObjectNode();
+        BoundAssetsExporter.ExportProgress progress = new BoundAssetsExporter.ExportProgress();
+        synchronized (exports) {
+            BoundAssetsExporter.ExportProgress current = exports.get(project.id);
+            if (current != null && current.isRunning()) {
+                result.put("status", "error");
+                result.put("message", "An export of this project is already running");
+                return result;
+            }
+            exports.put(project.id, progress);
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                exporter.exportAssets(pathFieldsNode, sourceRootPath, targetPath, mode, options, progress);
+            } catch (Exception e) {
+                logger.error("Error executing export", e);
+                progress.fail(e.getMessage());
+            }
+        }, "records-db-export-project-" + project.id);
+        thread.setDaemon(true);
+        thread.start();
+
+        result.put("status", "started");
+        return result;
+    }
+}
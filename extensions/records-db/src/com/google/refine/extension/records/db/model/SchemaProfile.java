@@ -50,11 +50,14 @@ public class SchemaProfile {
     
     // Pagination
     private int pageSize;
-    private int maxRows;
+    private int maxRows; // not used on import: the row limit is set when creating the project
+    private String keyColumn; // unique, indexed column of the main table used for keyset pagination
+    private int parallelism; // number of key ranges extracted concurrently on import
     
     public SchemaProfile() {
         this.pageSize = 100;
         this.maxRows = 10000;
+        this.parallelism = 1;
     }
     
     // Getters and Setters
@@ -232,6 +235,22 @@ public class SchemaProfile {
         this.maxRows = maxRows;
     }
     
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+    
+    public void setKeyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
     /**
      * Field mapping configuration
      */
@@ -56,6 +56,7 @@ public class FlatTablePreset {
         ObjectNode pagination = preset.putObject("pagination");
         pagination.put("pageSize", 100);
         pagination.put("maxRows", 10000);
+        pagination.put("parallelism", 4);
         
         return preset;
     }
@@ -77,6 +78,7 @@ public class FlatTablePreset {
         // Set pagination
         profile.setPageSize(config.get("pagination").get("pageSize").asInt());
         profile.setMaxRows(config.get("pagination").get("maxRows").asInt());
+        profile.setParallelism(config.get("pagination").get("parallelism").asInt());
     }
 }
 
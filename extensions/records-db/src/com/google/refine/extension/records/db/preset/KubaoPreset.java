@@ -98,6 +98,7 @@ public class KubaoPreset {
         ObjectNode pagination = preset.putObject("pagination");
         pagination.put("pageSize", 100);
         pagination.put("maxRows", 10000);
+        pagination.put("parallelism", 4);
         
         return preset;
     }
@@ -122,6 +123,9 @@ public class KubaoPreset {
         // Apply file mapping
         profile.setFileRootColumn(config.get("fileMapping").get("fileRootColumn").asText());
         profile.setFileRootRawColumn(config.get("fileMapping").get("fileRootRawColumn").asText());
+        
+        // Apply pagination
+        profile.setParallelism(config.get("pagination").get("parallelism").asInt());
     }
 }
 
@@ -0,0 +1,181 @@
+package com.google.refine.extension.records.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.ModelException;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
+
+public class BoundAssetsExporterTest {
+
+    private Path dir;
+    private Path source;
+    private Path target;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("records-db-export");
+        source = Files.createDirectories(dir.resolve("source"));
+        target = dir.resolve("target");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        write("a.txt", "aaa");
+        write("b/c.txt", "ccccc");
+
+        ObjectNode result = export("copy", "a.txt", "b/c.txt");
+
+        assertEquals(result.get("status").asText(), "ok");
+        assertEquals(result.get("success").asInt(), 2);
+        assertEquals(result.get("files").asLong(), 2);
+        assertEquals(result.get("bytes").asLong(), 8);
+        assertEquals(read(target.resolve("b/c.txt")), "ccccc");
+        assertTrue(Files.exists(source.resolve("a.txt")));
+        assertFalse(Files.exists(target.resolve(BoundAssetsExporter.MANIFEST_FILE)));
+    }
+
+    @Test
+    public void testMovedDirectoryCountsItsFiles() throws Exception {
+        write("d/one.txt", "123");
+        write("d/sub/two.txt", "12345");
+
+        ObjectNode result = export("move", "d");
+
+        assertEquals(result.get("status").asText(), "ok");
+        assertEquals(result.get("success").asInt(), 1);
+        assertEquals(result.get("files").asLong(), 2);
+        assertEquals(result.get("bytes").asLong(), 8);
+        assertEquals(read(target.resolve("d/sub/two.txt")), "12345");
+        assertFalse(Files.exists(source.resolve("d")));
+    }
+
+    @Test
+    public void testMove() throws Exception {
+        write("a.txt", "aaa");
+
+        ObjectNode result = export("move", "a.txt");
+
+        assertEquals(result.get("success").asInt(), 1);
+        assertEquals(result.get("bytes").asLong(), 3);
+        assertEquals(read(target.resolve("a.txt")), "aaa");
+        assertFalse(Files.exists(source.resolve("a.txt")));
+    }
+
+    @Test
+    public void testResumeSkipsRowsInManifest() throws Exception {
+        write("a.txt", "aaa");
+        write("b.txt", "bbb");
+        Files.createDirectories(target);
+        Files.write(target.resolve(BoundAssetsExporter.MANIFEST_FILE),
+                Arrays.asList(source.resolve("a.txt").toString()), StandardCharsets.UTF_8);
+
+        ObjectNode result = export("copy", "a.txt", "b.txt");
+
+        assertEquals(result.get("status").asText(), "ok");
+        assertEquals(result.get("resumed").asInt(), 1);
+        assertEquals(result.get("success").asInt(), 1);
+        assertFalse(Files.exists(target.resolve("a.txt")));
+        assertTrue(Files.exists(target.resolve("b.txt")));
+        assertFalse(Files.exists(target.resolve(BoundAssetsExporter.MANIFEST_FILE)));
+    }
+
+    @Test
+    public void testMoveResumesRowsMovedBeforeTheManifestWasWritten() throws Exception {
+        // an interrupted move: the first file was moved, but the manifest was not flushed
+        write("b.txt", "bbb");
+        Files.createDirectories(target);
+        Files.write(target.resolve("a.txt"), "aaa".getBytes(StandardCharsets.UTF_8));
+        Files.createFile(target.resolve(BoundAssetsExporter.MANIFEST_FILE));
+
+        ObjectNode result = export("move", "a.txt", "b.txt");
+
+        assertEquals(result.get("status").asText(), "ok");
+        assertEquals(result.get("failed").asInt(), 0);
+        assertEquals(result.get("resumed").asInt(), 1);
+        assertEquals(result.get("success").asInt(), 1);
+        assertEquals(read(target.resolve("b.txt")), "bbb");
+    }
+
+    @Test
+    public void testMissingSourceFailsACopy() throws Exception {
+        Files.createDirectories(target);
+        Files.write(target.resolve("a.txt"), "aaa".getBytes(StandardCharsets.UTF_8));
+
+        ObjectNode result = export("copy", "a.txt");
+
+        assertEquals(result.get("status").asText(), "partial");
+        assertEquals(result.get("failed").asInt(), 1);
+        assertTrue(Files.exists(target.resolve(BoundAssetsExporter.MANIFEST_FILE)));
+    }
+
+    @Test
+    public void testLinksInDirectoriesAreNotFollowed() throws Exception {
+        write("d/one.txt", "123");
+        Path outside = Files.createDirectories(dir.resolve("outside"));
+        Files.write(outside.resolve("secret.txt"), "secret".getBytes(StandardCharsets.UTF_8));
+        Files.createSymbolicLink(source.resolve("d/link"), outside);
+
+        ObjectNode result = export("copy", "d");
+
+        assertEquals(result.get("status").asText(), "ok");
+        assertEquals(read(target.resolve("d/one.txt")), "123");
+        assertTrue(Files.isSymbolicLink(target.resolve("d/link")));
+        // the link is copied as a link, not as the files it points to
+        assertEquals(result.get("files").asLong(), 2);
+        try (Stream<Path> paths = Files.walk(target)) {
+            assertEquals(paths.filter(Files::isRegularFile).count(), 1L);
+        }
+    }
+
+    private ObjectNode export(String mode, String... paths) throws ModelException {
+        Project project = new Project();
+        project.columnModel.addColumn(0, new Column(0, "path"), false);
+        for (String path : paths) {
+            Row row = new Row(1);
+            row.setCell(0, new Cell(path, null));
+            project.rows.add(row);
+        }
+        ArrayNode pathFields = ParsingUtilities.mapper.createArrayNode().add("path");
+        ObjectNode options = ParsingUtilities.mapper.createObjectNode();
+        options.put("threads", 2);
+        return new BoundAssetsExporter(project).exportAssets(pathFields, source.toString(), target.toString(),
+                mode, options);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = source.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.google.refine.extension.records.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+
+public class ConnectionPoolManagerTest {
+
+    private static final long IDLE_TIMEOUT = 600000;
+
+    private File dbFile;
+    private ConnectionPoolManager pools;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dbFile = File.createTempFile("records-db-pools", ".sqlite");
+        pools = new ConnectionPoolManager(0, 4, 30000, IDLE_TIMEOUT, 1800000);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        pools.closeAllPools();
+        dbFile.delete();
+    }
+
+    @Test
+    public void testKeyHoldsCredentials() {
+        String key = ConnectionPoolManager.generateKey(profile("alice", "secret"));
+
+        assertFalse(key.contains("secret"), key);
+        assertEquals(key, ConnectionPoolManager.generateKey(profile("alice", "secret")));
+        assertNotEquals(key, ConnectionPoolManager.generateKey(profile("bob", "secret")));
+        assertNotEquals(key, ConnectionPoolManager.generateKey(profile("alice", "changed")));
+    }
+
+    @Test
+    public void testCredentialsDoNotSharePools() throws Exception {
+        try (Connection alice = pools.getConnection(profile("alice", "secret"))) {
+            assertNull(pools.getStats(profile("bob", "secret")));
+            assertNull(pools.getStats(profile("alice", "changed")));
+            assertEquals(pools.getStats(profile("alice", "secret")).activeConnections, 1);
+        }
+        try (Connection bob = pools.getConnection(profile("bob", "secret"))) {
+            assertEquals(pools.getStats(profile("bob", "secret")).activeConnections, 1);
+            assertEquals(pools.getStats(profile("alice", "secret")).activeConnections, 0);
+        }
+    }
+
+    @Test
+    public void testIdlePoolsAreClosed() throws Exception {
+        try (Connection conn = pools.getConnection(profile("alice", "secret"))) {
+            pools.closeIdlePools(System.currentTimeMillis() + 2 * IDLE_TIMEOUT);
+            // a pool with connections in use is kept
+            assertNotNull(pools.getStats(profile("alice", "secret")));
+        }
+
+        pools.closeIdlePools(System.currentTimeMillis() + IDLE_TIMEOUT / 2);
+        assertNotNull(pools.getStats(profile("alice", "secret")));
+
+        pools.closeIdlePools(System.currentTimeMillis() + 2 * IDLE_TIMEOUT);
+        assertNull(pools.getStats(profile("alice", "secret")));
+
+        // the pool is created again when needed
+        try (Connection conn = pools.getConnection(profile("alice", "secret"))) {
+            assertEquals(pools.getStats(profile("alice", "secret")).activeConnections, 1);
+        }
+    }
+
+    private SchemaProfile profile(String username, String password) {
+        SchemaProfile profile = new SchemaProfile();
+        profile.setDialect("sqlite");
+        profile.setDatabase(dbFile.getAbsolutePath());
+        profile.setUsername(username);
+        profile.setPassword(password);
+        return profile;
+    }
+}
@@ -0,0 +1,198 @@
+package com.google.refine.extension.records.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+import com.google.refine.extension.records.db.model.SchemaProfile.FieldMapping;
+
+public class PartitionedImportReaderTest {
+
+    private File dbFile;
+    private ConnectionPoolManager pools;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dbFile = File.createTempFile("records-db-partitions", ".sqlite");
+        pools = new ConnectionPoolManager(1, 4, 30000, 600000, 1800000);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        pools.closeAllPools();
+        dbFile.delete();
+    }
+
+    @Test
+    public void testRangesCoverAllKeys() throws Exception {
+        // 10 keys in 3 ranges: the steps do not divide the span evenly
+        long[] keys = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        createTable(keys);
+
+        assertEquals(readKeys(3, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testSparseAndNegativeKeys() throws Exception {
+        long[] keys = { -100, -7, 0, 1, 33, 34, 99, 100 };
+        createTable(keys);
+
+        assertEquals(readKeys(4, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testMoreRangesThanKeys() throws Exception {
+        long[] keys = { 5, 6 };
+        createTable(keys);
+
+        assertEquals(readKeys(8, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testSingleKey() throws Exception {
+        long[] keys = { 42 };
+        createTable(keys);
+
+        assertEquals(readKeys(3, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testKeysAtTheEndOfTheLongRange() throws Exception {
+        long[] keys = { Long.MAX_VALUE - 2, Long.MAX_VALUE - 1, Long.MAX_VALUE };
+        createTable(keys);
+
+        assertEquals(readKeys(3, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testFullLongRange() throws Exception {
+        // the span overflows a long
+        long[] keys = { Long.MIN_VALUE, 0, Long.MAX_VALUE };
+        createTable(keys);
+
+        assertEquals(readKeys(2, 0, keys.length), keys);
+    }
+
+    @Test
+    public void testMaxRowsAcrossRanges() throws Exception {
+        long[] keys = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        createTable(keys);
+
+        assertEquals(readKeys(3, 5, keys.length), new long[] { 1, 2, 3, 4, 5 });
+    }
+
+    @Test
+    public void testSkewedKeysAreReadInBoundedChunks() throws Exception {
+        // all keys but the last fall in the first range
+        long[] keys = new long[21];
+        for (int i = 0; i < 20; i++) {
+            keys[i] = i + 1;
+        }
+        keys[20] = 1000000;
+        createTable(keys);
+
+        assertEquals(readKeys(2, 0, keys.length, 3), keys);
+        assertEquals(readKeys(2, 10, keys.length, 3), Arrays.copyOf(keys, 10));
+    }
+
+    @Test
+    public void testKeysWithAsManyRowsAsTheLimit() throws Exception {
+        long[] keys = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        createTable(keys);
+
+        // every range query is truncated within its first key
+        assertEquals(readKeys(2, 0, keys.length, 1), keys);
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        createTable(new long[0]);
+
+        PartitionedImportReader reader = new PartitionedImportReader(pools, profile(3), null, 0, 0);
+        List<Object> header = reader.getNextRowOfCells();
+        assertEquals(header, Arrays.asList("id", "name"));
+        assertNull(reader.getNextRowOfCells());
+    }
+
+    @Test
+    public void testNullableKeyIsRejected() throws Exception {
+        execute("CREATE TABLE items (id INTEGER UNIQUE, name TEXT)",
+                "INSERT INTO items VALUES (1, 'a'), (NULL, 'b')");
+        PartitionedImportReader reader = new PartitionedImportReader(pools, profile(3), null, 0, 2);
+
+        assertThrows(IOException.class, reader::getNextRowOfCells);
+    }
+
+    private long[] readKeys(int parallelism, int maxRows, long estimatedRows) throws IOException {
+        return readKeys(parallelism, maxRows, estimatedRows, PartitionedImportReader.MAX_CHUNK_ROWS);
+    }
+
+    private long[] readKeys(int parallelism, int maxRows, long estimatedRows, int maxChunkRows) throws IOException {
+        PartitionedImportReader reader = new PartitionedImportReader(pools, profile(parallelism), null, maxRows,
+                estimatedRows, maxChunkRows);
+        try {
+            assertEquals(reader.getNextRowOfCells(), Arrays.asList("id", "name"));
+            List<Long> keys = new ArrayList<Long>();
+            List<Object> row;
+            while ((row = reader.getNextRowOfCells()) != null) {
+                long key = ((Number) row.get(0)).longValue();
+                assertEquals(row.get(1), "item " + key);
+                keys.add(key);
+            }
+            return keys.stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private SchemaProfile profile(int parallelism) {
+        SchemaProfile profile = new SchemaProfile();
+        profile.setDialect("sqlite");
+        profile.setDatabase(dbFile.getAbsolutePath());
+        profile.setMainTable("items");
+        profile.setKeyColumn("id");
+        profile.setParallelism(parallelism);
+        List<FieldMapping> mappings = new ArrayList<FieldMapping>();
+        mappings.add(new FieldMapping("id", "id"));
+        mappings.add(new FieldMapping("name", "name"));
+        profile.setFieldMappings(mappings);
+        return profile;
+    }
+
+    private void createTable(long[] keys) throws SQLException {
+        execute("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+                PreparedStatement stmt = conn.prepareStatement("INSERT INTO items VALUES (?, ?)")) {
+            for (long key : keys) {
+                stmt.setLong(1, key);
+                stmt.setString(2, "item " + key);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+                Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.google.refine.extension.records.db;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+import com.google.refine.extension.records.db.model.SchemaProfile.FieldMapping;
+
+public class QueryBuilderTest {
+
+    private Connection conn;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        execute("CREATE TABLE docs (id INTEGER PRIMARY KEY, name TEXT, doc TEXT)",
+                "INSERT INTO docs VALUES"
+                        + " (1, 'a', '{\"kind\":\"book\",\"n\":1,\"ok\":true,\"tags\":[\"x\",\"y\"],\"k*\":\"v\"}'),"
+                        + " (2, 'b', '{\"kind\":\"film\",\"n\":2,\"ok\":false,\"tags\":[\"y\"],\"k*\":\"w\"}'),"
+                        + " (3, 'c', '{\"kind\":\"book\",\"n\":3,\"ok\":true,\"tags\":[],\"k*\":\"v\"}'),"
+                        + " (4, 'd', '{\"kind\":\"book\",\"n\":4,\"ok\":false,\"k*\":\"w\"}'),"
+                        + " (5, 'e', '{\"kind\":\"song\",\"n\":5,\"ok\":true,\"k*\":\"v\"}'),"
+                        + " (6, 'f', '{\"kind\":\"book\",\"n\":6,\"ok\":true,\"k*\":\"v\"}'),"
+                        + " (7, NULL, NULL)");
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void testParseJsonPath() {
+        assertEquals(QueryBuilder.parseJsonPath("a"), Arrays.asList("a"));
+        assertEquals(QueryBuilder.parseJsonPath("a.b[0].c"), Arrays.asList("a", "b", 0, "c"));
+        assertEquals(QueryBuilder.parseJsonPath("$.a.b"), Arrays.asList("a", "b"));
+        assertEquals(QueryBuilder.parseJsonPath("$[1].a"), Arrays.asList(1, "a"));
+        assertEquals(QueryBuilder.parseJsonPath("a[0][2]"), Arrays.asList("a", 0, 2));
+    }
+
+    @Test
+    public void testUnsupportedJsonPaths() {
+        assertNull(QueryBuilder.parseJsonPath(null));
+        assertNull(QueryBuilder.parseJsonPath(""));
+        assertNull(QueryBuilder.parseJsonPath("$"));
+        assertNull(QueryBuilder.parseJsonPath("a.*"));
+        assertNull(QueryBuilder.parseJsonPath("a[*]"));
+        assertNull(QueryBuilder.parseJsonPath("a[-1]"));
+        assertNull(QueryBuilder.parseJsonPath("a[x]"));
+        assertNull(QueryBuilder.parseJsonPath("a[0"));
+        assertNull(QueryBuilder.parseJsonPath("a..b"));
+    }
+
+    @Test
+    public void testRenderJsonExtraction() {
+        assertEquals(QueryBuilder.renderJsonExtraction("m.`doc`", "a[0].b", "mysql"),
+                "JSON_UNQUOTE(JSON_EXTRACT(m.`doc`, '$.\"a\"[0].\"b\"'))");
+        assertEquals(QueryBuilder.renderJsonExtraction("m.`doc`", "a[0].b", "mariadb"),
+                "JSON_UNQUOTE(JSON_EXTRACT(m.`doc`, '$.\"a\"[0].\"b\"'))");
+        assertEquals(QueryBuilder.renderJsonExtraction("m.\"doc\"", "a[0].b", "sqlite"),
+                "json_extract(m.\"doc\", '$.\"a\"[0].\"b\"')");
+        assertEquals(QueryBuilder.renderJsonExtraction("m.\"doc\"", "a[0].b", "postgresql"),
+                "(m.\"doc\"::json#>>'{\"a\",\"0\",\"b\"}')");
+    }
+
+    @Test
+    public void testRenderJsonExtractionEscapesKeys() {
+        assertEquals(QueryBuilder.renderJsonExtraction("m.doc", "it's", "sqlite"),
+                "json_extract(m.doc, '$.\"it''s\"')");
+        assertEquals(QueryBuilder.renderJsonExtraction("m.doc", "a\"b", "mysql"),
+                "JSON_UNQUOTE(JSON_EXTRACT(m.doc, '$.\"a\\\\\"b\"'))");
+        assertEquals(QueryBuilder.renderJsonExtraction("m.doc", "it's", "postgresql"),
+                "(m.doc::json#>>'{\"it''s\"}')");
+    }
+
+    @Test
+    public void testRenderJsonExtractionIsNullWhenUnsupported() {
+        assertNull(QueryBuilder.renderJsonExtraction("m.doc", "a.b", "oracle"));
+        assertNull(QueryBuilder.renderJsonExtraction("m.doc", "a.b", null));
+        assertNull(QueryBuilder.renderJsonExtraction("m.doc", "a[*]", "sqlite"));
+    }
+
+    @Test
+    public void testJsonExtractionInSqlite() throws SQLException {
+        SchemaProfile profile = profile();
+
+        List<String> rows = new ArrayList<String>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(QueryBuilder.buildSelectQuery(profile) + " ORDER BY m.\"id\"")) {
+            while (rs.next()) {
+                rows.add(rs.getObject("id") + "|" + rs.getObject("kind") + "|" + rs.getObject("n") + "|"
+                        + rs.getObject("ok") + "|" + rs.getObject("tag"));
+            }
+        }
+
+        assertEquals(rows, Arrays.asList("1|book|1|1|x", "2|film|2|0|y", "3|book|3|1|null", "4|book|4|0|null",
+                "5|song|5|1|null", "6|book|6|1|null", "7|null|null|null|null"));
+    }
+
+    @Test
+    public void testFieldFiltersAreRenderedInSql() {
+        SchemaProfile profile = profile();
+        Map<String, Object> filters = new LinkedHashMap<String, Object>();
+        filters.put("kind", "b%");
+        filters.put("name", null);
+
+        String query = QueryBuilder.buildSelectQuery(profile, filters);
+
+        assertTrue(query.endsWith(" WHERE (json_extract(m.\"doc\", '$.\"kind\"') LIKE 'b%' ESCAPE '!') AND (m.\"name\" IS NULL)"),
+                query);
+        assertTrue(QueryBuilder.getJavaFilters(profile, filters).isEmpty());
+    }
+
+    @Test
+    public void testFieldFilterValuesAreEscaped() {
+        SchemaProfile profile = profile();
+        profile.setDialect("mysql");
+
+        String query = QueryBuilder.buildSelectQuery(profile, filter("name", "x\\' OR 1=1 -- "));
+        assertTrue(query.endsWith(" WHERE (m.`name` = 'x\\\\'' OR 1=1 -- ')"), query);
+        query = QueryBuilder.buildSelectQuery(profile, filter("name", "C:\\dir"));
+        assertTrue(query.endsWith(" WHERE (m.`name` = 'C:\\\\dir')"), query);
+
+        profile.setDialect("postgresql");
+        query = QueryBuilder.buildSelectQuery(profile, filter("name", "C:\\dir"));
+        assertTrue(query.endsWith(" WHERE (m.\"name\" = 'C:\\dir')"), query);
+    }
+
+    @Test
+    public void testLikeFiltersOnlyUsePercentAsWildcard() {
+        String query = QueryBuilder.buildSelectQuery(profile(), filter("name", "a_b!%"));
+
+        assertTrue(query.endsWith(" WHERE (m.\"name\" LIKE 'a!_b!!%' ESCAPE '!')"), query);
+    }
+
+    @Test
+    public void testSqlFieldFilters() throws Exception {
+        assertEquals(previewIds(filter("kind", "book"), 0, 10), Arrays.asList(1L, 3L, 4L, 6L));
+        assertEquals(previewIds(filter("kind", "%o%"), 0, 10), Arrays.asList(1L, 3L, 4L, 5L, 6L));
+        assertEquals(previewIds(filter("n", 3), 0, 10), Arrays.asList(3L));
+        assertEquals(previewIds(filter("ok", true), 0, 10), Arrays.asList(1L, 3L, 5L, 6L));
+        assertEquals(previewIds(filter("ok", false), 0, 10), Arrays.asList(2L, 4L));
+        assertEquals(previewIds(filter("name", null), 0, 10), Arrays.asList(7L));
+        assertEquals(previewIds(filter("kind", "book"), 1, 2), Arrays.asList(3L, 4L));
+        // '_' is not a wildcard, as in FilterApplier
+        assertEquals(previewIds(filter("kind", "b_o%"), 0, 10), Arrays.asList());
+        assertEquals(previewIds(filter("kind", "bo%"), 0, 10), Arrays.asList(1L, 3L, 4L, 6L));
+    }
+
+    @Test
+    public void testJavaFiltersFillPages() throws Exception {
+        // the key cannot be expressed as an SQL path, so the filter is applied in Java
+        Map<String, Object> filters = filter("star", "v");
+        assertEquals(QueryBuilder.getJavaFilters(profile(), filters), filters);
+
+        assertEquals(previewIds(filters, 0, 10), Arrays.asList(1L, 3L, 5L, 6L));
+        assertEquals(previewIds(filters, 0, 2), Arrays.asList(1L, 3L));
+        assertEquals(previewIds(filters, 1, 2), Arrays.asList(3L, 5L));
+        assertEquals(previewIds(filters, 3, 2), Arrays.asList(6L));
+    }
+
+    @Test
+    public void testJavaFilteredPreviewIsStreamed() throws Exception {
+        Connection streamed = spy(conn);
+
+        QueryExecutor.executeQuery(streamed, profile(), filter("star", "v"), 0, 2);
+
+        verify(streamed).createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        verify(streamed, never()).createStatement();
+    }
+
+    @Test
+    public void testStreamingStatements() throws SQLException {
+        Connection mocked = mock(Connection.class);
+        Statement mysql = mock(Statement.class);
+        Statement postgresql = mock(Statement.class);
+        when(mocked.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(mysql,
+                postgresql);
+
+        QueryExecutor.createStreamingStatement(mocked, "mysql", 100);
+        QueryExecutor.createStreamingStatement(mocked, "postgresql", 100);
+
+        verify(mysql).setFetchSize(Integer.MIN_VALUE);
+        verify(postgresql).setFetchSize(100);
+    }
+
+    @Test
+    public void testProfileFieldFiltersApplyToImportQueries() throws Exception {
+        SchemaProfile profile = profile();
+        profile.setKeyColumn("id");
+        Map<String, Object> filters = new HashMap<String, Object>();
+        filters.put(QueryBuilder.FIELD_FILTERS_KEY, filter("kind", "book"));
+        profile.setFilters(filters);
+
+        assertEquals(QueryBuilder.getFieldFilters(profile), filter("kind", "book"));
+        assertEquals(QueryExecutor.getRowCount(conn, profile), 4L);
+
+        RecordsDBImportReader reader = new RecordsDBImportReader(conn, profile, null, 3, 0);
+        reader.getNextRowOfCells();
+        List<Long> ids = new ArrayList<Long>();
+        List<Object> row;
+        while ((row = reader.getNextRowOfCells()) != null) {
+            ids.add(((Number) row.get(0)).longValue());
+        }
+        assertEquals(ids, Arrays.asList(1L, 3L, 4L, 6L));
+    }
+
+    @Test
+    public void testOtherProfileFiltersAreNotFieldFilters() {
+        SchemaProfile profile = profile();
+        Map<String, Object> filters = new HashMap<String, Object>();
+        filters.put("excludeExported", false);
+        profile.setFilters(filters);
+        assertNull(QueryBuilder.getFieldFilters(profile));
+
+        filters.put(QueryBuilder.FIELD_FILTERS_KEY, "kind");
+        assertNull(QueryBuilder.getFieldFilters(profile));
+    }
+
+    private List<Long> previewIds(Map<String, Object> filters, int offset, int limit) throws Exception {
+        ObjectNode result = QueryExecutor.executeQuery(conn, profile(), filters, offset, limit);
+        List<Long> ids = new ArrayList<Long>();
+        for (JsonNode row : result.get("rows")) {
+            ids.add(row.get("id").asLong());
+        }
+        assertEquals(result.get("rowCount").asInt(), ids.size());
+        return ids;
+    }
+
+    private static Map<String, Object> filter(String field, Object value) {
+        Map<String, Object> filters = new HashMap<String, Object>();
+        filters.put(field, value);
+        return filters;
+    }
+
+    private static SchemaProfile profile() {
+        SchemaProfile profile = new SchemaProfile();
+        profile.setDialect("sqlite");
+        profile.setMainTable("docs");
+        List<FieldMapping> mappings = new ArrayList<FieldMapping>();
+        mappings.add(new FieldMapping("id", "id"));
+        mappings.add(new FieldMapping("name", "name"));
+        mappings.add(jsonMapping("kind", "kind"));
+        mappings.add(jsonMapping("n", "$.n"));
+        mappings.add(jsonMapping("ok", "ok"));
+        mappings.add(jsonMapping("tag", "tags[0]"));
+        mappings.add(jsonMapping("star", "k*"));
+        profile.setFieldMappings(mappings);
+        return profile;
+    }
+
+    private static FieldMapping jsonMapping(String label, String jsonPath) {
+        FieldMapping mapping = new FieldMapping("doc", label);
+        mapping.setJsonField(true);
+        mapping.setJsonPath(jsonPath);
+        return mapping;
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+}
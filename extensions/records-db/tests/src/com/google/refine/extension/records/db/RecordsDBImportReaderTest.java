@@ -0,0 +1,183 @@
+
+package com.google.refine.extension.records.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+import com.google.refine.extension.records.db.model.SchemaProfile.FieldMapping;
+
+public class RecordsDBImportReaderTest {
+
+    private Connection conn;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        execute("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)",
+                "INSERT INTO items VALUES (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e'), (6, 'f'), (7, 'g')",
+                "CREATE TABLE tags (item_id INTEGER, tag TEXT)",
+                "INSERT INTO tags VALUES (1, 'x'), (1, 'y'), (2, 'x'), (3, 'x'), (3, 'y'), (3, 'z'), (5, 'x')");
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void testKeysetPaging() throws IOException {
+        SchemaProfile profile = profile("items", "id");
+
+        List<String> rows = readAll(new RecordsDBImportReader(conn, profile, null, 3, 0));
+
+        assertEquals(rows, Arrays.asList("id|name", "1|a", "2|b", "3|c", "4|d", "5|e", "6|f", "7|g"));
+    }
+
+    @Test
+    public void testKeysetPagingKeepsJoinedRowsOfAKeyTogether() throws IOException {
+        SchemaProfile profile = profile("items", "id");
+        profile.setFilters(tagCondition());
+
+        // pages of two keys: each key has up to three joined rows, which must not be split
+        List<String> rows = readAll(new RecordsDBImportReader(conn, profile, null, 2, 0));
+
+        assertEquals(rows, Arrays.asList("id|name", "1|a", "1|a", "2|b", "3|c", "3|c", "3|c", "5|e"));
+    }
+
+    @Test
+    public void testKeysetPagingHonorsMaxRows() throws IOException {
+        SchemaProfile profile = profile("items", "id");
+        profile.setFilters(tagCondition());
+
+        List<String> rows = readAll(new RecordsDBImportReader(conn, profile, null, 2, 4));
+
+        assertEquals(rows, Arrays.asList("id|name", "1|a", "1|a", "2|b", "3|c"));
+    }
+
+    @Test
+    public void testKeysetPagingOfEmptyTable() throws IOException, SQLException {
+        execute("DELETE FROM items");
+        SchemaProfile profile = profile("items", "id");
+
+        List<String> rows = readAll(new RecordsDBImportReader(conn, profile, null, 3, 0));
+
+        assertEquals(rows, Arrays.asList("id|name"));
+    }
+
+    @Test
+    public void testUniqueNotNullKey() throws IOException, SQLException {
+        execute("CREATE TABLE codes (code TEXT NOT NULL UNIQUE, name TEXT)",
+                "INSERT INTO codes VALUES ('c', 'three'), ('a', 'one'), ('b', 'two')");
+        SchemaProfile profile = profile("codes", "code");
+        profile.getFieldMappings().clear();
+        profile.getFieldMappings().add(new FieldMapping("name", "name"));
+
+        List<String> rows = readAll(new RecordsDBImportReader(conn, profile, null, 2, 0));
+
+        assertEquals(rows, Arrays.asList("name", "one", "two", "three"));
+    }
+
+    @Test
+    public void testNullableKeyIsRejected() throws SQLException {
+        // rows with a null key could not be paged on
+        execute("CREATE TABLE codes (code TEXT UNIQUE, name TEXT)",
+                "INSERT INTO codes VALUES (NULL, 'none'), ('a', 'one')");
+        RecordsDBImportReader reader = new RecordsDBImportReader(conn, profile("codes", "code"), null, 2, 0);
+
+        assertThrows(IOException.class, reader::getNextRowOfCells);
+    }
+
+    @Test
+    public void testDuplicateKeyIsRejected() throws SQLException {
+        execute("CREATE TABLE codes (code TEXT NOT NULL, name TEXT)",
+                "INSERT INTO codes VALUES ('a', 'one'), ('a', 'other')");
+        RecordsDBImportReader reader = new RecordsDBImportReader(conn, profile("codes", "code"), null, 2, 0);
+
+        assertThrows(IOException.class, reader::getNextRowOfCells);
+    }
+
+    @Test
+    public void testUnknownKeyIsRejected() {
+        RecordsDBImportReader reader = new RecordsDBImportReader(conn, profile("items", "missing"), null, 2, 0);
+
+        assertThrows(IOException.class, reader::getNextRowOfCells);
+    }
+
+    @Test
+    public void testKeysetQueryExcludesNullKeys() {
+        String query = QueryBuilder.buildKeysetQuery(profile("items", "id"), true, 10);
+
+        assertEquals(query, "SELECT DISTINCT m.\"id\" AS \"__rdb_key\" FROM \"items\" m"
+                + " WHERE m.\"id\" IS NOT NULL AND m.\"id\" > ? ORDER BY m.\"id\" LIMIT 10");
+    }
+
+    private SchemaProfile profile(String table, String keyColumn) {
+        SchemaProfile profile = new SchemaProfile();
+        profile.setDialect("sqlite");
+        profile.setMainTable(table);
+        profile.setKeyColumn(keyColumn);
+        List<FieldMapping> mappings = new ArrayList<FieldMapping>();
+        if ("items".equals(table)) {
+            mappings.add(new FieldMapping("id", "id"));
+        }
+        mappings.add(new FieldMapping("name", "name"));
+        profile.setFieldMappings(mappings);
+        return profile;
+    }
+
+    private static Map<String, Object> tagCondition() {
+        Map<String, Object> condition = new HashMap<String, Object>();
+        condition.put("source", "tags");
+        condition.put("joinTable", "tags");
+        condition.put("mainKey", "id");
+        condition.put("joinKey", "item_id");
+        condition.put("field", "tag");
+        condition.put("operator", "IN");
+        condition.put("value", "x,y,z");
+        Map<String, Object> filters = new HashMap<String, Object>();
+        filters.put("conditions", Arrays.asList(condition));
+        return filters;
+    }
+
+    private static List<String> readAll(RecordsDBImportReader reader) throws IOException {
+        List<String> rows = new ArrayList<String>();
+        List<Object> row;
+        while ((row = reader.getNextRowOfCells()) != null) {
+            StringBuilder sb = new StringBuilder();
+            for (Object value : row) {
+                if (sb.length() > 0) {
+                    sb.append('|');
+                }
+                sb.append(value);
+            }
+            rows.add(sb.toString());
+        }
+        assertNull(reader.getNextRowOfCells());
+        return rows;
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+}
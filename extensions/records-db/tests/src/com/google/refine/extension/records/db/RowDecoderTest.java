@@ -0,0 +1,183 @@
+package com.google.refine.extension.records.db;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RowDecoderTest {
+
+    private Connection conn;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE t (tiny TINYINT, small SMALLINT, i INTEGER, big BIGINT, r REAL, d DOUBLE,"
+                    + " b BOOLEAN, c CHAR(3), v VARCHAR(10), txt CLOB, amount DECIMAL(10, 2), born DATE,"
+                    + " doc VARCHAR(100))");
+            stmt.execute("INSERT INTO t VALUES (1, 2, 3, 9007199254740993, 0.1, 2.25, TRUE, 'abc', 'text', 'long',"
+                    + " 12.34, DATE '2024-02-29', '{\"a\":{\"b\":[10,20]}}')");
+            stmt.execute("INSERT INTO t VALUES (NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL,"
+                    + " NULL)");
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void testTypedColumns() throws SQLException {
+        Object[] values = decodeFirstRow(null);
+
+        assertEquals(values[0], 1L);
+        assertEquals(values[1], 2L);
+        assertEquals(values[2], 3L);
+        // beyond the precision of a double
+        assertEquals(values[3], 9007199254740993L);
+        // the single precision value as written, not its closest double 0.10000000149011612
+        assertEquals(values[4], 0.1d);
+        assertEquals(values[5], 2.25d);
+        assertEquals(values[6], Boolean.TRUE);
+        assertEquals(values[7], "abc");
+        assertEquals(values[8], "text");
+        assertEquals(values[9], "long");
+    }
+
+    @Test
+    public void testOtherColumns() throws SQLException {
+        Object[] values = decodeFirstRow(null);
+
+        // exact numbers are kept as numbers, other objects are imported as strings
+        assertEquals(values[10], new BigDecimal("12.34"));
+        assertEquals(values[11], "2024-02-29");
+        assertEquals(values[12], "{\"a\":{\"b\":[10,20]}}");
+    }
+
+    @Test
+    public void testNulls() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT * FROM t WHERE tiny IS NULL")) {
+            RowDecoder decoder = new RowDecoder(rs.getMetaData(), 13, null, "h2");
+            assertTrue(rs.next());
+            Object[] values = decoder.decode(rs, new Object[13]);
+            for (int i = 0; i < values.length; i++) {
+                assertNull(values[i], "column " + (i + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testJsonPaths() throws SQLException {
+        String[] paths = new String[13];
+        paths[12] = "a.b[1]";
+        Object[] values = decodeFirstRow(paths);
+
+        assertEquals(values[12], 20L);
+        assertEquals(values[8], "text");
+    }
+
+    @Test
+    public void testSelectedColumnsWithoutConversion() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT * FROM t WHERE tiny = 1")) {
+            RowDecoder decoder = new RowDecoder(rs.getMetaData(), new int[] { 12, 3 }, null, false, "h2");
+            assertEquals(decoder.getColumnCount(), 2);
+            assertTrue(rs.next());
+
+            assertEquals(decoder.decode(rs, 0), java.sql.Date.valueOf("2024-02-29"));
+            assertEquals(decoder.decode(rs, 1), 3L);
+        }
+    }
+
+    @Test
+    public void testUnsignedBigintIsNotReadAsLong() throws SQLException {
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(md.isSigned(1)).thenReturn(false);
+        ResultSet rs = mock(ResultSet.class);
+        BigInteger max = new BigInteger("18446744073709551615");
+        when(rs.getObject(1)).thenReturn(max);
+
+        assertEquals(new RowDecoder(md, 1, null, "mysql").decode(rs, 0), max);
+    }
+
+    @Test
+    public void testUntypedColumnsAreReadAsObjects() throws SQLException {
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnType(1)).thenThrow(new SQLException("not typed before the first row"));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1)).thenReturn(42L);
+
+        assertEquals(new RowDecoder(md, 1, null, "mysql").decode(rs, 0), 42L);
+    }
+
+    @Test
+    public void testOnlySingleBitsAreBooleans() throws SQLException {
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnType(1)).thenReturn(Types.BIT);
+        when(md.getPrecision(1)).thenReturn(1);
+        when(md.getColumnType(2)).thenReturn(Types.BIT);
+        when(md.getPrecision(2)).thenReturn(8);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getBoolean(1)).thenReturn(true);
+        when(rs.getObject(2)).thenReturn("10100101");
+
+        RowDecoder decoder = new RowDecoder(md, 2, null, "mysql");
+        assertEquals(decoder.decode(rs, 0), Boolean.TRUE);
+        assertEquals(decoder.decode(rs, 1), "10100101");
+    }
+
+    @Test
+    public void testSqliteColumnsAreReadAsObjects() throws SQLException {
+        try (Connection sqlite = DriverManager.getConnection("jdbc:sqlite::memory:");
+                Statement stmt = sqlite.createStatement()) {
+            stmt.execute("CREATE TABLE t (i INTEGER, r REAL, b BOOLEAN)");
+            // the declared types do not constrain the values
+            stmt.execute("INSERT INTO t VALUES ('n/a', 'unknown', 'yes')");
+            stmt.execute("INSERT INTO t VALUES (7, 1.5, 1)");
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                RowDecoder decoder = new RowDecoder(rs.getMetaData(), 3, null, "sqlite");
+                assertTrue(rs.next());
+                assertEquals(decoder.decode(rs, new Object[3]), new Object[] { "n/a", "unknown", "yes" });
+                assertTrue(rs.next());
+                assertEquals(decoder.decode(rs, new Object[3]), new Object[] { 7, 1.5d, 1 });
+            }
+        }
+    }
+
+    @Test
+    public void testConvertValue() {
+        assertNull(RowDecoder.convertValue(null));
+        assertEquals(RowDecoder.convertValue("s"), "s");
+        assertEquals(RowDecoder.convertValue(7), 7);
+        assertEquals(RowDecoder.convertValue(false), false);
+        assertEquals(RowDecoder.convertValue(new StringBuilder("sb")), "sb");
+    }
+
+    private Object[] decodeFirstRow(String[] jsonPaths) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT * FROM t WHERE tiny = 1")) {
+            RowDecoder decoder = new RowDecoder(rs.getMetaData(), 13, jsonPaths, "h2");
+            assertTrue(rs.next());
+            return decoder.decode(rs, new Object[13]);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.google.refine.extension.records.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.extension.records.db.model.SchemaProfile;
+import com.google.refine.util.ParsingUtilities;
+
+public class SchemaMetadataCacheTest {
+
+    private SchemaMetadataCache cache;
+    private AtomicInteger loads;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new SchemaMetadataCache(60000, 60000, 1024 * 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testSameCredentialsShareEntries() throws Exception {
+        ArrayNode first = cache.get(profile("alice", "secret"), "tables", null, loader("t1"));
+        ArrayNode second = cache.get(profile("alice", "secret"), "tables", null, loader("t2"));
+
+        assertSame(second, first);
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getStats().hits, 1);
+        assertEquals(cache.getStats().misses, 1);
+    }
+
+    @Test
+    public void testUsersDoNotShareEntries() throws Exception {
+        cache.get(profile("alice", "secret"), "tables", null, loader("alice"));
+        ArrayNode tables = cache.get(profile("bob", "secret"), "tables", null, loader("bob"));
+
+        assertEquals(tables.get(0).asText(), "bob");
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testPasswordsDoNotShareEntries() throws Exception {
+        cache.get(profile("alice", "secret"), "tables", null, loader("right"));
+        ArrayNode tables = cache.get(profile("alice", "wrong"), "tables", null, loader("wrong"));
+
+        assertEquals(tables.get(0).asText(), "wrong");
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testKeyOnlyHoldsPasswordHash() {
+        String key = SchemaMetadataCache.profileKey(profile("alice", "secret"));
+
+        assertFalse(key.contains("secret"), key);
+        assertNotEquals(key, SchemaMetadataCache.profileKey(profile("alice", null)));
+        assertEquals(key, SchemaMetadataCache.profileKey(profile("alice", "secret")));
+    }
+
+    @Test
+    public void testInvalidateDropsOnlyTheEntriesOfTheProfile() throws Exception {
+        cache.get(profile("alice", "secret"), "tables", null, loader("t"));
+        cache.get(profile("alice", "secret"), "columns", "items", loader("c"));
+        cache.get(profile("bob", "secret"), "tables", null, loader("t"));
+        assertEquals(cache.getStats().entries, 3);
+
+        cache.invalidate(profile("alice", "secret"));
+
+        assertEquals(cache.getStats().entries, 1);
+        cache.get(profile("bob", "secret"), "tables", null, loader("t"));
+        assertEquals(loads.get(), 3);
+        ArrayNode tables = cache.get(profile("alice", "secret"), "tables", null, loader("reloaded"));
+        assertEquals(tables.get(0).asText(), "reloaded");
+        assertEquals(loads.get(), 4);
+    }
+
+    @Test
+    public void testInvalidateReleasesBytes() throws Exception {
+        cache.get(profile("alice", "secret"), "tables", null, loader("t"));
+        long bytes = cache.getStats().bytes;
+        cache.get(profile("bob", "secret"), "tables", null, loader("t"));
+        assertEquals(cache.getStats().bytes, 2 * bytes);
+
+        cache.invalidate(profile("bob", "secret"));
+        assertEquals(cache.getStats().bytes, bytes);
+
+        cache.clear();
+        assertEquals(cache.getStats().entries, 0);
+        assertEquals(cache.getStats().bytes, 0);
+    }
+
+    private Callable<ArrayNode> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            ArrayNode listing = ParsingUtilities.mapper.createArrayNode();
+            listing.add(value);
+            return listing;
+        };
+    }
+
+    private static SchemaProfile profile(String username, String password) {
+        SchemaProfile profile = new SchemaProfile();
+        profile.setDialect("postgresql");
+        profile.setHost("db.example.org");
+        profile.setPort(5432);
+        profile.setDatabase("records");
+        profile.setUsername(username);
+        profile.setPassword(password);
+        return profile;
+    }
+}
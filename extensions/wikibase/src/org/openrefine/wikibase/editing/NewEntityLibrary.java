@@ -24,6 +24,7 @@
 
 package org.openrefine.wikibase.editing;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -135,7 +136,7 @@ public class NewEntityLibrary {
                         && reconToEntityId.containsKey(recon.id)) {
                     recon.judgment = Recon.Judgment.New;
                     if (recon.candidates != null) {
-                        recon.candidates.remove(recon.candidates.size() - 1);
+                        recon.candidates = new ArrayList<>(recon.candidates.subList(0, recon.candidates.size() - 1));
                     }
                     recon.match = null;
                     changed = true;
@@ -42,15 +42,9 @@ import com.google.refine.expr.ParsingException;
 public class UserDefinedKeyer extends Keyer {
 
     private Evaluable eval;
-    private Properties bindings;
 
     public UserDefinedKeyer(String expression) throws ParsingException {
         eval = MetaParser.parse(expression);
-        bindings = new Properties();
-
-        bindings.put("true", true);
-        bindings.put("false", false);
-        bindings.put("PI", Math.PI);
     }
 
     @Override
@@ -59,6 +53,11 @@ public class UserDefinedKeyer extends Keyer {
             throw new IllegalArgumentException("Keying functions accepts a single string parameter");
         }
 
+        // fresh bindings for each call, as distinct values are keyed concurrently
+        Properties bindings = new Properties();
+        bindings.put("true", true);
+        bindings.put("false", false);
+        bindings.put("PI", Math.PI);
         bindings.put("value", s);
 
         Object result = eval.evaluate(bindings);
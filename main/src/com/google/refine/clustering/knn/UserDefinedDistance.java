@@ -43,15 +43,9 @@ import com.google.refine.expr.ParsingException;
 public class UserDefinedDistance implements SimilarityDistance {
 
     private Evaluable eval;
-    private Properties bindings;
 
     public UserDefinedDistance(String expression) throws ParsingException {
         eval = MetaParser.parse(expression);
-        bindings = new Properties();
-
-        bindings.put("true", true);
-        bindings.put("false", false);
-        bindings.put("PI", Math.PI);
     }
 
     @Override
@@ -63,6 +57,11 @@ public class UserDefinedDistance implements SimilarityDistance {
             throw new IllegalArgumentException("Input strings cannot be empty");
         }
 
+        // fresh bindings for each call, as pairs are compared concurrently
+        Properties bindings = new Properties();
+        bindings.put("true", true);
+        bindings.put("false", false);
+        bindings.put("PI", Math.PI);
         bindings.put("value1", a);
         bindings.put("value2", b);
 
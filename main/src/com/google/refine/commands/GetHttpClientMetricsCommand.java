@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.hc.core5.pool.PoolStats;
+
+import com.google.refine.util.HttpClientMetrics;
+import com.google.refine.util.HttpClientRegistry;
+
+/**
+ * Reports the state of the shared HTTP connection pool and the latency and error statistics of the requests sent to
+ * each host.
+ */
+public class GetHttpClientMetricsCommand extends Command {
+
+    protected static class MetricsResponse {
+
+        @JsonProperty("pool")
+        public PoolResponse pool = new PoolResponse(HttpClientRegistry.getPoolStats());
+        @JsonProperty("hosts")
+        public Map<String, HttpClientMetrics.HostMetrics> hosts;
+
+        protected MetricsResponse(HttpClientMetrics metrics) {
+            hosts = metrics.getHosts();
+        }
+    }
+
+    protected static class PoolResponse {
+
+        @JsonProperty("leased")
+        public int leased;
+        @JsonProperty("available")
+        public int available;
+        @JsonProperty("pending")
+        public int pending;
+        @JsonProperty("max")
+        public int max;
+
+        protected PoolResponse(PoolStats stats) {
+            leased = stats.getLeased();
+            available = stats.getAvailable();
+            pending = stats.getPending();
+            max = stats.getMax();
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        respondJSON(response, new MetricsResponse(HttpClientRegistry.getMetrics()));
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!hasValidCSRFToken(request)) {
+            respondCSRFError(response);
+            return;
+        }
+        HttpClientRegistry.getMetrics().reset();
+        respondStatusOk(response);
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands.browsing;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import com.google.refine.clustering.Clusterer;
+import com.google.refine.commands.Command;
+import com.google.refine.model.Project;
+
+/**
+ * Cancels the clustering currently computed on a column of a project, for instance when the user closes the clustering
+ * dialog before the clusters are returned. Without a column name, the clusterings of all columns of the project are
+ * canceled.
+ */
+public class CancelClusteringCommand extends Command {
+
+    protected static class CancelClusteringResponse {
+
+        @JsonProperty("code")
+        public final String code = "ok";
+        @JsonProperty("canceled")
+        public final boolean canceled;
+        @JsonProperty("progress")
+        public final int progress;
+
+        protected CancelClusteringResponse(boolean canceled, int progress) {
+            this.canceled = canceled;
+            this.progress = progress;
+        }
+    }
+
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (!hasValidCSRFToken(request)) {
+            respondCSRFError(response);
+            return;
+        }
+
+        try {
+            Project project = getProject(request);
+            String columnName = request.getParameter("columnName");
+            List<Clusterer> clusterers;
+            if (columnName != null) {
+                Clusterer clusterer = ComputeClustersCommand.getRunningClusterer(project.id, columnName);
+                clusterers = clusterer == null ? Collections.emptyList() : Collections.singletonList(clusterer);
+            } else {
+                clusterers = ComputeClustersCommand.getRunningClusterers(project.id);
+            }
+            if (!clusterers.isEmpty()) {
+                int progress = 0;
+                for (Clusterer clusterer : clusterers) {
+                    clusterer.cancel();
+                    progress = Math.max(progress, clusterer.getProgress());
+                }
+                respondJSON(response, new CancelClusteringResponse(true, progress));
+            } else {
+                respondJSON(response, new CancelClusteringResponse(false, 0));
+            }
+        } catch (Exception e) {
+            respondException(response, e);
+        }
+    }
+}
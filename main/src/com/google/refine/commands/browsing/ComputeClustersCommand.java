@@ -34,6 +34,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.commands.browsing;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -58,6 +62,33 @@ public class ComputeClustersCommand extends Command {
 
     final static Logger logger = LoggerFactory.getLogger("compute-clusters_command");
 
+    /**
+     * Clusterers currently running, by project id and column name, so that they can be canceled.
+     */
+    static final Map<String, Clusterer> runningClusterers = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the clusterer currently running on a column of a project, if any.
+     */
+    public static Clusterer getRunningClusterer(long projectId, String columnName) {
+        return runningClusterers.get(getKey(projectId, columnName));
+    }
+
+    /**
+     * Retrieves the clusterers currently running on any column of a project.
+     */
+    public static List<Clusterer> getRunningClusterers(long projectId) {
+        String prefix = projectId + ";";
+        return runningClusterers.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    static String getKey(long projectId, String columnName) {
+        return projectId + ";" + columnName;
+    }
+
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -89,7 +120,17 @@ public class ComputeClustersCommand extends Command {
 
             Clusterer clusterer = clustererConfig.apply(project);
 
-            clusterer.computeClusters(engine);
+            String key = getKey(project.id, clustererConfig.getColumnName());
+            Clusterer previous = runningClusterers.put(key, clusterer);
+            if (previous != null) {
+                // the user has requested new clusters, the previous ones are no longer needed
+                previous.cancel();
+            }
+            try {
+                clusterer.computeClusters(engine);
+            } finally {
+                runningClusterers.remove(key, clusterer);
+            }
 
             KeyerFactory.remove("userdefinedkeyer");
             DistanceFactory.remove("userdefineddistance");
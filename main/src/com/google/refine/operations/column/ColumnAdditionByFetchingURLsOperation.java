@@ -38,22 +38,31 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import org.apache.commons.lang.Validate;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.message.BasicHeader;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.FilteredRows;
@@ -77,10 +86,22 @@ import com.google.refine.operations.OnError;
 import com.google.refine.operations.OperationDescription;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.HostThrottle;
 import com.google.refine.util.HttpClient;
+import com.google.refine.util.HttpResponseCache;
+import com.google.refine.util.HttpStatusException;
 
 public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperation {
 
+    /**
+     * Maximum number of requests in flight, across all hosts.
+     */
+    static final int MAX_THREADS = Integer.getInteger("refine.fetchUrls.maxThreads", 8);
+    /**
+     * Maximum number of concurrent requests to the same host.
+     */
+    static final int MAX_CONNECTIONS_PER_HOST = Integer.getInteger("refine.fetchUrls.maxConnectionsPerHost", 1);
+
     public static final class HttpHeader {
 
         @JsonProperty("name")
@@ -143,7 +164,8 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
         httpHeaders = headers.toArray(httpHeaders);
-        _httpClient = new HttpClient(_delay);
+        // the delay is enforced per host by the process, not globally by the client
+        _httpClient = new HttpClient(0, Math.max(_delay, 200));
 
     }
 
@@ -271,8 +293,12 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         final protected Engine _engine;
         final protected Evaluable _eval;
         final protected long _historyEntryID;
+        final protected boolean _deduplicate;
         protected int _cellIndex;
-        protected LoadingCache<String, Serializable> _urlCache;
+        protected HostThrottle _throttle;
+        protected HttpResponseCache _responseCache;
+        protected AtomicInteger _fetched = new AtomicInteger();
+        protected int _toFetch;
 
         public ColumnAdditionByFetchingURLsProcess(
                 Project project,
@@ -285,24 +311,9 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             _engine = engine;
             _eval = eval;
             _historyEntryID = HistoryEntry.allocateID();
-            _urlCache = null;
-            if (cacheResponses) {
-                _urlCache = CacheBuilder.newBuilder()
-                        .maximumSize(2048)
-                        .expireAfterWrite(10, TimeUnit.MINUTES)
-                        .build(
-                                new CacheLoader<String, Serializable>() {
-
-                                    public Serializable load(String urlString) throws Exception {
-                                        Serializable result = fetch(urlString, httpHeaders);
-                                        if (result == null) {
-                                            // the load method should not return any null value
-                                            throw new Exception("null result returned by fetch");
-                                        }
-                                        return result;
-                                    }
-                                });
-            }
+            _deduplicate = cacheResponses;
+            _throttle = new HostThrottle(_delay);
+            _responseCache = cacheResponses && ProjectManager.singleton != null ? ProjectManager.singleton.getHttpResponseCache() : null;
         }
 
         @Override
@@ -327,32 +338,48 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             FilteredRows filteredRows = _engine.getAllFilteredRows();
             filteredRows.accept(_project, createRowVisitor(urls));
 
-            int count = urls.size();
-            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
-            int i = 0;
+            // group the URLs by host, fetching identical URLs only once when responses are cached
+            List<CompletableFuture<Serializable>> futures = new ArrayList<>(urls.size());
+            Map<String, CompletableFuture<Serializable>> fetchedUrls = new HashMap<>();
+            Map<String, Queue<FetchTask>> queues = new LinkedHashMap<>();
             for (CellAtRow urlData : urls) {
                 String urlString = urlData.cell.value.toString();
-
-                Serializable response = null;
-                if (_urlCache != null) {
-                    response = cachedFetch(urlString);
-                } else {
-                    response = fetch(urlString, httpHeaders);
+                CompletableFuture<Serializable> future = _deduplicate ? fetchedUrls.get(urlString) : null;
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    if (_deduplicate) {
+                        fetchedUrls.put(urlString, future);
+                    }
+                    queues.computeIfAbsent(HostThrottle.getHost(urlString), host -> new ConcurrentLinkedQueue<>())
+                            .add(new FetchTask(urlString, future));
+                    _toFetch++;
                 }
+                futures.add(future);
+            }
 
-                if (response != null) {
-                    CellAtRow cellAtRow = new CellAtRow(
-                            urlData.row,
-                            new Cell(response, null));
-
-                    responseBodies.add(cellAtRow);
+            ScheduledExecutorService executor = Executors.newScheduledThreadPool(MAX_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "url-fetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(urls.size());
+            try {
+                for (Map.Entry<String, Queue<FetchTask>> entry : queues.entrySet()) {
+                    int lanes = Math.min(MAX_CONNECTIONS_PER_HOST, entry.getValue().size());
+                    for (int i = 0; i < lanes; i++) {
+                        new HostLane(entry.getKey(), entry.getValue(), executor).scheduleNext();
+                    }
                 }
 
-                _progress = i++ * 100 / count;
-
-                if (_canceled) {
-                    break;
+                // the responses are collected in row order, whatever order they were fetched in
+                for (int i = 0; i < urls.size() && !_canceled; i++) {
+                    Serializable response = await(futures.get(i));
+                    if (response != null) {
+                        responseBodies.add(new CellAtRow(urls.get(i).row, new Cell(response, null)));
+                    }
                 }
+            } finally {
+                executor.shutdownNow();
             }
 
             if (!_canceled) {
@@ -371,19 +398,34 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
 
-        Serializable cachedFetch(String urlString) {
-            try {
-                return _urlCache.get(urlString);
-            } catch (Exception e) {
-                return null;
+        /**
+         * Waits for a response, returning early if the process is canceled.
+         */
+        Serializable await(CompletableFuture<Serializable> future) {
+            while (!_canceled) {
+                try {
+                    return future.get(100, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // check for cancellation again
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    _canceled = true;
+                } catch (ExecutionException e) {
+                    return null;
+                }
             }
+            return null;
         }
 
-        Serializable fetch(String urlString, Header[] headers) {
+        Serializable fetch(String urlString, Header[] headers, Object requester) {
             try { // HttpClients.createDefault()) {
                 try {
-                    return _httpClient.getAsString(urlString, headers);
+                    return _httpClient.getAsString(urlString, headers, _responseCache);
                 } catch (IOException e) {
+                    if (e instanceof HttpStatusException && ((HttpStatusException) e).getRetryAfter() >= 0) {
+                        // the client already waited before its own retries, but other requests to the host should too
+                        _throttle.pause(HostThrottle.getHost(urlString), ((HttpStatusException) e).getRetryAfter(), requester);
+                    }
                     return _onError == OnError.StoreError ? new EvalError(e) : null;
                 }
             } catch (Exception e) {
@@ -391,6 +433,55 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
 
+        class FetchTask {
+
+            final String url;
+            final CompletableFuture<Serializable> response;
+
+            FetchTask(String url, CompletableFuture<Serializable> response) {
+                this.url = url;
+                this.response = response;
+            }
+        }
+
+        /**
+         * Fetches the URLs of a host one after the other, at the pace allowed by the throttle. Several lanes can share
+         * the queue of a host to send concurrent requests to it.
+         */
+        class HostLane implements Runnable {
+
+            final String _host;
+            final Queue<FetchTask> _queue;
+            final ScheduledExecutorService _executor;
+
+            HostLane(String host, Queue<FetchTask> queue, ScheduledExecutorService executor) {
+                _host = host;
+                _queue = queue;
+                _executor = executor;
+            }
+
+            void scheduleNext() {
+                if (_canceled || _queue.isEmpty()) {
+                    return;
+                }
+                try {
+                    _executor.schedule(this, _throttle.reserve(_host, this), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // the process is over
+                }
+            }
+
+            @Override
+            public void run() {
+                FetchTask task = _queue.poll();
+                if (task != null) {
+                    task.response.complete(fetch(task.url, httpHeaders, this));
+                    _progress = _fetched.incrementAndGet() * 100 / _toFetch;
+                }
+                scheduleNext();
+            }
+        }
+
         RowVisitor createRowVisitor(List<CellAtRow> cellsAtRows) {
             return new RowVisitor() {
 
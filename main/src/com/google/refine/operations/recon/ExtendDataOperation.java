@@ -34,13 +34,18 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.operations.recon;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -62,6 +67,7 @@ import com.google.refine.model.ReconType;
 import com.google.refine.model.Row;
 import com.google.refine.model.changes.CellAtRow;
 import com.google.refine.model.changes.DataExtensionChange;
+import com.google.refine.model.recon.AdaptiveConcurrencyLimit;
 import com.google.refine.model.recon.ReconciledDataExtensionJob;
 import com.google.refine.model.recon.ReconciledDataExtensionJob.ColumnInfo;
 import com.google.refine.model.recon.ReconciledDataExtensionJob.DataExtension;
@@ -70,6 +76,7 @@ import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.operations.OperationDescription;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.HttpStatusException;
 
 public class ExtendDataOperation extends EngineDependentOperation {
 
@@ -186,6 +193,17 @@ public class ExtendDataOperation extends EngineDependentOperation {
                 newResultColumns);
     }
 
+    /**
+     * Number of entities per query sent to the service.
+     */
+    static final int BATCH_SIZE = 10;
+    /**
+     * Maximum number of queries in flight. The actual number adapts to the responses of the service. Services
+     * only get concurrent queries when this is raised, otherwise queries are sent one at a time with a pause
+     * between them.
+     */
+    static final int MAX_CONCURRENT_BATCHES = Integer.getInteger("refine.dataExtension.maxConcurrentBatches", 1);
+
     public class ExtendDataProcess extends LongRunningProcess implements Runnable {
 
         final protected Project _project;
@@ -254,50 +272,29 @@ public class ExtendDataOperation extends EngineDependentOperation {
             }.init(rowIndices));
         }
 
-        protected int extendRows(
-                List<Integer> rowIndices,
-                List<DataExtension> dataExtensions,
-                int from,
-                int limit,
-                Map<String, ReconCandidate> reconCandidateMap) {
-            Set<String> ids = new HashSet<String>();
-
-            int end;
-            for (end = from; end < limit && ids.size() < 10; end++) {
-                int index = rowIndices.get(end);
-                Row row = _project.rows.get(index);
-                Cell cell = row.getCell(_cellIndex);
-
-                ids.add(cell.recon.match.id);
-            }
-
-            Map<String, DataExtension> map = null;
+        /**
+         * Extends a batch of entities, recording the results in the shared map.
+         */
+        protected void extendBatch(
+                Set<String> ids,
+                Map<String, DataExtension> dataExtensions,
+                Map<String, ReconCandidate> reconCandidateMap,
+                AdaptiveConcurrencyLimit limit) {
             try {
-                map = _job.extend(ids, reconCandidateMap);
+                dataExtensions.putAll(_job.extend(ids, reconCandidateMap));
+                limit.onSuccess();
             } catch (Exception e) {
-                map = new HashMap<String, DataExtension>();
-            }
-
-            for (int i = from; i < end; i++) {
-                int index = rowIndices.get(i);
-                Row row = _project.rows.get(index);
-                Cell cell = row.getCell(_cellIndex);
-                String guid = cell.recon.match.id;
-
-                if (map.containsKey(guid)) {
-                    dataExtensions.add(map.get(guid));
-                } else {
-                    dataExtensions.add(null);
+                if (e instanceof HttpStatusException
+                        && AdaptiveConcurrencyLimit.isOverloadStatus(((HttpStatusException) e).getStatusCode())) {
+                    limit.onOverload();
                 }
+                // the rows of this batch are left without extension
             }
-
-            return end;
         }
 
         @Override
         public void run() {
             List<Integer> rowIndices = new ArrayList<Integer>();
-            List<DataExtension> dataExtensions = new ArrayList<DataExtension>();
 
             try {
                 populateRowsWithMatches(rowIndices);
@@ -306,21 +303,62 @@ public class ExtendDataOperation extends EngineDependentOperation {
                 e2.printStackTrace();
             }
 
-            int start = 0;
-            Map<String, ReconCandidate> reconCandidateMap = new HashMap<String, ReconCandidate>();
+            // each entity is only queried once, however many rows it is matched to
+            Set<String> distinctIds = new LinkedHashSet<>();
+            for (int rowIndex : rowIndices) {
+                distinctIds.add(_project.rows.get(rowIndex).getCell(_cellIndex).recon.match.id);
+            }
+            List<Set<String>> batches = new ArrayList<>();
+            Set<String> batch = new HashSet<>();
+            for (String id : distinctIds) {
+                batch.add(id);
+                if (batch.size() == BATCH_SIZE) {
+                    batches.add(batch);
+                    batch = new HashSet<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
 
-            while (start < rowIndices.size()) {
-                int end = extendRows(rowIndices, dataExtensions, start, rowIndices.size(), reconCandidateMap);
-                start = end;
+            Map<String, DataExtension> extensionsById = new ConcurrentHashMap<>();
+            Map<String, ReconCandidate> reconCandidateMap = new ConcurrentHashMap<>();
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(MAX_CONCURRENT_BATCHES);
+            ExecutorService executor = Executors.newFixedThreadPool(limit.getMax(), runnable -> {
+                Thread thread = new Thread(runnable, "data-extension");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // keep up to the current limit of batches in flight
+                List<Future<?>> pending = new ArrayList<>(batches.size());
+                int done = 0;
+                while (done < batches.size() && !_canceled) {
+                    while (pending.size() < batches.size() && pending.size() - done < limit.getLimit()) {
+                        Set<String> ids = batches.get(pending.size());
+                        pending.add(executor.submit(() -> extendBatch(ids, extensionsById, reconCandidateMap, limit)));
+                    }
+                    try {
+                        pending.get(done).get();
+                    } catch (ExecutionException e) {
+                        // extendBatch does not throw
+                    }
+                    done++;
+                    _progress = done * 100 / batches.size();
 
-                _progress = end * 100 / rowIndices.size();
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    if (_canceled) {
-                        break;
+                    if (limit.getMax() == 1 && done < batches.size()) {
+                        Thread.sleep(200);
                     }
                 }
+            } catch (InterruptedException e) {
+                _canceled = true;
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<DataExtension> dataExtensions = new ArrayList<DataExtension>(rowIndices.size());
+            for (int rowIndex : rowIndices) {
+                dataExtensions.add(extensionsById.get(_project.rows.get(rowIndex).getCell(_cellIndex).recon.match.id));
             }
 
             if (!_canceled) {
@@ -44,6 +44,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.RowVisitor;
+import com.google.refine.browsing.util.ColumnValueIndex;
 import com.google.refine.history.Change;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
@@ -114,6 +115,11 @@ public class ReconDiscardJudgmentsOperation extends EngineDependentMassCellOpera
                 _clearData);
     }
 
+    @Override
+    protected int[] getCandidateRows(Project project, Column column) {
+        return ColumnValueIndex.get(project, column).getReconciledRows();
+    }
+
     @Override
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
         Column column = project.columnModel.getColumnByName(_columnName);
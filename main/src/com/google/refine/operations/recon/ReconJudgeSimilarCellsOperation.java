@@ -46,6 +46,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.RowVisitor;
+import com.google.refine.browsing.util.ColumnValueIndex;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.history.Change;
 import com.google.refine.model.Cell;
@@ -164,6 +165,15 @@ public class ReconJudgeSimilarCellsOperation extends EngineDependentMassCellOper
                 _shareNewTopics);
     }
 
+    @Override
+    protected int[] getCandidateRows(Project project, Column column) {
+        if (_similarValue == null) {
+            return null;
+        }
+        int[] rows = ColumnValueIndex.get(project, column).getRowsForString(_similarValue);
+        return rows == null ? new int[0] : rows;
+    }
+
     @Override
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
         Column column = project.columnModel.getColumnByName(_columnName);
@@ -35,6 +35,7 @@ package com.google.refine.operations.recon;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -42,6 +43,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -65,6 +71,7 @@ import com.google.refine.model.Recon;
 import com.google.refine.model.Row;
 import com.google.refine.model.changes.CellChange;
 import com.google.refine.model.changes.ReconChange;
+import com.google.refine.model.recon.AdaptiveConcurrencyLimit;
 import com.google.refine.model.recon.ReconConfig;
 import com.google.refine.model.recon.ReconJob;
 import com.google.refine.model.recon.StandardReconConfig;
@@ -289,67 +296,62 @@ public class ReconOperation extends EngineDependentOperation {
                 group.entries.add(entry);
             }
 
-            int batchSize = _reconConfig.getBatchSize(_project.rows.size());
-            int done = 0;
-
-            List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
+            int batchSize = Math.max(1, _reconConfig.getBatchSize(_project.rows.size()));
             List<JobGroup> groups = new ArrayList<JobGroup>(jobKeyToGroup.values());
+            List<List<JobGroup>> batches = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i += batchSize) {
+                batches.add(groups.subList(i, Math.min(i + batchSize, groups.size())));
+            }
 
-            List<ReconJob> jobs = new ArrayList<ReconJob>(batchSize);
-            Map<ReconJob, JobGroup> jobToGroup = new HashMap<ReconJob, ReconOperation.JobGroup>();
-
-            for (int i = 0; i < groups.size(); /* don't increment here */) {
-                while (jobs.size() < batchSize && i < groups.size()) {
-                    JobGroup group = groups.get(i++);
-
-                    jobs.add(group.job);
-                    jobToGroup.put(group.job, group);
-                }
-
-                List<Recon> recons = _reconConfig.batchRecon(jobs, _historyEntryID);
-                for (int j = jobs.size() - 1; j >= 0; j--) {
-                    ReconJob job = jobs.get(j);
-                    Recon recon = j < recons.size() ? recons.get(j) : null;
-                    JobGroup group = jobToGroup.get(job);
-                    List<ReconEntry> entries = group.entries;
-
-                    jobToGroup.remove(job);
-                    jobs.remove(j);
-                    done++;
-
-                    if (recon != null) {
-                        recon.judgmentBatchSize = entries.size();
-                    }
-
-                    for (ReconEntry entry : entries) {
-                        if (recon == null) {
-                            // TODO add EvalError instead? That is not so convenient
-                            // for users because they would lose the cell contents.
-                            // Better leave the cell unreconciled so they can be reconciled again later.
-                            Cell oldCell = entry.cell;
-                            logger.warn("We have a null recon here" + " " + oldCell + " " + entry.rowIndex);
-                            continue;
-                        }
-                        Cell oldCell = entry.cell;
-                        Cell newCell = new Cell(oldCell.value, recon);
-
-                        CellChange cellChange = new CellChange(
-                                entry.rowIndex,
-                                _cellIndex,
-                                oldCell,
-                                newCell);
-                        cellChanges.add(cellChange);
+            List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
+            // the limit adapts to the responses of the service during this run only
+            AdaptiveConcurrencyLimit limit = _reconConfig.createConcurrencyLimit();
+            int maxConcurrency = limit == null ? 1 : limit.getMax();
+            ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "recon-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // batches are sent ahead of time, up to the concurrency limit, but their results are applied in order
+                List<Future<List<Recon>>> pending = new ArrayList<>(batches.size());
+                int done = 0;
+                for (int applied = 0; applied < batches.size() && !_canceled; applied++) {
+                    int inFlight = limit == null ? 1 : limit.getLimit();
+                    while (pending.size() < batches.size() && pending.size() - applied < inFlight) {
+                        List<ReconJob> jobs = batches.get(pending.size()).stream()
+                                .map(group -> group.job)
+                                .collect(Collectors.toList());
+                        pending.add(executor.submit(() -> _reconConfig.batchRecon(jobs, _historyEntryID, limit)));
                     }
-                }
 
-                _progress = done * 100 / groups.size();
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    if (_canceled) {
+                    List<Recon> recons;
+                    try {
+                        recons = pending.get(applied).get();
+                    } catch (InterruptedException e) {
+                        // the process was canceled
                         break;
+                    } catch (ExecutionException e) {
+                        logger.error("Reconciliation batch failed", e.getCause());
+                        recons = Collections.emptyList();
+                    }
+                    List<JobGroup> batch = batches.get(applied);
+                    applyBatch(batch, recons, cellChanges);
+                    done += batch.size();
+                    _progress = done * 100 / groups.size();
+
+                    if (maxConcurrency == 1) {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            if (_canceled) {
+                                break;
+                            }
+                        }
                     }
                 }
+            } finally {
+                executor.shutdownNow();
             }
 
             // TODO: Option to keep partial results after cancellation?
@@ -371,5 +373,36 @@ public class ReconOperation extends EngineDependentOperation {
                 _project.processManager.onDoneProcess(this);
             }
         }
+
+        protected void applyBatch(List<JobGroup> batch, List<Recon> recons, List<CellChange> cellChanges) {
+            for (int j = batch.size() - 1; j >= 0; j--) {
+                Recon recon = j < recons.size() ? recons.get(j) : null;
+                List<ReconEntry> entries = batch.get(j).entries;
+
+                if (recon != null) {
+                    recon.judgmentBatchSize = entries.size();
+                }
+
+                for (ReconEntry entry : entries) {
+                    if (recon == null) {
+                        // TODO add EvalError instead? That is not so convenient
+                        // for users because they would lose the cell contents.
+                        // Better leave the cell unreconciled so they can be reconciled again later.
+                        Cell oldCell = entry.cell;
+                        logger.warn("We have a null recon here" + " " + oldCell + " " + entry.rowIndex);
+                        continue;
+                    }
+                    Cell oldCell = entry.cell;
+                    Cell newCell = new Cell(oldCell.value, recon);
+
+                    CellChange cellChange = new CellChange(
+                            entry.rowIndex,
+                            _cellIndex,
+                            oldCell,
+                            newCell);
+                    cellChanges.add(cellChange);
+                }
+            }
+        }
     }
 }
@@ -28,6 +28,7 @@
 package com.google.refine.browsing.facets;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -48,9 +49,14 @@ import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
 import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.facets.ListFacet.ListFacetConfig;
+import com.google.refine.browsing.filters.ExpressionEqualRowFilter;
+import com.google.refine.browsing.filters.IndexedValueEqualRowFilter;
+import com.google.refine.expr.EvalError;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.grel.Parser;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
@@ -231,4 +237,69 @@ public class ListFacetTests extends RefineTest {
 
         TestUtils.assertEqualsAsJson(actual.toString(), selectedEmptyChoiceFacet);
     }
+
+    @Test
+    public void testIndexedFilterMatchesExpressionFilter() throws Exception {
+        Project project = createProject(
+                new String[] { "Column A" },
+                new Serializable[][] {
+                        { "a" },
+                        { "b" },
+                        { 1L },
+                        { 1.0d },
+                        { null },
+                        { "" },
+                        { new Cell(new EvalError("boom"), null) },
+                        { "a" },
+                        { "1" },
+                });
+        int cellIndex = project.columnModel.getColumnByName("Column A").getCellIndex();
+
+        String[] selections = {
+                "",
+                "{\"v\":{\"v\":\"a\",\"l\":\"a\"}}",
+                "{\"v\":{\"v\":\"a\",\"l\":\"a\"}},{\"v\":{\"v\":1,\"l\":\"1\"}}",
+                "{\"v\":{\"v\":\"1\",\"l\":\"1\"}},{\"v\":{\"v\":\"missing\",\"l\":\"missing\"}}",
+        };
+        int checked = 0;
+        for (String selection : selections) {
+            for (boolean selectBlank : new boolean[] { false, true }) {
+                for (boolean selectError : new boolean[] { false, true }) {
+                    for (boolean invert : new boolean[] { false, true }) {
+                        ListFacetConfig facetConfig = ParsingUtilities.mapper.readValue("{"
+                                + "\"type\":\"list\","
+                                + "\"name\":\"facet A\","
+                                + "\"columnName\":\"Column A\","
+                                + "\"expression\":\"value\","
+                                + "\"omitBlank\":false,"
+                                + "\"omitError\":false,"
+                                + "\"selection\":[" + selection + "],"
+                                + "\"selectBlank\":" + selectBlank + ","
+                                + "\"selectError\":" + selectError + ","
+                                + "\"invert\":" + invert
+                                + "}", ListFacetConfig.class);
+                        ListFacet facet = (ListFacet) facetConfig.apply(project);
+                        RowFilter indexed = facet.getRowFilter(project);
+                        if (indexed == null) {
+                            // nothing selected
+                            continue;
+                        }
+                        assertTrue(indexed instanceof IndexedValueEqualRowFilter);
+
+                        RowFilter unindexed = new ExpressionEqualRowFilter(MetaParser.parse("value"), "Column A", cellIndex,
+                                facet.createMatches(), selectBlank, selectError, invert);
+                        String context = "selection [" + selection + "], blank " + selectBlank + ", error " + selectError
+                                + ", invert " + invert;
+                        for (int i = 0; i < project.rows.size(); i++) {
+                            assertEquals(indexed.filterRow(project, i, project.rows.get(i)),
+                                    unindexed.filterRow(project, i, project.rows.get(i)),
+                                    "row " + i + " with " + context);
+                        }
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertEquals(checked, 30);
+    }
 }
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.commands;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.util.HttpClient;
+import com.google.refine.util.HttpClientRegistry;
+import com.google.refine.util.ParsingUtilities;
+
+public class GetHttpClientMetricsCommandTests {
+
+    protected HttpServletRequest request = null;
+    protected HttpServletResponse response = null;
+    protected StringWriter writer = null;
+    protected Command command = null;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        command = new GetHttpClientMetricsCommand();
+        writer = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(writer));
+        HttpClientRegistry.getMetrics().reset();
+    }
+
+    @Test
+    public void testMetrics() throws IOException, ServletException {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse.Builder().body("ok").build());
+            server.enqueue(new MockResponse.Builder().code(404).body("not found").build());
+            server.start();
+            HttpClient client = new HttpClient();
+            client.getAsString(server.url("/found").toString(), null);
+            try {
+                new HttpClient().getAsString(server.url("/missing").toString(), null);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        command.doGet(request, response);
+
+        ObjectNode result = ParsingUtilities.mapper.readValue(writer.toString(), ObjectNode.class);
+        assertTrue(result.get("pool").get("max").asInt() > 0);
+        ObjectNode host = (ObjectNode) result.get("hosts").elements().next();
+        assertEquals(host.get("requests").asInt(), 2);
+        assertEquals(host.get("errors").asInt(), 1);
+        assertEquals(host.get("outcomes").get("2xx").asInt(), 1);
+        assertEquals(host.get("outcomes").get("4xx").asInt(), 1);
+        long histogramTotal = 0;
+        for (var bucket : host.get("latencyHistogram")) {
+            histogramTotal += bucket.asLong();
+        }
+        assertEquals(histogramTotal, 2);
+    }
+
+    @Test
+    public void testResetRequiresCSRFToken() throws IOException, ServletException {
+        HttpClientRegistry.getMetrics().record("example.org", 10, 200);
+
+        command.doPost(request, response);
+        assertFalse(HttpClientRegistry.getMetrics().getHosts().isEmpty());
+
+        when(request.getParameter("csrf_token")).thenReturn(Command.csrfFactory.getFreshToken());
+        command.doPost(request, response);
+        assertTrue(HttpClientRegistry.getMetrics().getHosts().isEmpty());
+    }
+}
@@ -1,6 +1,9 @@
 
 package com.google.refine.commands.browsing;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
@@ -14,6 +17,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.refine.clustering.Clusterer;
 import com.google.refine.commands.Command;
 import com.google.refine.commands.CommandTestBase;
 import com.google.refine.expr.MetaParser;
@@ -70,4 +74,32 @@ public class ComputeClustersCommandTests extends CommandTestBase {
         JsonNode results = ParsingUtilities.mapper.readTree(writer.toString());
         assertEquals(results.get(0).size(), 3);
     }
+
+    @Test
+    public void testClusteringOtherColumnIsNotCanceled() throws ServletException, IOException {
+        Clusterer otherColumn = mock(Clusterer.class);
+        Clusterer sameColumn = mock(Clusterer.class);
+        ComputeClustersCommand.runningClusterers.put(ComputeClustersCommand.getKey(project.id, "bar "), otherColumn);
+        ComputeClustersCommand.runningClusterers.put(ComputeClustersCommand.getKey(project.id, "foo"), sameColumn);
+        try {
+            String clusteringConf = "{"
+                    + "  \"type\": \"binning\","
+                    + "  \"column\": \"foo\","
+                    + "  \"function\": \"fingerprint\","
+                    + "  \"params\":{}"
+                    + "}";
+            when(request.getParameter("project")).thenReturn(Long.toString(project.id));
+            when(request.getParameter("csrf_token")).thenReturn(Command.csrfFactory.getFreshToken());
+            when(request.getParameter("clusterer")).thenReturn(clusteringConf);
+
+            command.doPost(request, response);
+
+            verify(sameColumn).cancel();
+            verify(otherColumn, never()).cancel();
+            assertEquals(ComputeClustersCommand.getRunningClusterer(project.id, "bar "), otherColumn);
+            assertEquals(ComputeClustersCommand.getRunningClusterers(project.id).size(), 1);
+        } finally {
+            ComputeClustersCommand.runningClusterers.clear();
+        }
+    }
 }
@@ -47,6 +47,7 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.databind.node.TextNode;
+import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import mockwebserver3.RecordedRequest;
@@ -338,6 +339,54 @@ public class ColumnAdditionByFetchingURLsOperationTests extends RefineTest {
         }
     }
 
+    @Test
+    public void testConcurrentHosts() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return new MockResponse.Builder().body(request.getUrl().host() + ":" + request.getUrl().queryParameter("v")).build();
+                }
+            });
+            server.start();
+            // the same server, reached through two host names
+            HttpUrl localhost = server.url("/echo").newBuilder().host("localhost").build();
+            HttpUrl loopback = server.url("/echo").newBuilder().host("127.0.0.1").build();
+
+            String[] urls = new String[] {
+                    localhost + "?v=1", loopback + "?v=2", localhost + "?v=3", loopback + "?v=4", localhost + "?v=1" };
+            for (String url : urls) {
+                Row row = new Row(2);
+                row.setCell(0, new Cell(url, null));
+                project.rows.add(row);
+            }
+
+            EngineDependentOperation op = new ColumnAdditionByFetchingURLsOperation(engine_config,
+                    "fruits",
+                    "value",
+                    OnError.StoreError,
+                    "echo",
+                    1,
+                    1000,
+                    true,
+                    null);
+
+            long elapsed = runOperation(op, project, 5000);
+
+            // the identical URL is only fetched once
+            assertEquals(server.getRequestCount(), 4);
+            // two requests per host, spaced by the delay: the hosts are fetched concurrently
+            assertTrue(elapsed < 2500, "Hosts were not fetched concurrently - elapsed = " + elapsed);
+            // the responses are in row order
+            assertEquals(project.rows.get(0).getCellValue(1), "localhost:1");
+            assertEquals(project.rows.get(1).getCellValue(1), "127.0.0.1:2");
+            assertEquals(project.rows.get(2).getCellValue(1), "localhost:3");
+            assertEquals(project.rows.get(3).getCellValue(1), "127.0.0.1:4");
+            assertEquals(project.rows.get(4).getCellValue(1), "localhost:1");
+        }
+    }
+
     @Test
     public void testRetries() throws Exception {
         try (MockWebServer server = new MockWebServer()) {
@@ -45,11 +45,13 @@ import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
@@ -182,6 +184,7 @@ public class ExtendDataOperationTests extends RefineTest {
     @BeforeMethod
     public void SetUp() throws IOException, ModelException {
         OperationRegistry.registerOperation(getCoreModule(), "extend-reconciled-data", ExtendDataOperation.class);
+        ReconciledDataExtensionJob.clearCache();
         project = createProjectWithColumns("DataExtensionTests", "country");
         project.columnModel.getColumnByName("country").setReconConfig(new DataExtensionReconConfig(RECON_SERVICE,
                 RECON_IDENTIFIER_SPACE,
@@ -354,6 +357,123 @@ public class ExtendDataOperationTests extends RefineTest {
         }
     }
 
+    @Test
+    public void testQueriesDistinctUncachedIds() throws Exception {
+        // a second row matched to Japan
+        Cell japan = reconciledCell("Japan", "Q17");
+        Row row = new Row(2);
+        row.setCell(0, japan);
+        project.rows.add(row);
+
+        DataExtensionConfig extension = DataExtensionConfig
+                .reconstruct("{\"properties\":[{\"id\":\"P297\",\"name\":\"ISO 3166-1 alpha-2 code\"}]}");
+        Map<String, String> codes = Map.of("Q794", "IR", "Q17", "JP", "Q863", "TJ", "Q30", "US");
+        List<Set<String>> queriedIds = new ArrayList<>();
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String json = URLDecoder.decode(request.getBody().utf8().split("=")[1], StandardCharsets.UTF_8);
+                    Set<String> ids = new HashSet<>();
+                    StringBuilder rows = new StringBuilder();
+                    try {
+                        for (JsonNode id : ParsingUtilities.mapper.readTree(json).get("ids")) {
+                            ids.add(id.asText());
+                            rows.append(rows.length() == 0 ? "" : ",")
+                                    .append("\"" + id.asText() + "\": {\"P297\": [{\"str\": \"" + codes.get(id.asText()) + "\"}]}");
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                    synchronized (queriedIds) {
+                        queriedIds.add(ids);
+                    }
+                    return new MockResponse.Builder().body("{\"rows\": {" + rows + "},"
+                            + "\"meta\": [{\"name\": \"ISO 3166-1 alpha-2 code\", \"id\": \"P297\"}]}").build();
+                }
+            });
+            String endpoint = server.url("/reconcile").url().toString();
+
+            // a preview fetches some of the records
+            ReconciledDataExtensionJob preview = new ReconciledDataExtensionJob(extension, endpoint);
+            preview.extend(Set.of("Q794", "Q17"), new HashMap<>());
+
+            EngineDependentOperation op = new ExtendDataOperation(engine_config,
+                    "country",
+                    endpoint,
+                    RECON_IDENTIFIER_SPACE,
+                    RECON_SCHEMA_SPACE,
+                    extension,
+                    1,
+                    List.of("ISO 3166-1 alpha-2 code"));
+
+            runOperation(op, project);
+
+            // the operation only queries the records which were not previewed, once each
+            assertEquals(queriedIds, List.of(Set.of("Q794", "Q17"), Set.of("Q863", "Q30")));
+            Project expectedProject = createProject(
+                    new String[] { "country", "ISO 3166-1 alpha-2 code" },
+                    new Serializable[][] {
+                            { reconCell1, "IR" },
+                            { reconCell2, "JP" },
+                            { reconCell3, "TJ" },
+                            { reconCell4, "US" },
+                            { japan, "JP" },
+                    });
+            assertProjectEquals(project, expectedProject);
+        }
+    }
+
+    @Test
+    public void testBatchesAreSentOneAtATimeByDefault() throws Exception {
+        // 25 distinct entities, in 3 batches
+        for (int i = 0; i < 21; i++) {
+            Row row = new Row(2);
+            row.setCell(0, reconciledCell("Entity " + i, "Q" + (1000 + i)));
+            project.rows.add(row);
+        }
+        DataExtensionConfig extension = DataExtensionConfig
+                .reconstruct("{\"properties\":[{\"id\":\"P297\",\"name\":\"ISO 3166-1 alpha-2 code\"}]}");
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger requests = new AtomicInteger();
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    requests.incrementAndGet();
+                    Thread.sleep(50);
+                    inFlight.decrementAndGet();
+                    return new MockResponse.Builder().body("{\"rows\": {},"
+                            + "\"meta\": [{\"name\": \"ISO 3166-1 alpha-2 code\", \"id\": \"P297\"}]}").build();
+                }
+            });
+            String endpoint = server.url("/reconcile").url().toString();
+
+            EngineDependentOperation op = new ExtendDataOperation(engine_config,
+                    "country",
+                    endpoint,
+                    RECON_IDENTIFIER_SPACE,
+                    RECON_SCHEMA_SPACE,
+                    extension,
+                    1,
+                    List.of("ISO 3166-1 alpha-2 code"));
+
+            runOperation(op, project);
+
+            assertEquals(ExtendDataOperation.MAX_CONCURRENT_BATCHES, 1);
+            assertEquals(requests.get(), 3);
+            assertEquals(maxInFlight.get(), 1);
+        }
+    }
+
     @Test
     public void testFetchOtherDatatypes() throws Exception {
 
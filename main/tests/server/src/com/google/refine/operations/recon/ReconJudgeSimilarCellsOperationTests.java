@@ -39,13 +39,17 @@ import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.TextNode;
 import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
 import com.google.refine.browsing.Engine.Mode;
 import com.google.refine.browsing.EngineConfig;
+import com.google.refine.expr.MetaParser;
+import com.google.refine.grel.Parser;
 import com.google.refine.model.AbstractOperation;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
@@ -77,6 +81,16 @@ public class ReconJudgeSimilarCellsOperationTests extends RefineTest {
         OperationRegistry.registerOperation(getCoreModule(), "recon-judge-similar-cells", ReconJudgeSimilarCellsOperation.class);
     }
 
+    @BeforeMethod
+    public void registerGRELParser() {
+        MetaParser.registerLanguageParser("grel", "GREL", Parser.grelParser, "value");
+    }
+
+    @AfterMethod
+    public void unregisterGRELParser() {
+        MetaParser.unregisterLanguageParser("grel");
+    }
+
     @BeforeMethod
     public void setupInitialState() throws Exception {
         reconConfig = new StandardReconConfig(service,
@@ -226,4 +240,34 @@ public class ReconJudgeSimilarCellsOperationTests extends RefineTest {
                 });
         assertProjectEquals(project, expected);
     }
+
+    @DataProvider(name = "modes")
+    public Object[][] modes() {
+        return new Object[][] { { "row-based" }, { "record-based" } };
+    }
+
+    @Test(dataProvider = "modes")
+    public void testReconJudgeSimilarCellsWithFacet(String mode) throws Exception {
+        EngineConfig engineConfig = EngineConfig.deserialize("{\"mode\":\"" + mode + "\",\"facets\":["
+                + "{\"type\":\"list\",\"name\":\"foo\",\"columnName\":\"foo\",\"expression\":\"value\","
+                + "\"omitBlank\":false,\"omitError\":false,\"selection\":[{\"v\":{\"v\":\"c\",\"l\":\"c\"}}],"
+                + "\"selectBlank\":false,\"selectError\":false,\"invert\":false}]}");
+        AbstractOperation operation = new ReconJudgeSimilarCellsOperation(
+                engineConfig, "bar", "b", Judgment.New, null, true);
+
+        runOperation(operation, project);
+
+        long historyEntryId = project.history.getLastPastEntries(1).get(0).id;
+        long commonReconId = project.rows.get(1).getCell(1).recon.id;
+
+        Project expected = createProject(
+                new String[] { "foo", "bar" },
+                new Serializable[][] {
+                        { "a", new Cell("b", testRecon("e", "h", Recon.Judgment.Matched, 1L)) },
+                        { "c", new Cell("b", newRecon(historyEntryId, commonReconId, 1)) },
+                        { "c", new Cell("d", testRecon("b", "j", Recon.Judgment.None)) },
+                        { "d", "b" }
+                });
+        assertProjectEquals(project, expected);
+    }
 }
@@ -37,6 +37,7 @@ import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 import java.io.Serializable;
 import java.net.URLEncoder;
@@ -48,6 +49,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
@@ -71,6 +73,7 @@ import com.google.refine.model.Project;
 import com.google.refine.model.Recon;
 import com.google.refine.model.Recon.Judgment;
 import com.google.refine.model.Row;
+import com.google.refine.model.recon.AdaptiveConcurrencyLimit;
 import com.google.refine.model.recon.ReconConfig;
 import com.google.refine.model.recon.ReconJob;
 import com.google.refine.model.recon.StandardReconConfig;
@@ -209,8 +212,8 @@ public class ReconOperationTests extends RefineTest {
         doReturn(2).when(reconConfig).getBatchSize();
         doReturn(2).when(reconConfig).getBatchSize(anyInt());
         // mock identifierSpace, service and schemaSpace
-        when(reconConfig.batchRecon(eq(Arrays.asList(job1, job2)), anyLong())).thenReturn(Arrays.asList(recon1, recon2));
-        when(reconConfig.batchRecon(eq(Arrays.asList(job3)), anyLong())).thenReturn(Arrays.asList(recon3));
+        when(reconConfig.batchRecon(eq(Arrays.asList(job1, job2)), anyLong(), any())).thenReturn(Arrays.asList(recon1, recon2));
+        when(reconConfig.batchRecon(eq(Arrays.asList(job3)), anyLong(), any())).thenReturn(Arrays.asList(recon3));
 
         row0 = project.rows.get(0);
         row1 = project.rows.get(1);
@@ -309,6 +312,39 @@ public class ReconOperationTests extends RefineTest {
         assertProjectEquals(project, expected);
     }
 
+    @Test
+    public void testConcurrentBatches() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3);
+        doReturn(limit).when(reconConfig).createConcurrencyLimit();
+        doReturn(1).when(reconConfig).getBatchSize(anyInt());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Map<ReconJob, Recon> recons = Map.of(job1, recon1, job2, recon2, job3, recon3);
+        when(reconConfig.batchRecon(any(), anyLong(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            limit.onSuccess();
+            Thread.sleep(100);
+            inFlight.decrementAndGet();
+            List<ReconJob> jobs = invocation.getArgument(0);
+            return List.of(recons.get(jobs.get(0)));
+        });
+        ReconOperation operation = new ReconOperation(EngineConfig.defaultRowBased(), "column", reconConfig);
+
+        runOperation(operation, project);
+
+        Project expected = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { new Cell("value1", recon1) },
+                        { new Cell("value2", recon2) },
+                        { new Cell("value1", recon1) },
+                        { new Cell("value3", recon3) },
+                        { null }
+                });
+        assertProjectEquals(project, expected);
+        assertTrue(maxInFlight.get() > 1);
+    }
+
     @Test
     public void testFailingRecon() throws Exception {
         Project project = createProject("my recon test project",
@@ -321,7 +357,7 @@ public class ReconOperationTests extends RefineTest {
         StandardReconConfig reconConfig = mock(StandardReconConfig.class);
         List<Recon> reconList = Arrays.asList((Recon) null, (Recon) null, (Recon) null);
         ReconJob reconJob = mock(ReconJob.class);
-        when(reconConfig.batchRecon(Mockito.any(), Mockito.anyLong())).thenReturn(reconList);
+        when(reconConfig.batchRecon(Mockito.any(), Mockito.anyLong(), Mockito.any())).thenReturn(reconList);
         when(reconConfig.getBatchSize()).thenReturn(10);
         when(reconConfig.getBatchSize(project.rows.size())).thenReturn(10);
         when(reconConfig.createJob(Mockito.eq(project), Mockito.anyInt(), Mockito.any(), Mockito.any(), Mockito.any()))
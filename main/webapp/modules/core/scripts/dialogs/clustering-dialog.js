@@ -68,6 +68,11 @@ ClusteringDialog.prototype._createDialog = function() {
     this._elmts.or_dialog_ngramSize.html($.i18n('core-dialogs/ngram-size'));
     this._elmts.or_dialog_radius.html($.i18n('core-dialogs/ngram-radius'));
     this._elmts.or_dialog_blockChars.html($.i18n('core-dialogs/block-chars'));
+    this._elmts.or_dialog_minhash.html($.i18n('core-dialogs/minhash'));
+    this._elmts.or_dialog_minhashThreshold.html($.i18n('core-dialogs/minhash-threshold'));
+    this._elmts.or_dialog_minhashBands.html($.i18n('core-dialogs/minhash-bands'));
+    this._elmts.or_dialog_minhashRows.html($.i18n('core-dialogs/minhash-rows'));
+    this._elmts.or_dialog_minhashShingleSize.html($.i18n('core-dialogs/minhash-shingle-size'));
     this._elmts.or_auto_update.html($.i18n('core-facets/auto-update'));
     this._elmts.selectAllButton.html($.i18n('core-buttons/select-all'));
     this._elmts.deselectAllButton.html($.i18n('core-buttons/deselect-all'));
@@ -81,13 +86,23 @@ ClusteringDialog.prototype._createDialog = function() {
         if (selection == $.i18n('core-dialogs/key-collision')) {
             dialog.find(".binning-controls").show();
             dialog.find(".knn-controls").hide();
+            dialog.find(".minhash-controls").hide();
             self._method = "binning";
             self._elmts.keyingFunctionSelector.trigger('change');
         } else if (selection === $.i18n('core-dialogs/nearest-neighbor')) {
             dialog.find(".binning-controls").hide();
             dialog.find(".knn-controls").show();
+            dialog.find(".minhash-controls").hide();
             self._method = "knn";
             self._elmts.distanceFunctionSelector.trigger('change');
+        } else if (selection === $.i18n('core-dialogs/minhash')) {
+            dialog.find(".binning-controls").hide();
+            dialog.find(".knn-controls").hide();
+            dialog.find(".minhash-controls").show();
+            $(".function-params").hide();
+            self._method = "minhash";
+            self._function = "minhash";
+            params_changer();
         }
     });
 
@@ -156,6 +171,10 @@ ClusteringDialog.prototype._createDialog = function() {
     this._elmts.ngramSize.on('change',params_changer);
     this._elmts.radius.on('change',params_changer);
     this._elmts.ngramBlock.on('change',params_changer);
+    this._elmts.minhashThreshold.on('change',params_changer);
+    this._elmts.minhashBands.on('change',params_changer);
+    this._elmts.minhashRows.on('change',params_changer);
+    this._elmts.minhashShingleSize.on('change',params_changer);
     this._elmts.autoCheckbox.on("change", function() {
         let checkbox = document.getElementById("autoId");
         if (checkbox.checked) {
@@ -444,6 +463,7 @@ ClusteringDialog.prototype._cluster = function() {
 
     this._elmts.resultSummary.empty();
 
+    this._clustering = true;
     Refine.postCSRF(
         "command/core/compute-clusters?" + $.param({ project: theProject.id }),
         {
@@ -456,6 +476,11 @@ ClusteringDialog.prototype._cluster = function() {
             })
         },
         function(data) {
+            if (!self._clustering) {
+                // the dialog was dismissed in the meantime
+                return;
+            }
+            self._clustering = false;
             self._updateData(data);
             $(".clustering-dialog-facet").css("display","block");
             $('#cluster-and-edit-dialog :input').not('.Checkbox_Choice').prop('disabled', false);
@@ -592,6 +617,15 @@ ClusteringDialog.prototype._export = function() {
 };
 
 ClusteringDialog.prototype._dismiss = function() {
+    if (this._clustering) {
+        this._clustering = false;
+        Refine.postCSRF(
+            "command/core/cancel-clustering?" + $.param({ project: theProject.id, columnName: this._columnName }),
+            {},
+            function(data) {},
+            "json"
+        );
+    }
     DialogSystem.dismissUntil(this._level - 1);
 };
 
@@ -27,23 +27,41 @@
 
 package com.google.refine;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.browsing.util.ColumnValueIndex;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.HasFieldsListImpl;
 import com.google.refine.expr.WrappedRow;
+import com.google.refine.history.HistoryEntry;
 import com.google.refine.model.Column;
+import com.google.refine.model.ColumnsDiff;
 import com.google.refine.model.Project;
-import com.google.refine.model.Row;
 import com.google.refine.util.LookupException;
 
 /**
  * Manage the cache of project's lookups.
+ * <p>
+ * Lookups are computed at most once concurrently for a given project and column: other threads requesting the same
+ * lookup wait for the first computation to complete. The cache is bounded by the total number of rows of the target
+ * projects it references, evicting the least recently used lookups first. The bound can be configured with the
+ * {@code refine.lookupCache.maxRows} system property. A lookup relies on the {@link ColumnValueIndex} of its column,
+ * which is released along with the lookup when it is evicted, so that the bound also applies to the indices.
  *
  * @author Lu Liu
  */
@@ -51,10 +69,45 @@ public class LookupCacheManager {
 
     public static final String INDEX_COLUMN_NAME = "_OpenRefine_Index_Column_Name_";
 
-    protected final Map<String, ProjectLookup> _lookups = new HashMap<>();
+    public static final long DEFAULT_MAX_ROWS = 10_000_000L;
+
+    final static Logger logger = LoggerFactory.getLogger(LookupCacheManager.class);
+
+    protected final Cache<String, ProjectLookup> _lookups;
+
+    /*
+     * Logical clock used to detect lookups which were computed while a flush involving them happened
+     */
+    protected final AtomicLong _clock = new AtomicLong();
+    protected final Map<Long, Long> _projectFlushTimes = new ConcurrentHashMap<>();
+    protected final Map<String, Long> _columnFlushTimes = new ConcurrentHashMap<>();
+
+    public LookupCacheManager() {
+        this(Long.getLong("refine.lookupCache.maxRows", DEFAULT_MAX_ROWS));
+    }
+
+    /**
+     * @param maxRows
+     *            the maximum total number of rows that the cached lookups can refer to
+     */
+    public LookupCacheManager(long maxRows) {
+        _lookups = CacheBuilder.newBuilder()
+                // a single segment, otherwise each segment only gets its share of the weight and large lookups are
+                // evicted as soon as they are inserted
+                .concurrencyLevel(1)
+                .maximumWeight(maxRows)
+                .weigher((String key, ProjectLookup lookup) -> lookup.getWeight())
+                .removalListener((RemovalNotification<String, ProjectLookup> notification) -> {
+                    if (notification.wasEvicted()) {
+                        notification.getValue().releaseIndex();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
 
     /**
-     * Computes the ProjectLookup based on combination key, returns the cached one from the HashMap if already computed.
+     * Computes the ProjectLookup based on combination key, returns the cached one if already computed.
      *
      * @param targetProject
      *            the project to look up
@@ -63,43 +116,115 @@ public class LookupCacheManager {
      * @return a {@link ProjectLookup} instance of the lookup result
      */
     public ProjectLookup getLookup(long targetProject, String targetColumn) throws LookupException {
-        String key = targetProject + ";" + targetColumn;
-        if (!_lookups.containsKey(key)) {
-            ProjectLookup lookup = new ProjectLookup(targetProject, targetColumn);
-            computeLookup(lookup);
+        String key = getKey(targetProject, targetColumn);
+        while (true) {
+            ProjectLookup lookup;
+            try {
+                lookup = _lookups.get(key, () -> {
+                    ProjectLookup newLookup = new ProjectLookup(targetProject, targetColumn, _clock.get());
+                    long start = System.nanoTime();
+                    computeLookup(newLookup);
+                    newLookup.buildTimeNanos = System.nanoTime() - start;
+                    logger.debug("Computed lookup on column {} of project {} in {} ms", targetColumn, targetProject,
+                            newLookup.buildTimeNanos / 1_000_000);
+                    return newLookup;
+                });
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                if (e.getCause() instanceof LookupException) {
+                    throw (LookupException) e.getCause();
+                }
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IllegalStateException(e.getCause());
+            }
 
-            synchronized (_lookups) {
-                _lookups.put(key, lookup);
+            if (isStale(lookup)) {
+                // the lookup was computed while the target project was being modified
+                _lookups.asMap().remove(key, lookup);
+                continue;
             }
+            lookup.hits.incrementAndGet();
+            return lookup;
         }
+    }
+
+    /**
+     * Statistics about the use of the cache, such as hit rate and total build time.
+     */
+    public CacheStats getStats() {
+        return _lookups.stats();
+    }
 
-        return _lookups.get(key);
+    /**
+     * The lookups currently cached, for monitoring purposes.
+     */
+    public Collection<ProjectLookup> getCachedLookups() {
+        return Collections.unmodifiableCollection(_lookups.asMap().values());
     }
 
     public void flushLookupsInvolvingProject(long projectID) {
-        synchronized (_lookups) {
-            for (Iterator<Map.Entry<String, ProjectLookup>> it = _lookups.entrySet().iterator(); it.hasNext();) {
-                Map.Entry<String, ProjectLookup> entry = it.next();
-                ProjectLookup lookup = entry.getValue();
-                if (lookup.targetProjectID == projectID) {
-                    it.remove();
-                }
-            }
-        }
+        _projectFlushTimes.put(projectID, _clock.incrementAndGet());
+        _columnFlushTimes.keySet().removeIf(key -> key.startsWith(projectID + ";"));
+        _lookups.asMap().values().removeIf(lookup -> lookup.targetProjectID == projectID);
+    }
+
+    /**
+     * Drops the lookups on a project which is removed from memory, because it is unloaded or deleted, along with the
+     * flush times recorded for it. Those only serve to detect lookups computed while the project was modified, which
+     * cannot happen anymore.
+     *
+     * @param projectID
+     *            the project removed from memory
+     */
+    public void forgetProject(long projectID) {
+        _lookups.asMap().values().removeIf(lookup -> lookup.targetProjectID == projectID);
+        _projectFlushTimes.remove(projectID);
+        _columnFlushTimes.keySet().removeIf(key -> key.startsWith(projectID + ";"));
     }
 
     public void flushLookupsInvolvingProjectColumn(long projectID, String columnName) {
-        synchronized (_lookups) {
-            for (Iterator<Map.Entry<String, ProjectLookup>> it = _lookups.entrySet().iterator(); it.hasNext();) {
-                Map.Entry<String, ProjectLookup> entry = it.next();
-                ProjectLookup lookup = entry.getValue();
-                if (lookup.targetProjectID == projectID && lookup.targetColumnName.equals(columnName)) {
-                    it.remove();
-                }
-            }
+        _columnFlushTimes.put(getKey(projectID, columnName), _clock.incrementAndGet());
+        _lookups.invalidate(getKey(projectID, columnName));
+    }
+
+    /**
+     * Invalidates the lookups affected by a change in the history of a project, such as an operation being applied,
+     * undone or redone. When the operation declares which columns it affects, only the lookups on those columns are
+     * flushed, otherwise all lookups on the project are.
+     *
+     * @param projectID
+     *            the project whose history changed
+     * @param entry
+     *            the history entry which was applied or reverted
+     */
+    public void onHistoryChanged(long projectID, HistoryEntry entry) {
+        Optional<ColumnsDiff> columnsDiff = entry.operation == null ? Optional.empty() : entry.operation.getColumnsDiff();
+        if (columnsDiff.isEmpty()) {
+            flushLookupsInvolvingProject(projectID);
+            return;
+        }
+        for (String columnName : columnsDiff.get().getModifiedColumns()) {
+            flushLookupsInvolvingProjectColumn(projectID, columnName);
+        }
+        for (String columnName : columnsDiff.get().getDeletedColumns()) {
+            flushLookupsInvolvingProjectColumn(projectID, columnName);
+        }
+        // a lookup could have failed on a column which was missing at the time
+        for (String columnName : columnsDiff.get().getAddedColumnNames()) {
+            flushLookupsInvolvingProjectColumn(projectID, columnName);
         }
     }
 
+    protected boolean isStale(ProjectLookup lookup) {
+        Long projectFlushTime = _projectFlushTimes.get(lookup.targetProjectID);
+        Long columnFlushTime = _columnFlushTimes.get(getKey(lookup.targetProjectID, lookup.targetColumnName));
+        return (projectFlushTime != null && projectFlushTime > lookup.creationTime)
+                || (columnFlushTime != null && columnFlushTime > lookup.creationTime);
+    }
+
+    protected static String getKey(long projectID, String columnName) {
+        return projectID + ";" + columnName;
+    }
+
     protected void computeLookup(ProjectLookup lookup) throws LookupException {
         if (lookup.targetProjectID < 0) {
             return;
@@ -113,10 +238,7 @@ public class LookupCacheManager {
 
         // if this is a lookup on the index column
         if (INDEX_COLUMN_NAME.equals(lookup.targetColumnName)) {
-            for (int r = 0; r < targetProject.rows.size(); r++) {
-                lookup.valueToRowIndices.put(String.valueOf(r), Collections.singletonList(r));
-            }
-            return; // return directly
+            return; // row indices are resolved directly
         }
 
         Column targetColumn = targetProject.columnModel.getColumnByName(lookup.targetColumnName);
@@ -125,17 +247,9 @@ public class LookupCacheManager {
                     "Unable to find column " + lookup.targetColumnName + " in project " + targetProjectMetadata.getName());
         }
 
-        // We can't use for-each here, because we'll need the row index when creating WrappedRow
-        int count = targetProject.rows.size();
-        for (int r = 0; r < count; r++) {
-            Row targetRow = targetProject.rows.get(r);
-            Object value = targetRow.getCellValue(targetColumn.getCellIndex());
-            if (ExpressionUtils.isNonBlankData(value)) {
-                String valueStr = value.toString();
-                lookup.valueToRowIndices.putIfAbsent(valueStr, new ArrayList<>());
-                lookup.valueToRowIndices.get(valueStr).add(r);
-            }
-        }
+        // share the index used by list facets on the same column
+        lookup.column = targetColumn;
+        lookup.index = ColumnValueIndex.get(targetProject, targetColumn);
     }
 
     static public class ProjectLookup {
@@ -143,26 +257,82 @@ public class LookupCacheManager {
         final public long targetProjectID;
         final public String targetColumnName;
 
-        final public Map<Object, List<Integer>> valueToRowIndices = new HashMap<>();
+        /**
+         * Index of the target column, or null if the lookup is done on the row indices.
+         */
+        protected ColumnValueIndex index;
+        protected Column column;
+
+        protected final long creationTime;
+        protected long buildTimeNanos;
+        protected final AtomicLong hits = new AtomicLong();
 
-        ProjectLookup(long targetProjectID, String targetColumnName) {
+        ProjectLookup(long targetProjectID, String targetColumnName, long creationTime) {
             this.targetProjectID = targetProjectID;
             this.targetColumnName = targetColumnName;
+            this.creationTime = creationTime;
+        }
+
+        /**
+         * The time it took to compute this lookup, in nanoseconds.
+         */
+        public long getBuildTimeNanos() {
+            return buildTimeNanos;
+        }
+
+        /**
+         * The number of times this lookup was retrieved from the cache.
+         */
+        public long getHits() {
+            return hits.get();
+        }
+
+        /**
+         * The weight of this lookup in the cache, which is the number of rows it indexes.
+         */
+        protected int getWeight() {
+            return Math.max(1, index == null ? 0 : index.getRowCount());
+        }
+
+        /**
+         * Drops the index of the target column from its precomputes, unless it was rebuilt since. List facets on the
+         * column will compute it again if needed.
+         */
+        protected void releaseIndex() {
+            if (column == null || index == null) {
+                return;
+            }
+            synchronized (column) {
+                if (column.getPrecompute(ColumnValueIndex.PRECOMPUTE_KEY) == index) {
+                    column.setPrecompute(ColumnValueIndex.PRECOMPUTE_KEY, null);
+                }
+            }
         }
 
         public HasFieldsListImpl getRows(Object value) {
             HasFieldsListImpl rows = new HasFieldsListImpl();
             if (!ExpressionUtils.isNonBlankData(value)) return rows;
             String valueStr = value.toString();
-            if (valueToRowIndices.containsKey(valueStr)) {
-                Project targetProject = ProjectManager.singleton.getProject(targetProjectID);
-                if (targetProject != null) {
-                    for (Integer r : valueToRowIndices.get(valueStr)) {
-                        Row row = targetProject.rows.get(r);
-                        rows.add(new WrappedRow(targetProject, r, row));
+            Project targetProject = ProjectManager.singleton.getProject(targetProjectID);
+            if (targetProject == null) {
+                return rows;
+            }
+            if (INDEX_COLUMN_NAME.equals(targetColumnName)) {
+                try {
+                    int r = Integer.parseInt(valueStr);
+                    // only accept the canonical representation of the index, such as "12" but not "012" or "+12"
+                    if (r >= 0 && r < targetProject.rows.size() && String.valueOf(r).equals(valueStr)) {
+                        rows.add(new WrappedRow(targetProject, r, targetProject.rows.get(r)));
+                    }
+                } catch (NumberFormatException e) {
+                    // not a row index
+                }
+            } else if (index != null) {
+                int[] matching = index.getRowsForString(valueStr);
+                if (matching != null) {
+                    for (int r : matching) {
+                        rows.add(new WrappedRow(targetProject, r, targetProject.rows.get(r)));
                     }
-
-                    return rows;
                 }
             }
             return rows;
@@ -55,9 +55,11 @@ import org.slf4j.LoggerFactory;
 
 import com.google.refine.history.HistoryEntryManager;
 import com.google.refine.model.Project;
+import com.google.refine.model.recon.ReconResultCache;
 import com.google.refine.preference.PreferenceStore;
 import com.google.refine.preference.TopList;
 import com.google.refine.util.GetProjectIDException;
+import com.google.refine.util.HttpResponseCache;
 import com.google.refine.util.ParsingUtilities;
 
 /**
@@ -340,6 +342,22 @@ public abstract class ProjectManager {
         return _lookupCacheManager;
     }
 
+    /**
+     * Gets the workspace-level cache of reconciliation results, or null if this workspace does not provide one.
+     */
+    @JsonIgnore
+    public ReconResultCache getReconResultCache() {
+        return null;
+    }
+
+    /**
+     * Gets the workspace-level cache of HTTP responses, or null if this workspace does not provide one.
+     */
+    @JsonIgnore
+    public HttpResponseCache getHttpResponseCache() {
+        return null;
+    }
+
     /**
      * Gets the project metadata from memory. Requires that the metadata has already been loaded from the data store
      * 
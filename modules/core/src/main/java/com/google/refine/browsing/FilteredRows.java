@@ -33,7 +33,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing;
 
+import java.util.BitSet;
+
 import com.google.refine.model.Project;
+import com.google.refine.model.Row;
 
 /**
  * Interface for anything that can decide which rows match and which rows don't match based on some particular criteria.
@@ -48,4 +51,44 @@ public interface FilteredRows {
      * @param visitor
      */
     void accept(Project project, RowVisitor visitor);
+
+    /**
+     * Same as {@link #accept(Project, RowVisitor)}, restricted to the given rows. This lets callers which know in
+     * advance which rows they are interested in (for instance from a
+     * {@link com.google.refine.browsing.util.ColumnValueIndex}) avoid visiting the others. The default implementation
+     * still goes through all the rows, filtering out those which are not candidates.
+     *
+     * @param project
+     * @param rowIndices
+     *            the candidate rows, in increasing order
+     * @param visitor
+     */
+    default void accept(Project project, int[] rowIndices, RowVisitor visitor) {
+        BitSet candidates = new BitSet(project.rows.size());
+        for (int rowIndex : rowIndices) {
+            candidates.set(rowIndex);
+        }
+        accept(project, new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+                visitor.start(project);
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                return visit(project, rowIndex, rowIndex, row);
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, int sortedRowIndex, Row row) {
+                return candidates.get(rowIndex) && visitor.visit(project, rowIndex, sortedRowIndex, row);
+            }
+
+            @Override
+            public void end(Project project) {
+                visitor.end(project);
+            }
+        });
+    }
 }
@@ -57,6 +57,7 @@ import com.google.refine.browsing.RowFilter;
 import com.google.refine.browsing.filters.AllRowsRecordFilter;
 import com.google.refine.browsing.filters.AnyRowRecordFilter;
 import com.google.refine.browsing.filters.ExpressionEqualRowFilter;
+import com.google.refine.browsing.filters.IndexedValueEqualRowFilter;
 import com.google.refine.browsing.util.ExpressionNominalValueGrouper;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.MetaParser;
@@ -325,17 +326,29 @@ public class ListFacet implements Facet {
 
     @Override
     public RowFilter getRowFilter(Project project) {
-        return _eval == null ||
+        if (_eval == null ||
                 _errorMessage != null ||
-                (_config.selection.size() == 0 && !_config.selectBlank && !_config.selectError) ? null
-                        : new ExpressionEqualRowFilter(
-                                _eval,
-                                _config.columnName,
-                                _cellIndex,
-                                createMatches(),
-                                _config.selectBlank,
-                                _config.selectError,
-                                _config.invert);
+                (_config.selection.size() == 0 && !_config.selectBlank && !_config.selectError)) {
+            return null;
+        } else if (IndexedValueEqualRowFilter.isIndexable(_eval, _cellIndex)) {
+            return new IndexedValueEqualRowFilter(
+                    _eval,
+                    _config.columnName,
+                    _cellIndex,
+                    createMatches(),
+                    _config.selectBlank,
+                    _config.selectError,
+                    _config.invert);
+        } else {
+            return new ExpressionEqualRowFilter(
+                    _eval,
+                    _config.columnName,
+                    _cellIndex,
+                    createMatches(),
+                    _config.selectBlank,
+                    _config.selectError,
+                    _config.invert);
+        }
     }
 
     @Override
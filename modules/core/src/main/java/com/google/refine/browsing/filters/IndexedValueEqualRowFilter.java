@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.filters;
+
+import java.util.BitSet;
+
+import com.google.refine.browsing.util.ColumnValueIndex;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+import com.google.refine.util.NotImplementedException;
+
+/**
+ * A specialization of {@link ExpressionEqualRowFilter} for the case where the expression is just {@code value}: the
+ * matching rows are read off a {@link ColumnValueIndex} of the column, so that filtering a row is a bitmap lookup
+ * instead of an expression evaluation.
+ */
+public class IndexedValueEqualRowFilter extends ExpressionEqualRowFilter {
+
+    /*
+     * Computed lazily, for the project this filter was first applied to
+     */
+    protected volatile Project _indexedProject;
+    protected BitSet _matchingRows;
+    protected BitSet _unindexedRows;
+
+    public IndexedValueEqualRowFilter(
+            Evaluable evaluable,
+            String columnName,
+            int cellIndex,
+            Object[] matches,
+            boolean selectBlank,
+            boolean selectError,
+            boolean invert) {
+        super(evaluable, columnName, cellIndex, matches, selectBlank, selectError, invert);
+    }
+
+    /**
+     * Checks whether an expression can be replaced by a lookup in the value index of its base column.
+     */
+    static public boolean isIndexable(Evaluable evaluable, int cellIndex) {
+        if (cellIndex < 0) {
+            return false;
+        }
+        try {
+            return "grel".equals(evaluable.getLanguagePrefix()) && "value".equals(evaluable.getSource().trim());
+        } catch (NotImplementedException e) {
+            // evaluables from extensions might not expose their source
+            return false;
+        }
+    }
+
+    @Override
+    public boolean filterRow(Project project, int rowIndex, Row row) {
+        if (!ensureIndex(project)) {
+            return super.filterRow(project, rowIndex, row);
+        }
+        if (_unindexedRows.get(rowIndex)) {
+            return super.filterRow(project, rowIndex, row);
+        }
+        return _matchingRows.get(rowIndex) != _invert;
+    }
+
+    protected boolean ensureIndex(Project project) {
+        if (_indexedProject == project) {
+            return true;
+        }
+        synchronized (this) {
+            if (_indexedProject != project) {
+                Column column = project.columnModel.getColumnByCellIndex(_cellIndex);
+                if (column == null) {
+                    return false;
+                }
+                ColumnValueIndex index = ColumnValueIndex.get(project, column);
+                _matchingRows = index.getMatchingRows(_matches, _selectBlank, _selectError);
+                _unindexedRows = index.getUnindexedRows();
+                _indexedProject = project;
+            }
+            return true;
+        }
+    }
+}
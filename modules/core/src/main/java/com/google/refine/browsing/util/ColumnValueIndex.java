@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * An index from the raw cell values of a column to the rows containing them. This makes it possible to evaluate a list
+ * facet based on the {@code value} expression, or a {@code cross()} lookup, without evaluating anything on the rows of
+ * the project.
+ * <p>
+ * Each distinct value is mapped to a sorted array of row indices, so that the index takes space linear in the number of
+ * rows regardless of the number of distinct values. Selections are turned into bitmaps on demand.
+ * <p>
+ * The index is stored as a precompute of the column it indexes (see {@link Column#getPrecompute(String)}) and is
+ * therefore discarded whenever the column's precomputes are cleared.
+ */
+public class ColumnValueIndex {
+
+    public static final String PRECOMPUTE_KEY = "value-index";
+
+    protected final int _rowCount;
+    protected final Map<Object, int[]> _valueToRows;
+    protected final BitSet _blankRows = new BitSet();
+    protected final BitSet _errorRows = new BitSet();
+    /**
+     * Rows whose cell has a recon, regardless of its value.
+     */
+    protected final BitSet _reconciledRows = new BitSet();
+    /**
+     * Rows whose cell value is a collection or an array: those cannot be indexed by a single key, so the expression
+     * needs to be evaluated on them.
+     */
+    protected final BitSet _unindexedRows = new BitSet();
+    /**
+     * String representations of the values which are not stored as such in {@link #_valueToRows}: numbers (which are
+     * normalized) and multi-valued cells.
+     */
+    protected final Map<String, int[]> _otherStringToRows;
+
+    /*
+     * Built lazily, for lookups by string representation (used by cross)
+     */
+    protected Map<String, int[]> _stringToRows;
+
+    public ColumnValueIndex(Project project, int cellIndex) {
+        _rowCount = project.rows.size();
+        Map<Object, RowList> valueToRows = new HashMap<>();
+        Map<String, RowList> otherStringToRows = new HashMap<>();
+        for (int r = 0; r < _rowCount; r++) {
+            Row row = project.rows.get(r);
+            Cell cell = row.getCell(cellIndex);
+            if (cell != null && cell.recon != null) {
+                _reconciledRows.set(r);
+            }
+            Object value = cell == null ? null : cell.value;
+            if (ExpressionUtils.isError(value)) {
+                _errorRows.set(r);
+            } else if (!ExpressionUtils.isNonBlankData(value)) {
+                _blankRows.set(r);
+            } else if (value.getClass().isArray() || value instanceof Collection<?> || value instanceof ArrayNode) {
+                _unindexedRows.set(r);
+                otherStringToRows.computeIfAbsent(value.toString(), k -> new RowList()).add(r);
+            } else {
+                valueToRows.computeIfAbsent(normalize(value), k -> new RowList()).add(r);
+                if (value instanceof Number) {
+                    otherStringToRows.computeIfAbsent(value.toString(), k -> new RowList()).add(r);
+                }
+            }
+        }
+        _valueToRows = toArrays(valueToRows);
+        _otherStringToRows = toArrays(otherStringToRows);
+    }
+
+    /**
+     * Retrieves the index of a column, computing it if needed.
+     *
+     * @param project
+     *            the project the column belongs to
+     * @param column
+     *            the column to index
+     * @return the index, never null
+     */
+    static public ColumnValueIndex get(Project project, Column column) {
+        synchronized (column) {
+            ColumnValueIndex index = (ColumnValueIndex) column.getPrecompute(PRECOMPUTE_KEY);
+            if (index == null || index._rowCount != project.rows.size()) {
+                index = new ColumnValueIndex(project, column.getCellIndex());
+                column.setPrecompute(PRECOMPUTE_KEY, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Numbers are compared by their double value in facets, so they are all indexed as doubles.
+     */
+    static protected Object normalize(Object value) {
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            // -0.0 and 0.0 are equal as doubles but not as Double objects
+            return d == 0.0 ? 0.0d : d;
+        }
+        return value;
+    }
+
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * Computes the set of rows matching a list facet selection, with the same semantics as
+     * {@link com.google.refine.browsing.filters.ExpressionEqualRowFilter} on the {@code value} expression.
+     *
+     * @param matches
+     *            the selected values
+     * @param selectBlank
+     *            whether blank cells are selected
+     * @param selectError
+     *            whether error cells are selected
+     * @return a fresh bitmap, which the caller is free to modify
+     */
+    public BitSet getMatchingRows(Object[] matches, boolean selectBlank, boolean selectError) {
+        BitSet result = new BitSet(_rowCount);
+        for (Object match : matches) {
+            if (match == null || (match instanceof Number && Double.isNaN(((Number) match).doubleValue()))) {
+                continue;
+            }
+            int[] rows = _valueToRows.get(normalize(match));
+            if (rows != null) {
+                for (int r : rows) {
+                    result.set(r);
+                }
+            }
+        }
+        if (selectBlank) {
+            result.or(_blankRows);
+        }
+        if (selectError) {
+            result.or(_errorRows);
+        }
+        return result;
+    }
+
+    /**
+     * Rows which are not covered by {@link #getMatchingRows(Object[], boolean, boolean)}, because their cell contains
+     * several values. The caller should not modify the returned bitmap.
+     */
+    public BitSet getUnindexedRows() {
+        return _unindexedRows;
+    }
+
+    /**
+     * Retrieves the rows whose cell has a recon. This relies on recon changes clearing the precomputes of the column,
+     * like any other change to its cells.
+     *
+     * @return the row indices in increasing order
+     */
+    public int[] getReconciledRows() {
+        return _reconciledRows.stream().toArray();
+    }
+
+    /**
+     * Retrieves the rows whose cell value has the given string representation. The caller should not modify the
+     * returned array.
+     *
+     * @param valueStr
+     *            the string representation of a non-blank cell value
+     * @return the matching row indices in increasing order, or null if there are none
+     */
+    public int[] getRowsForString(String valueStr) {
+        synchronized (this) {
+            if (_stringToRows == null) {
+                Map<String, int[]> stringToRows = new HashMap<>(_otherStringToRows);
+                for (Map.Entry<Object, int[]> entry : _valueToRows.entrySet()) {
+                    // numbers were normalized in the main map: their original representations are already included
+                    if (entry.getKey() instanceof Double) {
+                        continue;
+                    }
+                    stringToRows.merge(entry.getKey().toString(), entry.getValue(), ColumnValueIndex::mergeSorted);
+                }
+                _stringToRows = stringToRows;
+            }
+        }
+        return _stringToRows.get(valueStr);
+    }
+
+    static protected <T> Map<T, int[]> toArrays(Map<T, RowList> lists) {
+        Map<T, int[]> arrays = new HashMap<>(lists.size() * 4 / 3 + 1);
+        for (Map.Entry<T, RowList> entry : lists.entrySet()) {
+            arrays.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return arrays;
+    }
+
+    static protected int[] mergeSorted(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            merged[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+        }
+        while (i < a.length) {
+            merged[k++] = a[i++];
+        }
+        while (j < b.length) {
+            merged[k++] = b[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * Growable list of row indices, used while building the index.
+     */
+    static protected class RowList {
+
+        int[] rows = new int[2];
+        int size = 0;
+
+        void add(int r) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = r;
+        }
+
+        int[] toArray() {
+            return size == rows.length ? rows : Arrays.copyOf(rows, size);
+        }
+    }
+}
@@ -73,6 +73,24 @@ public class ConjunctiveFilteredRows implements FilteredRows {
         }
     }
 
+    @Override
+    public void accept(Project project, int[] rowIndices, RowVisitor visitor) {
+        try {
+            visitor.start(project);
+
+            for (int rowIndex : rowIndices) {
+                Row row = project.rows.get(rowIndex);
+                if (matchRow(project, rowIndex, row)) {
+                    if (visitRow(project, visitor, rowIndex, row)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            visitor.end(project);
+        }
+    }
+
     protected boolean visitRow(Project project, RowVisitor visitor, int rowIndex, Row row) {
         return visitor.visit(project, rowIndex, rowIndex, row);
     }
@@ -42,8 +42,30 @@ public abstract class Clusterer {
     protected Project _project;
     protected int _colindex;
 
+    protected volatile boolean _canceled = false;
+    protected volatile int _progress = 0;
+
     public abstract void computeClusters(Engine engine);
 
+    /**
+     * Requests that an ongoing computation of clusters stops. Clusterers which support this throw a
+     * {@link java.util.concurrent.CancellationException} from {@link #computeClusters(Engine)}.
+     */
+    public void cancel() {
+        _canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return _canceled;
+    }
+
+    /**
+     * The progress of the computation of clusters, as a percentage.
+     */
+    public int getProgress() {
+        return _progress;
+    }
+
     protected void initializeFromConfig(Project project, ClustererConfig c) {
         _project = project;
 
@@ -35,6 +35,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import com.google.refine.clustering.binning.BinningClusterer.BinningClustererConfig;
 import com.google.refine.clustering.knn.kNNClusterer.kNNClustererConfig;
+import com.google.refine.clustering.minhash.MinHashClusterer.MinHashClustererConfig;
 import com.google.refine.model.Project;
 
 /**
@@ -46,7 +47,8 @@ import com.google.refine.model.Project;
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({
         @Type(value = kNNClustererConfig.class, name = "knn"),
-        @Type(value = BinningClustererConfig.class, name = "binning") })
+        @Type(value = BinningClustererConfig.class, name = "binning"),
+        @Type(value = MinHashClustererConfig.class, name = "minhash") })
 public abstract class ClustererConfig {
 
     protected String columnName;
@@ -35,6 +35,7 @@ package com.google.refine.clustering.binning;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -42,6 +43,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -59,6 +64,7 @@ import com.google.refine.clustering.ClusteredEntry;
 import com.google.refine.clustering.Clusterer;
 import com.google.refine.clustering.ClustererConfig;
 import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 
@@ -128,24 +134,13 @@ public class BinningClusterer extends Clusterer {
 
     List<Map<String, Integer>> _clusters;
 
-    class BinningRowVisitor implements RowVisitor {
+    /**
+     * Counts the occurrences of each distinct value of the column. Keys are computed afterwards, once per distinct
+     * value.
+     */
+    class ValueCountingRowVisitor implements RowVisitor {
 
-        Keyer _keyer;
-        Object[] _params;
-        BinningParameters _parameters;
-
-        Map<String, Map<String, Integer>> _map = new HashMap<String, Map<String, Integer>>();
-
-        public BinningRowVisitor(Keyer k, BinningParameters parameters) {
-            _keyer = k;
-            _parameters = parameters;
-            if (k instanceof NGramFingerprintKeyer) {
-                if (_parameters != null) {
-                    _params = new Object[1];
-                    _params[0] = _parameters.ngramSize;
-                }
-            }
-        }
+        Map<String, Integer> _counts = new HashMap<String, Integer>();
 
         @Override
         public void start(Project project) {
@@ -163,25 +158,34 @@ public class BinningClusterer extends Clusterer {
             if (cell != null && cell.value != null) {
                 Object v = cell.value;
                 String s = (v instanceof String) ? ((String) v) : v.toString();
-                String key = _keyer.key(s, _params);
-                if (_map.containsKey(key)) {
-                    Map<String, Integer> m = _map.get(key);
-                    if (m.containsKey(s)) {
-                        m.put(s, m.get(s) + 1);
-                    } else {
-                        m.put(s, 1);
-                    }
-                } else {
-                    Map<String, Integer> m = new TreeMap<String, Integer>();
-                    m.put(s, 1);
-                    _map.put(key, m);
-                }
+                _counts.merge(s, 1, Integer::sum);
             }
             return false;
         }
 
-        public Map<String, Map<String, Integer>> getMap() {
-            return _map;
+        public Map<String, Integer> getCounts() {
+            return _counts;
+        }
+    }
+
+    /**
+     * The keys of the distinct values of a column for a given keyer, stored as a column precompute. Keys only depend on
+     * the values, so the table stays valid as long as the column is not modified (which clears precomputes) and can be
+     * extended with new values, for instance when the facets change.
+     */
+    static class KeyTable {
+
+        final Keyer _keyer;
+        final Object[] _params;
+        final Map<String, String> _keys = new ConcurrentHashMap<>();
+
+        KeyTable(Keyer keyer, Object[] params) {
+            _keyer = keyer;
+            _params = params;
+        }
+
+        boolean isFor(Keyer keyer, Object[] params) {
+            return _keyer == keyer && Arrays.equals(_params, params);
         }
     }
 
@@ -227,13 +231,58 @@ public class BinningClusterer extends Clusterer {
 
     @Override
     public void computeClusters(Engine engine) {
-        BinningRowVisitor visitor = new BinningRowVisitor(_keyer, _parameters);
+        ValueCountingRowVisitor visitor = new ValueCountingRowVisitor();
         FilteredRows filteredRows = engine.getAllFilteredRows();
         filteredRows.accept(_project, visitor);
+        Map<String, Integer> counts = visitor.getCounts();
 
-        Map<String, Map<String, Integer>> map = visitor.getMap();
-        _clusters = new ArrayList<Map<String, Integer>>(map.values());
+        Object[] params = getKeyerParams();
+        KeyTable table = getKeyTable(params);
+        List<String> missing = counts.keySet().stream()
+                .filter(v -> !table._keys.containsKey(v))
+                .collect(Collectors.toList());
+        AtomicInteger keyed = new AtomicInteger();
+        missing.parallelStream().forEach(v -> {
+            if (_canceled) {
+                throw new CancellationException();
+            }
+            table._keys.put(v, _keyer.key(v, params));
+            _progress = (int) (100L * keyed.incrementAndGet() / missing.size());
+        });
+
+        ConcurrentMap<String, Map<String, Integer>> map = counts.entrySet().parallelStream()
+                .collect(Collectors.groupingByConcurrent(e -> table._keys.get(e.getKey()),
+                        Collectors.toMap(Entry::getKey, Entry::getValue, Integer::sum, TreeMap::new)));
+        // order clusters of equal sizes by key so that the output does not depend on scheduling
+        _clusters = new ArrayList<Map<String, Integer>>(new TreeMap<>(map).values());
         Collections.sort(_clusters, new SizeComparator());
+        _progress = 100;
+    }
+
+    protected Object[] getKeyerParams() {
+        if (_keyer instanceof NGramFingerprintKeyer && _parameters != null) {
+            return new Object[] { _parameters.ngramSize };
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the key table of the column for the current keyer, creating it if needed.
+     */
+    protected KeyTable getKeyTable(Object[] params) {
+        Column column = _project.columnModel.getColumnByCellIndex(_colindex);
+        if (column == null) {
+            return new KeyTable(_keyer, params);
+        }
+        String precomputeKey = "binning-keys:" + _keyer.getClass().getName();
+        synchronized (column) {
+            KeyTable table = (KeyTable) column.getPrecompute(precomputeKey);
+            if (table == null || !table.isFor(_keyer, params)) {
+                table = new KeyTable(_keyer, params);
+                column.setPrecompute(precomputeKey, table);
+            }
+            return table;
+        }
     }
 
     protected static Map<String, Object> entryToMap(Entry<String, Integer> entry) {
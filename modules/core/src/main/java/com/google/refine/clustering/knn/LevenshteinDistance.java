@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.knn;
+
+/**
+ * Levenshtein (edit) distance with unit costs for insertions, deletions and substitutions. It returns the same values
+ * as the Levenshtein distance of the Vicino library, but supports bounded computations: only a diagonal band of the
+ * dynamic programming matrix is filled, and the computation stops as soon as all cells of a row exceed the bound.
+ */
+public class LevenshteinDistance implements BoundedSimilarityDistance {
+
+    @Override
+    public double compute(String a, String b) {
+        int n = a.length();
+        int m = b.length();
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[m];
+    }
+
+    @Override
+    public double compute(String a, String b, double bound) {
+        int n = a.length();
+        int m = b.length();
+        if (bound < 0 || bound >= Math.max(n, m)) {
+            return compute(a, b);
+        }
+        int k = (int) Math.floor(bound);
+        if (Math.abs(n - m) > k) {
+            return Math.abs(n - m);
+        }
+        // any value above k is capped to k + 1, which is enough to know that the bound is exceeded
+        int big = k + 1;
+        int[] prev = new int[m + 2];
+        int[] curr = new int[m + 2];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j <= k ? j : big;
+        }
+        prev[m + 1] = big;
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(m, i + k);
+            curr[0] = i <= k ? i : big;
+            if (from > 1) {
+                curr[from - 1] = big;
+            }
+            int rowMin = from == 1 ? curr[0] : big;
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (v > big) {
+                    v = big;
+                }
+                curr[j] = v;
+                if (v < rowMin) {
+                    rowMin = v;
+                }
+            }
+            curr[to + 1] = big;
+            if (rowMin > k) {
+                return rowMin;
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[m];
+    }
+}
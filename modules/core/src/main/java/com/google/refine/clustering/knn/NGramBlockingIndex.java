@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.knn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Groups distinct values into blocks sharing a common character n-gram, so that kNN clustering only compares values
+ * which have at least one n-gram in common. Values are normalized as in the Vicino library: punctuation and control
+ * characters are removed, runs of whitespace are collapsed to a single space and the result is lowercased.
+ * <p>
+ * Values are referred to by their position in the array the index was built from. The index only retains blocks with at
+ * least two values, since the others cannot contribute any pair.
+ */
+public class NGramBlockingIndex {
+
+    static final private Pattern EXTRA = Pattern.compile("\\p{Cntrl}|\\p{Punct}");
+    static final private Pattern WHITESPACE = Pattern.compile("\\p{Space}+");
+
+    protected final String[] _values;
+    protected final int _ngramSize;
+    // the values in each block, in increasing order
+    protected final int[][] _blocks;
+    // the blocks of each value, in increasing order
+    protected final int[][] _valueBlocks;
+
+    /**
+     * @param values
+     *            the distinct values to index
+     * @param ngramSize
+     *            the size of the n-grams used to form blocks
+     */
+    public NGramBlockingIndex(String[] values, int ngramSize) {
+        _values = values;
+        _ngramSize = ngramSize;
+
+        Map<String, IntList> ngramToValues = new HashMap<>();
+        for (int v = 0; v < values.length; v++) {
+            String normalized = normalize(values[v]);
+            for (int i = 0; i + ngramSize <= normalized.length(); i++) {
+                IntList list = ngramToValues.computeIfAbsent(normalized.substring(i, i + ngramSize), k -> new IntList());
+                // the same n-gram can occur several times in a value
+                if (list.size == 0 || list.values[list.size - 1] != v) {
+                    list.add(v);
+                }
+            }
+        }
+
+        IntList[] valueBlocks = new IntList[values.length];
+        int blockCount = 0;
+        for (IntList list : ngramToValues.values()) {
+            if (list.size > 1) {
+                blockCount++;
+            }
+        }
+        _blocks = new int[blockCount][];
+        int b = 0;
+        for (IntList list : ngramToValues.values()) {
+            if (list.size > 1) {
+                _blocks[b] = list.toArray();
+                for (int v : _blocks[b]) {
+                    if (valueBlocks[v] == null) {
+                        valueBlocks[v] = new IntList();
+                    }
+                    valueBlocks[v].add(b);
+                }
+                b++;
+            }
+        }
+        _valueBlocks = new int[values.length][];
+        for (int v = 0; v < values.length; v++) {
+            _valueBlocks[v] = valueBlocks[v] == null ? new int[0] : valueBlocks[v].toArray();
+        }
+    }
+
+    static protected String normalize(String s) {
+        s = s.trim();
+        s = EXTRA.matcher(s).replaceAll("");
+        s = WHITESPACE.matcher(s).replaceAll(" ");
+        return s.toLowerCase();
+    }
+
+    /**
+     * Whether this index can be reused for the given values and n-gram size.
+     */
+    public boolean isBuiltOn(String[] values, int ngramSize) {
+        return _ngramSize == ngramSize && Arrays.equals(_values, values);
+    }
+
+    public String getValue(int v) {
+        return _values[v];
+    }
+
+    public int getBlockCount() {
+        return _blocks.length;
+    }
+
+    /**
+     * The values in a block, in increasing order. The caller should not modify the returned array.
+     */
+    public int[] getBlock(int b) {
+        return _blocks[b];
+    }
+
+    /**
+     * The total number of pairs of values which share a block, counted once per block they share.
+     */
+    public long getPairCount() {
+        long count = 0;
+        for (int[] block : _blocks) {
+            count += (long) block.length * (block.length - 1) / 2;
+        }
+        return count;
+    }
+
+    /**
+     * The first block shared by two values, or -1 if they do not share any. This is used to compare each pair of values
+     * only once, in the first block they appear in together.
+     */
+    public int getFirstCommonBlock(int a, int b) {
+        int[] blocksA = _valueBlocks[a];
+        int[] blocksB = _valueBlocks[b];
+        int i = 0;
+        int j = 0;
+        while (i < blocksA.length && j < blocksB.length) {
+            if (blocksA[i] == blocksB[j]) {
+                return blocksA[i];
+            } else if (blocksA[i] < blocksB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Growable list of ints, used while building the index.
+     */
+    static protected class IntList {
+
+        int[] values = new int[4];
+        int size = 0;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
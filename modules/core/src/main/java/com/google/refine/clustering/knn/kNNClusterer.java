@@ -34,19 +34,24 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.clustering.knn;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
-import edu.mit.simile.vicino.clustering.NGramClusterer;
 import edu.mit.simile.vicino.clustering.VPTreeClusterer;
 import edu.mit.simile.vicino.distances.Distance;
 import org.slf4j.Logger;
@@ -59,6 +64,7 @@ import com.google.refine.clustering.ClusteredEntry;
 import com.google.refine.clustering.Clusterer;
 import com.google.refine.clustering.ClustererConfig;
 import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 
@@ -130,6 +136,10 @@ public class kNNClusterer extends Clusterer {
 
     Map<Serializable, Integer> _counts = new HashMap<Serializable, Integer>();
 
+    static final int PAIRS_PER_SLICE = 4096;
+    long _totalPairs = 1;
+    final AtomicLong _comparedPairs = new AtomicLong();
+
     final static Logger logger = LoggerFactory.getLogger("kNN_clusterer");
 
     class VPTreeClusteringRowVisitor implements RowVisitor {
@@ -171,35 +181,10 @@ public class kNNClusterer extends Clusterer {
         }
     }
 
-    class BlockingClusteringRowVisitor implements RowVisitor {
-
-        SimilarityDistance _distance;
-        double _radius = 1.0d;
-        int _blockingNgramSize = 6;
-        HashSet<String> _data;
-        NGramClusterer _clusterer;
-
-        private class DistanceWrapper extends Distance {
-
-            private final SimilarityDistance _d;
-
-            protected DistanceWrapper(SimilarityDistance d) {
-                _d = d;
-            }
-
-            @Override
-            public double d(String arg0, String arg1) {
-                return _d.compute(arg0, arg1);
-            }
-        }
-
-        public BlockingClusteringRowVisitor(SimilarityDistance _distance2, kNNClustererConfigParameters params) {
-            _distance = _distance2;
-            _data = new HashSet<String>();
-            _blockingNgramSize = params.blockingNgramSize;
-            _radius = params.radius;
-            _clusterer = new NGramClusterer(new DistanceWrapper(_distance), _blockingNgramSize);
-        }
+    /**
+     * Collects the distinct values of the column, with their number of occurrences.
+     */
+    class ValueCountingRowVisitor implements RowVisitor {
 
         @Override
         public void start(Project project) {
@@ -217,14 +202,94 @@ public class kNNClusterer extends Clusterer {
             if (cell != null && cell.value != null) {
                 Object v = cell.value;
                 String s = (v instanceof String) ? ((String) v) : v.toString().intern();
-                _clusterer.populate(s);
                 count(s);
             }
             return false;
         }
+    }
 
-        public List<Set<Serializable>> getClusters() {
-            return _clusterer.getClusters(_radius);
+    /**
+     * Compares the pairs of values of a range of slices, forking on the two halves of the range. Each pair of values is
+     * only compared in the first block the two values share.
+     */
+    class PairComparisonTask extends RecursiveTask<LongList> {
+
+        private static final long serialVersionUID = -2906453722447407302L;
+
+        final NGramBlockingIndex _index;
+        final int[] _slices;
+        final int _from;
+        final int _to;
+
+        PairComparisonTask(NGramBlockingIndex index, int[] slices, int from, int to) {
+            _index = index;
+            _slices = slices;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected LongList compute() {
+            if (_to - _from > 1) {
+                int middle = (_from + _to) / 2;
+                PairComparisonTask left = new PairComparisonTask(_index, _slices, _from, middle);
+                PairComparisonTask right = new PairComparisonTask(_index, _slices, middle, _to);
+                left.fork();
+                LongList pairs = right.compute();
+                pairs.addAll(left.join());
+                return pairs;
+            }
+
+            LongList pairs = new LongList();
+            int blockId = _slices[3 * _from];
+            int[] block = _index.getBlock(blockId);
+            int start = _slices[3 * _from + 1];
+            int end = _slices[3 * _from + 2];
+            long compared = 0;
+            for (int i = start; i < end; i++) {
+                if (_canceled) {
+                    throw new CancellationException();
+                }
+                int a = block[i];
+                String valueA = _index.getValue(a);
+                for (int j = i + 1; j < block.length; j++) {
+                    int b = block[j];
+                    if (_index.getFirstCommonBlock(a, b) != blockId) {
+                        continue;
+                    }
+                    double d = computeDistance(valueA, _index.getValue(b));
+                    if (d <= _params.radius) {
+                        pairs.add(((long) a << 32) | b);
+                    }
+                }
+                compared += block.length - i - 1;
+            }
+            reportProgress(compared);
+            return pairs;
+        }
+    }
+
+    /**
+     * Growable list of longs, used to collect the pairs of neighbouring values.
+     */
+    static class LongList {
+
+        long[] values = new long[16];
+        int size = 0;
+
+        void add(long v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        void addAll(LongList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
         }
     }
 
@@ -236,12 +301,104 @@ public class kNNClusterer extends Clusterer {
 
     @Override
     public void computeClusters(Engine engine) {
-        // VPTreeClusteringRowVisitor visitor = new VPTreeClusteringRowVisitor(_distance,_config);
-        BlockingClusteringRowVisitor visitor = new BlockingClusteringRowVisitor(_distance, _params);
         FilteredRows filteredRows = engine.getAllFilteredRows();
-        filteredRows.accept(_project, visitor);
+        filteredRows.accept(_project, new ValueCountingRowVisitor());
+
+        String[] values = _counts.keySet().stream()
+                .map(v -> (String) v)
+                .sorted()
+                .toArray(String[]::new);
+        NGramBlockingIndex index = getBlockingIndex(values, _params.blockingNgramSize);
+
+        _totalPairs = Math.max(1, index.getPairCount());
+        int[] slices = sliceBlocks(index);
+        LongList pairs = slices.length == 0 ? new LongList()
+                : ForkJoinPool.commonPool().invoke(new PairComparisonTask(index, slices, 0, slices.length / 3));
+
+        _clusters = buildClusters(index, pairs);
+        _progress = 100;
+    }
+
+    /**
+     * Retrieves the blocking index for the given values, reusing the one built by a previous run on the same column if
+     * its values have not changed. This makes re-clustering with another radius or distance cheap.
+     */
+    protected NGramBlockingIndex getBlockingIndex(String[] values, int ngramSize) {
+        Column column = _project.columnModel.getColumnByCellIndex(_colindex);
+        String key = "knn-blocking:" + ngramSize;
+        if (column != null) {
+            synchronized (column) {
+                NGramBlockingIndex index = (NGramBlockingIndex) column.getPrecompute(key);
+                if (index != null && index.isBuiltOn(values, ngramSize)) {
+                    return index;
+                }
+            }
+        }
+        NGramBlockingIndex index = new NGramBlockingIndex(values, ngramSize);
+        if (column != null) {
+            synchronized (column) {
+                column.setPrecompute(key, index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Splits the blocks into slices of comparable amounts of work, encoded as (block, start, end) triples: the values
+     * of the block between start and end are compared to all the values following them in the block.
+     */
+    protected int[] sliceBlocks(NGramBlockingIndex index) {
+        NGramBlockingIndex.IntList slices = new NGramBlockingIndex.IntList();
+        for (int b = 0; b < index.getBlockCount(); b++) {
+            int size = index.getBlock(b).length;
+            int start = 0;
+            long pairs = 0;
+            for (int i = 0; i < size; i++) {
+                pairs += size - i - 1;
+                if (pairs >= PAIRS_PER_SLICE || i == size - 1) {
+                    slices.add(b);
+                    slices.add(start);
+                    slices.add(i + 1);
+                    start = i + 1;
+                    pairs = 0;
+                }
+            }
+        }
+        return slices.toArray();
+    }
+
+    protected double computeDistance(String a, String b) {
+        if (_distance instanceof BoundedSimilarityDistance && _params.radius >= 0) {
+            return ((BoundedSimilarityDistance) _distance).compute(a, b, _params.radius);
+        }
+        return _distance.compute(a, b);
+    }
+
+    protected void reportProgress(long comparedPairs) {
+        long compared = _comparedPairs.addAndGet(comparedPairs);
+        _progress = (int) Math.min(99, 100 * compared / _totalPairs);
+    }
+
+    /**
+     * Each value forms a cluster with the neighbours that follow it in lexicographic order, as in Vicino's n-gram
+     * clusterer. Identical clusters are merged and the clusters are sorted by decreasing size.
+     */
+    protected List<Set<Serializable>> buildClusters(NGramBlockingIndex index, LongList pairs) {
+        Map<Integer, Set<Serializable>> neighbourhoods = new HashMap<>();
+        for (int p = 0; p < pairs.size; p++) {
+            int a = (int) (pairs.values[p] >>> 32);
+            int b = (int) pairs.values[p];
+            neighbourhoods.computeIfAbsent(a, k -> newCluster(index.getValue(k))).add(index.getValue(b));
+        }
+        return new LinkedHashSet<>(neighbourhoods.values()).stream()
+                .sorted(Comparator.<Set<Serializable>> comparingInt(Set::size).reversed())
+                .collect(Collectors.toList());
+    }
 
-        _clusters = visitor.getClusters();
+    private static Set<Serializable> newCluster(String value) {
+        Set<Serializable> cluster = new TreeSet<>();
+        cluster.add(value);
+        return cluster;
     }
 
     public static class ValuesComparator implements Comparator<Entry<Serializable, Integer>>, Serializable {
@@ -0,0 +1,436 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.minhash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.clustering.ClusteredEntry;
+import com.google.refine.clustering.Clusterer;
+import com.google.refine.clustering.ClustererConfig;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Approximate clustering of the distinct values of a column using MinHash signatures over character shingles and
+ * locality-sensitive hashing. Unlike kNN clustering, the number of comparisons grows roughly linearly with the number
+ * of distinct values, which makes it usable on columns with millions of them.
+ * <p>
+ * Each signature is split into {@code bands} bands of {@code rows} hashes: values whose signatures agree on a whole
+ * band become candidates, and candidates whose estimated Jaccard similarity reaches the threshold are similar. More
+ * rows per band make the candidate selection stricter, more bands make it more tolerant. Signatures are not kept: each
+ * value only keeps one hash per band, for the candidate selection, and the lowest byte of each hash of its signature,
+ * from which the similarity is estimated (b-bit minwise hashing).
+ * <p>
+ * Similarity is not transitive, so clusters are not formed by merging similar pairs, which would chain near-duplicates
+ * (a~b, b~c, ...) into arbitrarily large clusters. Instead, as in kNN clustering, each cluster is made of a
+ * representative and the values similar to it: the most frequent values are taken as representatives first, and each
+ * value is put in the cluster of the first representative it is similar to.
+ */
+public class MinHashClusterer extends Clusterer {
+
+    public static class MinHashClustererConfig extends ClustererConfig {
+
+        @JsonProperty("function")
+        private String _function = "minhash";
+        @JsonProperty("params")
+        private MinHashParameters _parameters = new MinHashParameters();
+
+        @JsonIgnore
+        public MinHashParameters getParameters() {
+            return _parameters;
+        }
+
+        @Override
+        public MinHashClusterer apply(Project project) {
+            MinHashClusterer clusterer = new MinHashClusterer();
+            clusterer.initializeFromConfig(project, this);
+            return clusterer;
+        }
+
+        @Override
+        public String getType() {
+            return "minhash";
+        }
+    }
+
+    public static class MinHashParameters {
+
+        public static final int defaultShingleSize = 3;
+        public static final int defaultBands = 20;
+        public static final int defaultRows = 5;
+        public static final double defaultThreshold = 0.5d;
+        public static final long defaultSeed = 42L;
+
+        @JsonProperty("shingle-size")
+        public int shingleSize = defaultShingleSize;
+        @JsonProperty("bands")
+        public int bands = defaultBands;
+        @JsonProperty("rows")
+        public int rows = defaultRows;
+        @JsonProperty("threshold")
+        public double threshold = defaultThreshold;
+        @JsonProperty("seed")
+        public long seed = defaultSeed;
+    }
+
+    /**
+     * Above this size, the members of a bucket are only compared to its first member, to keep the number of comparisons
+     * linear when many values share a band.
+     */
+    static final int MAX_PAIRWISE_BUCKET_SIZE = 64;
+
+    static final private Pattern PUNCTUATION = Pattern.compile("\\p{Cntrl}|\\p{Punct}");
+    static final private Pattern WHITESPACE = Pattern.compile("\\p{Space}+");
+
+    private MinHashParameters _params;
+
+    List<TreeSet<String>> _clusters;
+    Map<String, Integer> _counts = new HashMap<>();
+
+    public void initializeFromConfig(Project project, MinHashClustererConfig config) {
+        super.initializeFromConfig(project, config);
+        _params = config.getParameters();
+    }
+
+    class ValueCountingRowVisitor implements RowVisitor {
+
+        @Override
+        public void start(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public void end(Project project) {
+            // nothing to do
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            Cell cell = row.getCell(_colindex);
+            if (cell != null && cell.value != null) {
+                Object v = cell.value;
+                String s = (v instanceof String) ? ((String) v) : v.toString();
+                _counts.merge(s, 1, Integer::sum);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void computeClusters(Engine engine) {
+        if (_params.bands < 1 || _params.rows < 1 || _params.shingleSize < 1) {
+            throw new IllegalArgumentException("bands, rows and shingle-size must be positive");
+        }
+        FilteredRows filteredRows = engine.getAllFilteredRows();
+        filteredRows.accept(_project, new ValueCountingRowVisitor());
+
+        String[] values = _counts.keySet().stream().sorted().toArray(String[]::new);
+        long[] seeds = new SplittableRandom(_params.seed).longs(_params.bands * _params.rows).toArray();
+
+        AtomicInteger done = new AtomicInteger();
+        long[][] bandHashes = new long[values.length][];
+        byte[][] sketches = new byte[values.length][];
+        IntStream.range(0, values.length).parallel().forEach(v -> {
+            checkCanceled();
+            long[] signature = signature(values[v], seeds, _params.shingleSize);
+            if (signature != null) {
+                bandHashes[v] = bandHashes(signature, _params.bands, _params.rows);
+                sketches[v] = sketch(signature);
+            }
+            // signatures account for the first half of the progress, comparisons for the second
+            _progress = (int) (50L * done.incrementAndGet() / Math.max(1, values.length));
+        });
+
+        done.set(0);
+        List<long[]> pairsPerBand = IntStream.range(0, _params.bands).parallel().mapToObj(band -> {
+            PairList pairs = new PairList();
+            for (int[] bucket : buckets(bandHashes, band)) {
+                checkCanceled();
+                compareBucket(bucket, sketches, pairs);
+            }
+            _progress = (int) (50 + 50L * done.incrementAndGet() / _params.bands);
+            return pairs.toArray();
+        }).collect(Collectors.toList());
+
+        int[][] neighbours = neighbours(values.length, pairsPerBand);
+        List<TreeSet<String>> clusters = new ArrayList<>();
+        boolean[] clustered = new boolean[values.length];
+        for (int v : representativeOrder(values)) {
+            if (clustered[v]) {
+                continue;
+            }
+            TreeSet<String> cluster = new TreeSet<>();
+            for (int n : neighbours[v]) {
+                if (!clustered[n]) {
+                    cluster.add(values[n]);
+                    clustered[n] = true;
+                }
+            }
+            if (!cluster.isEmpty()) {
+                cluster.add(values[v]);
+                clustered[v] = true;
+                clusters.add(cluster);
+            }
+        }
+        _clusters = clusters.stream()
+                .sorted(Comparator.<TreeSet<String>> comparingInt(TreeSet::size).reversed()
+                        .thenComparing(TreeSet::first))
+                .collect(Collectors.toList());
+        _progress = 100;
+    }
+
+    private void checkCanceled() {
+        if (_canceled) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Normalizes a value before shingling: case, punctuation and the amount of whitespace are ignored.
+     */
+    static String normalize(String s) {
+        s = PUNCTUATION.matcher(s.trim()).replaceAll("");
+        return WHITESPACE.matcher(s).replaceAll(" ").toLowerCase();
+    }
+
+    /**
+     * Computes the MinHash signature of a value: for each seed, the minimum over the shingles of the value of a seeded
+     * 64-bit hash. Values too short to have a shingle of the required size are represented by a single shingle. Values
+     * which normalize to the empty string get no signature.
+     */
+    static long[] signature(String value, long[] seeds, int shingleSize) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int k = Math.min(shingleSize, normalized.length());
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (int i = 0; i + k <= normalized.length(); i++) {
+            long shingle = hashShingle(normalized, i, i + k);
+            for (int h = 0; h < seeds.length; h++) {
+                long hash = mix(shingle ^ seeds[h]);
+                if (hash < signature[h]) {
+                    signature[h] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    static long hashShingle(String s, int start, int end) {
+        long hash = 1125899906842597L;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * The SplitMix64 finalizer, a cheap bijective mixing function.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Combines the hashes of each band of a signature into a single hash.
+     */
+    static long[] bandHashes(long[] signature, int bands, int rows) {
+        long[] hashes = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long hash = band;
+            for (int i = band * rows; i < (band + 1) * rows; i++) {
+                hash = mix(hash * 31 + signature[i]);
+            }
+            hashes[band] = hash;
+        }
+        return hashes;
+    }
+
+    /**
+     * Keeps the lowest byte of each hash of a signature, which is enough to estimate similarities.
+     */
+    static byte[] sketch(long[] signature) {
+        byte[] sketch = new byte[signature.length];
+        for (int i = 0; i < signature.length; i++) {
+            sketch[i] = (byte) signature[i];
+        }
+        return sketch;
+    }
+
+    /**
+     * Groups the values by their hash of the given band, returning the groups of at least two values.
+     */
+    List<int[]> buckets(long[][] bandHashes, int band) {
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int v = 0; v < bandHashes.length; v++) {
+            if (bandHashes[v] != null) {
+                buckets.computeIfAbsent(bandHashes[v][band], k -> new ArrayList<>(2)).add(v);
+            }
+        }
+        return buckets.values().stream()
+                .filter(b -> b.size() > 1)
+                .map(b -> b.stream().mapToInt(Integer::intValue).toArray())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Collects the pairs of candidates of a bucket whose estimated similarity reaches the threshold.
+     */
+    void compareBucket(int[] bucket, byte[][] sketches, PairList pairs) {
+        if (bucket.length <= MAX_PAIRWISE_BUCKET_SIZE) {
+            for (int i = 0; i < bucket.length; i++) {
+                for (int j = i + 1; j < bucket.length; j++) {
+                    compare(bucket[i], bucket[j], sketches, pairs);
+                }
+            }
+        } else {
+            for (int i = 1; i < bucket.length; i++) {
+                compare(bucket[0], bucket[i], sketches, pairs);
+            }
+        }
+    }
+
+    void compare(int a, int b, byte[][] sketches, PairList pairs) {
+        if (similarity(sketches[a], sketches[b]) >= _params.threshold) {
+            pairs.add(((long) a << 32) | b);
+        }
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the shingle sets of two values from the fraction of agreeing bytes of their
+     * sketches. Hashes which differ still have the same lowest byte once in 256 times, which is corrected for.
+     */
+    static double similarity(byte[] a, byte[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        double chance = 1.0 / 256;
+        return ((double) equal / a.length - chance) / (1 - chance);
+    }
+
+    /**
+     * Growable list of pairs of values, encoded as longs.
+     */
+    static class PairList {
+
+        long[] _pairs = new long[16];
+        int _size = 0;
+
+        void add(long pair) {
+            if (_size == _pairs.length) {
+                _pairs = Arrays.copyOf(_pairs, _size * 2);
+            }
+            _pairs[_size++] = pair;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(_pairs, _size);
+        }
+    }
+
+    /**
+     * The values similar to each value, from the pairs found in all bands, in increasing order.
+     */
+    static int[][] neighbours(int n, List<long[]> pairsPerBand) {
+        // the same pair can be found in several bands
+        long[] pairs = pairsPerBand.stream().flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+        int[] degrees = new int[n];
+        for (long pair : pairs) {
+            degrees[(int) (pair >>> 32)]++;
+            degrees[(int) pair]++;
+        }
+        int[][] neighbours = new int[n][];
+        for (int v = 0; v < n; v++) {
+            neighbours[v] = new int[degrees[v]];
+        }
+        int[] filled = new int[n];
+        for (long pair : pairs) {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            neighbours[a][filled[a]++] = b;
+            neighbours[b][filled[b]++] = a;
+        }
+        for (int[] list : neighbours) {
+            Arrays.sort(list);
+        }
+        return neighbours;
+    }
+
+    /**
+     * The order in which values are considered as cluster representatives: most frequent first, then by value.
+     */
+    int[] representativeOrder(String[] values) {
+        return IntStream.range(0, values.length).boxed()
+                .sorted(Comparator.<Integer> comparingInt(v -> _counts.get(values[v])).reversed()
+                        .thenComparingInt(v -> v))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    protected List<ClusteredEntry> getClusteredEntries(Set<String> cluster) {
+        return cluster.stream()
+                .map(v -> new ClusteredEntry(v, _counts.get(v)))
+                .sorted(ClusteredEntry.comparator)
+                .collect(Collectors.toList());
+    }
+
+    @JsonValue
+    public List<List<ClusteredEntry>> getJsonRepresentation() {
+        return _clusters.stream()
+                .map(c -> getClusteredEntries(c))
+                .collect(Collectors.toList());
+    }
+}
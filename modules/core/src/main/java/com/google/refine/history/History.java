@@ -48,6 +48,7 @@ import java.util.Properties;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.google.refine.LookupCacheManager;
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.RefineServlet;
@@ -140,6 +141,7 @@ public class History {
                 _pastEntries.add(entry);
 
                 setModified();
+                notifyLookupCache(entry);
 
                 // Any new change will clear all future entries.
                 List<HistoryEntry> futureEntries = _futureEntries;
@@ -165,6 +167,16 @@ public class History {
         projectMetadata.updateModified(); // Redundant, but for safety in case setRowCount implementation changes
     }
 
+    /**
+     * Lets cached lookups on this project know that the given entry was applied or reverted.
+     */
+    protected void notifyLookupCache(HistoryEntry entry) {
+        LookupCacheManager lookupCacheManager = ProjectManager.singleton.getLookupCacheManager();
+        if (lookupCacheManager != null) {
+            lookupCacheManager.onHistoryChanged(_projectID, entry);
+        }
+    }
+
     synchronized public List<HistoryEntry> getLastPastEntries(int count) {
         if (count <= 0) {
             return new LinkedList<HistoryEntry>(_pastEntries);
@@ -243,6 +255,7 @@ public class History {
             entry.revert(project);
 
             setModified();
+            notifyLookupCache(entry);
             times--;
 
             _pastEntries.remove(_pastEntries.size() - 1);
@@ -259,6 +272,7 @@ public class History {
             entry.apply(project);
 
             setModified();
+            notifyLookupCache(entry);
             times--;
 
             _pastEntries.add(entry);
@@ -60,8 +60,10 @@ import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.history.HistoryEntryManager;
 import com.google.refine.model.Project;
+import com.google.refine.model.recon.ReconResultCache;
 import com.google.refine.preference.PreferenceStore;
 import com.google.refine.preference.TopList;
+import com.google.refine.util.HttpResponseCache;
 import com.google.refine.util.LocaleUtils;
 import com.google.refine.util.ParsingUtilities;
 
@@ -73,6 +75,8 @@ public class FileProjectManager extends ProjectManager {
     public static final String WORKSPACE_TEMP_JSON = "workspace.temp.json";
 
     protected File _workspaceDir;
+    protected ReconResultCache _reconResultCache;
+    protected HttpResponseCache _httpResponseCache;
 
     protected static boolean projectRemoved = false;
 
@@ -96,6 +100,9 @@ public class FileProjectManager extends ProjectManager {
             return;
         }
 
+        _reconResultCache = new ReconResultCache(new File(_workspaceDir, "recon-cache"));
+        _httpResponseCache = new HttpResponseCache(new File(_workspaceDir, "http-cache"));
+
         load();
     }
 
@@ -104,6 +111,18 @@ public class FileProjectManager extends ProjectManager {
         return _workspaceDir;
     }
 
+    @Override
+    @JsonIgnore
+    public ReconResultCache getReconResultCache() {
+        return _reconResultCache;
+    }
+
+    @Override
+    @JsonIgnore
+    public HttpResponseCache getHttpResponseCache() {
+        return _httpResponseCache;
+    }
+
     static public File getProjectDir(File workspaceDir, long projectID) {
         return getProjectDir(workspaceDir, projectID, true);
     }
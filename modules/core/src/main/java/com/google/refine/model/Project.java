@@ -117,7 +117,7 @@ public class Project {
                 logger.warn("Error signaling overlay model before disposing", e);
             }
         }
-        ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(this.id);
+        ProjectManager.singleton.getLookupCacheManager().forgetProject(this.id);
         // The rest of the project should get garbage collected when we return.
     }
 
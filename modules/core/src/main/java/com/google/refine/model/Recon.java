@@ -194,7 +194,7 @@ public class Recon implements HasFields {
         System.arraycopy(features, 0, r.features, 0, features.length);
 
         if (candidates != null) {
-            r.candidates = new ArrayList<ReconCandidate>(candidates);
+            r.candidates = ReconCandidateStore.isInterned(candidates) ? candidates : new ArrayList<ReconCandidate>(candidates);
         }
 
         r.service = service;
@@ -212,11 +212,25 @@ public class Recon implements HasFields {
     public void addCandidate(ReconCandidate candidate) {
         if (candidates == null) {
             candidates = new ArrayList<ReconCandidate>(3);
+        } else if (ReconCandidateStore.isInterned(candidates)) {
+            candidates = new ArrayList<ReconCandidate>(candidates);
         }
         candidates.add(candidate);
         error = null;
     }
 
+    /**
+     * Replaces the candidates and the match of this recon by the shared instances of the {@link ReconCandidateStore}.
+     * This should be called once the candidates are final: the candidate list becomes immutable, and is copied on the
+     * next call to {@link #addCandidate(ReconCandidate)}.
+     */
+    public void compact() {
+        if (candidates != null && !candidates.isEmpty()) {
+            candidates = ReconCandidateStore.intern(candidates);
+        }
+        match = ReconCandidateStore.intern(match);
+    }
+
     @JsonIgnore
     public ReconCandidate getBestCandidate() {
         if (candidates != null && candidates.size() > 0) {
@@ -418,12 +432,14 @@ public class Recon implements HasFields {
         if (error != null && !this.candidates.isEmpty()) {
             throw new IllegalArgumentException("Recon deserialization: inconsistent state - error & candidates not allowed together");
         }
-        this.service = service != null ? service : "unknown";
-        this.identifierSpace = identifierSpace;
-        this.schemaSpace = schemaSpace;
-        this.judgmentAction = judgmentAction != null ? judgmentAction : "unknown";
+        // these are repeated across all the recons of a column
+        this.service = service != null ? service.intern() : "unknown";
+        this.identifierSpace = identifierSpace != null ? identifierSpace.intern() : null;
+        this.schemaSpace = schemaSpace != null ? schemaSpace.intern() : null;
+        this.judgmentAction = judgmentAction != null ? judgmentAction.intern() : "unknown";
         this.judgmentBatchSize = judgmentBatchSize != null ? judgmentBatchSize : 0;
         this.matchRank = matchRank != null ? matchRank : -1;
+        compact();
     }
 
     @Override
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Shares identical reconciliation candidates, type arrays and candidate lists between recons. Reconciling a column
+ * typically yields the same candidates for many cells, and each judgment operation used to copy the candidate lists of
+ * the recons it touched: interning them keeps a single copy of each in memory.
+ * <p>
+ * Interned instances are only weakly referenced by the store, so they are collected once no recon uses them anymore.
+ * Interned candidate lists are immutable: {@link Recon} copies them before modifying them.
+ */
+public class ReconCandidateStore {
+
+    static final private Interner<ReconCandidate> s_candidates = Interners.newWeakInterner();
+    static final private Interner<TypeArray> s_types = Interners.newWeakInterner();
+    static final private Interner<CandidateList> s_lists = Interners.newWeakInterner();
+
+    static final private String[] EMPTY_TYPES = new String[0];
+
+    private ReconCandidateStore() {
+    }
+
+    /**
+     * @return the shared instance equal to the given candidate, or null if it is null
+     */
+    static public ReconCandidate intern(ReconCandidate candidate) {
+        if (candidate == null) {
+            return null;
+        }
+        String[] types = internTypes(candidate.types);
+        if (types != candidate.types) {
+            candidate = new ReconCandidate(candidate.id, candidate.name, types, candidate.score);
+        }
+        return s_candidates.intern(candidate);
+    }
+
+    /**
+     * @return an immutable list equal to the given one, shared with any other recon having the same candidates, or null
+     *         if the given list is null
+     */
+    static public List<ReconCandidate> intern(List<ReconCandidate> candidates) {
+        if (candidates == null || isInterned(candidates)) {
+            return candidates;
+        }
+        ReconCandidate[] items = new ReconCandidate[candidates.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = intern(candidates.get(i));
+        }
+        return s_lists.intern(new CandidateList(items));
+    }
+
+    /**
+     * @return whether the given list was returned by {@link #intern(List)}, and therefore cannot be modified
+     */
+    static public boolean isInterned(List<ReconCandidate> candidates) {
+        return candidates instanceof CandidateList;
+    }
+
+    static protected String[] internTypes(String[] types) {
+        if (types.length == 0) {
+            return EMPTY_TYPES;
+        }
+        return s_types.intern(new TypeArray(types)).types;
+    }
+
+    /**
+     * Wraps a type array to compare it by content.
+     */
+    static final private class TypeArray {
+
+        final String[] types;
+
+        TypeArray(String[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(types);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TypeArray && Arrays.equals(types, ((TypeArray) obj).types);
+        }
+    }
+
+    /**
+     * Immutable candidate list, backed by an array of interned candidates.
+     */
+    static final private class CandidateList extends AbstractList<ReconCandidate> implements RandomAccess {
+
+        final ReconCandidate[] items;
+        final int hashCode;
+
+        CandidateList(ReconCandidate[] items) {
+            this.items = items;
+            this.hashCode = Arrays.hashCode(items);
+        }
+
+        @Override
+        public ReconCandidate get(int index) {
+            return items[index];
+        }
+
+        @Override
+        public int size() {
+            return items.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.history.Change;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
@@ -209,6 +210,9 @@ public class DataExtensionChange implements Change {
             project.rows.clear();
             project.rows.addAll(_newRows);
 
+            project.columnModel.clearPrecomputes();
+            ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
+
             for (int i = 0; i < _columnNames.size(); i++) {
                 String name = _columnNames.get(i);
                 int cellIndex = _firstNewCellIndex + i;
@@ -284,6 +288,9 @@ public class DataExtensionChange implements Change {
             project.rows.clear();
             project.rows.addAll(_oldRows);
 
+            project.columnModel.clearPrecomputes();
+            ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
+
             for (int i = 0; i < _columnNames.size(); i++) {
                 project.columnModel.columns.remove(_columnInsertIndex);
             }
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.history.Change;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
@@ -65,6 +66,10 @@ public class RowReorderChange implements Change {
 
             project.rows.clear();
             project.rows.addAll(newRows);
+
+            // row-based indices are invalidated by the new row order
+            project.columnModel.clearPrecomputes();
+            ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
             project.update();
         }
     }
@@ -89,6 +94,10 @@ public class RowReorderChange implements Change {
 
             project.rows.clear();
             project.rows.addAll(oldRows);
+
+            // row-based indices are invalidated by the new row order
+            project.columnModel.clearPrecomputes();
+            ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(project.id);
             project.update();
         }
     }
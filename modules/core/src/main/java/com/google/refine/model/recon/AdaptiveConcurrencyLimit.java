@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+/**
+ * Number of reconciliation batches which may be in flight at the same time for a given service. The limit starts at one
+ * and grows by one batch after each successful response, up to a maximum. It is halved whenever the service signals
+ * that it is overloaded (HTTP 429 or 5xx), so that the load converges to what the service can absorb.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int _max;
+    private int _limit = 1;
+
+    public AdaptiveConcurrencyLimit(int max) {
+        _max = Math.max(1, max);
+    }
+
+    public synchronized int getLimit() {
+        return _limit;
+    }
+
+    public int getMax() {
+        return _max;
+    }
+
+    public synchronized void onSuccess() {
+        _limit = Math.min(_max, _limit + 1);
+    }
+
+    public synchronized void onOverload() {
+        _limit = Math.max(1, _limit / 2);
+    }
+
+    /**
+     * Whether an HTTP status code indicates that the service is overloaded and the load should be reduced.
+     */
+    public static boolean isOverloadStatus(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
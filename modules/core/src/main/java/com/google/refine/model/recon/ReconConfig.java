@@ -107,6 +107,14 @@ abstract public class ReconConfig {
     @JsonIgnore
     public abstract int getBatchSize(int rowCount);
 
+    /**
+     * Creates the limit on the number of batches which can be sent to the service concurrently, for a single
+     * reconciliation run. Configs returning null (the default) are reconciled one batch at a time.
+     */
+    public AdaptiveConcurrencyLimit createConcurrencyLimit() {
+        return null;
+    }
+
     abstract public String getBriefDescription(Project project, String columnName);
 
     abstract public ReconJob createJob(
@@ -118,6 +126,16 @@ abstract public class ReconConfig {
 
     abstract public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID);
 
+    /**
+     * Reconciles a batch of jobs, reporting the responses of the service to the given limit.
+     *
+     * @param limit
+     *            the concurrency limit of the current run, as returned by {@link #createConcurrencyLimit()}, or null
+     */
+    public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID, AdaptiveConcurrencyLimit limit) {
+        return batchRecon(jobs, historyEntryID);
+    }
+
     abstract public Recon createNewRecon(long historyEntryID);
 
     public void save(Writer writer) {
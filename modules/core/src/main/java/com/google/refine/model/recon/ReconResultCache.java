@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.util.DiskCache;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Workspace-level, on-disk cache of the candidates returned by reconciliation services, shared by all projects. Entries
+ * are keyed by the service URL and the normalized query JSON, so that reconciling the same values again (possibly in
+ * another project) does not need to query the service.
+ * <p>
+ * Entries expire after a time-to-live ({@code refine.reconCache.ttlHours} system property, one week by default). When
+ * the total size of the cache exceeds its limit ({@code refine.reconCache.maxMegabytes}, 256 by default), the least
+ * recently used entries are evicted.
+ */
+public class ReconResultCache {
+
+    final static Logger logger = LoggerFactory.getLogger("recon-result-cache");
+
+    public static final long DEFAULT_TTL_HOURS = 7 * 24;
+    public static final long DEFAULT_MAX_MEGABYTES = 256;
+
+    // serializes maps with sorted keys, used to normalize queries
+    private static final ObjectMapper canonicalMapper = ParsingUtilities.mapper.copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    protected final DiskCache _cache;
+    protected final long _ttlMillis;
+    protected final AtomicLong _hits = new AtomicLong();
+    protected final AtomicLong _misses = new AtomicLong();
+
+    public ReconResultCache(File dir) {
+        this(dir,
+                Long.getLong("refine.reconCache.ttlHours", DEFAULT_TTL_HOURS) * 3600 * 1000,
+                Long.getLong("refine.reconCache.maxMegabytes", DEFAULT_MAX_MEGABYTES) * 1024 * 1024);
+    }
+
+    /**
+     * @param dir
+     *            the directory where entries are stored
+     * @param ttlMillis
+     *            the time after which entries expire
+     * @param maxBytes
+     *            the maximum total size of the entries
+     */
+    public ReconResultCache(File dir, long ttlMillis, long maxBytes) {
+        _cache = new DiskCache(dir, maxBytes);
+        _ttlMillis = ttlMillis;
+    }
+
+    protected static class Entry {
+
+        @JsonProperty("service")
+        public String service;
+        @JsonProperty("query")
+        public String query;
+        @JsonProperty("created")
+        public long created;
+        @JsonProperty("result")
+        public ArrayNode result;
+    }
+
+    /**
+     * Normalizes a query, so that queries differing only in the order of their fields or in their formatting share the
+     * same entry.
+     */
+    protected static String normalizeQuery(String queryJson) throws IOException {
+        JsonNode node = ParsingUtilities.mapper.readTree(queryJson);
+        return canonicalMapper.writeValueAsString(canonicalMapper.treeToValue(node, Object.class));
+    }
+
+    protected static String getKey(String service, String normalizedQuery) {
+        return service + '\u0000' + normalizedQuery;
+    }
+
+    /**
+     * Retrieves the cached results for a query, or null if there is no valid entry for it.
+     */
+    public ArrayNode get(String service, String queryJson) {
+        try {
+            String query = normalizeQuery(queryJson);
+            String key = getKey(service, query);
+            byte[] bytes = _cache.read(key);
+            if (bytes != null) {
+                Entry entry = ParsingUtilities.mapper.readValue(bytes, Entry.class);
+                if (service.equals(entry.service) && query.equals(entry.query) && entry.result != null) {
+                    if (System.currentTimeMillis() - entry.created <= _ttlMillis) {
+                        _hits.incrementAndGet();
+                        return entry.result;
+                    }
+                    _cache.remove(key);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read cached reconciliation results", e);
+        }
+        _misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the results returned by the service for a query.
+     */
+    public void put(String service, String queryJson, ArrayNode result) {
+        try {
+            Entry entry = new Entry();
+            entry.service = service;
+            entry.query = normalizeQuery(queryJson);
+            entry.created = System.currentTimeMillis();
+            entry.result = result;
+            _cache.write(getKey(service, entry.query), ParsingUtilities.mapper.writeValueAsBytes(entry));
+        } catch (IOException e) {
+            logger.warn("Could not cache reconciliation results", e);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        _cache.clear();
+    }
+
+    public long getHitCount() {
+        return _hits.get();
+    }
+
+    public long getMissCount() {
+        return _misses.get();
+    }
+
+    public long getSizeInBytes() {
+        return _cache.getSizeInBytes();
+    }
+}
@@ -44,9 +44,11 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -55,8 +57,12 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import com.google.refine.model.ReconCandidate;
 import com.google.refine.model.ReconType;
@@ -155,6 +161,19 @@ public class ReconciledDataExtensionJob {
     // not final: initialized lazily
     private static HttpClient httpClient = null;
 
+    /**
+     * Records returned by the services, keyed by endpoint, extension configuration and entity id. The cache is shared
+     * by all jobs, so that an operation can reuse the records fetched for its preview.
+     */
+    private static final Cache<String, JsonNode> recordCache = CacheBuilder.newBuilder()
+            .maximumSize(Long.getLong("refine.dataExtension.cacheSize", 100_000))
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+    private static final Cache<String, List<ColumnInfo>> metadataCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+
     public ReconciledDataExtensionJob(DataExtensionConfig obj, String endpoint) {
         this.extension = obj;
         this.endpoint = endpoint;
@@ -170,42 +189,86 @@ public class ReconciledDataExtensionJob {
     public Map<String, ReconciledDataExtensionJob.DataExtension> extend(
             Set<String> ids,
             Map<String, ReconCandidate> reconCandidateMap) throws Exception {
-        StringWriter writer = new StringWriter();
-        formulateQuery(ids, extension, writer);
-
-        String query = writer.toString();
-        String response = postExtendQuery(this.endpoint, query);
-
-        ObjectNode o = ParsingUtilities.mapper.readValue(response, ObjectNode.class);
-
-        if (columns.size() == 0) {
-            // Extract the column metadata
-            List<ColumnInfo> newColumns = ParsingUtilities.mapper.convertValue(o.get("meta"), new TypeReference<List<ColumnInfo>>() {
-            });
-            columns.addAll(newColumns);
+        String configKey = endpoint + '\u0000' + ParsingUtilities.saveWriter.writeValueAsString(extension);
+        List<ColumnInfo> cachedColumns = metadataCache.getIfPresent(configKey);
+
+        // only query the service for the records which are not in the cache
+        Map<String, JsonNode> records = new HashMap<>();
+        Set<String> missingIds = new HashSet<>();
+        for (String id : ids) {
+            JsonNode record = id == null || cachedColumns == null ? null : recordCache.getIfPresent(configKey + '\u0000' + id);
+            if (record != null) {
+                records.put(id, record);
+            } else {
+                missingIds.add(id);
+            }
         }
 
-        Map<String, ReconciledDataExtensionJob.DataExtension> map = new HashMap<String, ReconciledDataExtensionJob.DataExtension>();
-        if (o.has("rows") && o.get("rows") instanceof ObjectNode) {
-            ObjectNode records = (ObjectNode) o.get("rows");
+        if (cachedColumns != null && missingIds.stream().allMatch(id -> id == null)) {
+            initializeColumns(cachedColumns);
+        } else {
+            StringWriter writer = new StringWriter();
+            formulateQuery(missingIds, extension, writer);
 
-            // for each identifier
-            for (String id : ids) {
-                if (records.has(id) && records.get(id) instanceof ObjectNode) {
-                    ObjectNode record = (ObjectNode) records.get(id);
+            String query = writer.toString();
+            String response = postExtendQuery(this.endpoint, query);
 
-                    ReconciledDataExtensionJob.DataExtension ext = collectResult(record, reconCandidateMap);
+            ObjectNode o = ParsingUtilities.mapper.readValue(response, ObjectNode.class);
+
+            if (o.has("meta")) {
+                // Extract the column metadata
+                List<ColumnInfo> newColumns = ParsingUtilities.mapper.convertValue(o.get("meta"), new TypeReference<List<ColumnInfo>>() {
+                });
+                metadataCache.put(configKey, newColumns);
+                initializeColumns(newColumns);
+            }
 
-                    if (ext != null) {
-                        map.put(id, ext);
+            if (o.has("rows") && o.get("rows") instanceof ObjectNode) {
+                ObjectNode rows = (ObjectNode) o.get("rows");
+                for (String id : missingIds) {
+                    if (id != null) {
+                        // entities without record are cached too, so that they are not queried again
+                        JsonNode record = rows.has(id) ? rows.get(id) : NullNode.getInstance();
+                        recordCache.put(configKey + '\u0000' + id, record);
+                        records.put(id, record);
                     }
                 }
             }
         }
 
+        Map<String, ReconciledDataExtensionJob.DataExtension> map = new HashMap<String, ReconciledDataExtensionJob.DataExtension>();
+        // for each identifier
+        for (String id : ids) {
+            JsonNode record = records.get(id);
+            if (record instanceof ObjectNode) {
+                ReconciledDataExtensionJob.DataExtension ext = collectResult((ObjectNode) record, reconCandidateMap);
+
+                if (ext != null) {
+                    map.put(id, ext);
+                }
+            }
+        }
+
         return map;
     }
 
+    /**
+     * Sets the columns returned by the service, unless another batch of the same job already did.
+     */
+    protected synchronized void initializeColumns(List<ColumnInfo> newColumns) {
+        if (columns.size() == 0) {
+            columns.addAll(newColumns);
+        }
+    }
+
+    /**
+     * Empties the cache of records fetched from the services.
+     */
+    static public void clearCache() {
+        recordCache.invalidateAll();
+        metadataCache.invalidateAll();
+    }
+
     static protected String postExtendQuery(String endpoint, String query) throws IOException {
         return getHttpClient().postNameValue(endpoint, "extend", query);
     }
@@ -290,18 +353,11 @@ public class ReconciledDataExtensionJob {
             ObjectNode obj,
             Map<String, ReconCandidate> reconCandidateMap) {
         String id = obj.get("id").asText();
-        ReconCandidate rc;
-        if (reconCandidateMap.containsKey(id)) {
-            rc = reconCandidateMap.get(id);
-        } else {
-            rc = new ReconCandidate(
-                    obj.get("id").asText(),
-                    obj.get("name").asText(),
-                    JSONUtilities.getStringArray(obj, "type"),
-                    100);
-
-            reconCandidateMap.put(id, rc);
-        }
+        ReconCandidate rc = reconCandidateMap.computeIfAbsent(id, k -> new ReconCandidate(
+                obj.get("id").asText(),
+                obj.get("name").asText(),
+                JSONUtilities.getStringArray(obj, "type"),
+                100));
 
         storeCell(rows, row, col, rc);
     }
@@ -36,6 +36,7 @@ package com.google.refine.model.recon;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -61,6 +62,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
@@ -71,6 +73,7 @@ import com.google.refine.model.ReconType;
 import com.google.refine.model.RecordModel.RowDependency;
 import com.google.refine.model.Row;
 import com.google.refine.util.HttpClient;
+import com.google.refine.util.HttpStatusException;
 import com.google.refine.util.ParsingUtilities;
 
 public class StandardReconConfig extends ReconConfig {
@@ -80,6 +83,7 @@ public class StandardReconConfig extends ReconConfig {
     private static final String DEFAULT_SCHEMA_SPACE = "http://localhost/schema";
     private static final String DEFAULT_IDENTIFIER_SPACE = "http://localhost/identifier";
     private static final int DEFAULT_BATCH_SIZE = 10;
+    private static final int DEFAULT_MAX_CONCURRENT_BATCHES = 1;
 
     static public class ColumnDetail {
 
@@ -166,6 +170,13 @@ public class StandardReconConfig extends ReconConfig {
     final public List<ColumnDetail> columnDetails;
     @JsonProperty("limit")
     final private int limit;
+    @JsonInclude(Include.NON_EMPTY)
+    @JsonSetter(nulls = Nulls.SKIP)
+    @JsonProperty("maxConcurrentBatches")
+    protected Optional<Integer> maxConcurrentBatches = Optional.empty();
+    @JsonInclude(Include.NON_DEFAULT)
+    @JsonProperty("bypassCache")
+    protected boolean bypassCache = false;
 
     // initialized lazily
     private HttpClient httpClient = null;
@@ -333,6 +344,26 @@ public class StandardReconConfig extends ReconConfig {
         return Math.min(Math.max(rowCount / DEFAULT_BATCH_SIZE, DEFAULT_BATCH_SIZE), batchSize.get());
     }
 
+    /**
+     * Sets the maximum number of batches sent to the service concurrently. The actual number adapts to the responses of
+     * the service, up to this maximum.
+     */
+    public void setMaxConcurrentBatches(Optional<Integer> maxConcurrentBatches) {
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    /**
+     * Sets whether the workspace cache of reconciliation results should be ignored, to always query the service.
+     */
+    public void setBypassCache(boolean bypassCache) {
+        this.bypassCache = bypassCache;
+    }
+
+    @Override
+    public AdaptiveConcurrencyLimit createConcurrencyLimit() {
+        return new AdaptiveConcurrencyLimit(maxConcurrentBatches.orElse(DEFAULT_MAX_CONCURRENT_BATCHES));
+    }
+
     @Override
     public String getBriefDescription(Project project, String columnName) {
         return "Reconcile cells in column " + columnName + " to type " + typeID;
@@ -350,7 +381,7 @@ public class StandardReconConfig extends ReconConfig {
         List<ColumnDetail> translatedColumnDetails = columnDetails.stream()
                 .map(column -> column.renameColumn(newColumnNames))
                 .collect(Collectors.toList());
-        return new StandardReconConfig(
+        StandardReconConfig renamed = new StandardReconConfig(
                 service,
                 identifierSpace,
                 schemaSpace,
@@ -360,6 +391,9 @@ public class StandardReconConfig extends ReconConfig {
                 batchSize,
                 translatedColumnDetails,
                 limit);
+        renamed.setMaxConcurrentBatches(maxConcurrentBatches);
+        renamed.setBypassCache(bypassCache);
+        return renamed;
     }
 
     public ReconJob createSimpleJob(String query) {
@@ -568,6 +602,51 @@ public class StandardReconConfig extends ReconConfig {
 
     @Override
     public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID) {
+        return batchRecon(jobs, historyEntryID, null);
+    }
+
+    @Override
+    public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID, AdaptiveConcurrencyLimit limit) {
+        ReconResultCache cache = bypassCache || ProjectManager.singleton == null ? null
+                : ProjectManager.singleton.getReconResultCache();
+        if (cache == null) {
+            return queryService(jobs, historyEntryID, null, limit);
+        }
+
+        // only query the service for the jobs which are not in the cache
+        Recon[] recons = new Recon[jobs.size()];
+        List<ReconJob> missingJobs = new ArrayList<>();
+        List<Integer> missingIndices = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            StandardReconJob job = (StandardReconJob) jobs.get(i);
+            ArrayNode results = cache.get(service, job.code);
+            if (results != null) {
+                recons[i] = createReconServiceResults(job.text, results, historyEntryID);
+                recons[i].service = service;
+            } else {
+                missingJobs.add(job);
+                missingIndices.add(i);
+            }
+        }
+        if (!missingJobs.isEmpty()) {
+            List<Recon> fetched = queryService(missingJobs, historyEntryID, cache, limit);
+            for (int i = 0; i < missingIndices.size(); i++) {
+                recons[missingIndices.get(i)] = fetched.get(i);
+            }
+        }
+        return Arrays.asList(recons);
+    }
+
+    /**
+     * Sends the queries of the jobs to the service in a single request.
+     *
+     * @param cache
+     *            where to store the results returned by the service, or null
+     * @param limit
+     *            the concurrency limit to report the response of the service to, or null
+     */
+    protected List<Recon> queryService(List<ReconJob> jobs, long historyEntryID, ReconResultCache cache,
+            AdaptiveConcurrencyLimit limit) {
         List<Recon> recons = new ArrayList<Recon>(jobs.size());
 
         StringWriter stringWriter = new StringWriter();
@@ -589,8 +668,15 @@ public class StandardReconConfig extends ReconConfig {
         try {
 
             responseString = postQueries(service, queriesString);
+            if (limit != null) {
+                limit.onSuccess();
+            }
             o = ParsingUtilities.mapper.readValue(responseString, ObjectNode.class);
         } catch (IOException e) {
+            if (limit != null && e instanceof HttpStatusException
+                    && AdaptiveConcurrencyLimit.isOverloadStatus(((HttpStatusException) e).getStatusCode())) {
+                limit.onOverload();
+            }
             Recon recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
             recon.error = e.getMessage();
             recon.judgment = Judgment.Error;
@@ -616,6 +702,9 @@ public class StandardReconConfig extends ReconConfig {
                         ArrayNode results = (ArrayNode) o2.get("result");
 
                         recon = createReconServiceResults(text, results, historyEntryID);
+                        if (cache != null) {
+                            cache.put(service, job.code, results);
+                        }
                     } else {
                         recon = new Recon(historyEntryID, identifierSpace, schemaSpace);
                         recon.error = "The service returned a JSON response without \"result\" field for query " + key;
@@ -685,6 +774,7 @@ public class StandardReconConfig extends ReconConfig {
         }
 
         computeFeatures(recon, text);
+        recon.compact();
         return recon;
     }
 
@@ -84,7 +84,12 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
 
         FilteredRows filteredRows = engine.getAllFilteredRows();
         try {
-            filteredRows.accept(project, createRowVisitor(project, cellChanges, historyEntryID));
+            int[] candidateRows = getCandidateRows(project, column);
+            if (candidateRows != null) {
+                filteredRows.accept(project, candidateRows, createRowVisitor(project, cellChanges, historyEntryID));
+            } else {
+                filteredRows.accept(project, createRowVisitor(project, cellChanges, historyEntryID));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -105,6 +110,16 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
         return _columnName;
     }
 
+    /**
+     * Restricts the rows passed to the row visitor, when the operation can only affect a known subset of the rows. The
+     * engine's filters still apply to the returned rows.
+     *
+     * @return the rows which can be affected by the operation, in increasing order, or null to visit all rows
+     */
+    protected int[] getCandidateRows(Project project, Column column) {
+        return null;
+    }
+
     abstract protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception;
 
     abstract protected String createDescription(Column column, List<CellChange> cellChanges);
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * A directory of cache entries addressed by the SHA-256 hash of their key, bounded in total size. Each entry is stored
+ * in its own file, in a subdirectory named after the first characters of its hash. When the total size exceeds the
+ * limit, the least recently used entries are evicted.
+ * <p>
+ * Entries are written atomically, so the cache can be shared by concurrent threads. Callers should store their key in
+ * the entry and check it when reading it back, to guard against hash collisions.
+ */
+public class DiskCache {
+
+    protected final File _dir;
+    protected final long _maxBytes;
+    // total size of the entries, computed on first use
+    private AtomicLong _totalBytes = null;
+
+    /**
+     * @param dir
+     *            the directory where entries are stored
+     * @param maxBytes
+     *            the maximum total size of the entries
+     */
+    public DiskCache(File dir, long maxBytes) {
+        _dir = dir;
+        _maxBytes = maxBytes;
+    }
+
+    protected File getFile(String key) {
+        String hash = DigestUtils.sha256Hex(key);
+        return new File(new File(_dir, hash.substring(0, 2)), hash);
+    }
+
+    /**
+     * Reads an entry, marking it as recently used.
+     *
+     * @return the contents of the entry, or null if there is none
+     */
+    public byte[] read(String key) throws IOException {
+        File file = getFile(key);
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // the modification time orders the entries for eviction
+            file.setLastModified(System.currentTimeMillis());
+            return bytes;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the file of an entry, marking it as recently used, for callers which serve the entry from disk. The
+     * file can be removed by a later eviction, so they should be ready to store the entry again if it is missing.
+     *
+     * @return the file of the entry, or null if there is none
+     */
+    public File getEntryFile(String key) {
+        File file = getFile(key);
+        // fails if the file does not exist
+        return file.setLastModified(System.currentTimeMillis()) ? file : null;
+    }
+
+    /**
+     * Stores an entry, replacing any previous entry with the same key.
+     */
+    public void write(String key, byte[] bytes) throws IOException {
+        File file = getFile(key);
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        // initialize the total before writing, so that the new entry is not counted twice
+        AtomicLong total = getTotalBytes();
+        long previousSize = file.length();
+        // write then move, so that concurrent readers never see a partial entry
+        File temp = File.createTempFile("entry", ".tmp", parent);
+        try {
+            Files.write(temp.toPath(), bytes);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+        if (total.addAndGet(bytes.length - previousSize) > _maxBytes) {
+            evict();
+        }
+    }
+
+    public void remove(String key) {
+        delete(getFile(key));
+    }
+
+    protected synchronized AtomicLong getTotalBytes() {
+        if (_totalBytes == null) {
+            _totalBytes = new AtomicLong(listEntries().stream().mapToLong(File::length).sum());
+        }
+        return _totalBytes;
+    }
+
+    protected List<File> listEntries() {
+        List<File> entries = new ArrayList<>();
+        File[] subdirs = _dir.listFiles(File::isDirectory);
+        if (subdirs != null) {
+            for (File subdir : subdirs) {
+                File[] files = subdir.listFiles((d, name) -> !name.endsWith(".tmp"));
+                if (files != null) {
+                    entries.addAll(List.of(files));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is back to 90% of its maximum size.
+     */
+    protected synchronized void evict() {
+        AtomicLong total = getTotalBytes();
+        if (total.get() <= _maxBytes) {
+            return;
+        }
+        List<File> entries = listEntries();
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        long target = _maxBytes * 9 / 10;
+        for (File file : entries) {
+            if (total.get() <= target) {
+                break;
+            }
+            delete(file);
+        }
+    }
+
+    protected void delete(File file) {
+        long size = file.length();
+        if (file.delete()) {
+            getTotalBytes().addAndGet(-size);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        for (File file : listEntries()) {
+            delete(file);
+        }
+    }
+
+    public long getSizeInBytes() {
+        return getTotalBytes().get();
+    }
+}
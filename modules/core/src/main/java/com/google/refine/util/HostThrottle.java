@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spaces out the requests sent to each host: requests to a given host are granted at most one per interval, and a host
+ * can be paused, for instance when it answers with a Retry-After header. Requests to different hosts do not wait for
+ * each other.
+ */
+public class HostThrottle {
+
+    protected static class HostState {
+
+        // the earliest time at which the next request can be sent
+        long nextRequestTime = 0;
+        long pausedUntil = 0;
+        // the requester which caused the pause, which has already waited for it
+        Object pausedBy = null;
+    }
+
+    protected final long _interval;
+    protected final Map<String, HostState> _hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param interval
+     *            the minimum delay in milliseconds between two requests to the same host
+     */
+    public HostThrottle(long interval) {
+        _interval = Math.max(0, interval);
+    }
+
+    /**
+     * Extracts the host of a URL, used to group requests. Malformed URLs are all grouped together.
+     */
+    public static String getHost(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Reserves the next slot for a request to a host.
+     *
+     * @param requester
+     *            identifies who sends the request, so that it is not held back by a pause it caused itself
+     * @return the delay in milliseconds to wait before sending the request
+     */
+    public long reserve(String host, Object requester) {
+        HostState state = _hosts.computeIfAbsent(host, h -> new HostState());
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, state.nextRequestTime);
+            if (state.pausedBy != requester) {
+                slot = Math.max(slot, state.pausedUntil);
+            }
+            state.nextRequestTime = slot + _interval;
+            return slot - now;
+        }
+    }
+
+    /**
+     * Holds back the requests to a host for the given delay.
+     *
+     * @param requester
+     *            the requester which received the instruction to pause and already honoured it
+     */
+    public void pause(String host, long delay, Object requester) {
+        HostState state = _hosts.computeIfAbsent(host, h -> new HostState());
+        synchronized (state) {
+            long until = System.currentTimeMillis() + delay;
+            if (until > state.pausedUntil) {
+                state.pausedUntil = until;
+                state.pausedBy = requester;
+            }
+        }
+    }
+}
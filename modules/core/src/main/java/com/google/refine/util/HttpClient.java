@@ -29,6 +29,9 @@ package com.google.refine.util;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -46,11 +49,13 @@ import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
+import org.apache.hc.client5.http.utils.DateUtils;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.EntityDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
 import org.apache.hc.core5.http.HttpRequestInterceptor;
@@ -59,8 +64,8 @@ import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
-import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.util.TimeValue;
@@ -95,12 +100,8 @@ public class HttpClient {
     public HttpClient(int delay, int retryInterval) {
         _delay = delay;
         _retryInterval = retryInterval;
-        // Create a connection manager with a custom socket timeout
-        PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
-        final SocketConfig socketConfig = SocketConfig.custom()
-                .setSoTimeout(60, TimeUnit.SECONDS)
-                .build();
-        connManager.setDefaultSocketConfig(socketConfig);
+        // all clients share the same connection pool
+        PoolingHttpClientConnectionManager connManager = HttpClientRegistry.getConnectionManager();
 
         defaultRequestConfig = RequestConfig.custom()
                 .setConnectTimeout(60, TimeUnit.SECONDS)
@@ -111,6 +112,7 @@ public class HttpClient {
                 .setUserAgent(RefineServlet.getUserAgent())
                 .setDefaultRequestConfig(defaultRequestConfig)
                 .setConnectionManager(connManager)
+                .setConnectionManagerShared(true)
                 // Default Apache HC retry is 1x @1 sec (or the value in Retry-Header)
                 .setRetryStrategy(new ExponentialBackoffRetryStrategy(3, TimeValue.ofMilliseconds(_retryInterval)))
 //                .setRedirectStrategy(new LaxRedirectStrategy()) // TODO: No longer needed since default doesn't exclude POST?
@@ -218,28 +220,95 @@ public class HttpClient {
 
             @Override
             public String handleResponse(final ClassicHttpResponse response) throws IOException {
-                final int status = response.getCode();
-                if (status >= HttpStatus.SC_SUCCESS && status < HttpStatus.SC_REDIRECTION) {
-                    final HttpEntity entity = response.getEntity();
-                    if (entity == null) {
-                        throw new IOException("No content found in " + urlString);
-                    }
-                    try {
-                        return EntityUtils.toString(entity);
-                    } catch (final ParseException ex) {
-                        throw new ClientProtocolException(ex);
-                    }
-                } else {
-                    // String errorBody = EntityUtils.toString(response.getEntity());
-                    throw new ClientProtocolException(String.format("HTTP error %d : %s for URL %s", status,
-                            response.getReasonPhrase(), urlString));
-                }
+                return readSuccessfulResponse(urlString, response);
             }
         };
 
         return getResponse(urlString, headers, responseHandler);
     }
 
+    /**
+     * Fetches a URL, going through a cache of responses. Fresh cached responses are returned without contacting the
+     * server, stale ones are revalidated with a conditional request when possible.
+     *
+     * @param cache
+     *            the cache to use, or null to always fetch the URL
+     */
+    public String getAsString(String urlString, Header[] headers, HttpResponseCache cache) throws IOException {
+        if (cache == null) {
+            return getAsString(urlString, headers);
+        }
+        HttpResponseCache.Entry cached = cache.get(urlString, headers);
+        if (cached != null && cached.isFresh()) {
+            return cached.body;
+        }
+
+        List<Header> requestHeaders = new ArrayList<>();
+        if (headers != null) {
+            requestHeaders.addAll(Arrays.asList(headers));
+        }
+        if (cached != null && cached.etag != null) {
+            requestHeaders.add(new BasicHeader(HttpHeaders.IF_NONE_MATCH, cached.etag));
+        }
+        if (cached != null && cached.lastModified != null) {
+            requestHeaders.add(new BasicHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified));
+        }
+
+        final HttpClientResponseHandler<String> responseHandler = new HttpClientResponseHandler<String>() {
+
+            @Override
+            public String handleResponse(final ClassicHttpResponse response) throws IOException {
+                if (response.getCode() == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                    cache.refresh(cached, response);
+                    return cached.body;
+                }
+                String body = readSuccessfulResponse(urlString, response);
+                cache.put(urlString, headers, response, body);
+                return body;
+            }
+        };
+
+        return getResponse(urlString, requestHeaders.toArray(new Header[0]), responseHandler);
+    }
+
+    protected static String readSuccessfulResponse(String urlString, ClassicHttpResponse response) throws IOException {
+        final int status = response.getCode();
+        if (status >= HttpStatus.SC_SUCCESS && status < HttpStatus.SC_REDIRECTION) {
+            final HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                throw new IOException("No content found in " + urlString);
+            }
+            try {
+                return EntityUtils.toString(entity);
+            } catch (final ParseException ex) {
+                throw new ClientProtocolException(ex);
+            }
+        } else {
+            // String errorBody = EntityUtils.toString(response.getEntity());
+            throw new HttpStatusException(status, String.format("HTTP error %d : %s for URL %s", status,
+                    response.getReasonPhrase(), urlString), getRetryAfter(response));
+        }
+    }
+
+    /**
+     * Reads the Retry-After header of a response, given either as a number of seconds or as a date.
+     *
+     * @return the delay in milliseconds, or -1 if the header is absent or invalid
+     */
+    protected static long getRetryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null || header.getValue() == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return date == null ? -1 : Math.max(0, date.toEpochMilli() - System.currentTimeMillis());
+        }
+    }
+
     public String getResponse(String urlString, Header[] headers, HttpClientResponseHandler<String> responseHandler) throws IOException {
 
         HttpGet httpGet = new HttpGet(urlString);
@@ -248,7 +317,21 @@ public class HttpClient {
             httpGet.setHeaders(headers);
         }
         httpGet.setConfig(defaultRequestConfig); // FIXME: Redundant? already included in client builder
-        return httpClient.execute(httpGet, responseHandler);
+        long start = System.currentTimeMillis();
+        int[] status = { -1 };
+        try {
+            return httpClient.execute(httpGet, response -> {
+                status[0] = response.getCode();
+                return responseHandler.handleResponse(response);
+            });
+        } finally {
+            recordMetrics(httpGet, start, status[0]);
+        }
+    }
+
+    protected static void recordMetrics(HttpRequest request, long start, int status) {
+        String host = request.getAuthority() == null ? "" : request.getAuthority().getHostName();
+        HttpClientRegistry.getMetrics().record(host, System.currentTimeMillis() - start, status);
     }
 
     public String postNameValue(String serviceUrl, String name, String value) throws IOException {
@@ -257,15 +340,20 @@ public class HttpClient {
                 new BasicNameValuePair(name, value));
         request.setEntity(new UrlEncodedFormEntity(body, StandardCharsets.UTF_8));
 
+        long start = System.currentTimeMillis();
+        int status = -1;
         try (CloseableHttpResponse response = httpClient.execute(request)) {
             String reasonPhrase = response.getReasonPhrase();
             int statusCode = response.getCode();
+            status = statusCode;
             if (statusCode >= 400) { // We should never see 3xx since they get handled automatically
-                throw new IOException(String.format("HTTP error %d : %s for URL %s", statusCode, reasonPhrase,
+                throw new HttpStatusException(statusCode, String.format("HTTP error %d : %s for URL %s", statusCode, reasonPhrase,
                         request.getRequestUri()));
             }
 
             return ParsingUtilities.inputStreamToString(response.getEntity().getContent());
+        } finally {
+            recordMetrics(request, start, status);
         }
     }
 
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Latency and outcome statistics of the HTTP requests sent by OpenRefine, per host.
+ */
+public class HttpClientMetrics {
+
+    /**
+     * Upper bounds (inclusive, in milliseconds) of the latency histogram buckets. A last bucket collects the slower
+     * requests.
+     */
+    public static final long[] LATENCY_BUCKETS = { 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    public static class HostMetrics {
+
+        protected final LongAdder _requests = new LongAdder();
+        protected final LongAdder _errors = new LongAdder();
+        protected final LongAdder _totalMillis = new LongAdder();
+        protected final AtomicLongArray _latencies = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+        // by status class ("2xx", "4xx"...) or "io-error" when no response was received
+        protected final Map<String, LongAdder> _outcomes = new ConcurrentHashMap<>();
+
+        protected void record(long millis, int status) {
+            _requests.increment();
+            _totalMillis.add(millis);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            _latencies.incrementAndGet(bucket);
+            if (status < 0 || status >= 400) {
+                _errors.increment();
+            }
+            String outcome = status < 0 ? "io-error" : (status / 100) + "xx";
+            _outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        }
+
+        @JsonProperty("requests")
+        public long getRequests() {
+            return _requests.sum();
+        }
+
+        @JsonProperty("errors")
+        public long getErrors() {
+            return _errors.sum();
+        }
+
+        @JsonProperty("meanLatency")
+        public long getMeanLatency() {
+            long requests = _requests.sum();
+            return requests == 0 ? 0 : _totalMillis.sum() / requests;
+        }
+
+        /**
+         * @return the number of requests per latency bucket, keyed by the bucket upper bound (in milliseconds)
+         */
+        @JsonProperty("latencyHistogram")
+        public Map<String, Long> getLatencyHistogram() {
+            Map<String, Long> histogram = new TreeMap<>((a, b) -> Long.compare(bucketBound(a), bucketBound(b)));
+            for (int i = 0; i < _latencies.length(); i++) {
+                histogram.put(i < LATENCY_BUCKETS.length ? "<=" + LATENCY_BUCKETS[i] : ">" + LATENCY_BUCKETS[i - 1],
+                        _latencies.get(i));
+            }
+            return histogram;
+        }
+
+        private static long bucketBound(String key) {
+            return key.startsWith(">") ? Long.MAX_VALUE : Long.parseLong(key.substring(2));
+        }
+
+        @JsonProperty("outcomes")
+        public Map<String, Long> getOutcomes() {
+            Map<String, Long> outcomes = new TreeMap<>();
+            _outcomes.forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+            return outcomes;
+        }
+    }
+
+    protected final Map<String, HostMetrics> _hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Records the outcome of a request.
+     *
+     * @param status
+     *            the status code of the response, or -1 if no response was received
+     */
+    public void record(String host, long millis, int status) {
+        _hosts.computeIfAbsent(host, h -> new HostMetrics()).record(millis, status);
+    }
+
+    @JsonProperty("hosts")
+    public Map<String, HostMetrics> getHosts() {
+        return new TreeMap<>(_hosts);
+    }
+
+    public HostMetrics getHost(String host) {
+        return _hosts.get(host);
+    }
+
+    public void reset() {
+        _hosts.clear();
+    }
+}
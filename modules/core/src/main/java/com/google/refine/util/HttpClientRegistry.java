@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Server-wide resources shared by all {@link HttpClient} instances: a single connection pool, so that connections and
+ * TLS sessions to a host are reused by reconciliation, data extension and URL fetching alike, and the metrics of the
+ * requests.
+ * <p>
+ * The pool is limited to {@code refine.http.maxConnections} connections in total (200 by default) and
+ * {@code refine.http.maxConnectionsPerHost} per host (16 by default).
+ */
+public class HttpClientRegistry {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+
+    private static PoolingHttpClientConnectionManager connectionManager = null;
+    private static final HttpClientMetrics metrics = new HttpClientMetrics();
+
+    public static synchronized PoolingHttpClientConnectionManager getConnectionManager() {
+        if (connectionManager == null) {
+            connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(Integer.getInteger("refine.http.maxConnections", DEFAULT_MAX_CONNECTIONS))
+                    .setMaxConnPerRoute(Integer.getInteger("refine.http.maxConnectionsPerHost", DEFAULT_MAX_CONNECTIONS_PER_HOST))
+                    .setDefaultSocketConfig(SocketConfig.custom()
+                            .setSoTimeout(60, TimeUnit.SECONDS)
+                            .build())
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(60, TimeUnit.SECONDS)
+                            .setSocketTimeout(60, TimeUnit.SECONDS)
+                            // check pooled connections the server may have closed before reusing them
+                            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                            .build())
+                    .build();
+        }
+        return connectionManager;
+    }
+
+    public static HttpClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the state of the connection pool, across all hosts
+     */
+    public static PoolStats getPoolStats() {
+        return getConnectionManager().getTotalStats();
+    }
+}
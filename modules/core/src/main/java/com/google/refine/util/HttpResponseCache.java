@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Workspace-level, on-disk cache of the bodies of HTTP responses, shared by all operations and projects. Entries are
+ * keyed by the URL and a SHA-256 hash of the request headers, so that credentials sent in headers (such as
+ * Authorization or Cookie) are never written to disk.
+ * <p>
+ * The freshness of an entry follows the Cache-Control (max-age, no-cache, no-store) and Expires headers of the
+ * response. Responses without such headers are considered fresh for a default time-to-live
+ * ({@code refine.httpCache.defaultTtlMinutes} system property, 10 minutes by default). Stale entries with an ETag or
+ * Last-Modified header are revalidated with a conditional request rather than fetched again. When the total size of the
+ * cache exceeds its limit ({@code refine.httpCache.maxMegabytes}, 256 by default), the least recently used entries are
+ * evicted.
+ */
+public class HttpResponseCache {
+
+    final static Logger logger = LoggerFactory.getLogger("http-response-cache");
+
+    public static final long DEFAULT_TTL_MINUTES = 10;
+    public static final long DEFAULT_MAX_MEGABYTES = 256;
+
+    protected final DiskCache _cache;
+    protected final long _defaultTtlMillis;
+    protected final AtomicLong _hits = new AtomicLong();
+    protected final AtomicLong _revalidations = new AtomicLong();
+    protected final AtomicLong _misses = new AtomicLong();
+
+    public HttpResponseCache(File dir) {
+        this(dir,
+                Long.getLong("refine.httpCache.defaultTtlMinutes", DEFAULT_TTL_MINUTES) * 60 * 1000,
+                Long.getLong("refine.httpCache.maxMegabytes", DEFAULT_MAX_MEGABYTES) * 1024 * 1024);
+    }
+
+    /**
+     * @param dir
+     *            the directory where entries are stored
+     * @param defaultTtlMillis
+     *            how long responses without freshness information are considered fresh
+     * @param maxBytes
+     *            the maximum total size of the entries
+     */
+    public HttpResponseCache(File dir, long defaultTtlMillis, long maxBytes) {
+        _cache = new DiskCache(dir, maxBytes);
+        _defaultTtlMillis = defaultTtlMillis;
+    }
+
+    public static class Entry {
+
+        @JsonProperty("url")
+        public String url;
+        @JsonProperty("headersHash")
+        public String headersHash;
+        @JsonProperty("freshUntil")
+        public long freshUntil;
+        @JsonProperty("etag")
+        public String etag;
+        @JsonProperty("lastModified")
+        public String lastModified;
+        // kept to compute the freshness of the entry after revalidations, as 304 responses may omit it
+        @JsonProperty("cacheControl")
+        public String cacheControl;
+        @JsonProperty("body")
+        public String body;
+
+        @JsonIgnore
+        public boolean isFresh() {
+            return System.currentTimeMillis() < freshUntil;
+        }
+
+        /**
+         * @return whether the entry can be revalidated with a conditional request
+         */
+        @JsonIgnore
+        public boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    /**
+     * Hashes the request headers, independently of their order and of the case of their names.
+     */
+    protected static String hashHeaders(Header[] headers) {
+        List<String> normalized = new ArrayList<>();
+        if (headers != null) {
+            for (Header header : headers) {
+                normalized.add(header.getName().toLowerCase(Locale.ROOT) + ": " + header.getValue());
+            }
+        }
+        Collections.sort(normalized);
+        return DigestUtils.sha256Hex(String.join("\n", normalized));
+    }
+
+    protected static String getKey(String url, String headersHash) {
+        return url + '\u0000' + headersHash;
+    }
+
+    /**
+     * Retrieves the entry for a request, fresh or not.
+     *
+     * @return the entry, or null if there is none
+     */
+    public Entry get(String url, Header[] headers) {
+        String headersHash = hashHeaders(headers);
+        try {
+            byte[] bytes = _cache.read(getKey(url, headersHash));
+            if (bytes != null) {
+                Entry entry = ParsingUtilities.mapper.readValue(bytes, Entry.class);
+                if (url.equals(entry.url) && headersHash.equals(entry.headersHash) && entry.body != null) {
+                    (entry.isFresh() ? _hits : _revalidations).incrementAndGet();
+                    return entry;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read cached HTTP response", e);
+        }
+        _misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the body of a successful response, unless the server forbids it.
+     */
+    public void put(String url, Header[] headers, HttpResponse response, String body) {
+        if (hasDirective(getCacheControl(response), "no-store")) {
+            return;
+        }
+        Entry entry = new Entry();
+        entry.url = url;
+        entry.headersHash = hashHeaders(headers);
+        entry.body = body;
+        updateFromResponse(entry, response);
+        write(entry);
+    }
+
+    /**
+     * Updates an entry after the server confirmed with a 304 (Not Modified) response that it is still valid.
+     */
+    public void refresh(Entry entry, HttpResponse notModified) {
+        updateFromResponse(entry, notModified);
+        write(entry);
+    }
+
+    protected void write(Entry entry) {
+        try {
+            _cache.write(getKey(entry.url, entry.headersHash), ParsingUtilities.mapper.writeValueAsBytes(entry));
+        } catch (IOException e) {
+            logger.warn("Could not cache HTTP response", e);
+        }
+    }
+
+    protected void updateFromResponse(Entry entry, HttpResponse response) {
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (etag != null) {
+            entry.etag = etag.getValue();
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null) {
+            entry.lastModified = lastModified.getValue();
+        }
+        String cacheControl = getCacheControl(response);
+        if (cacheControl != null) {
+            entry.cacheControl = cacheControl;
+        }
+        entry.freshUntil = System.currentTimeMillis() + getFreshnessLifetime(response, entry.cacheControl);
+    }
+
+    protected static String getCacheControl(HttpResponse response) {
+        Header[] headers = response.getHeaders(HttpHeaders.CACHE_CONTROL);
+        if (headers.length == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (Header header : headers) {
+            values.add(header.getValue());
+        }
+        return String.join(",", values);
+    }
+
+    /**
+     * Computes how long a response can be served from the cache without revalidation, in milliseconds.
+     *
+     * @param cacheControl
+     *            the Cache-Control directives applying to the response
+     */
+    protected long getFreshnessLifetime(HttpResponse response, String cacheControl) {
+        if (hasDirective(cacheControl, "no-cache")) {
+            return 0;
+        }
+        long age = 0;
+        Header ageHeader = response.getFirstHeader(HttpHeaders.AGE);
+        if (ageHeader != null) {
+            try {
+                age = Long.parseLong(ageHeader.getValue().trim()) * 1000;
+            } catch (NumberFormatException e) {
+                // ignore the invalid header
+            }
+        }
+        String maxAge = getDirectiveValue(cacheControl, "max-age");
+        if (maxAge != null) {
+            try {
+                return Math.max(0, Long.parseLong(maxAge) * 1000 - age);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        Header expires = response.getFirstHeader(HttpHeaders.EXPIRES);
+        if (expires != null) {
+            Instant expiry = DateUtils.parseStandardDate(expires.getValue());
+            Header dateHeader = response.getFirstHeader(HttpHeaders.DATE);
+            Instant date = dateHeader == null ? null : DateUtils.parseStandardDate(dateHeader.getValue());
+            if (expiry == null) {
+                // invalid dates mean the response is already expired
+                return 0;
+            }
+            long now = date == null ? System.currentTimeMillis() : date.toEpochMilli();
+            return Math.max(0, expiry.toEpochMilli() - now);
+        }
+        return _defaultTtlMillis;
+    }
+
+    protected static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String part : cacheControl.split(",")) {
+            String name = part.split("=", 2)[0].trim();
+            if (name.equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static String getDirectiveValue(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String part : cacheControl.split(",")) {
+            String[] nameValue = part.split("=", 2);
+            if (nameValue.length == 2 && nameValue[0].trim().equalsIgnoreCase(directive)) {
+                return nameValue[1].trim().replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        _cache.clear();
+    }
+
+    public long getHitCount() {
+        return _hits.get();
+    }
+
+    public long getRevalidationCount() {
+        return _revalidations.get();
+    }
+
+    public long getMissCount() {
+        return _misses.get();
+    }
+
+    public long getSizeInBytes() {
+        return _cache.getSizeInBytes();
+    }
+}
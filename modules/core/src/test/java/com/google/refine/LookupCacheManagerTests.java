@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.LookupCacheManager.ProjectLookup;
+import com.google.refine.browsing.util.ColumnValueIndex;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.AbstractOperation;
+import com.google.refine.model.Column;
+import com.google.refine.model.ColumnsDiff;
+import com.google.refine.model.Project;
+
+public class LookupCacheManagerTests extends RefineTest {
+
+    Project project;
+    Project otherProject;
+
+    @BeforeMethod
+    public void setUpProjects() {
+        project = createProject(new String[] { "key", "value" },
+                new Serializable[][] {
+                        { "a", "1" },
+                        { "b", "2" },
+                        { "a", "3" }
+                });
+        otherProject = createProject("other", new String[] { "key" },
+                new Serializable[][] {
+                        { "a" },
+                        { "b" },
+                });
+    }
+
+    @Test
+    public void testLookupIsCached() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+
+        ProjectLookup lookup = SUT.getLookup(project.id, "key");
+        assertEquals(lookup.getRows("a").size(), 2);
+        assertSame(SUT.getLookup(project.id, "key"), lookup);
+        assertEquals(lookup.getHits(), 2);
+        assertEquals(SUT.getStats().loadCount(), 1);
+    }
+
+    @Test
+    public void testConcurrentLookupsAreComputedOnce() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ProjectLookup>> futures = new ArrayList<>();
+            Callable<ProjectLookup> task = () -> SUT.getLookup(project.id, "key");
+            for (int i = 0; i != 8; i++) {
+                futures.add(executor.submit(task));
+            }
+            ProjectLookup first = futures.get(0).get();
+            for (Future<ProjectLookup> future : futures) {
+                assertSame(future.get(), first);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(SUT.getStats().loadCount(), 1);
+    }
+
+    @Test
+    public void testCacheIsBoundedByRowCount() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager(4);
+
+        SUT.getLookup(project.id, "key");
+        SUT.getLookup(otherProject.id, "key");
+
+        // 3 + 2 rows do not fit in the cache
+        assertEquals(SUT.getCachedLookups().size(), 1);
+    }
+
+    @Test
+    public void testLookupsCanUseTheWholeBound() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager(5);
+
+        SUT.getLookup(project.id, "key");
+        SUT.getLookup(otherProject.id, "key");
+
+        assertEquals(SUT.getCachedLookups().size(), 2);
+    }
+
+    @Test
+    public void testEvictionReleasesTheColumnIndex() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager(4);
+        Column keyColumn = project.columnModel.getColumnByName("key");
+
+        SUT.getLookup(project.id, "key");
+        assertNotNull(keyColumn.getPrecompute(ColumnValueIndex.PRECOMPUTE_KEY));
+        SUT.getLookup(otherProject.id, "key");
+
+        assertNull(keyColumn.getPrecompute(ColumnValueIndex.PRECOMPUTE_KEY));
+        assertNotNull(otherProject.columnModel.getColumnByName("key").getPrecompute(ColumnValueIndex.PRECOMPUTE_KEY));
+    }
+
+    @Test
+    public void testFlushColumn() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+        ProjectLookup keyLookup = SUT.getLookup(project.id, "key");
+        ProjectLookup valueLookup = SUT.getLookup(project.id, "value");
+
+        SUT.flushLookupsInvolvingProjectColumn(project.id, "key");
+
+        assertNotSame(SUT.getLookup(project.id, "key"), keyLookup);
+        assertSame(SUT.getLookup(project.id, "value"), valueLookup);
+    }
+
+    @Test
+    public void testHistoryChangeWithColumnsDiff() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+        ProjectLookup keyLookup = SUT.getLookup(project.id, "key");
+        ProjectLookup valueLookup = SUT.getLookup(project.id, "value");
+
+        AbstractOperation operation = mock(AbstractOperation.class);
+        when(operation.getColumnsDiff()).thenReturn(Optional.of(ColumnsDiff.modifySingleColumn("value")));
+        HistoryEntry entry = new HistoryEntry(1234L, project, "some operation", operation, null);
+        SUT.onHistoryChanged(project.id, entry);
+
+        assertSame(SUT.getLookup(project.id, "key"), keyLookup);
+        assertNotSame(SUT.getLookup(project.id, "value"), valueLookup);
+    }
+
+    @Test
+    public void testHistoryChangeWithUnknownEffect() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+        ProjectLookup keyLookup = SUT.getLookup(project.id, "key");
+        ProjectLookup otherLookup = SUT.getLookup(otherProject.id, "key");
+
+        AbstractOperation operation = mock(AbstractOperation.class);
+        when(operation.getColumnsDiff()).thenReturn(Optional.empty());
+        HistoryEntry entry = new HistoryEntry(1234L, project, "some operation", operation, null);
+        SUT.onHistoryChanged(project.id, entry);
+
+        assertNotSame(SUT.getLookup(project.id, "key"), keyLookup);
+        assertSame(SUT.getLookup(otherProject.id, "key"), otherLookup);
+    }
+
+    @Test
+    public void testForgetProject() throws Exception {
+        LookupCacheManager SUT = new LookupCacheManager();
+        SUT.getLookup(project.id, "key");
+        SUT.getLookup(otherProject.id, "key");
+        SUT.flushLookupsInvolvingProject(project.id);
+        SUT.flushLookupsInvolvingProjectColumn(project.id, "value");
+        SUT.getLookup(project.id, "key");
+
+        SUT.forgetProject(project.id);
+
+        assertFalse(SUT._projectFlushTimes.containsKey(project.id));
+        assertTrue(SUT._columnFlushTimes.isEmpty());
+        assertEquals(SUT.getCachedLookups().size(), 1);
+        assertEquals(SUT.getCachedLookups().iterator().next().targetProjectID, otherProject.id);
+    }
+
+    @Test
+    public void testDisposeForgetsProject() throws Exception {
+        LookupCacheManager manager = ProjectManager.singleton.getLookupCacheManager();
+        manager.getLookup(project.id, "key");
+
+        project.dispose();
+
+        assertFalse(manager._projectFlushTimes.containsKey(project.id));
+        assertTrue(manager.getCachedLookups().stream().noneMatch(lookup -> lookup.targetProjectID == project.id));
+    }
+}
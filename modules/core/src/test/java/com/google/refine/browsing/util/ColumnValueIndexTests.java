@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.expr.EvalError;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+
+public class ColumnValueIndexTests extends RefineTest {
+
+    Project project;
+    Column column;
+
+    @BeforeMethod
+    public void setUpProject() {
+        project = createProject(new String[] { "foo" },
+                new Serializable[][] {
+                        { "a" },
+                        { 1L },
+                        { null },
+                        { "a" },
+                        { 1.0d },
+                        { "" },
+                        { new Cell(new EvalError("boom"), null) },
+                        { "1" }
+                });
+        column = project.columnModel.getColumnByName("foo");
+    }
+
+    @Test
+    public void testMatchingRows() {
+        ColumnValueIndex index = ColumnValueIndex.get(project, column);
+
+        assertEquals(index.getMatchingRows(new Object[] { "a" }, false, false), bits(0, 3));
+        // numbers are compared by their double value, as in ExpressionEqualRowFilter
+        assertEquals(index.getMatchingRows(new Object[] { 1 }, false, false), bits(1, 4));
+        assertEquals(index.getMatchingRows(new Object[] { "1" }, false, false), bits(7));
+        assertEquals(index.getMatchingRows(new Object[] { "b" }, true, false), bits(2, 5));
+        assertEquals(index.getMatchingRows(new Object[] {}, false, true), bits(6));
+    }
+
+    @Test
+    public void testRowsForString() {
+        ColumnValueIndex index = ColumnValueIndex.get(project, column);
+
+        assertEquals(index.getRowsForString("a"), new int[] { 0, 3 });
+        assertEquals(index.getRowsForString("1"), new int[] { 1, 7 });
+        assertEquals(index.getRowsForString("1.0"), new int[] { 4 });
+        assertNull(index.getRowsForString("b"));
+    }
+
+    @Test
+    public void testReconciledRows() {
+        project.rows.get(3).setCell(0, new Cell("a", testRecon("a", "Q1", Recon.Judgment.Matched)));
+        project.rows.get(5).setCell(0, new Cell("", testRecon("b", "Q2", Recon.Judgment.None)));
+        ColumnValueIndex index = ColumnValueIndex.get(project, column);
+
+        assertEquals(index.getReconciledRows(), new int[] { 3, 5 });
+        assertEquals(index.getRowsForString("a"), new int[] { 0, 3 });
+    }
+
+    @Test
+    public void testIndexIsCached() {
+        ColumnValueIndex index = ColumnValueIndex.get(project, column);
+        assertSame(ColumnValueIndex.get(project, column), index);
+
+        column.clearPrecomputes();
+        assertNotSame(ColumnValueIndex.get(project, column), index);
+    }
+
+    private BitSet bits(int... indices) {
+        BitSet bitSet = new BitSet();
+        for (int i : indices) {
+            bitSet.set(i);
+        }
+        return bitSet;
+    }
+}
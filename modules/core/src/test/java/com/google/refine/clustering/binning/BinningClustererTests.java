@@ -31,6 +31,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -111,4 +112,42 @@ public class BinningClustererTests extends RefineTest {
         clusterer.computeClusters(new Engine(project));
         assertEquals(clusterer.getJsonRepresentation().size(), 1);
     }
+
+    @Test
+    public void testKeysComputedOncePerDistinctValue() throws JsonParseException, JsonMappingException, IOException {
+        AtomicInteger calls = new AtomicInteger();
+        KeyerFactory.put("counting", new FingerprintKeyer() {
+
+            @Override
+            public String key(String s, Object... o) {
+                calls.incrementAndGet();
+                return super.key(s, o);
+            }
+        });
+        Project project = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { "a" },
+                        { "à" },
+                        { "a" },
+                        { "A" },
+                        { "d" }
+                });
+        try {
+            String countingConfigJson = configJson.replace("fingerprint", "counting");
+            BinningClustererConfig config = ParsingUtilities.mapper.readValue(countingConfigJson, BinningClustererConfig.class);
+            BinningClusterer clusterer = config.apply(project);
+            clusterer.computeClusters(new Engine(project));
+            assertEquals(calls.get(), 4);
+            TestUtils.isSerializedTo(clusterer, "[[{\"v\":\"a\",\"c\":2},{\"v\":\"A\",\"c\":1},{\"v\":\"à\",\"c\":1}]]");
+
+            // the key table of the column is reused by the next run
+            BinningClusterer secondRun = config.apply(project);
+            secondRun.computeClusters(new Engine(project));
+            assertEquals(calls.get(), 4);
+            TestUtils.isSerializedTo(secondRun, "[[{\"v\":\"a\",\"c\":2},{\"v\":\"A\",\"c\":1},{\"v\":\"à\",\"c\":1}]]");
+        } finally {
+            KeyerFactory.remove("counting");
+        }
+    }
 }
@@ -27,13 +27,19 @@
 
 package com.google.refine.clustering.knn;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.mit.simile.vicino.clustering.NGramClusterer;
 import edu.mit.simile.vicino.distances.PPMDistance;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
@@ -60,6 +66,7 @@ public class kNNClustererTests extends RefineTest {
     @BeforeTest
     public void registerDistance() {
         DistanceFactory.put("ppm", new VicinoDistance(new PPMDistance()));
+        DistanceFactory.put("levenshtein", new LevenshteinDistance());
     }
 
     @Test
@@ -100,4 +107,67 @@ public class kNNClustererTests extends RefineTest {
 
         assertTrue(clusterer.getJsonRepresentation().isEmpty());
     }
+
+    @Test
+    public void testSameClustersAsVicino() throws Exception {
+        Random random = new Random(42);
+        Serializable[][] rows = new Serializable[500][];
+        NGramClusterer vicinoClusterer = new NGramClusterer(new edu.mit.simile.vicino.distances.LevenshteinDistance(), 2);
+        for (int i = 0; i < rows.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 3 + random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                sb.append("abcd e.".charAt(random.nextInt(7)));
+            }
+            rows[i] = new Serializable[] { sb.toString() };
+            vicinoClusterer.populate(sb.toString());
+        }
+        Project project = createProject(new String[] { "column" }, rows);
+
+        String json = "{\"type\":\"knn\",\"function\":\"levenshtein\",\"column\":\"column\","
+                + "\"params\":{\"radius\":2,\"blocking-ngram-size\":2}}";
+        kNNClustererConfig config = ParsingUtilities.mapper.readValue(json, kNNClustererConfig.class);
+        kNNClusterer clusterer = config.apply(project);
+        clusterer.computeClusters(new Engine(project));
+
+        // the multi-threaded variant of Vicino splits neighbourhoods across workers, so compare to the single-threaded
+        // one
+        Set<Set<Serializable>> expected = new HashSet<>(vicinoClusterer.getClustersSingleThread(2));
+        expected.removeIf(cluster -> cluster.size() < 2);
+        assertEquals(new HashSet<>(clusterer._clusters), expected);
+        assertEquals(clusterer.getProgress(), 100);
+    }
+
+    @Test
+    public void testNegativeRadius() throws Exception {
+        Project project = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { "abcd" },
+                        { "abce" },
+                        { "abcd" }
+                });
+        String json = "{\"type\":\"knn\",\"function\":\"levenshtein\",\"column\":\"column\","
+                + "\"params\":{\"radius\":-1,\"blocking-ngram-size\":2}}";
+        kNNClustererConfig config = ParsingUtilities.mapper.readValue(json, kNNClustererConfig.class);
+        kNNClusterer clusterer = config.apply(project);
+        clusterer.computeClusters(new Engine(project));
+
+        // as with Vicino, no pair of values is within a negative distance
+        assertTrue(clusterer.getJsonRepresentation().isEmpty());
+    }
+
+    @Test(expectedExceptions = CancellationException.class)
+    public void testCancel() throws Exception {
+        Project project = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { "abcd" },
+                        { "abce" }
+                });
+        kNNClustererConfig config = ParsingUtilities.mapper.readValue(configJson, kNNClustererConfig.class);
+        kNNClusterer clusterer = config.apply(project);
+        clusterer.cancel();
+        clusterer.computeClusters(new Engine(project));
+    }
 }
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.clustering.minhash;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.clustering.ClusteredEntry;
+import com.google.refine.clustering.ClustererConfig;
+import com.google.refine.clustering.minhash.MinHashClusterer.MinHashClustererConfig;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.TestUtils;
+
+public class MinHashClustererTests extends RefineTest {
+
+    String configJson = "{"
+            + "\"type\":\"minhash\","
+            + "\"function\":\"minhash\","
+            + "\"column\":\"column\","
+            + "\"params\":{\"shingle-size\":3,\"bands\":20,\"rows\":5,\"threshold\":0.5,\"seed\":42}"
+            + "}";
+
+    @Test
+    public void serializeMinHashClustererConfig() throws Exception {
+        ClustererConfig config = ParsingUtilities.mapper.readValue(configJson, ClustererConfig.class);
+        assertTrue(config instanceof MinHashClustererConfig);
+        TestUtils.isSerializedTo(config, configJson);
+    }
+
+    @Test
+    public void testClusters() throws Exception {
+        Project project = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { "International Business Machines" },
+                        { "International Business Machines" },
+                        { "international business machines." },
+                        { "International Business Machine" },
+                        { "Massachusetts Institute of Technology" },
+                        { "Massachusetts Institute of Technology (MIT)" },
+                        { "University of Oxford" },
+                        { "Something else entirely" },
+                        { "" }
+                });
+        MinHashClustererConfig config = ParsingUtilities.mapper.readValue(configJson, MinHashClustererConfig.class);
+        MinHashClusterer clusterer = config.apply(project);
+        clusterer.computeClusters(new Engine(project));
+
+        List<List<ClusteredEntry>> clusters = clusterer.getJsonRepresentation();
+        assertEquals(clusters.size(), 2);
+        TestUtils.isSerializedTo(clusterer, "["
+                + "[{\"v\":\"International Business Machines\",\"c\":2},"
+                + "{\"v\":\"International Business Machine\",\"c\":1},"
+                + "{\"v\":\"international business machines.\",\"c\":1}],"
+                + "[{\"v\":\"Massachusetts Institute of Technology\",\"c\":1},"
+                + "{\"v\":\"Massachusetts Institute of Technology (MIT)\",\"c\":1}]"
+                + "]");
+        assertEquals(clusterer.getProgress(), 100);
+    }
+
+    @Test
+    public void testDeterministic() throws Exception {
+        // groups of variants of random strings, which share no shingle with other groups
+        Random random = new Random(1234);
+        Set<Set<String>> expected = new HashSet<>();
+        List<Serializable[]> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 16; j++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            String base = sb.toString();
+            Set<String> group = new HashSet<>(List.of(base, base.toUpperCase() + ".", base + "q"));
+            expected.add(group);
+            for (String value : group) {
+                rows.add(new Serializable[] { value });
+            }
+        }
+        Project project = createProject(new String[] { "column" }, rows.toArray(new Serializable[0][]));
+        MinHashClustererConfig config = ParsingUtilities.mapper.readValue(configJson, MinHashClustererConfig.class);
+
+        MinHashClusterer first = config.apply(project);
+        first.computeClusters(new Engine(project));
+        assertEquals(new HashSet<>(first._clusters), expected);
+
+        MinHashClusterer second = config.apply(project);
+        second.computeClusters(new Engine(project));
+        assertEquals(ParsingUtilities.mapper.writeValueAsString(first),
+                ParsingUtilities.mapper.writeValueAsString(second));
+    }
+
+    @Test
+    public void testChainsAreNotMerged() throws Exception {
+        // each value shares 14 of its 18 shingles with the next one, and only 10 with the one after
+        String chain = "abcdefghijklmnopqrstuvwxyz0123456789";
+        Project project = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { chain.substring(0, 20) },
+                        { chain.substring(0, 20) },
+                        { chain.substring(4, 24) },
+                        { chain.substring(8, 28) },
+                        { chain.substring(12, 32) },
+                        { chain.substring(12, 32) },
+                        { chain.substring(12, 32) },
+                });
+        MinHashClustererConfig config = ParsingUtilities.mapper.readValue(configJson, MinHashClustererConfig.class);
+        MinHashClusterer clusterer = config.apply(project);
+        clusterer.computeClusters(new Engine(project));
+
+        // the most frequent values are taken as representatives, and the values are not chained through them
+        assertEquals(clusterer._clusters, List.of(
+                new TreeSet<>(List.of(chain.substring(0, 20), chain.substring(4, 24))),
+                new TreeSet<>(List.of(chain.substring(8, 28), chain.substring(12, 32)))));
+    }
+
+    @Test
+    public void testSignatureSimilarity() {
+        long[] seeds = new long[] { 1L, 2L, 3L, 4L };
+        assertEquals(MinHashClusterer.similarity(
+                MinHashClusterer.sketch(MinHashClusterer.signature("Foo Bar", seeds, 3)),
+                MinHashClusterer.sketch(MinHashClusterer.signature("foo   bar!", seeds, 3))), 1.0);
+        assertEquals(MinHashClusterer.signature(" ... ", seeds, 3), null);
+    }
+
+    @Test
+    public void testSketchSimilarity() {
+        long[] seeds = new SplittableRandom(42L).longs(100).toArray();
+        // 14 of the 22 shingles of the two values are shared
+        String chain = "abcdefghijklmnopqrstuvwxyz";
+        double similar = MinHashClusterer.similarity(
+                MinHashClusterer.sketch(MinHashClusterer.signature(chain.substring(0, 20), seeds, 3)),
+                MinHashClusterer.sketch(MinHashClusterer.signature(chain.substring(4, 24), seeds, 3)));
+        assertTrue(similar > 0.5 && similar < 0.8, Double.toString(similar));
+        double unrelated = MinHashClusterer.similarity(
+                MinHashClusterer.sketch(MinHashClusterer.signature("abcdefghij", seeds, 3)),
+                MinHashClusterer.sketch(MinHashClusterer.signature("klmnopqrst", seeds, 3)));
+        assertTrue(unrelated < 0.1, Double.toString(unrelated));
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.util.TestUtils;
+
+public class ReconCandidateStoreTests {
+
+    String json = "{\"id\":1533651559492945033,"
+            + "\"judgmentHistoryEntry\":1533651616890,"
+            + "\"service\":\"https://tools.wmflabs.org/openrefine-wikidata/en/api\","
+            + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+            + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+            + "\"j\":\"matched\","
+            + "\"m\":{\"id\":\"Q42\",\"name\":\"Douglas Adams\",\"score\":98.5,\"types\":[\"Q5\"]},"
+            + "\"c\":["
+            + "   {\"id\":\"Q42\",\"name\":\"Douglas Adams\",\"score\":98.5,\"types\":[\"Q5\"]},"
+            + "   {\"id\":\"Q28421831\",\"name\":\"Douglas Adams\",\"score\":75,\"types\":[\"Q5\"]}"
+            + "],"
+            + "\"f\":[false,true,0,0.5],"
+            + "\"judgmentAction\":\"mass\","
+            + "\"judgmentBatchSize\":1,"
+            + "\"matchRank\":0}";
+
+    @Test
+    public void testInternCandidates() {
+        ReconCandidate a = ReconCandidateStore.intern(new ReconCandidate("Q42", "Douglas Adams", new String[] { "Q5" }, 98.5));
+        ReconCandidate b = ReconCandidateStore.intern(new ReconCandidate("Q42", "Douglas Adams", new String[] { "Q5" }, 98.5));
+        ReconCandidate c = ReconCandidateStore.intern(new ReconCandidate("Q1", "Universe", new String[] { "Q5" }, 12));
+
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertSame(a.types, c.types);
+    }
+
+    @Test
+    public void testInternLists() {
+        List<ReconCandidate> list = new ArrayList<>();
+        list.add(new ReconCandidate("Q42", "Douglas Adams", new String[] { "Q5" }, 98.5));
+        List<ReconCandidate> interned = ReconCandidateStore.intern(list);
+
+        assertEquals(interned, list);
+        assertTrue(ReconCandidateStore.isInterned(interned));
+        assertFalse(ReconCandidateStore.isInterned(list));
+        assertSame(ReconCandidateStore.intern(new ArrayList<>(list)), interned);
+        assertSame(ReconCandidateStore.intern(interned), interned);
+    }
+
+    @Test
+    public void testLoadedReconsShareCandidates() throws Exception {
+        Recon r1 = Recon.loadStreaming(json);
+        Recon r2 = Recon.loadStreaming(json);
+
+        assertSame(r1.candidates, r2.candidates);
+        assertSame(r1.match, r1.candidates.get(0));
+        assertSame(r1.service, r2.service);
+        TestUtils.isSerializedTo(r1, json, true);
+    }
+
+    @Test
+    public void testDupSharesCandidates() throws Exception {
+        Recon recon = Recon.loadStreaming(json);
+        Recon dup = recon.dup(1234L);
+
+        assertSame(dup.candidates, recon.candidates);
+
+        ReconCandidate extra = new ReconCandidate("Q1", "Universe", new String[] {}, 10);
+        dup.addCandidate(extra);
+
+        assertEquals(dup.candidates.size(), 3);
+        assertEquals(recon.candidates.size(), 2);
+        assertEquals(dup.candidates.subList(0, 2), recon.candidates);
+        assertEquals(dup.candidates.get(2), extra);
+        assertEquals(Arrays.asList(recon.candidates.get(0).types), List.of("Q5"));
+    }
+}
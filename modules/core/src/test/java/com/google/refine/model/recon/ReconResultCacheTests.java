@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.model.recon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.util.ParsingUtilities;
+
+public class ReconResultCacheTests {
+
+    static final String SERVICE = "http://recon.example.org/api";
+
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recon-cache").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    ArrayNode results(String id) throws IOException {
+        return (ArrayNode) ParsingUtilities.mapper.readTree(
+                "[{\"id\":\"" + id + "\",\"name\":\"Douglas Adams\",\"score\":100,\"match\":true}]");
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        ReconResultCache cache = new ReconResultCache(dir, 60_000, 1024 * 1024);
+        assertNull(cache.get(SERVICE, "{\"query\":\"douglas adams\",\"type\":\"Q5\"}"));
+
+        cache.put(SERVICE, "{\"query\":\"douglas adams\",\"type\":\"Q5\"}", results("Q42"));
+
+        // the order of the fields and the formatting of the query do not matter
+        ArrayNode cached = cache.get(SERVICE, "{ \"type\": \"Q5\", \"query\": \"douglas adams\" }");
+        assertNotNull(cached);
+        assertEquals(cached, results("Q42"));
+        // but the service does
+        assertNull(cache.get("http://other.example.org/api", "{\"query\":\"douglas adams\",\"type\":\"Q5\"}"));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 2);
+
+        // entries survive across instances
+        ReconResultCache other = new ReconResultCache(dir, 60_000, 1024 * 1024);
+        assertNotNull(other.get(SERVICE, "{\"query\":\"douglas adams\",\"type\":\"Q5\"}"));
+    }
+
+    @Test
+    public void testExpiry() throws IOException {
+        ReconResultCache cache = new ReconResultCache(dir, -1, 1024 * 1024);
+        cache.put(SERVICE, "{\"query\":\"douglas adams\"}", results("Q42"));
+        assertTrue(cache.getSizeInBytes() > 0);
+
+        assertNull(cache.get(SERVICE, "{\"query\":\"douglas adams\"}"));
+        // expired entries are removed
+        assertEquals(cache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        ReconResultCache cache = new ReconResultCache(dir, 60_000, 1024);
+        for (int i = 0; i < 20; i++) {
+            cache.put(SERVICE, "{\"query\":\"value " + i + "\"}", results("Q" + i));
+            assertTrue(cache.getSizeInBytes() <= 1024);
+        }
+        // the most recent entry is kept, the oldest ones are evicted
+        assertNotNull(cache.get(SERVICE, "{\"query\":\"value 19\"}"));
+        assertNull(cache.get(SERVICE, "{\"query\":\"value 0\"}"));
+
+        cache.clear();
+        assertEquals(cache.getSizeInBytes(), 0);
+        assertNull(cache.get(SERVICE, "{\"query\":\"value 19\"}"));
+    }
+}
@@ -32,9 +32,11 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.URLEncoder;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -48,12 +50,15 @@ import mockwebserver3.MockWebServer;
 import mockwebserver3.RecordedRequest;
 import mockwebserver3.SocketEffect;
 import okhttp3.HttpUrl;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.refine.ProjectManager;
+import com.google.refine.ProjectManagerStub;
 import com.google.refine.RefineTest;
 import com.google.refine.model.Project;
 import com.google.refine.model.Recon;
@@ -489,6 +494,114 @@ public class StandardReconConfigTests extends RefineTest {
         }
     }
 
+    @Test
+    public void batchReconAdaptsConcurrency() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            HttpUrl url = server.url("/api");
+            String response = "{\"q0\":{\"result\":[]}}";
+            server.enqueue(new MockResponse.Builder().body(response).build());
+            server.enqueue(new MockResponse.Builder().body(response).build());
+            server.enqueue(new MockResponse.Builder().body(response).build());
+            server.enqueue(new MockResponse.Builder().code(500).body("overloaded").build());
+
+            String configJson = "{\"mode\":\"standard-service\",\"service\":\"" + url + "\","
+                    + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                    + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                    + "\"autoMatch\":true,\"columnDetails\":[],\"limit\":0,\"maxConcurrentBatches\":3}";
+            StandardReconConfig config = StandardReconConfig.reconstruct(configJson);
+            TestUtils.isSerializedTo(config, configJson);
+            StandardReconConfig.StandardReconJob job = new StandardReconConfig.StandardReconJob();
+            job.text = "david lynch";
+            job.code = "{\"query\":\"david lynch\"}";
+            List<ReconJob> jobList = List.of(job);
+
+            AdaptiveConcurrencyLimit limit = config.createConcurrencyLimit();
+            assertEquals(limit.getMax(), 3);
+            assertEquals(limit.getLimit(), 1);
+            config.batchRecon(jobList, 1234L, limit);
+            assertEquals(limit.getLimit(), 2);
+            config.batchRecon(jobList, 1234L, limit);
+            config.batchRecon(jobList, 1234L, limit);
+            assertEquals(limit.getLimit(), 3);
+            // the error response halves the limit
+            List<Recon> recons = config.batchRecon(jobList, 1234L, limit);
+            assertNotNull(recons.get(0).error);
+            assertEquals(limit.getLimit(), 1);
+            // each run starts from its own limit
+            assertEquals(config.createConcurrencyLimit().getLimit(), 1);
+        }
+    }
+
+    @Test
+    public void concurrentBatchesAreOptIn() throws Exception {
+        String configJson = "{\"mode\":\"standard-service\",\"service\":\"http://localhost/api\","
+                + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                + "\"autoMatch\":true,\"columnDetails\":[],\"limit\":0}";
+        StandardReconConfig config = StandardReconConfig.reconstruct(configJson);
+
+        assertEquals(config.createConcurrencyLimit().getMax(), 1);
+    }
+
+    @Test
+    public void batchReconUsesCache() throws Exception {
+        File cacheDir = Files.createTempDirectory("recon-cache").toFile();
+        ReconResultCache cache = new ReconResultCache(cacheDir, 60_000, 1024 * 1024);
+        ProjectManager.singleton = new ProjectManagerStub() {
+
+            @Override
+            public ReconResultCache getReconResultCache() {
+                return cache;
+            }
+        };
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            HttpUrl url = server.url("/api");
+            server.enqueue(new MockResponse.Builder()
+                    .body("{\"q0\":{\"result\":[{\"id\":\"Q2700\",\"name\":\"David Lynch\",\"score\":100,\"match\":true}]}}")
+                    .build());
+            server.enqueue(new MockResponse.Builder()
+                    .body("{\"q0\":{\"result\":[{\"id\":\"Q42\",\"name\":\"Douglas Adams\",\"score\":100}]}}")
+                    .build());
+
+            String configJson = "{\"mode\":\"standard-service\",\"service\":\"" + url + "\","
+                    + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                    + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                    + "\"autoMatch\":true,\"columnDetails\":[],\"limit\":0}";
+            StandardReconConfig config = StandardReconConfig.reconstruct(configJson);
+            StandardReconConfig.StandardReconJob lynch = new StandardReconConfig.StandardReconJob();
+            lynch.text = "david lynch";
+            lynch.code = "{\"query\":\"david lynch\"}";
+            StandardReconConfig.StandardReconJob adams = new StandardReconConfig.StandardReconJob();
+            adams.text = "douglas adams";
+            adams.code = "{\"query\":\"douglas adams\"}";
+
+            config.batchRecon(List.of(lynch), 1234L);
+            assertEquals(server.getRequestCount(), 1);
+
+            // only the value missing from the cache is sent to the service
+            List<Recon> recons = config.batchRecon(List.of(lynch, adams), 1234L);
+            assertEquals(server.getRequestCount(), 2);
+            assertTrue(server.takeRequest().getBody().utf8().contains("david"));
+            assertTrue(!server.takeRequest().getBody().utf8().contains("david"));
+            assertEquals(recons.get(0).candidates.get(0).id, "Q2700");
+            assertEquals(recons.get(0).service, url.toString());
+            assertEquals(recons.get(1).candidates.get(0).id, "Q42");
+
+            // the cache can be bypassed
+            StandardReconConfig bypassing = StandardReconConfig.reconstruct(
+                    configJson.replace("\"limit\":0", "\"limit\":0,\"bypassCache\":true"));
+            TestUtils.isSerializedTo(bypassing, configJson.replace("\"limit\":0", "\"limit\":0,\"bypassCache\":true"));
+            server.enqueue(new MockResponse.Builder().body("{\"q0\":{\"result\":[]}}").build());
+            recons = bypassing.batchRecon(List.of(lynch), 1234L);
+            assertEquals(server.getRequestCount(), 3);
+            assertNull(recons.get(0).candidates);
+        } finally {
+            FileUtils.deleteDirectory(cacheDir);
+        }
+    }
+
     @Test
     public void batchReconTestDNSError() throws Exception {
         HttpUrl url = HttpUrl.parse("https://hewsjsajsajk.com/search?q=ujdjsaoiksa");
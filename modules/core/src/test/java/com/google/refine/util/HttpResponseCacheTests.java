@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (C) 2026, OpenRefine contributors
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package com.google.refine.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import org.apache.commons.io.FileUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HttpResponseCacheTests {
+
+    File dir;
+    HttpResponseCache cache;
+    HttpClient client;
+    MockWebServer server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("http-cache").toFile();
+        cache = new HttpResponseCache(dir, 60_000, 1024 * 1024);
+        client = new HttpClient();
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testFreshResponseIsReused() throws IOException {
+        server.enqueue(new MockResponse.Builder().setHeader("Cache-Control", "max-age=60").body("first").build());
+        String url = server.url("/fresh").toString();
+
+        assertEquals(client.getAsString(url, null, cache), "first");
+        assertEquals(client.getAsString(url, null, cache), "first");
+        assertEquals(server.getRequestCount(), 1);
+        assertEquals(cache.getHitCount(), 1);
+
+        // the cache is shared with other clients
+        assertEquals(new HttpClient().getAsString(url, null, cache), "first");
+        assertEquals(server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void testStaleResponseIsRevalidated() throws Exception {
+        server.enqueue(new MockResponse.Builder()
+                .setHeader("Cache-Control", "no-cache")
+                .setHeader("ETag", "\"v1\"")
+                .body("first").build());
+        server.enqueue(new MockResponse.Builder().code(304).build());
+        server.enqueue(new MockResponse.Builder()
+                .setHeader("Cache-Control", "no-cache")
+                .setHeader("ETag", "\"v2\"")
+                .body("second").build());
+        String url = server.url("/revalidated").toString();
+
+        assertEquals(client.getAsString(url, null, cache), "first");
+        // not modified: the cached body is returned
+        assertEquals(client.getAsString(url, null, cache), "first");
+        // modified: the new body replaces the cached one
+        assertEquals(client.getAsString(url, null, cache), "second");
+
+        assertNull(server.takeRequest().getHeaders().get("If-None-Match"));
+        RecordedRequest conditional = server.takeRequest();
+        assertEquals(conditional.getHeaders().get("If-None-Match"), "\"v1\"");
+        assertEquals(server.takeRequest().getHeaders().get("If-None-Match"), "\"v1\"");
+        assertEquals(cache.get(url, null).etag, "\"v2\"");
+    }
+
+    @Test
+    public void testNoStore() throws IOException {
+        server.enqueue(new MockResponse.Builder().setHeader("Cache-Control", "no-store").body("first").build());
+        server.enqueue(new MockResponse.Builder().setHeader("Cache-Control", "no-store").body("second").build());
+        String url = server.url("/private").toString();
+
+        assertEquals(client.getAsString(url, null, cache), "first");
+        assertEquals(client.getAsString(url, null, cache), "second");
+        assertEquals(cache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testHeadersAreKeys() throws IOException {
+        server.enqueue(new MockResponse.Builder().body("json").build());
+        server.enqueue(new MockResponse.Builder().body("xml").build());
+        String url = server.url("/negotiated").toString();
+        Header[] json = new Header[] { new BasicHeader("Accept", "application/json") };
+        Header[] xml = new Header[] { new BasicHeader("Accept", "application/xml") };
+
+        assertEquals(client.getAsString(url, json, cache), "json");
+        assertEquals(client.getAsString(url, xml, cache), "xml");
+        assertEquals(client.getAsString(url, new Header[] { new BasicHeader("accept", "application/json") }, cache), "json");
+        assertEquals(server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void testHeaderValuesAreNotStored() throws IOException {
+        server.enqueue(new MockResponse.Builder().setHeader("Cache-Control", "max-age=60").body("secret data").build());
+        String url = server.url("/authenticated").toString();
+        Header[] headers = new Header[] {
+                new BasicHeader("Authorization", "Bearer s3cr3t-t0ken"),
+                new BasicHeader("Cookie", "session=c00kie-value")
+        };
+
+        assertEquals(client.getAsString(url, headers, cache), "secret data");
+        assertEquals(client.getAsString(url, headers, cache), "secret data");
+        assertEquals(server.getRequestCount(), 1);
+
+        Collection<File> files = FileUtils.listFiles(dir, null, true);
+        assertFalse(files.isEmpty());
+        for (File file : files) {
+            String content = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+            assertFalse(content.contains("s3cr3t-t0ken"), file.getName());
+            assertFalse(content.contains("c00kie-value"), file.getName());
+        }
+        // other credentials do not get the cached response
+        assertNull(cache.get(url, new Header[] { new BasicHeader("Authorization", "Bearer other") }));
+    }
+
+    @Test
+    public void testExpires() {
+        HttpResponseCache noDefault = new HttpResponseCache(dir, 0, 1024);
+        BasicHttpResponse response = new BasicHttpResponse(200);
+        response.setHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT");
+        response.setHeader("Expires", "Tue, 15 Nov 1994 08:13:31 GMT");
+        assertEquals(noDefault.getFreshnessLifetime(response, null), 60_000);
+        response.setHeader("Age", "10");
+        assertEquals(noDefault.getFreshnessLifetime(response, "public, max-age=\"30\""), 20_000);
+    }
+}